@@ -0,0 +1,196 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import org.carrot2.clustering.Document;
+
+/**
+ * Deterministic, synthetic document collections used as benchmark input.
+ *
+ * <p>Documents are short, search-result-like snippets (a title and content field). Each document
+ * belongs to one of a number of topics; a topic has its own set of content words and recurring
+ * phrases, so that all clustering algorithms have something to discover. Stop words are taken from
+ * the language's lexical resources and content words are composed of syllables of those stop words,
+ * so the text is language-specific enough to exercise the stemmer and stop word marking.
+ */
+public final class BenchmarkDocuments {
+  private static final long SEED = 0xCA22_0B3EL;
+
+  private static final Map<String, List<Document>> cache = new ConcurrentHashMap<>();
+
+  private BenchmarkDocuments() {}
+
+  /** Returns a (cached) collection of documents for the given language and document count. */
+  public static List<Document> get(String language, int documentCount) {
+    return cache.computeIfAbsent(
+        language + ":" + documentCount, (key) -> generate(language, documentCount));
+  }
+
+  private static List<Document> generate(String language, int documentCount) {
+    final Random rnd = new Random(SEED);
+    final List<String> stopwords = stopwords(language);
+    final List<String> syllables = syllables(stopwords);
+
+    final int backgroundWords = 5000;
+    final List<String> background = new ArrayList<>();
+    for (int i = 0; i < backgroundWords; i++) {
+      background.add(word(rnd, syllables));
+    }
+
+    final int topicCount = Math.max(5, Math.min(200, (int) Math.sqrt(documentCount)));
+    final List<Topic> topics = new ArrayList<>();
+    for (int i = 0; i < topicCount; i++) {
+      topics.add(new Topic(rnd, syllables));
+    }
+
+    final List<Document> documents = new ArrayList<>(documentCount);
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < documentCount; i++) {
+      final Topic topic = topics.get(rnd.nextInt(topics.size()));
+      final String title = text(sb, rnd, topic, stopwords, background, 4 + rnd.nextInt(7));
+      final String content = text(sb, rnd, topic, stopwords, background, 20 + rnd.nextInt(21));
+      documents.add(new BenchmarkDocument(title, content));
+    }
+    return Collections.unmodifiableList(documents);
+  }
+
+  private static String text(
+      StringBuilder sb,
+      Random rnd,
+      Topic topic,
+      List<String> stopwords,
+      List<String> background,
+      int tokens) {
+    sb.setLength(0);
+    for (int i = 0; i < tokens; i++) {
+      if (sb.length() > 0) {
+        sb.append(i % 12 == 11 ? ". " : " ");
+      }
+
+      final int kind = rnd.nextInt(100);
+      if (kind < 30 && !stopwords.isEmpty()) {
+        sb.append(stopwords.get(rnd.nextInt(stopwords.size())));
+      } else if (kind < 65) {
+        sb.append(topic.words.get(rnd.nextInt(topic.words.size())));
+      } else if (kind < 80) {
+        sb.append(topic.phrases.get(rnd.nextInt(topic.phrases.size())));
+      } else {
+        // Skew background word frequencies towards the beginning of the list.
+        final double r = rnd.nextDouble();
+        sb.append(background.get((int) (r * r * r * background.size())));
+      }
+    }
+    return sb.append('.').toString();
+  }
+
+  private static String word(Random rnd, List<String> syllables) {
+    final int length = 2 + rnd.nextInt(3);
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      sb.append(syllables.get(rnd.nextInt(syllables.size())));
+    }
+    return sb.toString();
+  }
+
+  private static List<String> syllables(List<String> stopwords) {
+    final LinkedHashSet<String> syllables = new LinkedHashSet<>();
+    for (String word : stopwords) {
+      for (int i = 0; i + 2 <= word.length(); i += 2) {
+        final String s = word.substring(i, Math.min(word.length(), i + 3));
+        if (s.codePoints().allMatch(Character::isLetter)) {
+          syllables.add(s);
+        }
+      }
+    }
+
+    if (syllables.size() < 20) {
+      for (String s : "ba ko ri tem sul var den mo pli gra nu fes tor lia men qua".split(" ")) {
+        syllables.add(s);
+      }
+    }
+    return new ArrayList<>(syllables);
+  }
+
+  private static List<String> stopwords(String language) {
+    final String resource =
+        "/org/carrot2/language/" + language.toLowerCase(Locale.ROOT) + ".stopwords.utf8";
+    final List<String> stopwords = new ArrayList<>();
+    try (InputStream is = BenchmarkDocuments.class.getResourceAsStream(resource)) {
+      if (is != null) {
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+          line = line.trim();
+          if (!line.isEmpty() && !line.startsWith("#")) {
+            stopwords.add(line);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return stopwords;
+  }
+
+  private static final class Topic {
+    final List<String> words = new ArrayList<>();
+    final List<String> phrases = new ArrayList<>();
+
+    Topic(Random rnd, List<String> syllables) {
+      for (int i = 0; i < 40; i++) {
+        words.add(word(rnd, syllables));
+      }
+      for (int i = 0; i < 8; i++) {
+        final int length = 2 + rnd.nextInt(3);
+        final StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < length; j++) {
+          if (j > 0) {
+            sb.append(' ');
+          }
+          sb.append(words.get(rnd.nextInt(words.size())));
+        }
+        phrases.add(sb.toString());
+      }
+    }
+  }
+
+  private static final class BenchmarkDocument implements Document {
+    private final String title;
+    private final String content;
+
+    BenchmarkDocument(String title, String content) {
+      this.title = title;
+      this.content = content;
+    }
+
+    @Override
+    public void visitFields(BiConsumer<String, String> fieldConsumer) {
+      fieldConsumer.accept("title", title);
+      fieldConsumer.accept("content", content);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.carrot2.clustering.Cluster;
+import org.carrot2.clustering.Document;
+import org.carrot2.clustering.kmeans.BisectingKMeansClusteringAlgorithm;
+import org.carrot2.clustering.lingo.LingoClusteringAlgorithm;
+import org.carrot2.clustering.stc.STCClusteringAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** End-to-end clustering benchmarks, one per algorithm (with default attribute values). */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xmx4g"})
+public class ClusteringAlgorithmsBenchmark {
+  @Benchmark
+  public List<Cluster<Document>> lingo(DocumentsState input) {
+    return new LingoClusteringAlgorithm()
+        .cluster(input.documentList.stream(), input.languageComponents);
+  }
+
+  @Benchmark
+  public List<Cluster<Document>> stc(DocumentsState input) {
+    return new STCClusteringAlgorithm()
+        .cluster(input.documentList.stream(), input.languageComponents);
+  }
+
+  @Benchmark
+  public List<Cluster<Document>> bisectingKMeans(DocumentsState input) {
+    return new BisectingKMeansClusteringAlgorithm()
+        .cluster(input.documentList.stream(), input.languageComponents);
+  }
+}
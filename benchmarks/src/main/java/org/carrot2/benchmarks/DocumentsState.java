@@ -0,0 +1,44 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import org.carrot2.clustering.Document;
+import org.carrot2.language.LanguageComponents;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark input shared by all benchmarks: a set of documents of a given size and the language
+ * components for the documents' language.
+ */
+@State(Scope.Benchmark)
+public class DocumentsState {
+  @Param({"100", "1000", "10000", "50000"})
+  public int documents;
+
+  @Param({"English", "German"})
+  public String language;
+
+  public List<Document> documentList;
+  public LanguageComponents languageComponents;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    languageComponents =
+        LanguageComponents.loader().limitToLanguages(language).load().language(language);
+    documentList = BenchmarkDocuments.get(language, documents);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.carrot2.benchmarks.DocumentsState;
+import org.carrot2.language.LanguageComponents;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of individual preprocessing stages, in the order they are invoked by {@link
+ * CompletePreprocessingPipeline}.
+ *
+ * <p>Each stage modifies the preprocessing context, so the context is recreated (and all preceding
+ * stages applied to it) before every invocation of the benchmarked stage. This setup is not part of
+ * the measurement, but it does make the benchmarks slower to run.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xmx4g"})
+public class PreprocessingStagesBenchmark {
+  /** Language components with an optional {@link TokenizationExecutor}. */
+  @State(Scope.Benchmark)
+  public static class Tokenization {
+    /** The number of tokenization threads, 1 means sequential tokenization. */
+    @Param({"1", "4"})
+    public int threads;
+
+    ExecutorService executor;
+    LanguageComponents languageComponents;
+
+    @Setup(Level.Trial)
+    public void setup(DocumentsState input) {
+      languageComponents = input.languageComponents;
+      if (threads > 1) {
+        executor = Executors.newFixedThreadPool(threads);
+        TokenizationExecutor tokenizationExecutor = new TokenizationExecutor(executor);
+        languageComponents =
+            languageComponents.override(TokenizationExecutor.class, () -> tokenizationExecutor);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      if (executor != null) {
+        executor.shutdown();
+      }
+    }
+  }
+
+  /** A context after tokenization. */
+  @State(Scope.Thread)
+  public static class Tokenized {
+    PreprocessingContext context;
+
+    @Setup(Level.Invocation)
+    public void setup(DocumentsState input) {
+      context = new PreprocessingContext(input.languageComponents);
+      new InputTokenizer().tokenize(context, input.documentList.stream());
+    }
+  }
+
+  /** A context after tokenization and case normalization. */
+  @State(Scope.Thread)
+  public static class CaseNormalized {
+    PreprocessingContext context;
+
+    @Setup(Level.Invocation)
+    public void setup(DocumentsState input) {
+      context = new PreprocessingContext(input.languageComponents);
+      new InputTokenizer().tokenize(context, input.documentList.stream());
+      new CaseNormalizer().normalize(context, 1);
+    }
+  }
+
+  /** A context after all the stages preceding phrase extraction. */
+  @State(Scope.Thread)
+  public static class StopWordsMarked {
+    /** Runs for all suffix sorting algorithms, unless specified otherwise. */
+    @Param public SuffixSortingAlgorithm suffixSorting;
+
+    PreprocessingContext context;
+
+    @Setup(Level.Invocation)
+    public void setup(DocumentsState input) {
+      context = new PreprocessingContext(input.languageComponents);
+      new InputTokenizer().tokenize(context, input.documentList.stream());
+      new CaseNormalizer().normalize(context, 1);
+      new LanguageModelStemmer().stem(context, "");
+      new StopListMarker().mark(context);
+    }
+  }
+
+  @Benchmark
+  public PreprocessingContext tokenize(DocumentsState input, Tokenization tokenization) {
+    PreprocessingContext context = new PreprocessingContext(tokenization.languageComponents);
+    new InputTokenizer().tokenize(context, input.documentList.stream());
+    return context;
+  }
+
+  @Benchmark
+  public PreprocessingContext normalize(Tokenized input) {
+    new CaseNormalizer().normalize(input.context, 1);
+    return input.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext stem(CaseNormalized input) {
+    new LanguageModelStemmer().stem(input.context, "");
+    return input.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext extractPhrases(StopWordsMarked input) {
+    new PhraseExtractor(1, input.suffixSorting).extractPhrases(input.context);
+    return input.context;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.suffixtree;
+
+import java.util.concurrent.TimeUnit;
+import org.carrot2.benchmarks.DocumentsState;
+import org.carrot2.text.preprocessing.BasicPreprocessingPipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of suffix tree construction with different transition storage, on the sequence of
+ * words built by the STC algorithm (each phrase ends with a unique separator).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xmx4g"})
+public class SuffixTreeBenchmark {
+  /** Words of preprocessed documents, with phrases terminated by unique separators. */
+  @State(Scope.Benchmark)
+  public static class Phrases {
+    /** Runs for all transition storage layouts, unless specified otherwise. */
+    @Param public SuffixTree.TransitionStorage transitionStorage;
+
+    Sequence sequence;
+
+    @Setup(Level.Trial)
+    public void setup(DocumentsState input) {
+      final int[] wordIndex =
+          new BasicPreprocessingPipeline()
+              .preprocess(input.documentList.stream(), "", input.languageComponents)
+              .allTokens
+              .wordIndex;
+
+      // Same as STC's sequence builder: one separator after each phrase.
+      final int[] codes = new int[wordIndex.length];
+      int size = 0;
+      int separator = -1;
+      for (int i = 0; i < wordIndex.length; i++) {
+        if (wordIndex[i] >= 0) {
+          codes[size++] = wordIndex[i];
+        } else if (size > 0 && codes[size - 1] >= 0) {
+          codes[size++] = separator--;
+        }
+      }
+      sequence = new IntegerSequence(codes, 0, size);
+    }
+  }
+
+  @Benchmark
+  public SuffixTree build(Phrases input) {
+    return SuffixTreeBuilder.from(input.sequence)
+        .withTransitionStorage(input.transitionStorage)
+        .build();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.vsm;
+
+import java.util.concurrent.TimeUnit;
+import org.carrot2.benchmarks.DocumentsState;
+import org.carrot2.text.preprocessing.CompletePreprocessingPipeline;
+import org.carrot2.text.preprocessing.PreprocessingContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the term-document matrix construction and reduction stages of the Lingo algorithm,
+ * with default attribute values.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xmx4g"})
+public class VectorSpaceModelStagesBenchmark {
+  /** Fully preprocessed documents. The preprocessing context is not modified by the VSM stages. */
+  @State(Scope.Thread)
+  public static class Preprocessed {
+    PreprocessingContext context;
+
+    @Setup(Level.Trial)
+    public void setup(DocumentsState input) {
+      context =
+          new CompletePreprocessingPipeline()
+              .preprocess(input.documentList.stream(), "", input.languageComponents);
+    }
+  }
+
+  /**
+   * A context with the term-document matrix built. The matrix is modified by the reducer so it is
+   * rebuilt before every invocation.
+   */
+  @State(Scope.Thread)
+  public static class MatrixBuilt {
+    ReducedVectorSpaceModelContext context;
+    int dimensions;
+
+    @Setup(Level.Invocation)
+    public void setup(Preprocessed preprocessed, DocumentsState input) {
+      VectorSpaceModelContext vsmContext = new VectorSpaceModelContext(preprocessed.context);
+      new TermDocumentMatrixBuilder().buildTermDocumentMatrix(vsmContext);
+      context = new ReducedVectorSpaceModelContext(vsmContext);
+
+      // Same as Lingo's heuristic for the default desired cluster count.
+      dimensions = Math.min((int) (3.0 * Math.sqrt(input.documents)), input.documents);
+    }
+  }
+
+  @Benchmark
+  public VectorSpaceModelContext buildTermDocumentMatrix(Preprocessed input) {
+    VectorSpaceModelContext vsmContext = new VectorSpaceModelContext(input.context);
+    new TermDocumentMatrixBuilder().buildTermDocumentMatrix(vsmContext);
+    return vsmContext;
+  }
+
+  @Benchmark
+  public ReducedVectorSpaceModelContext reduce(MatrixBuilt input) {
+    new TermDocumentMatrixReducer().reduce(input.context, input.dimensions);
+    return input.context;
+  }
+}
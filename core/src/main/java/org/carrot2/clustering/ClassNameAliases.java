@@ -23,6 +23,7 @@ import org.carrot2.math.matrix.LocalNonnegativeMatrixFactorizationFactory;
 import org.carrot2.math.matrix.NonnegativeMatrixFactorizationEDFactory;
 import org.carrot2.math.matrix.NonnegativeMatrixFactorizationKLFactory;
 import org.carrot2.math.matrix.PartialSingularValueDecompositionFactory;
+import org.carrot2.math.matrix.RandomizedSingularValueDecompositionFactory;
 import org.carrot2.text.preprocessing.BasicPreprocessingPipeline;
 import org.carrot2.text.preprocessing.CompletePreprocessingPipeline;
 import org.carrot2.text.preprocessing.DocumentAssigner;
@@ -107,7 +108,11 @@ public class ClassNameAliases implements AliasMapperFactory {
         .alias(
             "PartialSingularValueDecompositionFactory",
             PartialSingularValueDecompositionFactory.class,
-            PartialSingularValueDecompositionFactory::new);
+            PartialSingularValueDecompositionFactory::new)
+        .alias(
+            "RandomizedSingularValueDecompositionFactory",
+            RandomizedSingularValueDecompositionFactory.class,
+            RandomizedSingularValueDecompositionFactory::new);
   }
 
   @Override
@@ -0,0 +1,32 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.clustering;
+
+import org.carrot2.language.LanguageComponents;
+
+/**
+ * A listener receiving timing, allocation and data size statistics of each processing stage of a
+ * clustering algorithm (preprocessing stages, matrix building and factorization, label assignment
+ * and so on).
+ *
+ * <p>The listener is passed to algorithms together with {@link LanguageComponents}, for example:
+ *
+ * <pre>{@code
+ * algorithm.cluster(documents, languageComponents.override(StageListener.class, () -> listener));
+ * }</pre>
+ *
+ * <p>Notifications are delivered synchronously, on the thread running the algorithm. Nested stages
+ * (preprocessing stages inside the preprocessing stage of an algorithm) are reported before the
+ * stage they are part of. No statistics are collected if there is no listener.
+ */
+public interface StageListener {
+  void stageCompleted(StageStatistics statistics);
+}
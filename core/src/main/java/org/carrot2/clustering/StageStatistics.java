@@ -0,0 +1,83 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.clustering;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/** Statistics of a single completed processing stage, see {@link StageListener}. */
+public final class StageStatistics {
+  private final String stage;
+  private final long wallTimeNanos;
+  private final long cpuTimeNanos;
+  private final long allocatedBytes;
+  private final Map<String, Long> sizes;
+
+  public StageStatistics(
+      String stage,
+      long wallTimeNanos,
+      long cpuTimeNanos,
+      long allocatedBytes,
+      Map<String, Long> sizes) {
+    this.stage = stage;
+    this.wallTimeNanos = wallTimeNanos;
+    this.cpuTimeNanos = cpuTimeNanos;
+    this.allocatedBytes = allocatedBytes;
+    this.sizes = Collections.unmodifiableMap(sizes);
+  }
+
+  /** @return Returns the name of the stage. */
+  public String getStage() {
+    return stage;
+  }
+
+  /** @return Returns the elapsed (wall clock) time of the stage, in nanoseconds. */
+  public long getWallTimeNanos() {
+    return wallTimeNanos;
+  }
+
+  /**
+   * @return Returns the CPU time consumed by the current thread during the stage, in nanoseconds or
+   *     -1 if thread CPU time measurement is not supported by the JVM.
+   */
+  public long getCpuTimeNanos() {
+    return cpuTimeNanos;
+  }
+
+  /**
+   * @return Returns the number of bytes allocated by the current thread during the stage or -1 if
+   *     thread allocation measurement is not supported by the JVM.
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * @return Returns the sizes of data structures after the stage has completed (the number of
+   *     tokens, words, stems, phrases, matrix dimensions, etc.), depending on the stage.
+   */
+  public Map<String, Long> getSizes() {
+    return sizes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        Locale.ROOT,
+        "%s [wall: %.2f ms, cpu: %.2f ms, allocated: %d bytes, sizes: %s]",
+        stage,
+        wallTimeNanos / 1e6,
+        cpuTimeNanos / 1e6,
+        allocatedBytes,
+        sizes);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.clustering;
+
+import com.carrotsearch.hppc.LongArrayList;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.carrot2.language.LanguageComponents;
+import org.carrot2.util.SuppressForbidden;
+
+/**
+ * Measures processing stages and reports them to a {@link StageListener}. Stages are delimited with
+ * {@link #begin()} and one of the <code>end</code> methods and can be nested.
+ *
+ * <p>If no listener is available, a no-op tracker is returned. Stage size collectors should then be
+ * non-capturing lambdas (with the measured object passed as the <code>subject</code>) so that
+ * nothing is computed or allocated.
+ */
+public abstract class StageTracker {
+  private static final StageTracker NOOP =
+      new StageTracker() {
+        @Override
+        public void begin() {}
+
+        @Override
+        public <T> void end(
+            String stage, T subject, BiConsumer<? super T, Map<String, Long>> sizes) {}
+      };
+
+  private StageTracker() {}
+
+  /**
+   * Returns a tracker reporting to the {@link StageListener} provided with the language components
+   * or a no-op tracker if there is no listener.
+   */
+  public static StageTracker of(LanguageComponents languageComponents) {
+    if (languageComponents.components().contains(StageListener.class)) {
+      return new Reporting(languageComponents.get(StageListener.class));
+    } else {
+      return NOOP;
+    }
+  }
+
+  /** Marks the beginning of a stage. */
+  public abstract void begin();
+
+  /** Marks the end of the most recently started stage. */
+  public void end(String stage) {
+    end(stage, null, null);
+  }
+
+  /**
+   * Marks the end of the most recently started stage, collecting the sizes of data structures of
+   * the <code>subject</code> with the <code>sizes</code> function.
+   */
+  public abstract <T> void end(
+      String stage, T subject, BiConsumer<? super T, Map<String, Long>> sizes);
+
+  private static final class Reporting extends StageTracker {
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final StageListener listener;
+    private final LongArrayList stack = new LongArrayList();
+
+    Reporting(StageListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void begin() {
+      stack.add(System.nanoTime(), cpuTime(), allocatedBytes());
+    }
+
+    @Override
+    public <T> void end(String stage, T subject, BiConsumer<? super T, Map<String, Long>> sizes) {
+      final long wallEnd = System.nanoTime();
+      final long cpuEnd = cpuTime();
+      final long allocatedEnd = allocatedBytes();
+
+      if (stack.size() < 3) {
+        throw new IllegalStateException("No matching begin() for stage: " + stage);
+      }
+      final int top = stack.size() - 3;
+      final long wallStart = stack.get(top);
+      final long cpuStart = stack.get(top + 1);
+      final long allocatedStart = stack.get(top + 2);
+      stack.elementsCount = top;
+
+      final Map<String, Long> sizeMap = new LinkedHashMap<>();
+      if (sizes != null) {
+        sizes.accept(subject, sizeMap);
+      }
+
+      listener.stageCompleted(
+          new StageStatistics(
+              stage,
+              wallEnd - wallStart,
+              cpuStart < 0 || cpuEnd < 0 ? -1 : cpuEnd - cpuStart,
+              allocatedStart < 0 || allocatedEnd < 0 ? -1 : allocatedEnd - allocatedStart,
+              sizeMap));
+    }
+
+    private static long cpuTime() {
+      if (threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled()) {
+        return threadBean.getCurrentThreadCpuTime();
+      }
+      return -1;
+    }
+
+    @SuppressForbidden("Thread allocation counters are only available via com.sun.management.")
+    private static long allocatedBytes() {
+      if (threadBean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+        if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+          return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+      }
+      return -1;
+    }
+  }
+}
@@ -25,6 +25,7 @@ import org.carrot2.clustering.Cluster;
 import org.carrot2.clustering.ClusteringAlgorithm;
 import org.carrot2.clustering.Document;
 import org.carrot2.clustering.SharedInfrastructure;
+import org.carrot2.clustering.StageTracker;
 import org.carrot2.language.LanguageComponents;
 import org.carrot2.language.LexicalData;
 import org.carrot2.language.Stemmer;
@@ -33,7 +34,8 @@ import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix1D;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix1D;
-import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.carrot2.math.matrix.MatrixPrecision;
+import org.carrot2.math.matrix.MatrixUtils;
 import org.carrot2.text.preprocessing.BasicPreprocessingPipeline;
 import org.carrot2.text.preprocessing.LabelFormatter;
 import org.carrot2.text.preprocessing.PreprocessingContext;
@@ -146,10 +148,13 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
   public <T extends Document> List<Cluster<T>> cluster(
       Stream<? extends T> docStream, LanguageComponents languageComponents) {
     List<T> documents = docStream.collect(Collectors.toList());
+    final StageTracker tracker = StageTracker.of(languageComponents);
 
     // Preprocessing of documents
+    tracker.begin();
     final PreprocessingContext preprocessingContext =
         preprocessing.preprocess(documents.stream(), queryHint.get(), languageComponents);
+    tracker.end("preprocessing", preprocessingContext, PreprocessingContext::collectSizes);
 
     // Add trivial AllLabels so that we can reuse the common TD matrix builder
     final int[] stemsMfow = preprocessingContext.allStems.mostFrequentOriginalWordIndex;
@@ -173,8 +178,13 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
       final ReducedVectorSpaceModelContext reducedVsmContext =
           new ReducedVectorSpaceModelContext(vsmContext);
 
+      tracker.begin();
       matrixBuilder.buildTermDocumentMatrix(vsmContext);
+      tracker.end("termDocumentMatrix", vsmContext.termDocumentMatrix, MatrixUtils::collectSizes);
+
+      tracker.begin();
       matrixBuilder.buildTermPhraseMatrix(vsmContext);
+      tracker.end("termPhraseMatrix", vsmContext.termPhraseMatrix, MatrixUtils::collectSizes);
 
       // Prepare rowIndex -> stemIndex mapping for labeling
       final IntIntHashMap rowToStemIndex = new IntIntHashMap();
@@ -185,13 +195,16 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
       final DoubleMatrix2D tdMatrix;
       if (useDimensionalityReduction.get()
           && clusterCount.get() * 2 < preprocessingContext.documentCount) {
+        tracker.begin();
         matrixReducer.reduce(reducedVsmContext, clusterCount.get() * 2);
+        tracker.end("matrixReducer", reducedVsmContext.baseMatrix, MatrixUtils::collectSizes);
         tdMatrix = reducedVsmContext.coefficientMatrix.viewDice();
       } else {
         tdMatrix = vsmContext.termDocumentMatrix;
       }
 
       // Initial selection containing all columns, initial clustering
+      tracker.begin();
       final IntArrayList columns = new IntArrayList(tdMatrix.columns());
       for (int c = 0; c < tdMatrix.columns(); c++) {
         columns.add(c);
@@ -223,6 +236,9 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
         }
       }
 
+      tracker.end("bisection", rawClusters, BisectingKMeansClusteringAlgorithm::clusterSizes);
+
+      tracker.begin();
       LabelFormatter labelFormatter = languageComponents.get(LabelFormatter.class);
       for (IntArrayList rawCluster : rawClusters) {
         final Cluster<T> cluster = new Cluster<>();
@@ -241,11 +257,16 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
           clusters.add(cluster);
         }
       }
+      tracker.end("labeling", clusters, BisectingKMeansClusteringAlgorithm::clusterSizes);
     }
 
     return SharedInfrastructure.reorderByDescendingSizeAndLabel(clusters);
   }
 
+  private static void clusterSizes(List<?> clusters, Map<String, Long> sizes) {
+    sizes.put("clusters", (long) clusters.size());
+  }
+
   private static final Comparator<IntArrayList> BY_SIZE_DESCENDING =
       (o1, o2) -> o2.size() - o1.size();
 
@@ -315,10 +336,12 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
     }
 
     // Matrices for centroids and document-centroid similarities
+    final MatrixPrecision precision = MatrixPrecision.of(selected);
     final DoubleMatrix2D centroids =
-        new DenseDoubleMatrix2D(selected.rows(), partitions)
+        precision
+            .newDenseMatrix(selected.rows(), partitions)
             .assign(selected.viewPart(0, 0, selected.rows(), partitions));
-    final DoubleMatrix2D similarities = new DenseDoubleMatrix2D(partitions, selected.columns());
+    final DoubleMatrix2D similarities = precision.newDenseMatrix(partitions, selected.columns());
 
     // Run a fixed number of K-means iterations
     for (int it = 0; it < iterations; it++) {
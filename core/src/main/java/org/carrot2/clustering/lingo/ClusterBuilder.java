@@ -26,6 +26,7 @@ import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
 import org.carrot2.text.preprocessing.PreprocessingContext;
 import org.carrot2.text.vsm.TermWeighting;
 import org.carrot2.text.vsm.VectorSpaceModelContext;
+import org.carrot2.util.CompressedBitSet;
 import org.carrot2.util.GraphUtils;
 
 /**
@@ -106,7 +107,7 @@ public class ClusterBuilder extends AttrComposite {
     final int[] mostFrequentOriginalWordIndex =
         preprocessingContext.allStems.mostFrequentOriginalWordIndex;
     final int[][] phrasesWordIndices = preprocessingContext.allPhrases.wordIndices;
-    final BitSet[] labelsDocumentIndices = preprocessingContext.allLabels.documentIndices;
+    final CompressedBitSet[] labelsDocumentIndices = preprocessingContext.allLabels.documentIndices;
     final int wordCount = preprocessingContext.allWords.image.length;
     final int documentCount = preprocessingContext.documentCount;
 
@@ -208,7 +209,7 @@ public class ClusterBuilder extends AttrComposite {
   }
 
   private double getDocumentCountPenalty(
-      int labelIndex, int documentCount, BitSet[] labelsDocumentIndices) {
+      int labelIndex, int documentCount, CompressedBitSet[] labelsDocumentIndices) {
     return documentSizeCoefficients.getValue(
         labelsDocumentIndices[labelIndex].cardinality() / (double) documentCount);
   }
@@ -216,10 +217,12 @@ public class ClusterBuilder extends AttrComposite {
   /** Assigns documents to cluster labels. */
   void assignDocuments(LingoProcessingContext context) {
     final int[] clusterLabelFeatureIndex = context.clusterLabelFeatureIndex;
-    final BitSet[] clusterDocuments = new BitSet[clusterLabelFeatureIndex.length];
+    final CompressedBitSet[] clusterDocuments =
+        new CompressedBitSet[clusterLabelFeatureIndex.length];
 
     final int[] labelsFeatureIndex = context.preprocessingContext.allLabels.featureIndex;
-    final BitSet[] documentIndices = context.preprocessingContext.allLabels.documentIndices;
+    final CompressedBitSet[] documentIndices =
+        context.preprocessingContext.allLabels.documentIndices;
     final IntIntHashMap featureValueToIndex = new IntIntHashMap();
 
     for (int i = 0; i < labelsFeatureIndex.length; i++) {
@@ -239,7 +242,7 @@ public class ClusterBuilder extends AttrComposite {
    * merged cluster, sets scores to -1 in those clusters that got merged.
    */
   void merge(LingoProcessingContext context) {
-    final BitSet[] clusterDocuments = context.clusterDocuments;
+    final CompressedBitSet[] clusterDocuments = context.clusterDocuments;
     final int[] clusterLabelFeatureIndex = context.clusterLabelFeatureIndex;
     final double[] clusterLabelScore = context.clusterLabelScore;
 
@@ -248,31 +251,23 @@ public class ClusterBuilder extends AttrComposite {
         GraphUtils.findCoherentSubgraphs(
             clusterDocuments.length,
             new GraphUtils.IArcPredicate() {
-              private BitSet temp = new BitSet();
-
               public boolean isArcPresent(int clusterA, int clusterB) {
-                temp.clear();
                 int size;
-                BitSet setA = clusterDocuments[clusterA];
-                BitSet setB = clusterDocuments[clusterB];
+                CompressedBitSet setA = clusterDocuments[clusterA];
+                CompressedBitSet setB = clusterDocuments[clusterB];
 
                 // Suitable for flat clustering
                 // A small subgroup contained within a bigger group
                 // will give small overlap ratio. Big ratios will
                 // be produced only for balanced group sizes.
                 if (setA.cardinality() < setB.cardinality()) {
-                  // addAll == or
-                  // reiatinAll == and | intersect
-                  temp.or(setA);
-                  temp.intersect(setB);
-                  size = (int) setB.cardinality();
+                  size = setB.cardinality();
                 } else {
-                  temp.or(setB);
-                  temp.intersect(setA);
-                  size = (int) setA.cardinality();
+                  size = setA.cardinality();
                 }
 
-                return temp.cardinality() / (double) size >= clusterMergingThreshold;
+                return CompressedBitSet.intersectionCount(setA, setB) / (double) size
+                    >= clusterMergingThreshold;
               }
             },
             true);
@@ -10,7 +10,6 @@
  */
 package org.carrot2.clustering.lingo;
 
-import com.carrotsearch.hppc.BitSet;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -23,10 +22,12 @@ import org.carrot2.clustering.Cluster;
 import org.carrot2.clustering.ClusteringAlgorithm;
 import org.carrot2.clustering.Document;
 import org.carrot2.clustering.SharedInfrastructure;
+import org.carrot2.clustering.StageTracker;
 import org.carrot2.language.LanguageComponents;
 import org.carrot2.language.LexicalData;
 import org.carrot2.language.Stemmer;
 import org.carrot2.language.Tokenizer;
+import org.carrot2.math.matrix.MatrixUtils;
 import org.carrot2.text.preprocessing.CompletePreprocessingPipeline;
 import org.carrot2.text.preprocessing.LabelFormatter;
 import org.carrot2.text.preprocessing.PreprocessingContext;
@@ -34,6 +35,7 @@ import org.carrot2.text.vsm.ReducedVectorSpaceModelContext;
 import org.carrot2.text.vsm.TermDocumentMatrixBuilder;
 import org.carrot2.text.vsm.TermDocumentMatrixReducer;
 import org.carrot2.text.vsm.VectorSpaceModelContext;
+import org.carrot2.util.CompressedBitSet;
 
 /**
  * Lingo clustering algorithm. Implementation as described in: Stanisław Osiński, Dawid Weiss: A
@@ -142,10 +144,13 @@ public class LingoClusteringAlgorithm extends AttrComposite implements Clusterin
   public <T extends Document> List<Cluster<T>> cluster(
       Stream<? extends T> docStream, LanguageComponents languageComponents) {
     List<T> documents = docStream.collect(Collectors.toList());
+    final StageTracker tracker = StageTracker.of(languageComponents);
 
     // Preprocessing of documents
+    tracker.begin();
     final PreprocessingContext context =
         preprocessing.preprocess(documents.stream(), queryHint.get(), languageComponents);
+    tracker.end("preprocessing", context, PreprocessingContext::collectSizes);
 
     // Further processing only if there are words to process
     List<Cluster<T>> clusters = new ArrayList<>();
@@ -157,27 +162,40 @@ public class LingoClusteringAlgorithm extends AttrComposite implements Clusterin
       LingoProcessingContext lingoContext = new LingoProcessingContext(reducedVsmContext);
 
       TermDocumentMatrixBuilder matrixBuilder = this.matrixBuilder;
+      tracker.begin();
       matrixBuilder.buildTermDocumentMatrix(vsmContext);
+      tracker.end("termDocumentMatrix", vsmContext.termDocumentMatrix, MatrixUtils::collectSizes);
+
+      tracker.begin();
       matrixBuilder.buildTermPhraseMatrix(vsmContext);
+      tracker.end("termPhraseMatrix", vsmContext.termPhraseMatrix, MatrixUtils::collectSizes);
 
+      tracker.begin();
       matrixReducer.reduce(
           reducedVsmContext, computeClusterCount(desiredClusterCount.get(), documents.size()));
+      tracker.end("matrixReducer", reducedVsmContext.baseMatrix, MatrixUtils::collectSizes);
 
       // Cluster label building
+      tracker.begin();
       clusterBuilder.buildLabels(lingoContext, matrixBuilder.termWeighting);
+      tracker.end("labelBuilder", lingoContext, LingoClusteringAlgorithm::clusterSizes);
 
       // Document assignment
+      tracker.begin();
       clusterBuilder.assignDocuments(lingoContext);
+      tracker.end("documentAssignment", lingoContext, LingoClusteringAlgorithm::clusterSizes);
 
       // Cluster merging
+      tracker.begin();
       clusterBuilder.merge(lingoContext);
+      tracker.end("clusterMerging", lingoContext, LingoClusteringAlgorithm::clusterSizes);
 
       // Format final clusters
       final LabelFormatter labelFormatter =
           lingoContext.preprocessingContext.languageComponents.get(LabelFormatter.class);
 
       final int[] clusterLabelIndex = lingoContext.clusterLabelFeatureIndex;
-      final BitSet[] clusterDocuments = lingoContext.clusterDocuments;
+      final CompressedBitSet[] clusterDocuments = lingoContext.clusterDocuments;
       final double[] clusterLabelScore = lingoContext.clusterLabelScore;
       for (int i = 0; i < clusterLabelIndex.length; i++) {
         final Cluster<T> cluster = new Cluster<>();
@@ -193,7 +211,7 @@ public class LingoClusteringAlgorithm extends AttrComposite implements Clusterin
         cluster.setScore(clusterLabelScore[i]);
 
         // Add documents
-        final BitSet bs = clusterDocuments[i];
+        final CompressedBitSet bs = clusterDocuments[i];
         for (int bit = bs.nextSetBit(0); bit >= 0; bit = bs.nextSetBit(bit + 1)) {
           cluster.addDocument(documents.get(bit));
         }
@@ -207,6 +225,13 @@ public class LingoClusteringAlgorithm extends AttrComposite implements Clusterin
     return clusters;
   }
 
+  private static void clusterSizes(LingoProcessingContext lingoContext, Map<String, Long> sizes) {
+    final int[] clusterLabelIndex = lingoContext.clusterLabelFeatureIndex;
+    if (clusterLabelIndex != null) {
+      sizes.put("clusters", Arrays.stream(clusterLabelIndex).filter(i -> i >= 0).count());
+    }
+  }
+
   /**
    * Computes the number of clusters to create based on a very simple heuristic based on the number
    * of documents on input.
@@ -16,7 +16,7 @@ import com.carrotsearch.hppc.IntIntHashMap;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
 import org.carrot2.text.preprocessing.PreprocessingContext;
-import org.carrot2.util.Pair;
+import org.carrot2.util.PriorityQueue;
 
 /**
  * Assigns unique labels to each base vector using a greedy algorithm. For each base vector chooses
@@ -25,6 +25,10 @@ import org.carrot2.util.Pair;
  * This algorithm does not create duplicate cluster labels, which usually means that this assignment
  * method will create more clusters than {@link SimpleLabelAssigner}. This method is slightly slower
  * than {@link SimpleLabelAssigner}.
+ *
+ * <p>The best label of each base vector is kept in a priority queue. Labels and base vectors
+ * consumed by earlier selections are skipped lazily: the best label of a base vector is searched
+ * for again only once it has been consumed, so the cosine matrices are scanned in full only once.
  */
 public class UniqueLabelAssigner extends AttrComposite implements LabelAssigner {
   public void assignLabels(
@@ -39,36 +43,35 @@ public class UniqueLabelAssigner extends AttrComposite implements LabelAssigner
         preprocessingContext.allStems.mostFrequentOriginalWordIndex;
     final int desiredClusterCount = stemCos.columns();
 
+    // Base vectors are shared by single stems and phrases.
+    final boolean[] consumedColumns = new boolean[desiredClusterCount];
+    final Candidates stems = new Candidates(stemCos, consumedColumns);
+    final Candidates phrases =
+        phraseCos != null ? new Candidates(phraseCos, consumedColumns) : null;
+
     final IntArrayList clusterLabelFeatureIndex = new IntArrayList(desiredClusterCount);
     final DoubleArrayList clusterLabelScore = new DoubleArrayList(desiredClusterCount);
     for (int label = 0; label < desiredClusterCount; label++) {
-      final Pair<Integer, Integer> stemMax = max(stemCos);
-      final Pair<Integer, Integer> phraseMax = max(phraseCos);
+      final int stemColumn = stems.best();
+      final int phraseColumn = phrases != null ? phrases.best() : -1;
 
-      if (stemMax == null && phraseMax == null) {
+      if (stemColumn < 0 && phraseColumn < 0) {
         break;
       }
 
-      double stemScore = stemMax != null ? stemCos.getQuick(stemMax.objectA, stemMax.objectB) : -1;
-      double phraseScore =
-          phraseMax != null ? phraseCos.getQuick(phraseMax.objectA, phraseMax.objectB) : -1;
+      double stemScore = stemColumn >= 0 ? stems.score(stemColumn) : -1;
+      double phraseScore = phraseColumn >= 0 ? phrases.score(phraseColumn) : -1;
 
       if (phraseScore > stemScore) {
-        phraseCos.viewRow(phraseMax.objectA).assign(0);
-        phraseCos.viewColumn(phraseMax.objectB).assign(0);
-        stemCos.viewColumn(phraseMax.objectB).assign(0);
+        final int phraseRow = phrases.consume(phraseColumn);
 
-        clusterLabelFeatureIndex.add(labelsFeatureIndex[phraseMax.objectA + firstPhraseIndex]);
+        clusterLabelFeatureIndex.add(labelsFeatureIndex[phraseRow + firstPhraseIndex]);
         clusterLabelScore.add(phraseScore);
       } else {
-        stemCos.viewRow(stemMax.objectA).assign(0);
-        stemCos.viewColumn(stemMax.objectB).assign(0);
-        if (phraseCos != null) {
-          phraseCos.viewColumn(stemMax.objectB).assign(0);
-        }
+        final int stemRow = stems.consume(stemColumn);
 
         clusterLabelFeatureIndex.add(
-            mostFrequentOriginalWordIndex[filteredRowToStemIndex.get(stemMax.objectA)]);
+            mostFrequentOriginalWordIndex[filteredRowToStemIndex.get(stemRow)]);
         clusterLabelScore.add(stemScore);
       }
     }
@@ -77,30 +80,110 @@ public class UniqueLabelAssigner extends AttrComposite implements LabelAssigner
     context.clusterLabelScore = clusterLabelScore.toArray();
   }
 
-  private Pair<Integer, Integer> max(DoubleMatrix2D matrix) {
-    if (matrix == null) {
-      return null;
-    }
+  /**
+   * Columns (base vectors) of a cosine matrix, ordered by their best positive value in rows
+   * (labels) not consumed yet. Ties are broken by the lower row, then by the lower column index, so
+   * that the top of the queue is the first maximum of the matrix in row-major order.
+   */
+  private static final class Candidates extends PriorityQueue<Integer> {
+    private final DoubleMatrix2D matrix;
+    private final boolean[] consumedRows;
+    private final boolean[] consumedColumns;
+
+    /** [column] - the row of the best value in the column, possibly already consumed. */
+    private final int[] bestRows;
+
+    /** [column] - the best value in the column. */
+    private final double[] bestScores;
 
-    int row = 0;
-    int column = 0;
-    double value = 0;
+    Candidates(DoubleMatrix2D matrix, boolean[] consumedColumns) {
+      this.matrix = matrix;
+      this.consumedRows = new boolean[matrix.rows()];
+      this.consumedColumns = consumedColumns;
+      this.bestRows = new int[matrix.columns()];
+      this.bestScores = new double[matrix.columns()];
 
-    for (int r = 0; r < matrix.rows(); r++) {
+      // A single row-major pass finds the first maximum of each column.
+      for (int r = 0; r < matrix.rows(); r++) {
+        for (int c = 0; c < matrix.columns(); c++) {
+          final double value = matrix.getQuick(r, c);
+          if (value > bestScores[c]) {
+            bestScores[c] = value;
+            bestRows[c] = r;
+          }
+        }
+      }
+
+      initialize(matrix.columns());
       for (int c = 0; c < matrix.columns(); c++) {
-        final double currentValue = matrix.getQuick(r, c);
-        if (currentValue > value) {
-          value = currentValue;
+        if (bestScores[c] > 0) {
+          add(c);
+        }
+      }
+    }
+
+    /**
+     * @return Returns the column with the best value in rows and columns not consumed yet or -1 if
+     *     there are no positive values left.
+     */
+    int best() {
+      for (Integer top; (top = top()) != null; ) {
+        final int column = top;
+        if (consumedColumns[column]) {
+          pop();
+        } else if (consumedRows[bestRows[column]]) {
+          if (rescan(column)) {
+            updateTop();
+          } else {
+            pop();
+          }
+        } else {
+          return column;
+        }
+      }
+      return -1;
+    }
+
+    double score(int column) {
+      return bestScores[column];
+    }
+
+    /** Marks the best row of the column and the column as consumed, returns the row. */
+    int consume(int column) {
+      final int row = bestRows[column];
+      consumedRows[row] = true;
+      consumedColumns[column] = true;
+      return row;
+    }
+
+    /** Searches for the best value of a column among rows not consumed yet. */
+    private boolean rescan(int column) {
+      double score = 0;
+      int row = 0;
+      for (int r = 0; r < matrix.rows(); r++) {
+        final double value = matrix.getQuick(r, column);
+        if (value > score && !consumedRows[r]) {
+          score = value;
           row = r;
-          column = c;
         }
       }
+
+      bestScores[column] = score;
+      bestRows[column] = row;
+      return score > 0;
     }
 
-    if (value > 0) {
-      return new Pair<>(row, column);
-    } else {
-      return null;
+    @Override
+    protected boolean lessThan(Integer a, Integer b) {
+      final int columnA = a;
+      final int columnB = b;
+      if (bestScores[columnA] != bestScores[columnB]) {
+        return bestScores[columnA] > bestScores[columnB];
+      }
+      if (bestRows[columnA] != bestRows[columnB]) {
+        return bestRows[columnA] < bestRows[columnB];
+      }
+      return columnA < columnB;
     }
   }
 }
@@ -0,0 +1,26 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.clustering.stc;
+
+/** Data structure used by {@link STCClusteringAlgorithm} to discover base clusters. */
+public enum BaseClusterDiscovery {
+  /** A generalized suffix tree built with Ukkonen's algorithm. */
+  SUFFIX_TREE,
+
+  /**
+   * A generalized suffix tree built with Ukkonen's algorithm, with transitions stored in lists of
+   * sibling edges instead of a hash map.
+   */
+  COMPACT_SUFFIX_TREE,
+
+  /** A suffix array with longest common prefixes, walked as a virtual suffix tree. */
+  SUFFIX_ARRAY;
+}
@@ -0,0 +1,195 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.clustering.stc;
+
+import com.carrotsearch.hppc.IntArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.carrot2.util.CompressedBitSet;
+
+/**
+ * Computes the overlap graph of base clusters. Two base clusters are neighbors if the number of
+ * documents they share, divided by the number of documents of each of them, is larger than the
+ * merge threshold.
+ *
+ * <p>Only pairs of base clusters sharing at least one document are compared. Such pairs are found
+ * with an inverted index from documents to base clusters, which also yields the number of shared
+ * documents. Rows of the graph (neighbors of a base cluster with larger indexes) are computed in
+ * parallel (in the common {@link ForkJoinPool}) if there are at least {@link #PARALLEL_THRESHOLD}
+ * base clusters. The graph is always the same as the one computed by comparing all pairs of base
+ * clusters.
+ */
+final class BaseClusterOverlap extends RecursiveAction {
+  /** The minimum number of base clusters for computing the rows in parallel. */
+  static final int PARALLEL_THRESHOLD = 500;
+
+  /** The number of rows in a sequentially computed block. */
+  private static final int BLOCK_ROWS = 16;
+
+  private final Rows rows;
+  private final int fromRow;
+  private final int toRow;
+
+  private BaseClusterOverlap(Rows rows, int fromRow, int toRow) {
+    this.rows = rows;
+    this.fromRow = fromRow;
+    this.toRow = toRow;
+  }
+
+  /**
+   * @return Returns the neighbors of each base cluster, in the order of increasing indexes.
+   */
+  static int[][] neighbors(List<ClusterCandidate> baseClusters, float mergeThreshold) {
+    return neighbors(baseClusters, mergeThreshold, PARALLEL_THRESHOLD);
+  }
+
+  static int[][] neighbors(
+      List<ClusterCandidate> baseClusters, float mergeThreshold, int parallelThreshold) {
+    final Rows rows = new Rows(baseClusters, mergeThreshold);
+    final int n = baseClusters.size();
+    if (n >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1) {
+      ForkJoinPool.commonPool().invoke(new BaseClusterOverlap(rows, 0, n));
+    } else {
+      rows.compute(0, n);
+    }
+    return rows.neighbors();
+  }
+
+  @Override
+  protected void compute() {
+    if (toRow - fromRow > BLOCK_ROWS) {
+      final int middle = (fromRow + toRow) >>> 1;
+      invokeAll(
+          new BaseClusterOverlap(rows, fromRow, middle),
+          new BaseClusterOverlap(rows, middle, toRow));
+    } else {
+      rows.compute(fromRow, toRow);
+    }
+  }
+
+  /** The inverted index and rows of the graph, shared by all tasks. */
+  private static final class Rows {
+    final List<ClusterCandidate> baseClusters;
+    final float mergeThreshold;
+
+    /** Start offsets of each document's base clusters in {@link #clusters}, plus the end offset. */
+    final int[] documentPointers;
+
+    /** Indexes of base clusters containing each document, in increasing order. */
+    final int[] clusters;
+
+    /** [i] - neighbors of base cluster i with indexes larger than i, in increasing order. */
+    final int[][] following;
+
+    Rows(List<ClusterCandidate> baseClusters, float mergeThreshold) {
+      this.baseClusters = baseClusters;
+      this.mergeThreshold = mergeThreshold;
+      this.following = new int[baseClusters.size()][];
+
+      int documents = 0;
+      for (ClusterCandidate candidate : baseClusters) {
+        documents = Math.max(documents, candidate.documents.length());
+      }
+
+      documentPointers = new int[documents + 1];
+      for (ClusterCandidate candidate : baseClusters) {
+        final CompressedBitSet bset = candidate.documents;
+        for (int d = bset.nextSetBit(0); d >= 0; d = bset.nextSetBit(d + 1)) {
+          documentPointers[d + 1]++;
+        }
+      }
+      for (int d = 0; d < documents; d++) {
+        documentPointers[d + 1] += documentPointers[d];
+      }
+
+      clusters = new int[documentPointers[documents]];
+      final int[] fill = Arrays.copyOf(documentPointers, documents);
+      for (int i = 0; i < baseClusters.size(); i++) {
+        final CompressedBitSet bset = baseClusters.get(i).documents;
+        for (int d = bset.nextSetBit(0); d >= 0; d = bset.nextSetBit(d + 1)) {
+          clusters[fill[d]++] = i;
+        }
+      }
+    }
+
+    void compute(int fromRow, int toRow) {
+      // Shared document counts, non-zero for base clusters in touched.
+      final int[] counts = new int[baseClusters.size()];
+      final IntArrayList touched = new IntArrayList();
+      final IntArrayList row = new IntArrayList();
+      final float m = mergeThreshold;
+
+      for (int i = fromRow; i < toRow; i++) {
+        final ClusterCandidate c1 = baseClusters.get(i);
+        final CompressedBitSet bset = c1.documents;
+        for (int d = bset.nextSetBit(0); d >= 0; d = bset.nextSetBit(d + 1)) {
+          for (int e = documentPointers[d + 1]; --e >= documentPointers[d]; ) {
+            final int j = clusters[e];
+            if (j <= i) {
+              break;
+            }
+            if (counts[j]++ == 0) {
+              touched.add(j);
+            }
+          }
+        }
+
+        Arrays.sort(touched.buffer, 0, touched.size());
+        final float a = c1.cardinality;
+        for (int t = 0; t < touched.size(); t++) {
+          final int j = touched.get(t);
+          final float b = baseClusters.get(j).cardinality;
+          final float c = counts[j];
+          counts[j] = 0;
+
+          if (c / a > m && c / b > m) {
+            row.add(j);
+          }
+        }
+
+        following[i] = row.toArray();
+        touched.clear();
+        row.clear();
+      }
+    }
+
+    /** Merges the rows into neighbor lists of all base clusters. */
+    int[][] neighbors() {
+      final int n = following.length;
+      final int[] degrees = new int[n];
+      for (int i = 0; i < n; i++) {
+        degrees[i] += following[i].length;
+        for (int j : following[i]) {
+          degrees[j]++;
+        }
+      }
+
+      final int[][] neighbors = new int[n][];
+      for (int i = 0; i < n; i++) {
+        neighbors[i] = new int[degrees[i]];
+      }
+
+      // Neighbors with smaller indexes first, then the following ones.
+      final int[] fill = new int[n];
+      for (int i = 0; i < n; i++) {
+        for (int j : following[i]) {
+          neighbors[j][fill[j]++] = i;
+        }
+      }
+      for (int i = 0; i < n; i++) {
+        System.arraycopy(following[i], 0, neighbors[i], fill[i], following[i].length);
+      }
+      return neighbors;
+    }
+  }
+}
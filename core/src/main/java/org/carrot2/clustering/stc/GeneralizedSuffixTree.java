@@ -13,8 +13,11 @@ package org.carrot2.clustering.stc;
 import static org.carrot2.text.suffixtree.SuffixTree.NO_EDGE;
 
 import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntStack;
 import java.util.ArrayList;
+import org.carrot2.text.preprocessing.SuffixSorter;
+import org.carrot2.text.preprocessing.SuffixSortingAlgorithm;
 import org.carrot2.text.suffixtree.IntegerSequence;
 import org.carrot2.text.suffixtree.Sequence;
 import org.carrot2.text.suffixtree.SuffixTree;
@@ -41,6 +44,12 @@ final class GeneralizedSuffixTree {
     /** A suffix tree built from the input phrases. */
     public SuffixTree stree;
 
+    /** Suffix array of the input phrases, if built instead of the suffix tree. */
+    public int[] suffixOrder;
+
+    /** Longest common prefixes of consecutive suffixes in {@link #suffixOrder}. */
+    public int[] lcp;
+
     /** Callbacks for marking leaf states. */
     private final class LeafStateMarker
         implements SuffixTree.IStateCallback, SuffixTree.IProgressCallback {
@@ -78,6 +87,11 @@ final class GeneralizedSuffixTree {
 
     /** */
     public void buildSuffixTree() {
+      buildSuffixTree(SuffixTree.TransitionStorage.HASH_MAP);
+    }
+
+    /** */
+    public void buildSuffixTree(SuffixTree.TransitionStorage transitionStorage) {
       this.stateOriginDocument.clear();
 
       final LeafStateMarker marker = new LeafStateMarker();
@@ -86,8 +100,41 @@ final class GeneralizedSuffixTree {
           SuffixTreeBuilder.from(seq)
               .withProgressCallback(marker)
               .withStateCallback(marker)
+              .withTransitionStorage(transitionStorage)
               .build();
     }
+
+    /**
+     * Builds a suffix array and LCP values of the input, which can be walked with a {@link
+     * SuffixArrayVisitor} instead of building the suffix tree.
+     */
+    public void buildSuffixArray() {
+      final int[] codes = input.toArray();
+      if (codes.length == 0) {
+        this.suffixOrder = this.lcp = new int[0];
+        return;
+      }
+      this.suffixOrder = SuffixSorter.suffixOrder(codes, SuffixSortingAlgorithm.SAIS);
+      this.lcp = SuffixSorter.calculateLcp(codes, suffixOrder);
+    }
+
+    /**
+     * Returns the document of each position in {@link #input}, the same as the one {@link
+     * LeafStateMarker} assigns to leaf states of suffixes starting at that position.
+     */
+    int[] positionDocuments() {
+      final int[] documents = new int[input.size()];
+      int currentDocument = 0;
+      int markerIndex = 0;
+      for (int pos = 0; pos < documents.length; pos++) {
+        if (markerIndex < documentMarkers.size() && pos == documentMarkers.get(markerIndex)) {
+          currentDocument++;
+          markerIndex++;
+        }
+        documents[pos] = currentDocument;
+      }
+      return documents;
+    }
   }
 
   /**
@@ -161,6 +208,167 @@ final class GeneralizedSuffixTree {
   }
   ;
 
+  /**
+   * Bottom-up walk over the internal nodes of the suffix tree, enumerated as intervals of the
+   * suffix array with a common prefix (see M. I. Abouelhoda, S. Kurtz, E. Ohlebusch: Replacing
+   * suffix trees with enhanced suffix arrays. Journal of Discrete Algorithms, 2004, vol. 2, pp.
+   * 53-86). Requires {@link SequenceBuilder#buildSuffixArray()}.
+   *
+   * <p>The visited nodes, their documents and paths (split into edges at parent nodes) are the same
+   * as those visited by {@link Visitor}, but the order of visits is different. Paths point to the
+   * same words, possibly at other positions in the input.
+   */
+  abstract static class SuffixArrayVisitor {
+    /** Parent of the root interval. */
+    private static final int NO_PARENT = -1;
+
+    /** Depths (prefix lengths) of the open intervals, the root first. */
+    private final IntStack depths = new IntStack();
+
+    /** Open intervals (numbered in the order of opening), the root first. */
+    private final IntStack intervals = new IntStack();
+
+    /** Number of intervals opened so far. */
+    private int opened;
+
+    /** Depth of each interval. */
+    private final IntArrayList intervalDepths = new IntArrayList();
+
+    /** Parent of each interval. */
+    private final IntArrayList parents = new IntArrayList();
+
+    /** Path from the root (edges index ranges) of the visited node. */
+    private final IntStack path = new IntStack();
+
+    /** Depths of the ancestors of the visited node, when building its path. */
+    private final IntStack ancestors = new IntStack();
+
+    /** Bitsets used to compute cardinality of each open interval. */
+    private final ArrayList<BitSet> bsets = new ArrayList<BitSet>();
+
+    /** Sequence builder with the input. */
+    protected final SequenceBuilder sb;
+
+    /** Minimum cardinality (inclusive) in an internal state to visit it. */
+    private int minCardinality;
+
+    public SuffixArrayVisitor(SequenceBuilder sb, int minCardinality) {
+      assert minCardinality > 1;
+
+      this.sb = sb;
+      this.minCardinality = minCardinality;
+    }
+
+    public void visit() {
+      if (sb.suffixOrder.length == 0) return;
+
+      /*
+       * An interval may be closed before its parent is opened, so the parents of all intervals
+       * are linked in the first walk. The second walk visits the intervals with complete paths.
+       */
+      intervalDepths.clear();
+      parents.clear();
+      walk(null);
+      walk(sb.positionDocuments());
+    }
+
+    /**
+     * Walks the intervals bottom-up. Links each interval to its parent if no documents are given,
+     * otherwise computes the documents of each interval and visits it.
+     */
+    private void walk(int[] documents) {
+      final boolean link = (documents == null);
+      final int[] suffixOrder = sb.suffixOrder;
+      final int[] lcp = sb.lcp;
+      final int n = suffixOrder.length;
+
+      opened = 0;
+      depths.clear();
+      intervals.clear();
+      open(0, link);
+      getBitSet(0).clear();
+
+      for (int i = 1; i <= n; i++) {
+        final int depth = i < n ? lcp[i] : 0;
+        final int document = link ? 0 : documents[suffixOrder[i - 1]];
+
+        // Suffix i - 1 starts a deeper interval.
+        if (depth > depths.peek()) {
+          open(depth, link);
+          if (!link) {
+            final BitSet me = getBitSet(depths.size() - 1);
+            me.clear();
+            me.set(document);
+          }
+          continue;
+        }
+
+        // Close intervals ending with suffix i - 1.
+        if (!link) {
+          getBitSet(depths.size() - 1).set(document);
+        }
+        while (depth < depths.peek()) {
+          final int level = depths.size() - 1;
+          final int interval = intervals.peek();
+          final BitSet me = getBitSet(level);
+          if (!link) {
+            final int card = (int) me.cardinality();
+            if (card >= minCardinality) {
+              buildPath(interval, suffixOrder[i - 1]);
+              visit(i - 1, card, me, path);
+            }
+          }
+
+          depths.pop();
+          intervals.pop();
+          if (depth > depths.peek()) {
+            // The parent interval starts with this one, reuse its bitset.
+            open(depth, link);
+          } else if (!link) {
+            getBitSet(level - 1).or(me);
+          }
+
+          if (link) {
+            parents.set(interval, intervals.peek());
+          }
+        }
+      }
+    }
+
+    /** Opens an interval of the given depth. */
+    private void open(int depth, boolean link) {
+      if (link) {
+        intervalDepths.add(depth);
+        parents.add(NO_PARENT);
+      }
+      depths.push(depth);
+      intervals.push(opened++);
+    }
+
+    /** Builds the path of the interval: one edge for the interval and each of its ancestors. */
+    private void buildPath(int interval, int position) {
+      ancestors.clear();
+      for (int i = interval; parents.get(i) != NO_PARENT; i = parents.get(i)) {
+        ancestors.push(intervalDepths.get(i));
+      }
+
+      path.clear();
+      int from = 0;
+      while (!ancestors.isEmpty()) {
+        final int to = ancestors.pop();
+        path.push(position + from, position + to - 1);
+        from = to;
+      }
+    }
+
+    protected abstract void visit(int state, int cardinality, BitSet documents, IntStack path);
+
+    private BitSet getBitSet(int level) {
+      while (bsets.size() <= level) bsets.add(new BitSet());
+      return bsets.get(level);
+    }
+  }
+
   /* */
   private GeneralizedSuffixTree() {}
 }
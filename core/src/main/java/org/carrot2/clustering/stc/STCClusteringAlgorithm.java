@@ -11,9 +11,9 @@
 package org.carrot2.clustering.stc;
 
 import com.carrotsearch.hppc.BitSet;
-import com.carrotsearch.hppc.BitSetIterator;
 import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntStack;
+import com.carrotsearch.hppc.sorting.IndirectSort;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -21,6 +21,7 @@ import java.util.stream.Stream;
 import org.carrot2.attrs.AttrBoolean;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.attrs.AttrDouble;
+import org.carrot2.attrs.AttrEnum;
 import org.carrot2.attrs.AttrInteger;
 import org.carrot2.attrs.AttrObject;
 import org.carrot2.attrs.AttrString;
@@ -28,11 +29,14 @@ import org.carrot2.clustering.Cluster;
 import org.carrot2.clustering.ClusteringAlgorithm;
 import org.carrot2.clustering.Document;
 import org.carrot2.clustering.SharedInfrastructure;
+import org.carrot2.clustering.StageTracker;
 import org.carrot2.clustering.stc.GeneralizedSuffixTree.SequenceBuilder;
 import org.carrot2.language.*;
 import org.carrot2.text.preprocessing.BasicPreprocessingPipeline;
 import org.carrot2.text.preprocessing.LabelFormatter;
 import org.carrot2.text.preprocessing.PreprocessingContext;
+import org.carrot2.text.suffixtree.SuffixTree;
+import org.carrot2.util.CompressedBitSet;
 
 /**
  * Suffix Tree Clustering (STC) algorithm. Pretty much as described in: <i>Oren Zamir, Oren Etzioni,
@@ -200,6 +204,18 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
               .label("Merge all stem-equivalent phrases when discovering base clusters")
               .defaultValue(true));
 
+  /**
+   * Base cluster discovery method. All methods discover the same base clusters (and produce the
+   * same clusters), a compact suffix tree or a suffix array take considerably less memory than a
+   * suffix tree on large inputs.
+   */
+  public AttrEnum<BaseClusterDiscovery> baseClusterDiscovery =
+      attributes.register(
+          "baseClusterDiscovery",
+          AttrEnum.builder(BaseClusterDiscovery.class)
+              .label("Base cluster discovery method")
+              .defaultValue(BaseClusterDiscovery.SUFFIX_TREE));
+
   /** Preprocessing pipeline. */
   public BasicPreprocessingPipeline preprocessing;
 
@@ -258,59 +274,85 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
       Stream<? extends T> docStream, LanguageComponents languageComponents) {
     List<T> documents = docStream.collect(Collectors.toList());
     List<Cluster<T>> clusters = new ArrayList<>();
+    final StageTracker tracker = StageTracker.of(languageComponents);
 
-    /*
-     * Step 1. Preprocessing: tokenization, stop word marking and stemming (if available).
-     */
-    context = preprocessing.preprocess(documents.stream(), queryHint.get(), languageComponents);
-    labelFormatter = context.languageComponents.get(LabelFormatter.class);
+    try {
+      /*
+       * Step 1. Preprocessing: tokenization, stop word marking and stemming (if available).
+       */
+      tracker.begin();
+      context = preprocessing.preprocess(documents.stream(), queryHint.get(), languageComponents);
+      labelFormatter = context.languageComponents.get(LabelFormatter.class);
+      tracker.end("preprocessing", context, PreprocessingContext::collectSizes);
 
-    /*
-     * Step 2: Create a generalized suffix tree from phrases in the input.
-     */
-    sb = new GeneralizedSuffixTree.SequenceBuilder();
-
-    final int[] tokenIndex = context.allTokens.wordIndex;
-    final short[] tokenType = context.allTokens.type;
-    for (int i = 0; i < tokenIndex.length; i++) {
-      /* Advance until the first real token. */
-      if (tokenIndex[i] == -1) {
-        if ((tokenType[i] & (Tokenizer.TF_SEPARATOR_DOCUMENT | Tokenizer.TF_TERMINATOR)) != 0) {
-          sb.endDocument();
+      /*
+       * Step 2: Create a generalized suffix tree from phrases in the input.
+       */
+      tracker.begin();
+      sb = new GeneralizedSuffixTree.SequenceBuilder();
+
+      final int[] tokenIndex = context.allTokens.wordIndex;
+      final short[] tokenType = context.allTokens.type;
+      for (int i = 0; i < tokenIndex.length; i++) {
+        /* Advance until the first real token. */
+        if (tokenIndex[i] == -1) {
+          if ((tokenType[i] & (Tokenizer.TF_SEPARATOR_DOCUMENT | Tokenizer.TF_TERMINATOR)) != 0) {
+            sb.endDocument();
+          }
+          continue;
         }
-        continue;
-      }
 
-      /* We have the first token. Advance until non-token. */
-      final int s = i;
+        /* We have the first token. Advance until non-token. */
+        final int s = i;
 
-      while (tokenIndex[i + 1] != -1) i++;
-      final int phraseLength = 1 + i - s;
-      if (phraseLength >= 1) {
-        /* We have a phrase. */
-        sb.addPhrase(tokenIndex, s, phraseLength);
+        while (tokenIndex[i + 1] != -1) i++;
+        final int phraseLength = 1 + i - s;
+        if (phraseLength >= 1) {
+          /* We have a phrase. */
+          sb.addPhrase(tokenIndex, s, phraseLength);
+        }
+      }
+      if (baseClusterDiscovery.get() == BaseClusterDiscovery.SUFFIX_ARRAY) {
+        sb.buildSuffixArray();
+        tracker.end("suffixArray", sb, STCClusteringAlgorithm::suffixArraySizes);
+      } else {
+        sb.buildSuffixTree(
+            baseClusterDiscovery.get() == BaseClusterDiscovery.COMPACT_SUFFIX_TREE
+                ? SuffixTree.TransitionStorage.SIBLING_LISTS
+                : SuffixTree.TransitionStorage.HASH_MAP);
+        tracker.end("suffixTree", sb, STCClusteringAlgorithm::suffixTreeSizes);
       }
-    }
-    sb.buildSuffixTree();
-
-    /*
-     * Step 3: Find "base" clusters by looking up frequently recurring phrases in the
-     * generalized suffix tree.
-     */
-    List<ClusterCandidate> baseClusters = createBaseClusters(sb);
 
-    /*
-     * Step 4: Merge base clusters that overlap too much to form final clusters.
-     */
-    List<ClusterCandidate> mergedClusters = createMergedClusters(baseClusters);
+      /*
+       * Step 3: Find "base" clusters by looking up frequently recurring phrases in the
+       * generalized suffix tree.
+       */
+      tracker.begin();
+      List<ClusterCandidate> baseClusters = createBaseClusters(sb);
+      tracker.end("baseClusters", baseClusters, STCClusteringAlgorithm::candidateSizes);
 
-    /*
-     * Step 5: Create the junk (unassigned documents) cluster and create the final
-     * set of clusters in Carrot2 format.
-     */
-    postProcessing(documents, mergedClusters, clusters);
+      /*
+       * Step 4: Merge base clusters that overlap too much to form final clusters.
+       */
+      tracker.begin();
+      List<ClusterCandidate> mergedClusters = createMergedClusters(baseClusters);
+      tracker.end("mergedClusters", mergedClusters, STCClusteringAlgorithm::candidateSizes);
 
-    return SharedInfrastructure.reorderByWeightedScoreAndSize(clusters, this.scoreWeight.get());
+      /*
+       * Step 5: Create the junk (unassigned documents) cluster and create the final
+       * set of clusters in Carrot2 format.
+       */
+      tracker.begin();
+      postProcessing(documents, mergedClusters, clusters);
+      tracker.end("postProcessing", clusters, STCClusteringAlgorithm::clusterSizes);
+
+      return SharedInfrastructure.reorderByWeightedScoreAndSize(clusters, this.scoreWeight.get());
+    } finally {
+      // Don't hold on to the request's data (idle instances may be pooled and reused).
+      context = null;
+      labelFormatter = null;
+      sb = null;
+    }
   }
 
   /**
@@ -327,34 +369,26 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
 
     // Walk the internal nodes of the suffix tree.
     final int minBaseClusterSize = this.minBaseClusterSize.get();
-    new GeneralizedSuffixTree.Visitor(sb, minBaseClusterSize) {
-      protected void visit(int state, int cardinality, BitSet documents, IntStack path) {
-        // Check minimum base cluster cardinality.
-        assert cardinality >= minBaseClusterSize;
-
-        /*
-         * Consider certain special cases of internal suffix tree nodes.
-         */
-        if (!checkAcceptablePhrase(path)) {
-          return;
+    if (baseClusterDiscovery.get() == BaseClusterDiscovery.SUFFIX_ARRAY) {
+      new GeneralizedSuffixTree.SuffixArrayVisitor(sb, minBaseClusterSize) {
+        protected void visit(int state, int cardinality, BitSet documents, IntStack path) {
+          addBaseCluster(candidates, cardinality, documents, path);
         }
-
-        // Calculate "effective phrase length", which is the number of non-stopwords.
-        final int effectivePhraseLen = effectivePhraseLength(path);
-        if (effectivePhraseLen == 0) {
-          return;
+      }.visit();
+    } else {
+      new GeneralizedSuffixTree.Visitor(sb, minBaseClusterSize) {
+        protected void visit(int state, int cardinality, BitSet documents, IntStack path) {
+          addBaseCluster(candidates, cardinality, documents, path);
         }
+      }.visit();
+    }
 
-        /*
-         * Calculate base cluster's score as a function of effective phrase's length.
-         * STC originally used a linear gradient, we modified it to penalize very long
-         * phrases (which usually correspond to duplicated snippets anyway).
-         */
-        final float score = baseClusterScore(effectivePhraseLen, cardinality);
-        candidates.add(
-            new ClusterCandidate(path.toArray(), (BitSet) documents.clone(), cardinality, score));
-      }
-    }.visit();
+    /*
+     * Each discovery method visits the nodes in a different order. Put the candidates
+     * in an order that does not depend on the method, so that ties (in merging of
+     * stem-equivalent phrases and in scores) are resolved the same way.
+     */
+    sortByPhraseWords(sb, candidates);
 
     /*
      * Combine all phrases that are stem-equivalent into one candidate.
@@ -379,7 +413,8 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
     /*
      * We limit the number of base clusters to the one requested by the user.
      * First we sort by the base clusters score, then pick the top-K entries,
-     * filtering out any stop labels on the way.
+     * filtering out any stop labels on the way. The sort is stable, so candidates
+     * with equal scores remain ordered by their phrases' words.
      */
     Collections.sort(candidates, (c1, c2) -> -Float.compare(c1.score, c2.score));
 
@@ -404,6 +439,65 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
     return candidates;
   }
 
+  /**
+   * Sorts base clusters by the words of their (only) phrases. Phrases of distinct base clusters
+   * are distinct, so the order is the same for any order of discovery.
+   */
+  private static void sortByPhraseWords(SequenceBuilder sb, List<ClusterCandidate> candidates) {
+    final int[][] words = new int[candidates.size()][];
+    for (int i = 0; i < words.length; i++) {
+      assert candidates.get(i).phrases.size() == 1;
+      final int[] phraseIndices = candidates.get(i).phrases.get(0);
+      final IntArrayList phraseWords = new IntArrayList();
+      for (int j = 0; j < phraseIndices.length; j += 2) {
+        for (int k = phraseIndices[j]; k <= phraseIndices[j + 1]; k++) {
+          phraseWords.add(sb.input.get(k));
+        }
+      }
+      words[i] = phraseWords.toArray();
+    }
+
+    final int[] order =
+        IndirectSort.mergesort(0, words.length, (a, b) -> Arrays.compare(words[a], words[b]));
+    final ClusterCandidate[] sorted = new ClusterCandidate[order.length];
+    for (int i = 0; i < order.length; i++) {
+      sorted[i] = candidates.get(order[i]);
+    }
+    for (int i = 0; i < sorted.length; i++) {
+      candidates.set(i, sorted[i]);
+    }
+  }
+
+  /** Adds a base cluster for an internal node of the suffix tree, if the node is acceptable. */
+  private void addBaseCluster(
+      List<ClusterCandidate> candidates, int cardinality, BitSet documents, IntStack path) {
+    // Check minimum base cluster cardinality.
+    assert cardinality >= minBaseClusterSize.get();
+
+    /*
+     * Consider certain special cases of internal suffix tree nodes.
+     */
+    if (!checkAcceptablePhrase(path)) {
+      return;
+    }
+
+    // Calculate "effective phrase length", which is the number of non-stopwords.
+    final int effectivePhraseLen = effectivePhraseLength(path);
+    if (effectivePhraseLen == 0) {
+      return;
+    }
+
+    /*
+     * Calculate base cluster's score as a function of effective phrase's length.
+     * STC originally used a linear gradient, we modified it to penalize very long
+     * phrases (which usually correspond to duplicated snippets anyway).
+     */
+    final float score = baseClusterScore(effectivePhraseLen, cardinality);
+    candidates.add(
+        new ClusterCandidate(
+            path.toArray(), CompressedBitSet.copyOf(documents), cardinality, score));
+  }
+
   /* */
   private void mergeStemEquivalentBaseClusters(
       SequenceBuilder sb, final List<ClusterCandidate> candidates) {
@@ -451,7 +545,7 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
     IntStack scratch = new IntStack();
     for (ClusterCandidate cc : candidates) {
       if (cc.phrases.size() > 1) {
-        cc.cardinality = (int) cc.documents.cardinality();
+        cc.cardinality = cc.documents.cardinality();
         scratch.buffer = cc.phrases.get(0);
         scratch.elementsCount = scratch.buffer.length;
         cc.score = baseClusterScore(effectivePhraseLength(scratch), cc.cardinality);
@@ -472,30 +566,8 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
      * Calculate overlap between base clusters first, saving adjacency lists for
      * each base cluster.
      */
-
-    // [i] - next neighbor or END, [i + 1] - neighbor cluster index.
-    final int END = -1;
-    final IntStack neighborList = new IntStack();
-    neighborList.push(END);
-    final int[] neighbors = new int[baseClusters.size()];
-    final float m = mergeThreshold.get().floatValue();
-    for (int i = 0; i < baseClusters.size(); i++) {
-      for (int j = i + 1; j < baseClusters.size(); j++) {
-        final ClusterCandidate c1 = baseClusters.get(i);
-        final ClusterCandidate c2 = baseClusters.get(j);
-
-        final float a = c1.cardinality;
-        final float b = c2.cardinality;
-        final float c = BitSet.intersectionCount(c1.documents, c2.documents);
-
-        if (c / a > m && c / b > m) {
-          neighborList.push(neighbors[i], j);
-          neighbors[i] = neighborList.size() - 2;
-          neighborList.push(neighbors[j], i);
-          neighbors[j] = neighborList.size() - 2;
-        }
-      }
-    }
+    final int[][] neighbors =
+        BaseClusterOverlap.neighbors(baseClusters, mergeThreshold.get().floatValue());
 
     /*
      * Find connected components in the similarity graph using Tarjan's algorithm
@@ -524,14 +596,14 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
         merged[c] = mergedIndex;
         mergeList.push(c);
 
-        for (int i = neighbors[c]; neighborList.get(i) != END; ) {
-          final int neighbor = neighborList.get(i + 1);
+        // Visit neighbors in reverse order of their indexes.
+        for (int i = neighbors[c].length; --i >= 0; ) {
+          final int neighbor = neighbors[c][i];
           if (merged[neighbor] == NO_INDEX) {
             stack.push(neighbor);
           } else {
             assert merged[neighbor] == mergedIndex;
           }
-          i = neighborList.get(i);
         }
       }
       mergedIndex++;
@@ -579,7 +651,7 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
       result.documents.or(cc.documents);
       result.score += cc.score;
     }
-    result.cardinality = (int) result.documents.cardinality();
+    result.cardinality = result.documents.cardinality();
 
     /*
      * Combine cluster labels and try to find the best description for the cluster.
@@ -818,7 +890,7 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
   private <T extends Document> void postProcessing(
       List<T> documents, List<ClusterCandidate> candidates, List<Cluster<T>> clusters) {
     // Adapt to Carrot2 classes, counting used documents on the way.
-    final BitSet all = new BitSet(documents.size());
+    final CompressedBitSet all = new CompressedBitSet();
     final ArrayList<T> docs = new ArrayList<>(documents.size());
     for (ClusterCandidate c : candidates) {
       final Cluster<T> c2 = new Cluster<>();
@@ -841,13 +913,12 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
 
   /** Collect documents from a bitset. */
   private <T extends Document> List<T> collectDocuments(
-      List<T> documents, List<T> l, BitSet bitset) {
+      List<T> documents, List<T> l, CompressedBitSet bitset) {
     if (l == null) {
-      l = new ArrayList<>((int) bitset.cardinality());
+      l = new ArrayList<>(bitset.cardinality());
     }
 
-    final BitSetIterator i = bitset.iterator();
-    for (int d = i.nextSetBit(); d >= 0; d = i.nextSetBit()) {
+    for (int d = bitset.nextSetBit(0); d >= 0; d = bitset.nextSetBit(d + 1)) {
       l.add(documents.get(d));
     }
     return l;
@@ -1104,4 +1175,22 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
     }
     return -1;
   }
+
+  private static void suffixTreeSizes(SequenceBuilder sb, Map<String, Long> sizes) {
+    sizes.put("input", (long) sb.input.size());
+    sizes.put("states", (long) sb.stree.getStatesCount());
+    sizes.put("transitions", (long) sb.stree.getTransitionsCount());
+  }
+
+  private static void suffixArraySizes(SequenceBuilder sb, Map<String, Long> sizes) {
+    sizes.put("input", (long) sb.input.size());
+  }
+
+  private static void candidateSizes(List<ClusterCandidate> candidates, Map<String, Long> sizes) {
+    sizes.put("clusters", (long) candidates.size());
+  }
+
+  private static void clusterSizes(List<? extends Cluster<?>> clusters, Map<String, Long> sizes) {
+    sizes.put("clusters", (long) clusters.size());
+  }
 }
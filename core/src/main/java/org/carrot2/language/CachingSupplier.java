@@ -0,0 +1,70 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.language;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A component supplier caching instances according to a {@link ComponentScope} and counting the
+ * number of instances created by the delegate supplier.
+ */
+final class CachingSupplier<T> implements Supplier<T> {
+  private final Supplier<T> delegate;
+  private final ComponentScope scope;
+  private final LongAdder instances = new LongAdder();
+  private final ThreadLocal<T> perThread;
+  private volatile T shared;
+
+  CachingSupplier(Supplier<T> delegate, ComponentScope scope) {
+    this.delegate = delegate;
+    this.scope = scope;
+    this.perThread =
+        scope == ComponentScope.PER_THREAD ? ThreadLocal.withInitial(this::create) : null;
+  }
+
+  @Override
+  public T get() {
+    switch (scope) {
+      case PER_CALL:
+        return create();
+      case PER_THREAD:
+        return perThread.get();
+      case SHARED:
+        T instance = shared;
+        if (instance == null) {
+          synchronized (this) {
+            instance = shared;
+            if (instance == null) {
+              shared = instance = create();
+            }
+          }
+        }
+        return instance;
+      default:
+        throw new RuntimeException("Unknown component scope: " + scope);
+    }
+  }
+
+  ComponentScope scope() {
+    return scope;
+  }
+
+  /** @return Returns the number of instances created by the delegate supplier so far. */
+  long instances() {
+    return instances.sum();
+  }
+
+  private T create() {
+    instances.increment();
+    return delegate.get();
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.language;
+
+import com.carrotsearch.hppc.BitMixer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.carrot2.util.ResourceLookup;
+
+/**
+ * {@link LexicalData} equivalent to {@link LexicalDataImpl}, but without allocations on lookups.
+ * Stopwords are kept in an open-addressing hash table of character arrays, looked up directly with
+ * the provided {@link CharSequence}. Stop label patterns are compiled into a single deterministic
+ * automaton ({@link StoplabelAutomaton}). Patterns using constructs the automaton does not support
+ * are matched with a regular expression {@link Pattern}.
+ */
+public final class CompiledLexicalData implements LexicalData {
+  private final char[][] stopwords;
+  private final int mask;
+
+  private final StoplabelAutomaton stoplabelAutomaton;
+
+  /** Stop labels not supported by the automaton, if any. */
+  private final Pattern stoplabelFallback;
+
+  /** All stop labels, for inputs the automaton cannot decide about. */
+  private final Pattern stoplabelPattern;
+
+  public CompiledLexicalData(Collection<String> stopwords, Collection<String> stoplabelPatterns) {
+    int size = Integer.highestOneBit(Math.max(4, stopwords.size() * 2 - 1)) << 1;
+    this.stopwords = new char[size][];
+    this.mask = size - 1;
+    for (String word : stopwords) {
+      add(word);
+    }
+
+    List<String> patterns = new ArrayList<>(stoplabelPatterns);
+    this.stoplabelPattern = LexicalDataImpl.union(LexicalDataImpl.compile(patterns));
+
+    List<String> unsupported = new ArrayList<>();
+    this.stoplabelAutomaton = StoplabelAutomaton.compile(patterns, unsupported);
+    this.stoplabelFallback = LexicalDataImpl.union(LexicalDataImpl.compile(unsupported));
+  }
+
+  public CompiledLexicalData(
+      ResourceLookup loader, String stopwordsResource, String stoplabelsResource)
+      throws IOException {
+    this(
+        LexicalDataImpl.loadStopwords(loader, stopwordsResource),
+        LexicalDataImpl.readLines(loader, stoplabelsResource));
+  }
+
+  @Override
+  public boolean ignoreWord(CharSequence word) {
+    final int length = word.length();
+    for (int slot = hash(word) & mask; ; slot = (slot + 1) & mask) {
+      final char[] entry = stopwords[slot];
+      if (entry == null) {
+        return false;
+      }
+      if (equals(entry, word, length)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public boolean ignoreLabel(CharSequence label) {
+    if (stoplabelAutomaton != null) {
+      switch (stoplabelAutomaton.match(label)) {
+        case StoplabelAutomaton.MATCH:
+          return true;
+        case StoplabelAutomaton.NO_MATCH:
+          break;
+        case StoplabelAutomaton.UNDECIDED:
+          return stoplabelPattern.matcher(label).matches();
+        default:
+          throw new RuntimeException("Unknown match result.");
+      }
+    }
+
+    return stoplabelFallback != null && stoplabelFallback.matcher(label).matches();
+  }
+
+  /** @return Returns true if stop labels are matched without regular expressions. */
+  boolean isFullyCompiled() {
+    return stoplabelFallback == null;
+  }
+
+  private void add(String word) {
+    int slot = hash(word) & mask;
+    while (stopwords[slot] != null) {
+      if (equals(stopwords[slot], word, word.length())) {
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    stopwords[slot] = word.toCharArray();
+  }
+
+  private static int hash(CharSequence word) {
+    int hash = 0;
+    for (int i = 0, max = word.length(); i < max; i++) {
+      hash = 31 * hash + word.charAt(i);
+    }
+    return BitMixer.mix32(hash);
+  }
+
+  private static boolean equals(char[] entry, CharSequence word, int length) {
+    if (entry.length != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (entry[i] != word.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.language;
+
+/**
+ * Determines how instances of a language component are cached by {@link LanguageComponents}
+ * returned from a loader with {@link LanguageComponentsLoader#withComponentCaching(java.util.Map)
+ * component caching} enabled.
+ */
+public enum ComponentScope {
+  /** A new instance is created for every call to {@link LanguageComponents#get(Class)}. */
+  PER_CALL,
+
+  /**
+   * One instance is created for each thread. Suitable for stateful components that are not
+   * thread-safe but can be reused ({@link Tokenizer}, {@link Stemmer}).
+   */
+  PER_THREAD,
+
+  /**
+   * One instance is created and shared by all threads. Suitable for stateless or immutable
+   * components ({@link LexicalData}).
+   */
+  SHARED;
+}
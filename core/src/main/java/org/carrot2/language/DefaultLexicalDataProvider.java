@@ -14,12 +14,31 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 import org.carrot2.util.ClassRelativeResourceLookup;
 import org.carrot2.util.ResourceLookup;
 
 public class DefaultLexicalDataProvider implements LanguageComponentsProvider {
+  /** Implementations of {@link LexicalData} this provider can load. */
+  public enum Implementation {
+    /** {@link CompiledLexicalData}, the default. */
+    COMPILED,
+    /** {@link LexicalDataImpl}. */
+    HASH_SET_AND_REGEXP;
+  }
+
+  private final Implementation implementation;
+
+  public DefaultLexicalDataProvider() {
+    this(Implementation.COMPILED);
+  }
+
+  public DefaultLexicalDataProvider(Implementation implementation) {
+    this.implementation = Objects.requireNonNull(implementation);
+  }
+
   @Override
   public Set<String> languages() {
     return DefaultStemmersProvider.STEMMER_SUPPLIERS.keySet();
@@ -44,9 +63,19 @@ public class DefaultLexicalDataProvider implements LanguageComponentsProvider {
     }
 
     String langPrefix = language.toLowerCase(Locale.ROOT);
-    LexicalData lexicalData =
-        new LexicalDataImpl(
-            resourceLookup, langPrefix + ".stopwords.utf8", langPrefix + ".stoplabels.utf8");
+    String stopwords = langPrefix + ".stopwords.utf8";
+    String stoplabels = langPrefix + ".stoplabels.utf8";
+    LexicalData lexicalData;
+    switch (implementation) {
+      case COMPILED:
+        lexicalData = new CompiledLexicalData(resourceLookup, stopwords, stoplabels);
+        break;
+      case HASH_SET_AND_REGEXP:
+        lexicalData = new LexicalDataImpl(resourceLookup, stopwords, stoplabels);
+        break;
+      default:
+        throw new RuntimeException("Unknown implementation: " + implementation);
+    }
 
     return Map.of(LexicalData.class, () -> lexicalData);
   }
@@ -53,6 +53,22 @@ public final class LanguageComponents {
     return components.keySet();
   }
 
+  /**
+   * Returns the number of instances created so far for each component class, if instance caching
+   * was enabled in the loader (see {@link LanguageComponentsLoader#withComponentCaching(Map)}).
+   * Components without instance counts (overridden components, no caching) are not included.
+   */
+  public Map<Class<?>, Long> instanceCounts() {
+    Map<Class<?>, Long> counts = new LinkedHashMap<>();
+    components.forEach(
+        (clazz, supplier) -> {
+          if (supplier instanceof CachingSupplier) {
+            counts.put(clazz, ((CachingSupplier<?>) supplier).instances());
+          }
+        });
+    return counts;
+  }
+
   public static LanguageComponentsLoader loader() {
     return new LanguageComponentsLoader();
   }
@@ -27,13 +27,26 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.carrot2.clustering.ClusteringAlgorithm;
+import org.carrot2.text.preprocessing.LabelFormatter;
 import org.carrot2.util.ResourceLookup;
 
 public final class LanguageComponentsLoader {
+  /**
+   * Component scopes used by {@link #withComponentCaching()}: lexical data and label formatters are
+   * shared, tokenizers and stemmers are cached per thread.
+   */
+  public static final Map<Class<?>, ComponentScope> DEFAULT_COMPONENT_SCOPES =
+      Map.of(
+          LexicalData.class, ComponentScope.SHARED,
+          LabelFormatter.class, ComponentScope.SHARED,
+          Tokenizer.class, ComponentScope.PER_THREAD,
+          Stemmer.class, ComponentScope.PER_THREAD);
+
   private ClassLoader spiClassLoader;
   private Set<String> languageRestrictions;
   private Function<LanguageComponentsProvider, ResourceLookup> resourceLookupModifier;
   private ClusteringAlgorithm[] algorithmRestriction;
+  private Map<Class<?>, ComponentScope> componentScopes;
 
   public LoadedLanguages load() throws IOException {
     if (spiClassLoader == null) {
@@ -82,6 +95,13 @@ public final class LanguageComponentsLoader {
         }
       }
 
+      if (componentScopes != null) {
+        componentSuppliers.replaceAll(
+            (clazz, supplier) ->
+                new CachingSupplier<>(
+                    supplier, componentScopes.getOrDefault(clazz, ComponentScope.PER_CALL)));
+      }
+
       if (!componentSuppliers.isEmpty()) {
         preloadedSuppliers.put(language, componentSuppliers);
       }
@@ -115,6 +135,29 @@ public final class LanguageComponentsLoader {
     return this;
   }
 
+  /**
+   * Enables caching of component instances with {@link #DEFAULT_COMPONENT_SCOPES}.
+   *
+   * @see #withComponentCaching(Map)
+   */
+  public LanguageComponentsLoader withComponentCaching() {
+    return withComponentCaching(DEFAULT_COMPONENT_SCOPES);
+  }
+
+  /**
+   * Enables caching of component instances returned from {@link LanguageComponents#get(Class)},
+   * according to the provided scope of each component class. Components not present in the map are
+   * created on each call ({@link ComponentScope#PER_CALL}). The number of instances created for
+   * each component is available from {@link LanguageComponents#instanceCounts()}.
+   */
+  public LanguageComponentsLoader withComponentCaching(Map<Class<?>, ComponentScope> scopes) {
+    if (this.componentScopes != null) {
+      throw new RuntimeException("Method can be set once.");
+    }
+    this.componentScopes = new HashMap<>(scopes);
+    return this;
+  }
+
   private void sanityCheck(Map<String, List<LanguageComponentsProvider>> languageProviders) {
     languageProviders.forEach(
         (language, providers) -> {
@@ -57,24 +57,24 @@ public final class LexicalDataImpl implements LexicalData {
 
   private static Pattern loadStoplabels(ResourceLookup loader, String stoplabelsResource)
       throws IOException {
-    List<Pattern> stoplabels;
-    try (InputStream is = loader.open(stoplabelsResource);
-        BufferedReader reader =
-            new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-      stoplabels = compile(readLines(reader));
-    }
-    return union(stoplabels);
+    return union(compile(readLines(loader, stoplabelsResource)));
   }
 
-  private static HashSet<String> loadStopwords(ResourceLookup loader, String stopwordsResource)
+  static HashSet<String> loadStopwords(ResourceLookup loader, String stopwordsResource)
       throws IOException {
     HashSet<String> stopwords = new HashSet<>();
-    try (InputStream is = loader.open(stopwordsResource);
+    readLines(loader, stopwordsResource)
+        .forEach(word -> stopwords.add(word.toLowerCase(Locale.ROOT)));
+    return stopwords;
+  }
+
+  /** Loads lines from a given resource (see {@link #readLines(BufferedReader)}). */
+  static HashSet<String> readLines(ResourceLookup loader, String resource) throws IOException {
+    try (InputStream is = loader.open(resource);
         BufferedReader reader =
             new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-      readLines(reader).forEach(word -> stopwords.add(word.toLowerCase(Locale.ROOT)));
+      return readLines(reader);
     }
-    return stopwords;
   }
 
   /**
@@ -93,7 +93,7 @@ public final class LexicalDataImpl implements LexicalData {
     return words;
   }
 
-  private static List<Pattern> compile(Set<String> patterns) {
+  static List<Pattern> compile(Collection<String> patterns) {
     ArrayList<Pattern> compiled = new ArrayList<>();
     for (String p : patterns) {
       compiled.add(Pattern.compile(p));
@@ -105,7 +105,7 @@ public final class LexicalDataImpl implements LexicalData {
    * Combines a number of patterns into a single pattern with a union of all of them. With
    * automata-based pattern engines, this should be faster and memory-friendly.
    */
-  private static Pattern union(List<Pattern> patterns) {
+  static Pattern union(List<Pattern> patterns) {
     final StringBuilder union = new StringBuilder();
     if (patterns.size() > 0) {
       union.append("(");
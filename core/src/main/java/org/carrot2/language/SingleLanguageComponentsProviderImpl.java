@@ -84,7 +84,7 @@ public abstract class SingleLanguageComponentsProviderImpl implements LanguageCo
   protected static LexicalData loadLexicalData(String language, ResourceLookup resourceLookup)
       throws IOException {
     String langPrefix = language.toLowerCase(Locale.ROOT);
-    return new LexicalDataImpl(
+    return new CompiledLexicalData(
         resourceLookup, langPrefix + ".stopwords.utf8", langPrefix + ".stoplabels.utf8");
   }
 }
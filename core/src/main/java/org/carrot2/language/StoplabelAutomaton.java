@@ -0,0 +1,757 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.language;
+
+import com.carrotsearch.hppc.IntArrayList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A deterministic automaton matching the union of a set of stop label patterns. Patterns use the
+ * syntax of {@link java.util.regex.Pattern}, but only a regular subset of it is supported:
+ * literals, character classes (without intersections and nested classes), predefined ASCII classes
+ * (<code>
+ * \d \w \s</code> and their complements), the dot, groups, alternatives, greedy and reluctant
+ * quantifiers and the case-insensitive flag (<code>(?i)</code>, ASCII-only, like in {@link
+ * java.util.regex.Pattern}). Patterns with other constructs should be matched with {@link
+ * java.util.regex.Pattern} instead, see {@link #compile(List, List)}.
+ *
+ * <p>The automaton matches individual UTF-16 characters, so it cannot decide about inputs with
+ * surrogate characters (matched as code points by {@link java.util.regex.Pattern}).
+ */
+final class StoplabelAutomaton {
+  /** Returned from {@link #match(CharSequence)} if the input was accepted. */
+  static final int MATCH = 1;
+  /** Returned from {@link #match(CharSequence)} if the input was rejected. */
+  static final int NO_MATCH = 0;
+  /** Returned from {@link #match(CharSequence)} for inputs the automaton cannot decide about. */
+  static final int UNDECIDED = -1;
+
+  /** The maximum number of automaton states, exceeding it fails the compilation. */
+  static final int MAX_STATES = 10_000;
+
+  private static final int MAX_REPEAT = 100;
+  private static final int MAX_NFA_STATES = 100_000;
+
+  private static final int DEAD_STATE = 0;
+  private static final int START_STATE = 1;
+
+  /** The first character of each character class (the first class starts at 0). */
+  private final int[] classStarts;
+
+  /** Character classes of ASCII characters. */
+  private final int[] asciiClasses;
+
+  private final int classCount;
+
+  /** Transitions, <code>state * classCount + class</code>. */
+  private final int[] transitions;
+
+  private final boolean[] accepting;
+
+  private StoplabelAutomaton(int[] classStarts, int[] transitions, boolean[] accepting) {
+    this.classStarts = classStarts;
+    this.classCount = classStarts.length;
+    this.transitions = transitions;
+    this.accepting = accepting;
+    this.asciiClasses = new int[128];
+    for (int c = 0; c < asciiClasses.length; c++) {
+      asciiClasses[c] = classOf(c);
+    }
+  }
+
+  /**
+   * @return Returns {@link #MATCH} if the entire input matches any of the patterns, {@link
+   *     #NO_MATCH} if it does not match and {@link #UNDECIDED} if the input contains surrogate
+   *     characters.
+   */
+  int match(CharSequence input) {
+    int state = START_STATE;
+    for (int i = 0, max = input.length(); i < max; i++) {
+      final char chr = input.charAt(i);
+      if (Character.isSurrogate(chr)) {
+        return UNDECIDED;
+      }
+      state = transitions[state * classCount + (chr < 128 ? asciiClasses[chr] : classOf(chr))];
+      if (state == DEAD_STATE) {
+        return NO_MATCH;
+      }
+    }
+    return accepting[state] ? MATCH : NO_MATCH;
+  }
+
+  /** @return Returns the number of states of this automaton. */
+  int stateCount() {
+    return accepting.length;
+  }
+
+  private int classOf(int chr) {
+    int index = Arrays.binarySearch(classStarts, chr);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  /**
+   * Compiles patterns into an automaton.
+   *
+   * @param patterns The patterns to compile.
+   * @param unsupported Patterns which cannot be compiled into an automaton are added to this list.
+   * @return Returns the automaton for all supported patterns or <code>null</code> if there were no
+   *     supported patterns or the automaton would exceed {@link #MAX_STATES} states (in which case
+   *     all patterns are added to the unsupported list).
+   */
+  static StoplabelAutomaton compile(List<String> patterns, List<String> unsupported) {
+    List<Node> nodes = new ArrayList<>();
+    for (String pattern : patterns) {
+      Node node = new Parser(pattern).parse();
+      if (node == null) {
+        unsupported.add(pattern);
+      } else {
+        nodes.add(node);
+      }
+    }
+
+    if (nodes.isEmpty()) {
+      return null;
+    }
+
+    StoplabelAutomaton automaton = determinize(Nfa.build(nodes));
+    if (automaton == null) {
+      for (int i = 0; i < patterns.size(); i++) {
+        if (!unsupported.contains(patterns.get(i))) {
+          unsupported.add(patterns.get(i));
+        }
+      }
+    }
+    return automaton;
+  }
+
+  /** Subset construction of a deterministic automaton. */
+  private static StoplabelAutomaton determinize(Nfa nfa) {
+    if (nfa == null) {
+      return null;
+    }
+
+    // Split the alphabet into character classes with the same transitions.
+    BitSet boundaries = new BitSet();
+    boundaries.set(0);
+    for (IntArrayList edges : nfa.edges) {
+      for (int i = 0; i < edges.size(); i += 3) {
+        boundaries.set(edges.get(i));
+        boundaries.set(edges.get(i + 1) + 1);
+      }
+    }
+    boundaries.clear(Character.MAX_VALUE + 1);
+    final int[] classStarts = boundaries.stream().toArray();
+    final int classCount = classStarts.length;
+
+    IntArrayList transitions = new IntArrayList();
+    List<Boolean> accepting = new ArrayList<>();
+    Map<BitSet, Integer> states = new HashMap<>();
+    ArrayDeque<BitSet> queue = new ArrayDeque<>();
+
+    // The dead state.
+    BitSet dead = new BitSet();
+    states.put(dead, DEAD_STATE);
+    accepting.add(false);
+    transitions.resize(classCount);
+
+    BitSet start = new BitSet();
+    start.set(nfa.start);
+    nfa.closure(start);
+    states.put(start, START_STATE);
+    accepting.add(start.get(nfa.accept));
+    transitions.resize(2 * classCount);
+    queue.add(start);
+
+    final BitSet[] targets = new BitSet[classCount];
+    while (!queue.isEmpty()) {
+      BitSet current = queue.removeFirst();
+      final int state = states.get(current);
+
+      for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+        IntArrayList edges = nfa.edges.get(s);
+        for (int i = 0; i < edges.size(); i += 3) {
+          int from = Arrays.binarySearch(classStarts, edges.get(i));
+          for (int c = from; c < classCount && classStarts[c] <= edges.get(i + 1); c++) {
+            if (targets[c] == null) {
+              targets[c] = new BitSet();
+            }
+            targets[c].set(edges.get(i + 2));
+          }
+        }
+      }
+
+      for (int c = 0; c < classCount; c++) {
+        BitSet target = targets[c];
+        if (target == null) {
+          continue;
+        }
+        targets[c] = null;
+
+        nfa.closure(target);
+        Integer targetState = states.get(target);
+        if (targetState == null) {
+          if (states.size() >= MAX_STATES) {
+            return null;
+          }
+          targetState = states.size();
+          states.put(target, targetState);
+          accepting.add(target.get(nfa.accept));
+          transitions.resize((targetState + 1) * classCount);
+          queue.add(target);
+        }
+        transitions.set(state * classCount + c, targetState);
+      }
+    }
+
+    boolean[] acceptingStates = new boolean[accepting.size()];
+    for (int i = 0; i < acceptingStates.length; i++) {
+      acceptingStates[i] = accepting.get(i);
+    }
+    return new StoplabelAutomaton(classStarts, transitions.toArray(), acceptingStates);
+  }
+
+  /** A nondeterministic automaton with epsilon transitions. */
+  private static final class Nfa {
+    /** Outgoing edges of each state, as triples: first character, last character, target. */
+    final List<IntArrayList> edges = new ArrayList<>();
+
+    final List<IntArrayList> epsilons = new ArrayList<>();
+    int start;
+    int accept;
+
+    static Nfa build(List<Node> alternatives) {
+      Nfa nfa = new Nfa();
+      nfa.start = nfa.newState();
+      nfa.accept = nfa.newState();
+      for (Node node : alternatives) {
+        int end = nfa.build(node, nfa.start);
+        if (end < 0) {
+          return null;
+        }
+        nfa.epsilon(end, nfa.accept);
+      }
+      return nfa;
+    }
+
+    private int newState() {
+      edges.add(new IntArrayList(0));
+      epsilons.add(new IntArrayList(0));
+      return edges.size() - 1;
+    }
+
+    private void epsilon(int from, int to) {
+      epsilons.get(from).add(to);
+    }
+
+    /** @return Returns the end state of the node's fragment or -1 if there are too many states. */
+    private int build(Node node, int from) {
+      if (edges.size() > MAX_NFA_STATES) {
+        return -1;
+      }
+
+      if (node instanceof Chars) {
+        int to = newState();
+        int[] ranges = ((Chars) node).ranges;
+        for (int i = 0; i < ranges.length; i += 2) {
+          edges.get(from).add(ranges[i], ranges[i + 1], to);
+        }
+        return to;
+      } else if (node instanceof Sequence) {
+        int current = from;
+        for (Node element : ((Sequence) node).elements) {
+          current = build(element, current);
+          if (current < 0) {
+            return -1;
+          }
+        }
+        return current;
+      } else if (node instanceof Alternatives) {
+        int to = newState();
+        for (Node alternative : ((Alternatives) node).alternatives) {
+          int start = newState();
+          epsilon(from, start);
+          int end = build(alternative, start);
+          if (end < 0) {
+            return -1;
+          }
+          epsilon(end, to);
+        }
+        return to;
+      } else if (node instanceof Repeat) {
+        Repeat repeat = (Repeat) node;
+        int current = from;
+        for (int i = 0; i < repeat.min; i++) {
+          current = build(repeat.node, current);
+          if (current < 0) {
+            return -1;
+          }
+        }
+
+        if (repeat.max < 0) {
+          int loop = newState();
+          epsilon(current, loop);
+          int end = build(repeat.node, loop);
+          if (end < 0) {
+            return -1;
+          }
+          epsilon(end, loop);
+          return loop;
+        } else {
+          int to = newState();
+          for (int i = repeat.min; i < repeat.max; i++) {
+            epsilon(current, to);
+            current = build(repeat.node, current);
+            if (current < 0) {
+              return -1;
+            }
+          }
+          epsilon(current, to);
+          return to;
+        }
+      } else {
+        throw new RuntimeException("Unknown node: " + node);
+      }
+    }
+
+    /** Extends the set of states with states reachable via epsilon transitions. */
+    void closure(BitSet states) {
+      IntArrayList stack = new IntArrayList();
+      for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+        stack.add(s);
+      }
+      while (!stack.isEmpty()) {
+        IntArrayList targets = epsilons.get(stack.remove(stack.size() - 1));
+        for (int i = 0; i < targets.size(); i++) {
+          int target = targets.get(i);
+          if (!states.get(target)) {
+            states.set(target);
+            stack.add(target);
+          }
+        }
+      }
+    }
+  }
+
+  private abstract static class Node {}
+
+  /** A set of characters, as sorted, disjoint and inclusive ranges of characters. */
+  private static final class Chars extends Node {
+    final int[] ranges;
+
+    Chars(int... ranges) {
+      this.ranges = normalize(ranges);
+    }
+
+    Chars caseInsensitive() {
+      IntArrayList closed = new IntArrayList();
+      closed.add(ranges);
+      for (int i = 0; i < ranges.length; i += 2) {
+        addShifted(closed, ranges[i], ranges[i + 1], 'a', 'z', 'A' - 'a');
+        addShifted(closed, ranges[i], ranges[i + 1], 'A', 'Z', 'a' - 'A');
+      }
+      return new Chars(closed.toArray());
+    }
+
+    Chars complement() {
+      IntArrayList complement = new IntArrayList();
+      int next = 0;
+      for (int i = 0; i < ranges.length; i += 2) {
+        if (ranges[i] > next) {
+          complement.add(next, ranges[i] - 1);
+        }
+        next = ranges[i + 1] + 1;
+      }
+      if (next <= Character.MAX_VALUE) {
+        complement.add(next, Character.MAX_VALUE);
+      }
+      return new Chars(complement.toArray());
+    }
+
+    static Chars union(List<Chars> sets) {
+      IntArrayList union = new IntArrayList();
+      for (Chars set : sets) {
+        union.add(set.ranges);
+      }
+      return new Chars(union.toArray());
+    }
+
+    private static void addShifted(
+        IntArrayList target, int from, int to, int lower, int upper, int shift) {
+      from = Math.max(from, lower);
+      to = Math.min(to, upper);
+      if (from <= to) {
+        target.add(from + shift, to + shift);
+      }
+    }
+
+    private static int[] normalize(int[] ranges) {
+      int count = ranges.length / 2;
+      long[] sorted = new long[count];
+      for (int i = 0; i < count; i++) {
+        sorted[i] = ((long) ranges[2 * i] << 32) | ranges[2 * i + 1];
+      }
+      Arrays.sort(sorted);
+
+      IntArrayList merged = new IntArrayList();
+      for (long range : sorted) {
+        int from = (int) (range >>> 32);
+        int to = (int) range;
+        if (!merged.isEmpty() && from <= merged.get(merged.size() - 1) + 1) {
+          merged.set(merged.size() - 1, Math.max(to, merged.get(merged.size() - 1)));
+        } else {
+          merged.add(from, to);
+        }
+      }
+      return merged.toArray();
+    }
+  }
+
+  private static final class Sequence extends Node {
+    final List<Node> elements;
+
+    Sequence(List<Node> elements) {
+      this.elements = elements;
+    }
+  }
+
+  private static final class Alternatives extends Node {
+    final List<Node> alternatives;
+
+    Alternatives(List<Node> alternatives) {
+      this.alternatives = alternatives;
+    }
+  }
+
+  private static final class Repeat extends Node {
+    final Node node;
+    final int min;
+    final int max;
+
+    Repeat(Node node, int min, int max) {
+      this.node = node;
+      this.min = min;
+      this.max = max;
+    }
+  }
+
+  /** Thrown by the parser for constructs the automaton does not support. */
+  private static final class UnsupportedSyntaxException extends Exception {
+    UnsupportedSyntaxException() {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * A parser of the supported subset of {@link java.util.regex.Pattern} syntax. The input is
+   * assumed to be a valid pattern.
+   */
+  private static final class Parser {
+    private static final Chars DIGITS = new Chars('0', '9');
+    private static final Chars WORD = new Chars('a', 'z', 'A', 'Z', '_', '_', '0', '9');
+    private static final Chars SPACE = new Chars(' ', ' ', '\t', '\r', '\u000B', '\u000B');
+    private static final Chars DOT =
+        new Chars('\n', '\n', '\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029').complement();
+
+    private final String pattern;
+    private int pos;
+    private boolean caseInsensitive;
+
+    Parser(String pattern) {
+      this.pattern = pattern;
+    }
+
+    /** @return Returns the parsed pattern or <code>null</code> if it is not supported. */
+    Node parse() {
+      try {
+        Node node = alternatives();
+        if (pos != pattern.length()) {
+          throw new UnsupportedSyntaxException();
+        }
+        return node;
+      } catch (UnsupportedSyntaxException | RuntimeException e) {
+        return null;
+      }
+    }
+
+    private Node alternatives() throws UnsupportedSyntaxException {
+      List<Node> alternatives = new ArrayList<>();
+      alternatives.add(sequence());
+      while (pos < pattern.length() && pattern.charAt(pos) == '|') {
+        pos++;
+        alternatives.add(sequence());
+      }
+      return alternatives.size() == 1 ? alternatives.get(0) : new Alternatives(alternatives);
+    }
+
+    private Node sequence() throws UnsupportedSyntaxException {
+      List<Node> elements = new ArrayList<>();
+      while (pos < pattern.length() && pattern.charAt(pos) != '|' && pattern.charAt(pos) != ')') {
+        Node atom = atom();
+        if (atom != null) {
+          elements.add(quantified(atom));
+        }
+      }
+      return elements.size() == 1 ? elements.get(0) : new Sequence(elements);
+    }
+
+    private Node quantified(Node atom) throws UnsupportedSyntaxException {
+      if (pos >= pattern.length()) {
+        return atom;
+      }
+
+      int min;
+      int max;
+      switch (pattern.charAt(pos)) {
+        case '?':
+          min = 0;
+          max = 1;
+          pos++;
+          break;
+        case '*':
+          min = 0;
+          max = -1;
+          pos++;
+          break;
+        case '+':
+          min = 1;
+          max = -1;
+          pos++;
+          break;
+        case '{':
+          pos++;
+          min = number();
+          max = min;
+          if (next() == ',') {
+            max = peek() == '}' ? -1 : number();
+            if (next() != '}') {
+              throw new UnsupportedSyntaxException();
+            }
+          }
+          if (min > MAX_REPEAT || max > MAX_REPEAT) {
+            throw new UnsupportedSyntaxException();
+          }
+          break;
+        default:
+          return atom;
+      }
+
+      // Reluctant quantifiers match the same inputs, possessive ones do not.
+      if (pos < pattern.length() && pattern.charAt(pos) == '?') {
+        pos++;
+      }
+      if (pos < pattern.length() && "?*+{".indexOf(pattern.charAt(pos)) >= 0) {
+        throw new UnsupportedSyntaxException();
+      }
+      return new Repeat(atom, min, max);
+    }
+
+    /** @return Returns the atom or <code>null</code> for inline flags. */
+    private Node atom() throws UnsupportedSyntaxException {
+      char chr = next();
+      switch (chr) {
+        case '(':
+          return group();
+        case '[':
+          return characterClass();
+        case '.':
+          return DOT;
+        case '\\':
+          return literal(escape(false));
+        case '^':
+        case '$':
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+          throw new UnsupportedSyntaxException();
+        default:
+          return literal(chr);
+      }
+    }
+
+    private Node group() throws UnsupportedSyntaxException {
+      final boolean enclosingFlag = caseInsensitive;
+      if (peek() == '?') {
+        pos++;
+        char chr = next();
+        if (chr != ':') {
+          boolean value = true;
+          for (; chr != ')' && chr != ':'; chr = next()) {
+            if (chr == '-' && value) {
+              value = false;
+            } else if (chr == 'i') {
+              caseInsensitive = value;
+            } else {
+              throw new UnsupportedSyntaxException();
+            }
+          }
+          if (chr == ')') {
+            // Inline flags apply to the rest of the enclosing group.
+            return null;
+          }
+        }
+      }
+
+      Node node = alternatives();
+      if (next() != ')') {
+        throw new UnsupportedSyntaxException();
+      }
+      caseInsensitive = enclosingFlag;
+      return node;
+    }
+
+    private Node characterClass() throws UnsupportedSyntaxException {
+      boolean negated = false;
+      if (peek() == '^') {
+        negated = true;
+        pos++;
+      }
+      if (peek() == ']') {
+        throw new UnsupportedSyntaxException();
+      }
+
+      List<Chars> items = new ArrayList<>();
+      char chr;
+      while ((chr = next()) != ']') {
+        if (chr == '[' || (chr == '&' && peek() == '&')) {
+          throw new UnsupportedSyntaxException();
+        }
+
+        Object from = chr == '\\' ? escape(true) : chr;
+        if (from instanceof Chars) {
+          items.add(caseInsensitive ? ((Chars) from).caseInsensitive() : (Chars) from);
+          continue;
+        }
+
+        char to = (Character) from;
+        if (peek() == '-' && pos + 1 < pattern.length() && pattern.charAt(pos + 1) != ']') {
+          pos++;
+          chr = next();
+          Object escaped = chr == '\\' ? escape(true) : chr;
+          if (!(escaped instanceof Character) || chr == '[') {
+            throw new UnsupportedSyntaxException();
+          }
+          to = (Character) escaped;
+        }
+        items.add(chars((Character) from, to));
+      }
+
+      Chars union = Chars.union(items);
+      return negated ? union.complement() : union;
+    }
+
+    /**
+     * Parses an escape sequence, after the backslash.
+     *
+     * @return Returns a {@link Character} for escaped characters or {@link Chars} for predefined
+     *     character classes.
+     */
+    private Object escape(boolean inClass) throws UnsupportedSyntaxException {
+      char chr = next();
+      switch (chr) {
+        case 'd':
+          return DIGITS;
+        case 'D':
+          return DIGITS.complement();
+        case 'w':
+          return WORD;
+        case 'W':
+          return WORD.complement();
+        case 's':
+          return SPACE;
+        case 'S':
+          return SPACE.complement();
+        case 't':
+          return '\t';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 'f':
+          return '\f';
+        case 'a':
+          return '\u0007';
+        case 'e':
+          return '\u001B';
+        case 'x':
+          return hex(2);
+        case 'u':
+          return hex(4);
+        default:
+          if (Character.isLetterOrDigit(chr) || Character.isSurrogate(chr)) {
+            throw new UnsupportedSyntaxException();
+          }
+          return chr;
+      }
+    }
+
+    private Node literal(Object chr) throws UnsupportedSyntaxException {
+      if (chr instanceof Chars) {
+        return (Chars) chr;
+      }
+      char c = (Character) chr;
+      return chars(c, c);
+    }
+
+    private Chars chars(char from, char to) throws UnsupportedSyntaxException {
+      if (Character.isSurrogate(from) || Character.isSurrogate(to) || from > to) {
+        throw new UnsupportedSyntaxException();
+      }
+      Chars chars = new Chars(from, to);
+      return caseInsensitive ? chars.caseInsensitive() : chars;
+    }
+
+    private char hex(int digits) throws UnsupportedSyntaxException {
+      if (pos + digits > pattern.length()) {
+        throw new UnsupportedSyntaxException();
+      }
+      int value = 0;
+      for (int i = 0; i < digits; i++) {
+        int digit = Character.digit(next(), 16);
+        if (digit < 0) {
+          throw new UnsupportedSyntaxException();
+        }
+        value = value * 16 + digit;
+      }
+      return (char) value;
+    }
+
+    private int number() throws UnsupportedSyntaxException {
+      int start = pos;
+      while (pos < pattern.length() && pattern.charAt(pos) >= '0' && pattern.charAt(pos) <= '9') {
+        pos++;
+      }
+      if (start == pos || pos - start > 3) {
+        throw new UnsupportedSyntaxException();
+      }
+      return Integer.parseInt(pattern.substring(start, pos));
+    }
+
+    private char peek() throws UnsupportedSyntaxException {
+      if (pos >= pattern.length()) {
+        throw new UnsupportedSyntaxException();
+      }
+      return pattern.charAt(pos);
+    }
+
+    private char next() throws UnsupportedSyntaxException {
+      char chr = peek();
+      pos++;
+      return chr;
+    }
+  }
+}
@@ -531,13 +531,7 @@ public final class Functions {
   }
 
   public static DoubleFunction plus(final double b) {
-    return new DoubleFunction() {
-
-      @Override
-      public double apply(double a) {
-        return a + b;
-      }
-    };
+    return new Plus(b);
   }
 
   public static DoubleDoubleFunction plusMult(double constant) {
@@ -0,0 +1,179 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+import java.util.Arrays;
+
+/**
+ * Element-wise and multiplication kernels over contiguous ranges of <code>double</code> (and, for
+ * multiplication, <code>float</code>) arrays, used by dense matrices for rows stored with unit
+ * stride.
+ *
+ * <p>This class contains scalar implementations. On Java 16 and later, if the <code>
+ * jdk.incubator.vector</code> module is available (for example, the JVM is started with <code>
+ * --add-modules jdk.incubator.vector</code>), {@link #get()} returns an implementation using the
+ * Vector API (packaged in the multi-release JAR). All implementations perform the same floating
+ * point operations on each element, in the same order, so their results are identical.
+ */
+public class ArrayKernels {
+  private static final ArrayKernels SCALAR = new ArrayKernels();
+
+  protected ArrayKernels() {}
+
+  /** @return Returns the fastest implementation available in this JVM. */
+  public static ArrayKernels get() {
+    return ArrayKernelsLoader.INSTANCE;
+  }
+
+  /** @return Returns the scalar implementation. */
+  public static ArrayKernels scalar() {
+    return SCALAR;
+  }
+
+  /** @return Returns a short description of this implementation, for diagnostic purposes. */
+  public String name() {
+    return "scalar";
+  }
+
+  /** <code>x[i] += value</code> */
+  public void add(double[] x, int offset, int length, double value) {
+    for (int i = offset, max = offset + length; i < max; i++) {
+      x[i] += value;
+    }
+  }
+
+  /** <code>x[i] *= value</code> */
+  public void scale(double[] x, int offset, int length, double value) {
+    for (int i = offset, max = offset + length; i < max; i++) {
+      x[i] *= value;
+    }
+  }
+
+  /** <code>x[i] *= y[i]</code> */
+  public void multiply(double[] x, int xOffset, double[] y, int yOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      x[xOffset + i] *= y[yOffset + i];
+    }
+  }
+
+  /** <code>x[i] /= y[i]</code> */
+  public void divide(double[] x, int xOffset, double[] y, int yOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      x[xOffset + i] /= y[yOffset + i];
+    }
+  }
+
+  /** <code>y[i] += x[i] * a</code> */
+  public void axpy(double a, double[] x, int xOffset, double[] y, int yOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      y[yOffset + i] += x[xOffset + i] * a;
+    }
+  }
+
+  /** <code>sums[i] += x[i] * x[i]</code> */
+  public void addSquares(double[] x, int offset, double[] sums, int length) {
+    for (int i = 0; i < length; i++) {
+      final double v = x[offset + i];
+      sums[i] += v * v;
+    }
+  }
+
+  /** <code>x[i] /= divisors[i]</code> for non-zero divisors. */
+  public void divideNonZero(double[] x, int offset, double[] divisors, int length) {
+    for (int i = 0; i < length; i++) {
+      if (divisors[i] != 0) {
+        x[offset + i] /= divisors[i];
+      }
+    }
+  }
+
+  /**
+   * Computes <code>sums[j] = sum(a[k] * b[k][j])</code> for <code>j &lt; width</code>, where <code>
+   * a[k] = a[aOffset + k * aStride]</code> and <code>b[k][j] = b[bOffset + k * bRowStride +
+   * j]</code>, <code>k &lt; n</code>. The first <code>n % 4</code> products of each sum are added
+   * one by one, the remaining ones in groups of four.
+   */
+  public void multiplyRow(
+      double[] a,
+      int aOffset,
+      int aStride,
+      int n,
+      double[] b,
+      int bOffset,
+      int bRowStride,
+      double[] sums,
+      int width) {
+    Arrays.fill(sums, 0, width, 0);
+
+    int k = 0;
+    int ai = aOffset;
+    int bi = bOffset;
+    for (; k < n % 4; k++, ai += aStride, bi += bRowStride) {
+      final double a0 = a[ai];
+      for (int j = 0; j < width; j++) {
+        sums[j] += a0 * b[bi + j];
+      }
+    }
+
+    for (; k < n; k += 4, ai += 4 * aStride, bi += 4 * bRowStride) {
+      final double a0 = a[ai];
+      final double a1 = a[ai + aStride];
+      final double a2 = a[ai + 2 * aStride];
+      final double a3 = a[ai + 3 * aStride];
+      final int b1 = bi + bRowStride;
+      final int b2 = b1 + bRowStride;
+      final int b3 = b2 + bRowStride;
+      for (int j = 0; j < width; j++) {
+        sums[j] += a0 * b[bi + j] + a1 * b[b1 + j] + a2 * b[b2 + j] + a3 * b[b3 + j];
+      }
+    }
+  }
+
+  /**
+   * A single precision variant of {@link #multiplyRow(double[], int, int, int, double[], int, int,
+   * double[], int)}.
+   */
+  public void multiplyRow(
+      float[] a,
+      int aOffset,
+      int aStride,
+      int n,
+      float[] b,
+      int bOffset,
+      int bRowStride,
+      float[] sums,
+      int width) {
+    Arrays.fill(sums, 0, width, 0);
+
+    int k = 0;
+    int ai = aOffset;
+    int bi = bOffset;
+    for (; k < n % 4; k++, ai += aStride, bi += bRowStride) {
+      final float a0 = a[ai];
+      for (int j = 0; j < width; j++) {
+        sums[j] += a0 * b[bi + j];
+      }
+    }
+
+    for (; k < n; k += 4, ai += 4 * aStride, bi += 4 * bRowStride) {
+      final float a0 = a[ai];
+      final float a1 = a[ai + aStride];
+      final float a2 = a[ai + 2 * aStride];
+      final float a3 = a[ai + 3 * aStride];
+      final int b1 = bi + bRowStride;
+      final int b2 = b1 + bRowStride;
+      final int b3 = b2 + bRowStride;
+      for (int j = 0; j < width; j++) {
+        sums[j] += a0 * b[bi + j] + a1 * b[b1 + j] + a2 * b[b2 + j] + a3 * b[b3 + j];
+      }
+    }
+  }
+}
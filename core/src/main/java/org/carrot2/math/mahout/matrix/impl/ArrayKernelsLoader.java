@@ -0,0 +1,21 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+/**
+ * Selects the {@link ArrayKernels} implementation. This class is replaced by a Java 16 version in
+ * the multi-release JAR.
+ */
+final class ArrayKernelsLoader {
+  static final ArrayKernels INSTANCE = ArrayKernels.scalar();
+
+  private ArrayKernelsLoader() {}
+}
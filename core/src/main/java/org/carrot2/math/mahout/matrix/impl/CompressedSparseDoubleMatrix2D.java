@@ -0,0 +1,424 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+import java.util.Arrays;
+import org.carrot2.math.mahout.function.DoubleFunction;
+import org.carrot2.math.mahout.function.IntIntDoubleFunction;
+import org.carrot2.math.mahout.function.Mult;
+import org.carrot2.math.mahout.matrix.DoubleMatrix1D;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+
+/**
+ * A sparse matrix in the compressed sparse row (CSR) or compressed sparse column (CSC) format.
+ * Non-zero elements of each row (or column) are stored in a contiguous range of the index and value
+ * arrays, sorted by column (or row) index.
+ *
+ * <p>The set of stored elements is fixed when the matrix is created: stored elements can be
+ * modified, but setting a non-zero value of an element which is not stored throws an {@link
+ * UnsupportedOperationException}. {@link #viewDice()} is a constant-time operation which turns a
+ * CSR matrix into a CSC view of the same elements (and vice versa), so multiplications involving
+ * the transposed matrix remain sparse.
+ */
+public final class CompressedSparseDoubleMatrix2D extends DoubleMatrix2D {
+  /** If <code>true</code>, the matrix is stored by rows (CSR), otherwise by columns (CSC). */
+  private final boolean rowMajor;
+
+  /** Start offsets of each row (CSR) or column (CSC) in {@link #indexes}, plus the end offset. */
+  private final int[] pointers;
+
+  /** Column (CSR) or row (CSC) indexes of stored elements. */
+  private final int[] indexes;
+
+  private final double[] values;
+
+  private CompressedSparseDoubleMatrix2D(
+      int rows, int columns, boolean rowMajor, int[] pointers, int[] indexes, double[] values) {
+    setUp(rows, columns);
+    this.rowMajor = rowMajor;
+    this.pointers = pointers;
+    this.indexes = indexes;
+    this.values = values;
+
+    int majors = rowMajor ? rows : columns;
+    if (pointers.length != majors + 1
+        || pointers[0] != 0
+        || pointers[majors] > indexes.length
+        || indexes.length != values.length) {
+      throw new IllegalArgumentException("Inconsistent compressed matrix arrays.");
+    }
+  }
+
+  /**
+   * Creates a matrix in the compressed sparse row format. The arrays are not copied.
+   *
+   * @param rowPointers Start offsets of each row in <code>columnIndexes</code> and <code>values
+   *     </code>, followed by the end offset of the last row (<code>rows + 1</code> elements).
+   * @param columnIndexes Column indexes of stored elements, sorted in each row.
+   * @param values Values of stored elements.
+   */
+  public static CompressedSparseDoubleMatrix2D ofRows(
+      int rows, int columns, int[] rowPointers, int[] columnIndexes, double[] values) {
+    return new CompressedSparseDoubleMatrix2D(
+        rows, columns, true, rowPointers, columnIndexes, values);
+  }
+
+  /**
+   * Creates a matrix in the compressed sparse column format. The arrays are not copied.
+   *
+   * @param columnPointers Start offsets of each column in <code>rowIndexes</code> and <code>values
+   *     </code>, followed by the end offset of the last column (<code>columns + 1</code> elements).
+   * @param rowIndexes Row indexes of stored elements, sorted in each column.
+   * @param values Values of stored elements.
+   */
+  public static CompressedSparseDoubleMatrix2D ofColumns(
+      int rows, int columns, int[] columnPointers, int[] rowIndexes, double[] values) {
+    return new CompressedSparseDoubleMatrix2D(
+        rows, columns, false, columnPointers, rowIndexes, values);
+  }
+
+  /** @return Returns <code>true</code> if this matrix is stored by rows (CSR). */
+  public boolean isRowMajor() {
+    return rowMajor;
+  }
+
+  /** @return Returns the number of stored elements. */
+  public int storedElements() {
+    return pointers[pointers.length - 1];
+  }
+
+  @Override
+  public double getQuick(int row, int column) {
+    final int index = find(row, column);
+    return index >= 0 ? values[index] : 0;
+  }
+
+  @Override
+  public void setQuick(int row, int column, double value) {
+    final int index = find(row, column);
+    if (index >= 0) {
+      values[index] = value;
+    } else if (value != 0) {
+      throw new UnsupportedOperationException(
+          "Element not stored in the compressed matrix: " + row + ", " + column);
+    }
+  }
+
+  private int find(int row, int column) {
+    final int major = rowMajor ? row : column;
+    final int minor = rowMajor ? column : row;
+    final int index = Arrays.binarySearch(indexes, pointers[major], pointers[major + 1], minor);
+    return index >= 0 ? index : -1;
+  }
+
+  @Override
+  public DoubleMatrix2D like(int rows, int columns) {
+    return new SparseDoubleMatrix2D(rows, columns);
+  }
+
+  @Override
+  public DoubleMatrix1D like1D(int size) {
+    return new SparseDoubleMatrix1D(size);
+  }
+
+  @Override
+  protected DoubleMatrix1D like1D(int size, int offset, int stride) {
+    throw new UnsupportedOperationException(); // should never get called
+  }
+
+  @Override
+  public DoubleMatrix2D copy() {
+    return new CompressedSparseDoubleMatrix2D(
+        rows, columns, rowMajor, pointers, indexes, values.clone());
+  }
+
+  @Override
+  public DoubleMatrix2D viewDice() {
+    return new CompressedSparseDoubleMatrix2D(columns, rows, !rowMajor, pointers, indexes, values);
+  }
+
+  @Override
+  public DoubleMatrix1D viewRow(int row) {
+    checkRow(row);
+    return new DelegateDoubleMatrix1D(this, row);
+  }
+
+  @Override
+  public DoubleMatrix1D viewColumn(int column) {
+    return viewDice().viewRow(column);
+  }
+
+  @Override
+  public DoubleMatrix2D viewPart(int row, int column, int height, int width) {
+    return new WrapperDoubleMatrix2D(this).viewPart(row, column, height, width);
+  }
+
+  @Override
+  public DoubleMatrix2D viewRowFlip() {
+    return new WrapperDoubleMatrix2D(this).viewRowFlip();
+  }
+
+  @Override
+  public DoubleMatrix2D viewColumnFlip() {
+    return new WrapperDoubleMatrix2D(this).viewColumnFlip();
+  }
+
+  @Override
+  public DoubleMatrix2D viewSelection(int[] rowIndexes, int[] columnIndexes) {
+    return new WrapperDoubleMatrix2D(this).viewSelection(rowIndexes, columnIndexes);
+  }
+
+  @Override
+  protected DoubleMatrix2D viewSelectionLike(int[] rowOffsets, int[] columnOffsets) {
+    throw new UnsupportedOperationException(); // should never be called
+  }
+
+  /**
+   * Creates a matrix with the same stored elements as this one, all set to zero. The index arrays
+   * are shared, so the new matrix can be used with {@link #assignSampledQuotient}.
+   */
+  public CompressedSparseDoubleMatrix2D likeStructure() {
+    return new CompressedSparseDoubleMatrix2D(
+        rows, columns, rowMajor, pointers, indexes, new double[values.length]);
+  }
+
+  /**
+   * Sets each stored element of this matrix to <code>numerator(i, j) / (U(i, :) * V(j, :)' + eps)
+   * </code>. Elements of <code>UV'</code> are computed at the stored positions only, so the cost is
+   * proportional to the number of stored elements times <code>U.columns()</code>.
+   *
+   * @param numerator A matrix with the same structure as this one, see {@link #likeStructure()}.
+   */
+  public void assignSampledQuotient(
+      CompressedSparseDoubleMatrix2D numerator, DoubleMatrix2D U, DoubleMatrix2D V, double eps) {
+    if (numerator.pointers != pointers
+        || numerator.indexes != indexes
+        || numerator.rowMajor != rowMajor
+        || numerator.rows != rows) {
+      throw new IllegalArgumentException("Numerator must have the same structure.");
+    }
+    if (U.rows() != rows || V.rows() != columns || U.columns() != V.columns()) {
+      throw new IllegalArgumentException("Incompatible args");
+    }
+
+    final int k = U.columns();
+    final DoubleMatrix2D majorFactor = rowMajor ? U : V;
+    final DoubleMatrix2D minorFactor = rowMajor ? V : U;
+    final double[] majorVector = new double[k];
+    for (int major = 0; major < pointers.length - 1; major++) {
+      final int start = pointers[major];
+      final int end = pointers[major + 1];
+      if (start == end) {
+        continue;
+      }
+
+      for (int c = 0; c < k; c++) {
+        majorVector[c] = majorFactor.getQuick(major, c);
+      }
+      for (int i = start; i < end; i++) {
+        final int minor = indexes[i];
+        double product = 0;
+        for (int c = 0; c < k; c++) {
+          product += majorVector[c] * minorFactor.getQuick(minor, c);
+        }
+        values[i] = numerator.values[i] / (product + eps);
+      }
+    }
+  }
+
+  @Override
+  public int cardinality() {
+    int cardinality = 0;
+    for (int i = 0, max = storedElements(); i < max; i++) {
+      if (values[i] != 0) {
+        cardinality++;
+      }
+    }
+    return cardinality;
+  }
+
+  @Override
+  public void forEachNonZero(IntIntDoubleFunction function) {
+    for (int major = 0; major < pointers.length - 1; major++) {
+      for (int i = pointers[major], max = pointers[major + 1]; i < max; i++) {
+        final double value = values[i];
+        if (value != 0) {
+          values[i] =
+              rowMajor
+                  ? function.apply(major, indexes[i], value)
+                  : function.apply(indexes[i], major, value);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void assign(DoubleFunction function) {
+    if (function instanceof Mult) {
+      for (int i = 0, max = storedElements(); i < max; i++) {
+        values[i] = function.apply(values[i]);
+      }
+    } else {
+      super.assign(function);
+    }
+  }
+
+  /**
+   * Normalizes columns of this matrix to unit L2 length, visiting stored elements only. Squares are
+   * summed in the order of rows, so the result is the same as for an equivalent dense matrix.
+   *
+   * @param work An array of <code>columns()</code> zeros, it will contain the original L2 norms of
+   *     columns.
+   */
+  public void normalizeColumnL2(double[] work) {
+    final int stored = storedElements();
+    if (rowMajor) {
+      for (int i = 0; i < stored; i++) {
+        work[indexes[i]] += values[i] * values[i];
+      }
+    } else {
+      for (int column = 0; column < columns; column++) {
+        for (int i = pointers[column], max = pointers[column + 1]; i < max; i++) {
+          work[column] += values[i] * values[i];
+        }
+      }
+    }
+
+    for (int column = 0; column < columns; column++) {
+      work[column] = Math.sqrt(work[column]);
+    }
+
+    for (int major = 0; major < pointers.length - 1; major++) {
+      for (int i = pointers[major], max = pointers[major + 1]; i < max; i++) {
+        final double norm = work[rowMajor ? indexes[i] : major];
+        if (norm != 0) {
+          values[i] /= norm;
+        }
+      }
+    }
+  }
+
+  @Override
+  public DoubleMatrix1D zMult(
+      DoubleMatrix1D y, DoubleMatrix1D z, double alpha, double beta, boolean transposeA) {
+    if (transposeA) {
+      return viewDice().zMult(y, z, alpha, beta, false);
+    }
+    if (z == null) {
+      z = new DenseDoubleMatrix1D(rows);
+    }
+    if (columns != y.size() || rows > z.size()) {
+      throw new IllegalArgumentException("Incompatible args");
+    }
+
+    double[] sums = new double[rows];
+    if (rowMajor) {
+      for (int row = 0; row < rows; row++) {
+        double s = 0;
+        for (int i = pointers[row + 1]; --i >= pointers[row]; ) {
+          s += values[i] * y.getQuick(indexes[i]);
+        }
+        sums[row] = s;
+      }
+    } else {
+      for (int column = columns; --column >= 0; ) {
+        final double yValue = y.getQuick(column);
+        for (int i = pointers[column], max = pointers[column + 1]; i < max; i++) {
+          sums[indexes[i]] += values[i] * yValue;
+        }
+      }
+    }
+
+    for (int row = 0; row < rows; row++) {
+      z.setQuick(row, alpha * sums[row] + beta * z.getQuick(row));
+    }
+    return z;
+  }
+
+  /**
+   * Multiplies this sparse matrix by a (dense) matrix. Only stored elements of this matrix are
+   * visited. Products are summed in the same order as in {@link
+   * DoubleMatrix2D#zMult(DoubleMatrix2D, DoubleMatrix2D, double, double, boolean, boolean)}, so the
+   * results are the same as for an equivalent dense matrix.
+   */
+  @Override
+  public DoubleMatrix2D zMult(
+      DoubleMatrix2D B,
+      DoubleMatrix2D C,
+      double alpha,
+      double beta,
+      boolean transposeA,
+      boolean transposeB) {
+    if (transposeA) {
+      return viewDice().zMult(B, C, alpha, beta, false, transposeB);
+    }
+    if (transposeB) {
+      B = B.viewDice();
+    }
+
+    final int m = rows;
+    final int n = columns;
+    final int p = B.columns();
+    if (C == null) {
+      C = new DenseDoubleMatrix2D(m, p);
+    }
+    if (B.rows() != n) {
+      throw new IllegalArgumentException("Matrix2D inner dimensions must agree");
+    }
+    if (C.rows() != m || C.columns() != p) {
+      throw new IllegalArgumentException("Incompatible result matrix");
+    }
+    if (this == C || B == C) {
+      throw new IllegalArgumentException("Matrices must not be identical");
+    }
+
+    // Copy B into a row-major array for fast access to its rows.
+    final double[] b = new double[n * p];
+    for (int k = 0; k < n; k++) {
+      for (int j = 0; j < p; j++) {
+        b[k * p + j] = B.getQuick(k, j);
+      }
+    }
+
+    // Inner products are summed over k in descending order.
+    final double[] sums = new double[m * p];
+    if (rowMajor) {
+      for (int i = 0; i < m; i++) {
+        final int rowOffset = i * p;
+        for (int e = pointers[i + 1]; --e >= pointers[i]; ) {
+          final double value = values[e];
+          final int bOffset = indexes[e] * p;
+          for (int j = 0; j < p; j++) {
+            sums[rowOffset + j] += value * b[bOffset + j];
+          }
+        }
+      }
+    } else {
+      for (int k = n; --k >= 0; ) {
+        final int bOffset = k * p;
+        for (int e = pointers[k], max = pointers[k + 1]; e < max; e++) {
+          final double value = values[e];
+          final int rowOffset = indexes[e] * p;
+          for (int j = 0; j < p; j++) {
+            sums[rowOffset + j] += value * b[bOffset + j];
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < m; i++) {
+      for (int j = 0; j < p; j++) {
+        C.setQuick(i, j, alpha * sums[i * p + j] + beta * C.getQuick(i, j));
+      }
+    }
+    return C;
+  }
+}
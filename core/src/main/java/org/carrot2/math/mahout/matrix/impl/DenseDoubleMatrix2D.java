@@ -10,15 +10,22 @@
  */
 package org.carrot2.math.mahout.matrix.impl;
 
+import java.util.function.IntConsumer;
 import org.carrot2.math.mahout.function.DoubleDoubleFunction;
 import org.carrot2.math.mahout.function.DoubleFunction;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.function.Mult;
+import org.carrot2.math.mahout.function.Plus;
 import org.carrot2.math.mahout.function.PlusMult;
 import org.carrot2.math.mahout.matrix.DoubleMatrix1D;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
 
 public final class DenseDoubleMatrix2D extends DoubleMatrix2D {
+  /** The default value of {@link #getParallelMultiplicationThreshold()}. */
+  public static final long DEFAULT_PARALLEL_MULTIPLICATION_THRESHOLD = 1L << 22;
+
+  private static volatile long parallelMultiplicationThreshold =
+      DEFAULT_PARALLEL_MULTIPLICATION_THRESHOLD;
 
   final double[] elements;
 
@@ -101,6 +108,14 @@ public final class DenseDoubleMatrix2D extends DoubleMatrix2D {
         assign(0);
         return;
       }
+      if (cs == 1) {
+        final ArrayKernels kernels = ArrayKernels.get();
+        for (int row = rows; --row >= 0; ) {
+          kernels.scale(elems, index, columns, multiplicator);
+          index += rs;
+        }
+        return;
+      }
       for (int row = rows; --row >= 0; ) { // the general case
         for (int i = index, column = columns; --column >= 0; ) {
           elems[i] *= multiplicator;
@@ -108,6 +123,13 @@ public final class DenseDoubleMatrix2D extends DoubleMatrix2D {
         }
         index += rs;
       }
+    } else if (function instanceof Plus && cs == 1) { // x[i] = x[i] + value
+      final double value = ((Plus) function).getValue();
+      final ArrayKernels kernels = ArrayKernels.get();
+      for (int row = rows; --row >= 0; ) {
+        kernels.add(elems, index, columns, value);
+        index += rs;
+      }
     } else { // the general case x[i] = f(x[i])
       for (int row = rows; --row >= 0; ) {
         for (int i = index, column = columns; --column >= 0; ) {
@@ -191,6 +213,36 @@ public final class DenseDoubleMatrix2D extends DoubleMatrix2D {
     int index = index(0, 0);
 
     // specialized for speed
+    if (cs == 1 && ocs == 1 && (other == this || !haveSharedCells(other))) {
+      // rows stored contiguously
+      final ArrayKernels kernels = ArrayKernels.get();
+      if (function == Functions.MULT) {
+        for (int row = rows; --row >= 0; ) {
+          kernels.multiply(elems, index, otherElems, otherIndex, columns);
+          index += rs;
+          otherIndex += ors;
+        }
+        return this;
+      } else if (function == Functions.DIV) {
+        for (int row = rows; --row >= 0; ) {
+          kernels.divide(elems, index, otherElems, otherIndex, columns);
+          index += rs;
+          otherIndex += ors;
+        }
+        return this;
+      } else if (function instanceof PlusMult) {
+        double multiplicator = ((PlusMult) function).getMultiplicator();
+        if (multiplicator != 0) {
+          for (int row = rows; --row >= 0; ) {
+            kernels.axpy(multiplicator, otherElems, otherIndex, elems, index, columns);
+            index += rs;
+            otherIndex += ors;
+          }
+        }
+        return this;
+      }
+    }
+
     if (function == Functions.MULT) { // x[i] = x[i] * y[i]
       for (int row = rows; --row >= 0; ) {
         for (int i = index, j = otherIndex, column = columns; --column >= 0; ) {
@@ -388,8 +440,10 @@ public final class DenseDoubleMatrix2D extends DoubleMatrix2D {
     if (transposeA) {
       return viewDice().zMult(B, C, alpha, beta, false, transposeB);
     }
-    if (B instanceof SparseDoubleMatrix2D) {
-      // exploit quick sparse mult
+    if (B instanceof SparseDoubleMatrix2D
+        || B instanceof CompressedSparseDoubleMatrix2D
+        || B instanceof DenseFloatMatrix2D) {
+      // exploit quick sparse (or single precision) mult
       // A*B = (B' * A')'
       if (C == null) {
         return B.zMult(this, null, alpha, beta, !transposeB, true).viewDice();
@@ -408,7 +462,7 @@ public final class DenseDoubleMatrix2D extends DoubleMatrix2D {
     if (C == null) {
       C = new DenseDoubleMatrix2D(m, p);
     }
-    if (!(C instanceof DenseDoubleMatrix2D)) {
+    if (!(B instanceof DenseDoubleMatrix2D && C instanceof DenseDoubleMatrix2D)) {
       return super.zMult(B, C, alpha, beta, transposeA, transposeB);
     }
     if (B.rows != n) {
@@ -430,91 +484,89 @@ public final class DenseDoubleMatrix2D extends DoubleMatrix2D {
       throw new IllegalStateException();
     }
 
-    int cA = this.columnStride;
-    int cB = BB.columnStride;
-    int cC = CC.columnStride;
-
-    int rA = this.rowStride;
-    int rB = BB.rowStride;
-    int rC = CC.rowStride;
-
-    /*
-    A is blocked to hide memory latency
-        xxxxxxx B
-        xxxxxxx
-        xxxxxxx
-    A
-    xxx     xxxxxxx C
-    xxx     xxxxxxx
-    ---     -------
-    xxx     xxxxxxx
-    xxx     xxxxxxx
-    ---     -------
-    xxx     xxxxxxx
-    */
-    int blockSize = 30000; // * 8 == Level 2 cache in bytes
-    // if (n+p == 0) return C;
-    // int m_optimal = (BLOCK_SIZE - n*p) / (n+p);
-    int mOptimal = (blockSize - n) / (n + 1);
-    if (mOptimal <= 0) {
-      mOptimal = 1;
-    }
-    int blocks = m / mOptimal;
-    if (m % mOptimal != 0) {
-      blocks++;
-    }
-    int rr = 0;
-    while (--blocks >= 0) {
-      int jB = BB.index(0, 0);
-      int indexA = index(rr, 0);
-      int jC = CC.index(rr, 0);
-      rr += mOptimal;
-      if (blocks == 0) {
-        mOptimal += m - rr;
-      }
+    DenseMatrixMultiplication.multiply(
+        m,
+        n,
+        p,
+        AElems,
+        index(0, 0),
+        this.rowStride,
+        this.columnStride,
+        BElems,
+        BB.index(0, 0),
+        BB.rowStride,
+        BB.columnStride,
+        CElems,
+        CC.index(0, 0),
+        CC.rowStride,
+        CC.columnStride,
+        alpha,
+        beta,
+        parallelMultiplicationThreshold);
+    return C;
+  }
 
-      for (int j = p; --j >= 0; ) {
-        int iA = indexA;
-        int iC = jC;
-        for (int i = mOptimal; --i >= 0; ) {
-          int kA = iA;
-          int kB = jB;
-
-          /*
-          // not unrolled:
-          for (int k = n; --k >= 0; ) {
-            //s += getQuick(i,k) * B.getQuick(k,j);
-            s += AElems[kA] * BElems[kB];
-            kB += rB;
-            kA += cA;
-          }
-          */
+  /**
+   * Normalizes columns of this matrix to unit L2 length. Squares are summed in the order of rows,
+   * as in {@link org.carrot2.math.matrix.MatrixUtils#normalizeColumnL2}.
+   *
+   * @param work An array of <code>columns()</code> zeros, it will contain the original L2 norms of
+   *     columns.
+   */
+  public void normalizeColumnL2(double[] work) {
+    final ArrayKernels kernels = ArrayKernels.get();
+    forEachRow((offset) -> kernels.addSquares(elements, offset, work, columns));
+    for (int column = 0; column < columns; column++) {
+      work[column] = Math.sqrt(work[column]);
+    }
+    forEachRow((offset) -> kernels.divideNonZero(elements, offset, work, columns));
+  }
 
-          // loop unrolled
-          kA -= cA;
-          kB -= rB;
+  /**
+   * Normalizes columns of this matrix to unit L1 length, as in {@link
+   * org.carrot2.math.matrix.MatrixUtils#normalizeColumnL1}.
+   *
+   * @param work An array of <code>columns()</code> zeros, it will contain the original L1 norms of
+   *     columns.
+   */
+  public void normalizeColumnL1(double[] work) {
+    final ArrayKernels kernels = ArrayKernels.get();
+    forEachRow((offset) -> kernels.axpy(1, elements, offset, work, 0, columns));
+    forEachRow((offset) -> kernels.divideNonZero(elements, offset, work, columns));
+  }
 
-          double s = 0;
-          for (int k = n % 4; --k >= 0; ) {
-            s += AElems[kA += cA] * BElems[kB += rB];
-          }
-          for (int k = n / 4; --k >= 0; ) {
-            s +=
-                AElems[kA += cA] * BElems[kB += rB]
-                    + AElems[kA += cA] * BElems[kB += rB]
-                    + AElems[kA += cA] * BElems[kB += rB]
-                    + AElems[kA += cA] * BElems[kB += rB];
-          }
+  /** @return Returns <code>true</code> if each row of this matrix is stored contiguously. */
+  public boolean hasContiguousRows() {
+    return columnStride == 1;
+  }
 
-          CElems[iC] = alpha * s + beta * CElems[iC];
-          iA += rA;
-          iC += rC;
-        }
-        jB += cB;
-        jC += cC;
-      }
+  private void forEachRow(IntConsumer rowOffsetConsumer) {
+    if (columnStride != 1) {
+      throw new IllegalStateException("Rows are not stored contiguously.");
     }
-    return C;
+    for (int row = 0, offset = index(0, 0); row < rows; row++, offset += rowStride) {
+      rowOffsetConsumer.accept(offset);
+    }
+  }
+
+  /**
+   * @return Returns the minimum number of scalar multiply-adds of a dense matrix multiplication for
+   *     it to be split among threads of the common fork-join pool.
+   */
+  public static long getParallelMultiplicationThreshold() {
+    return parallelMultiplicationThreshold;
+  }
+
+  /**
+   * Sets the minimum number of scalar multiply-adds of a dense matrix multiplication for it to be
+   * split among threads of the common fork-join pool. {@link Long#MAX_VALUE} disables parallel
+   * multiplication. The results of multiplications do not depend on this setting.
+   */
+  public static void setParallelMultiplicationThreshold(long threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("Threshold must be >= 1: " + threshold);
+    }
+    parallelMultiplicationThreshold = threshold;
   }
 
   @Override
@@ -0,0 +1,381 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+import java.util.Arrays;
+import org.carrot2.math.mahout.function.DoubleDoubleFunction;
+import org.carrot2.math.mahout.function.DoubleFunction;
+import org.carrot2.math.mahout.function.Functions;
+import org.carrot2.math.mahout.function.Mult;
+import org.carrot2.math.mahout.function.PlusMult;
+import org.carrot2.math.mahout.matrix.DoubleMatrix1D;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+
+/**
+ * A dense matrix which stores its elements with single (<code>float</code>) precision, taking half
+ * the memory of a {@link DenseDoubleMatrix2D}. Element values are rounded to <code>float</code>
+ * when stored, element-wise functions are computed with <code>double</code> precision.
+ * Multiplications of two dense matrices sum the products with <code>float</code> precision.
+ *
+ * <p>Rows and columns of this matrix are views of the same elements, but 1D matrices created by
+ * this matrix (see {@link #like1D(int)}) are {@link DenseDoubleMatrix1D}s.
+ */
+public final class DenseFloatMatrix2D extends DoubleMatrix2D {
+  final float[] elements;
+
+  public DenseFloatMatrix2D(int rows, int columns) {
+    setUp(rows, columns);
+    this.elements = new float[rows * columns];
+  }
+
+  @Override
+  public DoubleMatrix2D assign(double value) {
+    if (this.isNoView) {
+      Arrays.fill(elements, (float) value);
+      return this;
+    }
+
+    final float v = (float) value;
+    float[] elems = this.elements;
+    int index = index(0, 0);
+    int cs = this.columnStride;
+    int rs = this.rowStride;
+    for (int row = rows; --row >= 0; ) {
+      for (int i = index, column = columns; --column >= 0; ) {
+        elems[i] = v;
+        i += cs;
+      }
+      index += rs;
+    }
+    return this;
+  }
+
+  @Override
+  public void assign(DoubleFunction function) {
+    float[] elems = this.elements;
+    int index = index(0, 0);
+    int cs = this.columnStride;
+    int rs = this.rowStride;
+
+    // specialization for speed
+    if (function instanceof Mult) { // x[i] = mult*x[i]
+      double multiplicator = ((Mult) function).getMultiplicator();
+      if (multiplicator == 1) {
+        return;
+      }
+      if (multiplicator == 0) {
+        assign(0);
+        return;
+      }
+      for (int row = rows; --row >= 0; ) {
+        for (int i = index, column = columns; --column >= 0; ) {
+          elems[i] = (float) (elems[i] * multiplicator);
+          i += cs;
+        }
+        index += rs;
+      }
+    } else { // the general case x[i] = f(x[i])
+      for (int row = rows; --row >= 0; ) {
+        for (int i = index, column = columns; --column >= 0; ) {
+          elems[i] = (float) function.apply(elems[i]);
+          i += cs;
+        }
+        index += rs;
+      }
+    }
+  }
+
+  @Override
+  public DoubleMatrix2D assign(DoubleMatrix2D source) {
+    // overriden for performance only
+    if (!(source instanceof DenseFloatMatrix2D)) {
+      return super.assign(source);
+    }
+    DenseFloatMatrix2D other = (DenseFloatMatrix2D) source;
+    if (other == this) {
+      return this;
+    } // nothing to do
+    checkShape(other);
+
+    if (this.isNoView && other.isNoView) { // quickest
+      System.arraycopy(other.elements, 0, this.elements, 0, this.elements.length);
+      return this;
+    }
+
+    if (haveSharedCells(other)) {
+      other = (DenseFloatMatrix2D) other.copy();
+    }
+
+    float[] elems = this.elements;
+    float[] otherElems = other.elements;
+    int cs = this.columnStride;
+    int ocs = other.columnStride;
+    int rs = this.rowStride;
+    int ors = other.rowStride;
+
+    int otherIndex = other.index(0, 0);
+    int index = index(0, 0);
+    for (int row = rows; --row >= 0; ) {
+      for (int i = index, j = otherIndex, column = columns; --column >= 0; ) {
+        elems[i] = otherElems[j];
+        i += cs;
+        j += ocs;
+      }
+      index += rs;
+      otherIndex += ors;
+    }
+    return this;
+  }
+
+  @Override
+  public DoubleMatrix2D assign(DoubleMatrix2D y, DoubleDoubleFunction function) {
+    // overriden for performance only
+    if (!(y instanceof DenseFloatMatrix2D)) {
+      return super.assign(y, function);
+    }
+    DenseFloatMatrix2D other = (DenseFloatMatrix2D) y;
+    checkShape(y);
+
+    float[] elems = this.elements;
+    float[] otherElems = other.elements;
+    int cs = this.columnStride;
+    int ocs = other.columnStride;
+    int rs = this.rowStride;
+    int ors = other.rowStride;
+
+    int otherIndex = other.index(0, 0);
+    int index = index(0, 0);
+
+    if (function == Functions.MULT) { // x[i] = x[i] * y[i]
+      for (int row = rows; --row >= 0; ) {
+        for (int i = index, j = otherIndex, column = columns; --column >= 0; ) {
+          elems[i] *= otherElems[j];
+          i += cs;
+          j += ocs;
+        }
+        index += rs;
+        otherIndex += ors;
+      }
+    } else if (function == Functions.DIV) { // x[i] = x[i] / y[i]
+      for (int row = rows; --row >= 0; ) {
+        for (int i = index, j = otherIndex, column = columns; --column >= 0; ) {
+          elems[i] /= otherElems[j];
+          i += cs;
+          j += ocs;
+        }
+        index += rs;
+        otherIndex += ors;
+      }
+    } else if (function instanceof PlusMult) { // x[i] = x[i] + mult*y[i]
+      double multiplicator = ((PlusMult) function).getMultiplicator();
+      if (multiplicator == 0) {
+        return this;
+      }
+      for (int row = rows; --row >= 0; ) {
+        for (int i = index, j = otherIndex, column = columns; --column >= 0; ) {
+          elems[i] = (float) (elems[i] + multiplicator * otherElems[j]);
+          i += cs;
+          j += ocs;
+        }
+        index += rs;
+        otherIndex += ors;
+      }
+    } else { // the general case x[i] = f(x[i],y[i])
+      for (int row = rows; --row >= 0; ) {
+        for (int i = index, j = otherIndex, column = columns; --column >= 0; ) {
+          elems[i] = (float) function.apply(elems[i], otherElems[j]);
+          i += cs;
+          j += ocs;
+        }
+        index += rs;
+        otherIndex += ors;
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public double getQuick(int row, int column) {
+    return elements[rowZero + row * rowStride + columnZero + column * columnStride];
+  }
+
+  @Override
+  protected boolean haveSharedCellsRaw(DoubleMatrix2D other) {
+    if (other instanceof SelectedDenseFloatMatrix2D) {
+      SelectedDenseFloatMatrix2D otherMatrix = (SelectedDenseFloatMatrix2D) other;
+      return this.elements == otherMatrix.elements;
+    }
+    if (other instanceof DenseFloatMatrix2D) {
+      DenseFloatMatrix2D otherMatrix = (DenseFloatMatrix2D) other;
+      return this.elements == otherMatrix.elements;
+    }
+    return false;
+  }
+
+  @Override
+  protected int index(int row, int column) {
+    return rowZero + row * rowStride + columnZero + column * columnStride;
+  }
+
+  @Override
+  public DoubleMatrix2D like(int rows, int columns) {
+    return new DenseFloatMatrix2D(rows, columns);
+  }
+
+  @Override
+  public DoubleMatrix1D like1D(int size) {
+    return new DenseDoubleMatrix1D(size);
+  }
+
+  @Override
+  protected DoubleMatrix1D like1D(int size, int zero, int stride) {
+    throw new UnsupportedOperationException(); // should never get called
+  }
+
+  @Override
+  public void setQuick(int row, int column, double value) {
+    elements[rowZero + row * rowStride + columnZero + column * columnStride] = (float) value;
+  }
+
+  @Override
+  public DoubleMatrix1D viewColumn(int column) {
+    return viewDice().viewRow(column);
+  }
+
+  @Override
+  public DoubleMatrix1D viewRow(int row) {
+    checkRow(row);
+    return new DelegateDoubleMatrix1D(this, row);
+  }
+
+  @Override
+  protected DoubleMatrix2D viewSelectionLike(int[] rowOffsets, int[] columnOffsets) {
+    return new SelectedDenseFloatMatrix2D(this.elements, rowOffsets, columnOffsets, 0);
+  }
+
+  @Override
+  public DoubleMatrix2D zMult(
+      DoubleMatrix2D B,
+      DoubleMatrix2D C,
+      double alpha,
+      double beta,
+      boolean transposeA,
+      boolean transposeB) {
+    // overriden for performance only
+    if (transposeA) {
+      return viewDice().zMult(B, C, alpha, beta, false, transposeB);
+    }
+    if (B instanceof SparseDoubleMatrix2D || B instanceof CompressedSparseDoubleMatrix2D) {
+      // exploit quick sparse mult
+      // A*B = (B' * A')'
+      if (C == null) {
+        return B.zMult(this, null, alpha, beta, !transposeB, true).viewDice();
+      } else {
+        B.zMult(this, C.viewDice(), alpha, beta, !transposeB, true);
+        return C;
+      }
+    }
+    if (transposeB) {
+      return this.zMult(B.viewDice(), C, alpha, beta, transposeA, false);
+    }
+
+    int m = rows;
+    int n = columns;
+    int p = B.columns();
+    if (C == null) {
+      C = new DenseFloatMatrix2D(m, p);
+    }
+    if (B.rows() != n) {
+      throw new IllegalArgumentException("Matrix2D inner dimensions must agree");
+    }
+    if (C.rows() != m || C.columns() != p) {
+      throw new IllegalArgumentException("Incompatible result matrix");
+    }
+    if (this == C || B == C) {
+      throw new IllegalArgumentException("Matrices must not be identical");
+    }
+
+    // B's elements are used directly, other matrices are copied to an array of floats.
+    final float[] b;
+    final int bZero;
+    final int bRowStride;
+    final int bColumnStride;
+    if (B instanceof DenseFloatMatrix2D) {
+      DenseFloatMatrix2D BB = (DenseFloatMatrix2D) B;
+      b = BB.elements;
+      bZero = BB.index(0, 0);
+      bRowStride = BB.rowStride;
+      bColumnStride = BB.columnStride;
+    } else {
+      b = new float[n * p];
+      for (int k = 0; k < n; k++) {
+        for (int j = 0; j < p; j++) {
+          b[k * p + j] = (float) B.getQuick(k, j);
+        }
+      }
+      bZero = 0;
+      bRowStride = p;
+      bColumnStride = 1;
+    }
+
+    final long threshold = DenseDoubleMatrix2D.getParallelMultiplicationThreshold();
+    if (C instanceof DenseFloatMatrix2D) {
+      DenseFloatMatrix2D CC = (DenseFloatMatrix2D) C;
+      DenseMatrixMultiplication.multiply(
+          m,
+          n,
+          p,
+          elements,
+          index(0, 0),
+          rowStride,
+          columnStride,
+          b,
+          bZero,
+          bRowStride,
+          bColumnStride,
+          CC.elements,
+          CC.index(0, 0),
+          CC.rowStride,
+          CC.columnStride,
+          alpha,
+          beta,
+          threshold);
+    } else {
+      // Compute A * B in single precision, then combine it with C.
+      final float[] product = new float[m * p];
+      DenseMatrixMultiplication.multiply(
+          m,
+          n,
+          p,
+          elements,
+          index(0, 0),
+          rowStride,
+          columnStride,
+          b,
+          bZero,
+          bRowStride,
+          bColumnStride,
+          product,
+          0,
+          p,
+          1,
+          1,
+          0,
+          threshold);
+      for (int i = 0; i < m; i++) {
+        for (int j = 0; j < p; j++) {
+          C.setQuick(i, j, alpha * product[i * p + j] + beta * C.getQuick(i, j));
+        }
+      }
+    }
+    return C;
+  }
+}
@@ -0,0 +1,414 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes <code>C = alpha * A * B + beta * C</code> for dense matrices given as element arrays
+ * (of <code>double</code>s or <code>float</code>s) with offsets and strides.
+ *
+ * <p>Rows of <code>C</code> are computed from rows of <code>A</code> and panels of consecutive
+ * columns of <code>B</code> (stored row by row, copied if needed) small enough to stay in the
+ * processor cache, using {@link ArrayKernels#multiplyRow}. Blocks of rows are multiplied in
+ * parallel (in the common {@link ForkJoinPool}) if the product requires at least {@link
+ * DenseDoubleMatrix2D#getParallelMultiplicationThreshold()} multiply-adds.
+ *
+ * <p>Each element of <code>C</code> is computed by one thread, with the same sequence of floating
+ * point operations regardless of blocking, parallelism and kernel implementation, so the result is
+ * always the same.
+ */
+final class DenseMatrixMultiplication extends RecursiveAction {
+  /** The number of elements of a panel of <code>B</code>, approximately. */
+  private static final int BLOCK_ELEMENTS = 30000; // * 8 == Level 2 cache in bytes
+
+  /** The number of rows of <code>C</code> in a sequentially computed block. */
+  private static final int BLOCK_ROWS = 64;
+
+  private final Operands o;
+  private final int fromBlock;
+  private final int toBlock;
+
+  private DenseMatrixMultiplication(Operands o, int fromBlock, int toBlock) {
+    this.o = o;
+    this.fromBlock = fromBlock;
+    this.toBlock = toBlock;
+  }
+
+  static void multiply(
+      int m,
+      int n,
+      int p,
+      double[] a,
+      int aZero,
+      int aRowStride,
+      int aColumnStride,
+      double[] b,
+      int bZero,
+      int bRowStride,
+      int bColumnStride,
+      double[] c,
+      int cZero,
+      int cRowStride,
+      int cColumnStride,
+      double alpha,
+      double beta,
+      long parallelThreshold) {
+    if (m == 0 || p == 0) {
+      return;
+    }
+
+    // Make rows of B contiguous.
+    if (bColumnStride != 1) {
+      final double[] packed = new double[n * p];
+      for (int k = 0; k < n; k++) {
+        for (int j = 0, index = bZero + k * bRowStride; j < p; j++, index += bColumnStride) {
+          packed[k * p + j] = b[index];
+        }
+      }
+      b = packed;
+      bZero = 0;
+      bRowStride = p;
+    }
+
+    final Blocking blocking = new Blocking(m, n, p, parallelThreshold);
+    run(
+        new DoubleOperands(
+            m,
+            n,
+            p,
+            blocking,
+            a,
+            aZero,
+            aRowStride,
+            aColumnStride,
+            b,
+            bZero,
+            bRowStride,
+            c,
+            cZero,
+            cRowStride,
+            cColumnStride,
+            alpha,
+            beta));
+  }
+
+  /**
+   * A single precision variant of {@link #multiply(int, int, int, double[], int, int, int,
+   * double[], int, int, int, double[], int, int, int, double, double, long)}. Products are summed
+   * with <code>float</code> precision.
+   */
+  static void multiply(
+      int m,
+      int n,
+      int p,
+      float[] a,
+      int aZero,
+      int aRowStride,
+      int aColumnStride,
+      float[] b,
+      int bZero,
+      int bRowStride,
+      int bColumnStride,
+      float[] c,
+      int cZero,
+      int cRowStride,
+      int cColumnStride,
+      double alpha,
+      double beta,
+      long parallelThreshold) {
+    if (m == 0 || p == 0) {
+      return;
+    }
+
+    // Make rows of B contiguous.
+    if (bColumnStride != 1) {
+      final float[] packed = new float[n * p];
+      for (int k = 0; k < n; k++) {
+        for (int j = 0, index = bZero + k * bRowStride; j < p; j++, index += bColumnStride) {
+          packed[k * p + j] = b[index];
+        }
+      }
+      b = packed;
+      bZero = 0;
+      bRowStride = p;
+    }
+
+    final Blocking blocking = new Blocking(m, n, p, parallelThreshold);
+    run(
+        new FloatOperands(
+            m,
+            n,
+            p,
+            blocking,
+            a,
+            aZero,
+            aRowStride,
+            aColumnStride,
+            b,
+            bZero,
+            bRowStride,
+            c,
+            cZero,
+            cRowStride,
+            cColumnStride,
+            alpha,
+            beta));
+  }
+
+  private static void run(Operands o) {
+    final int blocks = (o.m + o.blockRows - 1) / o.blockRows;
+    if (o.parallel) {
+      ForkJoinPool.commonPool().invoke(new DenseMatrixMultiplication(o, 0, blocks));
+    } else {
+      o.multiplyBlocks(0, blocks);
+    }
+  }
+
+  @Override
+  protected void compute() {
+    if (toBlock - fromBlock > 1) {
+      final int middle = (fromBlock + toBlock) >>> 1;
+      invokeAll(
+          new DenseMatrixMultiplication(o, fromBlock, middle),
+          new DenseMatrixMultiplication(o, middle, toBlock));
+    } else {
+      o.multiplyBlocks(fromBlock, toBlock);
+    }
+  }
+
+  /** Row block and column panel sizes of a multiplication. */
+  private static final class Blocking {
+    final boolean parallel;
+    final int blockRows;
+    final int panelColumns;
+
+    Blocking(int m, int n, int p, long parallelThreshold) {
+      int blockRows = BLOCK_ROWS;
+      final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+      this.parallel = m > 1 && parallelism > 1 && (long) m * n * p >= parallelThreshold;
+      if (parallel) {
+        // Make enough blocks for all threads (and some for load balancing).
+        blockRows = Math.min(blockRows, Math.max(1, m / (parallelism * 4)));
+      }
+      this.blockRows = blockRows;
+      this.panelColumns = Math.min(p, Math.max(16, BLOCK_ELEMENTS / Math.max(1, n)));
+    }
+  }
+
+  /** Matrices and parameters shared by all tasks of a single multiplication. */
+  private abstract static class Operands {
+    final int m;
+    final int n;
+    final int p;
+    final boolean parallel;
+    final int blockRows;
+    final int panelColumns;
+
+    final int aZero;
+    final int aRowStride;
+    final int aColumnStride;
+
+    /** Rows of B are stored contiguously. */
+    final int bZero;
+
+    final int bRowStride;
+
+    final int cZero;
+    final int cRowStride;
+    final int cColumnStride;
+
+    final double alpha;
+    final double beta;
+
+    Operands(
+        int m,
+        int n,
+        int p,
+        Blocking blocking,
+        int aZero,
+        int aRowStride,
+        int aColumnStride,
+        int bZero,
+        int bRowStride,
+        int cZero,
+        int cRowStride,
+        int cColumnStride,
+        double alpha,
+        double beta) {
+      this.m = m;
+      this.n = n;
+      this.p = p;
+      this.parallel = blocking.parallel;
+      this.blockRows = blocking.blockRows;
+      this.panelColumns = blocking.panelColumns;
+      this.aZero = aZero;
+      this.aRowStride = aRowStride;
+      this.aColumnStride = aColumnStride;
+      this.bZero = bZero;
+      this.bRowStride = bRowStride;
+      this.cZero = cZero;
+      this.cRowStride = cRowStride;
+      this.cColumnStride = cColumnStride;
+      this.alpha = alpha;
+      this.beta = beta;
+    }
+
+    abstract void multiplyBlocks(int fromBlock, int toBlock);
+  }
+
+  private static final class DoubleOperands extends Operands {
+    final double[] a;
+    final double[] b;
+    final double[] c;
+
+    DoubleOperands(
+        int m,
+        int n,
+        int p,
+        Blocking blocking,
+        double[] a,
+        int aZero,
+        int aRowStride,
+        int aColumnStride,
+        double[] b,
+        int bZero,
+        int bRowStride,
+        double[] c,
+        int cZero,
+        int cRowStride,
+        int cColumnStride,
+        double alpha,
+        double beta) {
+      super(
+          m,
+          n,
+          p,
+          blocking,
+          aZero,
+          aRowStride,
+          aColumnStride,
+          bZero,
+          bRowStride,
+          cZero,
+          cRowStride,
+          cColumnStride,
+          alpha,
+          beta);
+      this.a = a;
+      this.b = b;
+      this.c = c;
+    }
+
+    @Override
+    void multiplyBlocks(int fromBlock, int toBlock) {
+      final ArrayKernels kernels = ArrayKernels.get();
+      final double[] sums = new double[panelColumns];
+      final int fromRow = fromBlock * blockRows;
+      final int toRow = Math.min(m, toBlock * blockRows);
+
+      for (int panel = 0; panel < p; panel += panelColumns) {
+        final int width = Math.min(panelColumns, p - panel);
+        for (int row = fromRow; row < toRow; row++) {
+          kernels.multiplyRow(
+              a,
+              aZero + row * aRowStride,
+              aColumnStride,
+              n,
+              b,
+              bZero + panel,
+              bRowStride,
+              sums,
+              width);
+
+          int iC = cZero + row * cRowStride + panel * cColumnStride;
+          for (int j = 0; j < width; j++, iC += cColumnStride) {
+            c[iC] = alpha * sums[j] + beta * c[iC];
+          }
+        }
+      }
+    }
+  }
+
+  private static final class FloatOperands extends Operands {
+    final float[] a;
+    final float[] b;
+    final float[] c;
+
+    FloatOperands(
+        int m,
+        int n,
+        int p,
+        Blocking blocking,
+        float[] a,
+        int aZero,
+        int aRowStride,
+        int aColumnStride,
+        float[] b,
+        int bZero,
+        int bRowStride,
+        float[] c,
+        int cZero,
+        int cRowStride,
+        int cColumnStride,
+        double alpha,
+        double beta) {
+      super(
+          m,
+          n,
+          p,
+          blocking,
+          aZero,
+          aRowStride,
+          aColumnStride,
+          bZero,
+          bRowStride,
+          cZero,
+          cRowStride,
+          cColumnStride,
+          alpha,
+          beta);
+      this.a = a;
+      this.b = b;
+      this.c = c;
+    }
+
+    @Override
+    void multiplyBlocks(int fromBlock, int toBlock) {
+      final ArrayKernels kernels = ArrayKernels.get();
+      final float[] sums = new float[panelColumns];
+      final int fromRow = fromBlock * blockRows;
+      final int toRow = Math.min(m, toBlock * blockRows);
+
+      for (int panel = 0; panel < p; panel += panelColumns) {
+        final int width = Math.min(panelColumns, p - panel);
+        for (int row = fromRow; row < toRow; row++) {
+          kernels.multiplyRow(
+              a,
+              aZero + row * aRowStride,
+              aColumnStride,
+              n,
+              b,
+              bZero + panel,
+              bRowStride,
+              sums,
+              width);
+
+          int iC = cZero + row * cRowStride + panel * cColumnStride;
+          for (int j = 0; j < width; j++, iC += cColumnStride) {
+            c[iC] = (float) (alpha * sums[j] + beta * c[iC]);
+          }
+        }
+      }
+    }
+  }
+}
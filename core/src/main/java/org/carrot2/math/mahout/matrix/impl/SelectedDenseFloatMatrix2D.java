@@ -0,0 +1,121 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+import org.carrot2.math.mahout.matrix.DoubleMatrix1D;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+
+/** A selection view of a {@link DenseFloatMatrix2D}. */
+final class SelectedDenseFloatMatrix2D extends DoubleMatrix2D {
+
+  final float[] elements;
+
+  private int[] rowOffsets;
+  private int[] columnOffsets;
+
+  private int offset;
+
+  SelectedDenseFloatMatrix2D(float[] elements, int[] rowOffsets, int[] columnOffsets, int offset) {
+    // be sure parameters are valid, we do not check...
+    setUp(rowOffsets.length, columnOffsets.length, 0, 0, 1, 1);
+
+    this.elements = elements;
+    this.rowOffsets = rowOffsets;
+    this.columnOffsets = columnOffsets;
+    this.offset = offset;
+
+    this.isNoView = false;
+  }
+
+  @Override
+  protected int columnOffset(int absRank) {
+    return columnOffsets[absRank];
+  }
+
+  @Override
+  protected int rowOffset(int absRank) {
+    return rowOffsets[absRank];
+  }
+
+  @Override
+  public double getQuick(int row, int column) {
+    return elements[index(row, column)];
+  }
+
+  @Override
+  protected boolean haveSharedCellsRaw(DoubleMatrix2D other) {
+    if (other instanceof SelectedDenseFloatMatrix2D) {
+      SelectedDenseFloatMatrix2D otherMatrix = (SelectedDenseFloatMatrix2D) other;
+      return this.elements == otherMatrix.elements;
+    }
+    if (other instanceof DenseFloatMatrix2D) {
+      DenseFloatMatrix2D otherMatrix = (DenseFloatMatrix2D) other;
+      return this.elements == otherMatrix.elements;
+    }
+    return false;
+  }
+
+  @Override
+  protected int index(int row, int column) {
+    return this.offset
+        + rowOffsets[rowZero + row * rowStride]
+        + columnOffsets[columnZero + column * columnStride];
+  }
+
+  @Override
+  public DoubleMatrix2D like(int rows, int columns) {
+    return new DenseFloatMatrix2D(rows, columns);
+  }
+
+  @Override
+  public DoubleMatrix1D like1D(int size) {
+    return new DenseDoubleMatrix1D(size);
+  }
+
+  @Override
+  protected DoubleMatrix1D like1D(int size, int zero, int stride) {
+    throw new UnsupportedOperationException();
+    // this method is never called since viewRow() and viewColumn are overridden properly.
+  }
+
+  @Override
+  public void setQuick(int row, int column, double value) {
+    elements[index(row, column)] = (float) value;
+  }
+
+  @Override
+  protected AbstractMatrix2D vDice() {
+    super.vDice();
+    // swap
+    int[] tmp = rowOffsets;
+    rowOffsets = columnOffsets;
+    columnOffsets = tmp;
+
+    this.isNoView = false;
+    return this;
+  }
+
+  @Override
+  public DoubleMatrix1D viewColumn(int column) {
+    return viewDice().viewRow(column);
+  }
+
+  @Override
+  public DoubleMatrix1D viewRow(int row) {
+    checkRow(row);
+    return new DelegateDoubleMatrix1D(this, row);
+  }
+
+  @Override
+  protected DoubleMatrix2D viewSelectionLike(int[] rowOffsets, int[] columnOffsets) {
+    return new SelectedDenseFloatMatrix2D(this.elements, rowOffsets, columnOffsets, this.offset);
+  }
+}
@@ -11,6 +11,7 @@
 package org.carrot2.math.matrix;
 
 import com.carrotsearch.hppc.sorting.IndirectComparator;
+import org.carrot2.math.mahout.function.DoubleDoubleFunction;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
 
@@ -37,6 +38,15 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
 
   protected static double DEFAULT_STOP_THRESHOLD = -1.0;
 
+  /**
+   * If the relative change of U and V in one iteration becomes smaller than <code>
+   * convergenceThreshold</code>, the algorithm will stop. Unlike the approximation error, the
+   * relative change is cheap to compute. Setting the threshold to -1 turns off this test.
+   */
+  protected double convergenceThreshold;
+
+  protected static double DEFAULT_CONVERGENCE_THRESHOLD = -1.0;
+
   /** Seeding strategy */
   protected SeedingStrategy seedingStrategy;
 
@@ -53,9 +63,20 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
   /** Approximation errors during subsequent iterations */
   protected double[] approximationErrors;
 
+  /** Relative change of U and V in the last iteration */
+  protected double relativeChange;
+
   /** Iteration counter */
   protected int iterationsCompleted;
 
+  /** The squared Frobenius norm of A, for computing approximation errors */
+  private double squaredNormA = -1;
+
+  /** U and V before the last iteration, for computing their relative change */
+  private DoubleMatrix2D previousU;
+
+  private DoubleMatrix2D previousV;
+
   /** Sorting aggregates */
   protected double[] aggregates;
 
@@ -66,10 +87,12 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
     this.k = DEFAULT_K;
     this.maxIterations = DEFAULT_MAX_ITERATIONS;
     this.stopThreshold = DEFAULT_STOP_THRESHOLD;
+    this.convergenceThreshold = DEFAULT_CONVERGENCE_THRESHOLD;
     this.seedingStrategy = DEFAULT_SEEDING_STRATEGY;
     this.ordered = DEFAULT_ORDERED;
     this.approximationErrors = null;
     this.approximationError = -1;
+    this.relativeChange = -1;
     this.iterationsCompleted = 0;
   }
 
@@ -87,6 +110,36 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
     return k;
   }
 
+  /**
+   * Initializes the stop criteria which are turned on, to be called after U and V are seeded and
+   * before the first iteration.
+   */
+  protected void startIterations() {
+    if (stopThreshold >= 0) {
+      updateApproximationError();
+    }
+    if (convergenceThreshold >= 0) {
+      previousU = U.copy();
+      previousV = V.copy();
+    }
+  }
+
+  /**
+   * Updates the stop criteria which are turned on, to be called after each iteration.
+   *
+   * @return true if any of the stop criteria is met
+   */
+  protected boolean isConverged() {
+    boolean converged = false;
+    if (stopThreshold >= 0) {
+      converged |= updateApproximationError();
+    }
+    if (convergenceThreshold >= 0) {
+      converged |= updateRelativeChange();
+    }
+    return converged;
+  }
+
   /**
    * @return true if the decrease in the approximation error is smaller than the <code>stopThreshold
    *     </code>
@@ -96,9 +149,19 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
       approximationErrors = new double[maxIterations + 1];
     }
 
-    // Approximation error
-    double newApproximationError =
-        MatrixUtils.frobeniusNorm(U.zMult(V, null, 1, 0, false, true).assign(A, Functions.MINUS));
+    // Approximation error, ||A - UV'||^2 = ||A||^2 - 2 tr(U'AV) + tr(U'U V'V), computed without
+    // the m x n matrix UV'.
+    if (squaredNormA < 0) {
+      squaredNormA = A.aggregate(Functions.PLUS, Functions.SQUARE);
+    }
+    final DoubleMatrix2D AV = A.zMult(V, null, 1, 0, false, false);
+    final DoubleMatrix2D UU = U.zMult(U, null, 1, 0, true, false);
+    final DoubleMatrix2D VV = V.zMult(V, null, 1, 0, true, false);
+    final double squaredError =
+        squaredNormA
+            - 2 * U.aggregate(AV, Functions.PLUS, Functions.MULT)
+            + UU.aggregate(VV, Functions.PLUS, Functions.MULT);
+    double newApproximationError = Math.sqrt(Math.max(0, squaredError));
     approximationErrors[iterationsCompleted] = newApproximationError;
 
     if ((approximationError - newApproximationError) / approximationError < stopThreshold) {
@@ -110,6 +173,26 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
     }
   }
 
+  /**
+   * @return true if the relative change of U and V since the previous call is smaller than the
+   *     <code>convergenceThreshold</code>
+   */
+  protected boolean updateRelativeChange() {
+    final DoubleDoubleFunction squaredDifference =
+        Functions.chain(Functions.SQUARE, Functions.MINUS);
+    final double change =
+        U.aggregate(previousU, Functions.PLUS, squaredDifference)
+            + V.aggregate(previousV, Functions.PLUS, squaredDifference);
+    final double norm =
+        U.aggregate(Functions.PLUS, Functions.SQUARE)
+            + V.aggregate(Functions.PLUS, Functions.SQUARE);
+    relativeChange = norm > 0 ? Math.sqrt(change / norm) : 0;
+
+    previousU.assign(U);
+    previousV.assign(V);
+    return relativeChange < convergenceThreshold;
+  }
+
   /** Orders U and V matrices according to the 'activity' of base vectors. */
   protected void order() {
     DoubleMatrix2D VT = V.viewDice();
@@ -165,6 +248,26 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
     this.stopThreshold = stopThreshold;
   }
 
+  /** Returns the <code>convergenceThreshold</code>. */
+  public double getConvergenceThreshold() {
+    return convergenceThreshold;
+  }
+
+  /**
+   * Sets the <code>convergenceThreshold</code>. If the relative change of U and V in one iteration,
+   * <code>sqrt((||dU||^2 + ||dV||^2) / (||U||^2 + ||V||^2))</code>, becomes smaller than <code>
+   * convergenceThreshold</code>, the algorithm will stop. Setting the threshold to -1 turns off
+   * this test.
+   */
+  public void setConvergenceThreshold(double convergenceThreshold) {
+    this.convergenceThreshold = convergenceThreshold;
+  }
+
+  /** Returns the relative change of U and V in the last iteration, or -1 if not computed. */
+  public double getRelativeChange() {
+    return relativeChange;
+  }
+
   /** */
   public double getApproximationError() {
     return approximationError;
@@ -50,6 +50,12 @@ public abstract class IterativeMatrixFactorizationFactory extends AttrComposite
   /** The default stop threshold */
   protected static final double DEFAULT_STOP_THRESHOLD = -1;
 
+  /** The algorithm's convergence threshold */
+  protected double convergenceThreshold;
+
+  /** The default convergence threshold */
+  protected static final double DEFAULT_CONVERGENCE_THRESHOLD = -1;
+
   /** Matrix seeding strategy factory */
   protected SeedingStrategyFactory seedingFactory;
 
@@ -66,6 +72,7 @@ public abstract class IterativeMatrixFactorizationFactory extends AttrComposite
     this.k = DEFAULT_K;
     this.maxIterations = DEFAULT_MAX_ITERATIONS;
     this.stopThreshold = DEFAULT_STOP_THRESHOLD;
+    this.convergenceThreshold = DEFAULT_CONVERGENCE_THRESHOLD;
     this.seedingFactory = DEFAULT_SEEDING_FACTORY;
     this.ordered = DEFAULT_ORDERED;
   }
@@ -109,6 +116,20 @@ public abstract class IterativeMatrixFactorizationFactory extends AttrComposite
     this.stopThreshold = stopThreshold;
   }
 
+  /** Returns the convergence threshold used by this factory. */
+  public double getConvergenceThreshold() {
+    return convergenceThreshold;
+  }
+
+  /**
+   * Sets the convergence threshold to be used by this factory. The factorization stops when the
+   * relative change of U and V in one iteration becomes smaller than the threshold. Setting the
+   * threshold to -1 turns off this test.
+   */
+  public void setConvergenceThreshold(double convergenceThreshold) {
+    this.convergenceThreshold = convergenceThreshold;
+  }
+
   /** Returns the {@link SeedingStrategyFactory} used by this factory. */
   public SeedingStrategyFactory getSeedingFactory() {
     return seedingFactory;
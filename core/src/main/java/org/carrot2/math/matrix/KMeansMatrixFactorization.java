@@ -13,7 +13,6 @@ package org.carrot2.math.matrix;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.function.Mult;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
-import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 
 /**
  * Performs matrix factorization using the K-means clustering algorithm. This kind of factorization
@@ -34,19 +33,21 @@ public class KMeansMatrixFactorization extends IterativeMatrixFactorizationBase
     int n = A.columns();
 
     // Distances to centroids
-    DoubleMatrix2D D = new DenseDoubleMatrix2D(k, n);
+    DoubleMatrix2D D = precision.newDenseMatrix(k, n);
 
     // Object-cluster assignments
-    V = new DenseDoubleMatrix2D(n, k);
+    V = precision.newDenseMatrix(n, k);
 
     // Initialize the centroids with some document vectors
-    U = new DenseDoubleMatrix2D(A.rows(), k);
+    U = precision.newDenseMatrix(A.rows(), k);
     U.assign(A.viewPart(0, 0, A.rows(), k));
 
     int[] minIndices = new int[D.columns()];
     double[] minValues = new double[D.columns()];
 
-    for (iterationsCompleted = 0; iterationsCompleted < maxIterations; iterationsCompleted++) {
+    startIterations();
+
+    while (iterationsCompleted < maxIterations) {
       // Calculate cosine distances
       U.zMult(A, D, 1, 0, true, false);
 
@@ -74,6 +75,11 @@ public class KMeansMatrixFactorization extends IterativeMatrixFactorizationBase
         U.viewColumn(c).assign(Mult.div(count));
         MatrixUtils.normalizeColumnL2(U, null);
       }
+
+      iterationsCompleted++;
+      if (isConverged()) {
+        break;
+      }
     }
   }
 
@@ -0,0 +1,73 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import org.carrot2.math.mahout.function.DoubleDoubleFunction;
+import org.carrot2.math.mahout.function.DoubleFunction;
+import org.carrot2.math.mahout.function.Functions;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedSparseDoubleMatrix2D;
+
+/**
+ * Computes the quotient <code>A ./ UV'</code> of the multiplicative updates minimizing the
+ * Kullback-Leibler divergence between A and UV'. The quotient matrix is allocated once and reused
+ * in all iterations.
+ *
+ * <p>For a dense A, the quotient is <code>(A + eps) ./ (UV' + eps)</code>, computed densely. For a
+ * {@link CompressedSparseDoubleMatrix2D} A, the quotient is <code>A ./ (UV' + eps)</code> computed
+ * at A's stored elements only (the quotient is zero where A is zero). The sparse quotient lacks
+ * the dense one's <code>eps / (UV' + eps)</code> term at every element. The term is negligible
+ * where UV' is much larger than <code>eps</code>, but close to 1 where UV' is close to zero, so
+ * the results can differ noticeably from the dense computation. In exchange, neither A nor UV'
+ * is materialized densely.
+ */
+final class KullbackLeiblerQuotient {
+  private final double eps;
+
+  /** The matrix being factorized, if sparse */
+  private final CompressedSparseDoubleMatrix2D sparseA;
+
+  /** A + eps, if A is dense */
+  private final DoubleMatrix2D Aeps;
+
+  /** The quotient */
+  private final DoubleMatrix2D Q;
+
+  private final DoubleDoubleFunction invDiv = Functions.swapArgs(Functions.DIV);
+  private final DoubleFunction plusEps;
+
+  KullbackLeiblerQuotient(DoubleMatrix2D A, MatrixPrecision precision, double eps) {
+    this.eps = eps;
+    this.plusEps = Functions.plus(eps);
+    if (A instanceof CompressedSparseDoubleMatrix2D) {
+      this.sparseA = (CompressedSparseDoubleMatrix2D) A;
+      this.Aeps = null;
+      this.Q = sparseA.likeStructure();
+    } else {
+      this.sparseA = null;
+      this.Aeps = precision.newDenseMatrix(A.rows(), A.columns()).assign(A);
+      this.Aeps.assign(plusEps);
+      this.Q = precision.newDenseMatrix(A.rows(), A.columns());
+    }
+  }
+
+  /** @return Returns the quotient for the current U and V. */
+  DoubleMatrix2D compute(DoubleMatrix2D U, DoubleMatrix2D V) {
+    if (sparseA != null) {
+      ((CompressedSparseDoubleMatrix2D) Q).assignSampledQuotient(sparseA, U, V, eps);
+    } else {
+      U.zMult(V, Q, 1, 0, false, true); // Q <- U*V'
+      Q.assign(plusEps); // Q <- Q + eps
+      Q.assign(Aeps, invDiv); // Q <- Aeps ./ Q
+    }
+    return Q;
+  }
+}
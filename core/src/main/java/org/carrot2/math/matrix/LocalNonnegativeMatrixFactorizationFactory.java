@@ -23,6 +23,7 @@ public class LocalNonnegativeMatrixFactorizationFactory
     factorization.setK(k);
     factorization.setMaxIterations(maxIterations);
     factorization.setStopThreshold(stopThreshold);
+    factorization.setConvergenceThreshold(convergenceThreshold);
     factorization.setSeedingStrategy(createSeedingStrategy());
     factorization.setOrdered(ordered);
     factorization.compute();
@@ -23,6 +23,9 @@ abstract class MatrixFactorizationBase implements MatrixFactorization {
   /** Coefficient result matrix */
   protected DoubleMatrix2D V;
 
+  /** Precision of dense matrices created by the factorization, the same as of the input matrix */
+  protected final MatrixPrecision precision;
+
   /**
    * Creates the MatrixFactorizationBase object for matrix A. All computations will be performed
    * during the invocation of the constructor. By default RandomMatrixFactorizationSeeding will be
@@ -32,6 +35,7 @@ abstract class MatrixFactorizationBase implements MatrixFactorization {
    */
   public MatrixFactorizationBase(DoubleMatrix2D A) {
     this.A = A;
+    this.precision = MatrixPrecision.of(A);
   }
 
   public DoubleMatrix2D getU() {
@@ -0,0 +1,44 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseFloatMatrix2D;
+
+/** Precision of the elements of dense matrices. */
+public enum MatrixPrecision {
+  /** Double precision (64-bit) elements. */
+  DOUBLE,
+
+  /** Single precision (32-bit) elements, half the memory of double precision. */
+  FLOAT;
+
+  /** Creates a dense matrix with elements of this precision. */
+  public DoubleMatrix2D newDenseMatrix(int rows, int columns) {
+    switch (this) {
+      case FLOAT:
+        return new DenseFloatMatrix2D(rows, columns);
+      case DOUBLE:
+        return new DenseDoubleMatrix2D(rows, columns);
+      default:
+        throw new RuntimeException("Unhandled precision: " + this);
+    }
+  }
+
+  /**
+   * @return Returns {@link #FLOAT} for single precision dense matrices (and their views), {@link
+   *     #DOUBLE} for all other matrices.
+   */
+  public static MatrixPrecision of(DoubleMatrix2D matrix) {
+    return matrix.like(0, 0) instanceof DenseFloatMatrix2D ? FLOAT : DOUBLE;
+  }
+}
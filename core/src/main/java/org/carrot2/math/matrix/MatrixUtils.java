@@ -13,10 +13,13 @@ package org.carrot2.math.matrix;
 import com.carrotsearch.hppc.sorting.IndirectComparator;
 import com.carrotsearch.hppc.sorting.IndirectSort;
 import java.util.Arrays;
+import java.util.Map;
 import org.carrot2.math.mahout.function.DoubleFunction;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.function.IntIntDoubleFunction;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedSparseDoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 
 /** A set of <code>DoubleMatrix2D</code> shorthands and utility methods. */
 public class MatrixUtils {
@@ -34,6 +37,15 @@ public class MatrixUtils {
   public static DoubleMatrix2D normalizeColumnL2(DoubleMatrix2D A, double[] work) {
     work = prepareWork(A, work);
 
+    if (A instanceof CompressedSparseDoubleMatrix2D) {
+      ((CompressedSparseDoubleMatrix2D) A).normalizeColumnL2(work);
+      return A;
+    }
+    if (A instanceof DenseDoubleMatrix2D && ((DenseDoubleMatrix2D) A).hasContiguousRows()) {
+      ((DenseDoubleMatrix2D) A).normalizeColumnL2(work);
+      return A;
+    }
+
     // Calculate the L2 norm for each column
     for (int r = 0; r < A.rows(); r++) {
       for (int c = 0; c < A.columns(); c++) {
@@ -107,6 +119,11 @@ public class MatrixUtils {
   public static DoubleMatrix2D normalizeColumnL1(DoubleMatrix2D A, double[] work) {
     work = prepareWork(A, work);
 
+    if (A instanceof DenseDoubleMatrix2D && ((DenseDoubleMatrix2D) A).hasContiguousRows()) {
+      ((DenseDoubleMatrix2D) A).normalizeColumnL1(work);
+      return A;
+    }
+
     // Calculate the L1 norm for each column
     for (int r = 0; r < A.rows(); r++) {
       for (int c = 0; c < A.columns(); c++) {
@@ -345,6 +362,14 @@ public class MatrixUtils {
     return Math.sqrt(matrix.aggregate(Functions.PLUS, Functions.SQUARE));
   }
 
+  /** Adds the dimensions of <code>matrix</code> (if not null) to <code>sizes</code>. */
+  public static void collectSizes(DoubleMatrix2D matrix, Map<String, Long> sizes) {
+    if (matrix != null) {
+      sizes.put("rows", (long) matrix.rows());
+      sizes.put("columns", (long) matrix.columns());
+    }
+  }
+
   /**
    * Returns view of the provided matrix with rows permuted according to the order defined by the
    * provided comparator.
@@ -13,7 +13,6 @@ package org.carrot2.math.matrix;
 import org.carrot2.math.mahout.function.DoubleFunction;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
-import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 
 /**
  * Performs matrix factorization using the Non-negative Matrix Factorization algorithm with
@@ -51,21 +50,19 @@ public class NonnegativeMatrixFactorizationED extends IterativeMatrixFactorizati
     double eps = 1e-9;
 
     // Seed U and V with initial values
-    U = new DenseDoubleMatrix2D(A.rows(), k);
-    V = new DenseDoubleMatrix2D(A.columns(), k);
+    U = precision.newDenseMatrix(A.rows(), k);
+    V = precision.newDenseMatrix(A.columns(), k);
     seedingStrategy.seed(A, U, V);
 
     // Temporary matrices
-    DoubleMatrix2D T = new DenseDoubleMatrix2D(k, k);
-    DoubleMatrix2D UT1 = new DenseDoubleMatrix2D(A.rows(), k);
-    DoubleMatrix2D UT2 = new DenseDoubleMatrix2D(A.rows(), k);
-    DoubleMatrix2D VT1 = new DenseDoubleMatrix2D(A.columns(), k);
-    DoubleMatrix2D VT2 = new DenseDoubleMatrix2D(A.columns(), k);
+    DoubleMatrix2D T = precision.newDenseMatrix(k, k);
+    DoubleMatrix2D UT1 = precision.newDenseMatrix(A.rows(), k);
+    DoubleMatrix2D UT2 = precision.newDenseMatrix(A.rows(), k);
+    DoubleMatrix2D VT1 = precision.newDenseMatrix(A.columns(), k);
+    DoubleMatrix2D VT2 = precision.newDenseMatrix(A.columns(), k);
     DoubleFunction plusEps = Functions.plus(eps);
 
-    if (stopThreshold >= 0) {
-      updateApproximationError();
-    }
+    startIterations();
 
     for (int i = 0; i < maxIterations; i++) {
       // Update V
@@ -87,10 +84,8 @@ public class NonnegativeMatrixFactorizationED extends IterativeMatrixFactorizati
       U.assign(UT1, Functions.MULT); // U <- U .* UT1
 
       iterationsCompleted++;
-      if (stopThreshold >= 0) {
-        if (updateApproximationError()) {
-          break;
-        }
+      if (isConverged()) {
+        break;
       }
     }
 
@@ -22,6 +22,7 @@ public class NonnegativeMatrixFactorizationEDFactory extends IterativeMatrixFact
     factorization.setK(k);
     factorization.setMaxIterations(maxIterations);
     factorization.setStopThreshold(stopThreshold);
+    factorization.setConvergenceThreshold(convergenceThreshold);
     factorization.setSeedingStrategy(createSeedingStrategy());
     factorization.setOrdered(ordered);
 
@@ -10,11 +10,8 @@
  */
 package org.carrot2.math.matrix;
 
-import org.carrot2.math.mahout.function.DoubleDoubleFunction;
-import org.carrot2.math.mahout.function.DoubleFunction;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
-import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 
 /**
  * Performs matrix factorization using the Non-negative Matrix Factorization by minimization of
@@ -56,48 +53,35 @@ public class NonnegativeMatrixFactorizationKL extends IterativeMatrixFactorizati
     double eps = 1e-9;
 
     // Seed U and V with initial values
-    U = new DenseDoubleMatrix2D(m, k);
-    V = new DenseDoubleMatrix2D(n, k);
+    U = precision.newDenseMatrix(m, k);
+    V = precision.newDenseMatrix(n, k);
     seedingStrategy.seed(A, U, V);
 
     // Temporary matrices
-    DoubleMatrix2D Aeps = A.copy();
-    Aeps.assign(Functions.plus(eps));
-    DoubleMatrix2D UV = new DenseDoubleMatrix2D(m, n);
-    DoubleMatrix2D VT = new DenseDoubleMatrix2D(n, k);
-    DoubleMatrix2D UT = new DenseDoubleMatrix2D(m, k);
+    KullbackLeiblerQuotient quotient = new KullbackLeiblerQuotient(A, precision, eps);
+    DoubleMatrix2D UV;
+    DoubleMatrix2D VT = precision.newDenseMatrix(n, k);
+    DoubleMatrix2D UT = precision.newDenseMatrix(m, k);
     double[] work = new double[U.columns()];
 
-    // Colt functions
-    DoubleDoubleFunction invDiv = Functions.swapArgs(Functions.DIV);
-    DoubleFunction plusEps = Functions.plus(eps);
-
-    if (stopThreshold >= 0) {
-      updateApproximationError();
-    }
+    startIterations();
 
     for (int i = 0; i < maxIterations; i++) {
       // Update V
-      U.zMult(V, UV, 1, 0, false, true); // UV <- U*V'
-      UV.assign(plusEps); // UV <- UV + eps
-      UV.assign(Aeps, invDiv); // UV <- Aeps ./ UV
+      UV = quotient.compute(U, V); // UV <- Aeps ./ (U*V' + eps)
       UV.zMult(U, VT, 1, 0, true, false); // VT <- UV' * U
       V.assign(VT, Functions.MULT); // V <- V .* VT
 
       // Update U
-      U.zMult(V, UV, 1, 0, false, true); // UV <- U*V'
-      UV.assign(plusEps); // UV <- UV + eps
-      UV.assign(Aeps, invDiv); // UV <- Aeps ./ UV
+      UV = quotient.compute(U, V); // UV <- Aeps ./ (U*V' + eps)
       UV.zMult(V, UT, 1, 0, false, false); // UT <- UV * V
       U.assign(UT, Functions.MULT); // U <- U .* UT
 
       MatrixUtils.normalizeColumnL1(U, work);
 
       iterationsCompleted++;
-      if (stopThreshold >= 0) {
-        if (updateApproximationError()) {
-          break;
-        }
+      if (isConverged()) {
+        break;
       }
     }
 
@@ -0,0 +1,165 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.carrot2.math.mahout.DenseMatrix;
+import org.carrot2.math.mahout.Matrix;
+import org.carrot2.math.mahout.SingularValueDecomposition;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+
+/**
+ * Computes an approximate, truncated Singular Value Decomposition using the randomized range finder
+ * with power iterations (Halko, Martinsson, Tropp, <i>Finding structure with randomness:
+ * Probabilistic algorithms for constructing approximate matrix decompositions</i>, 2011).
+ *
+ * <p>The range of the input matrix is sampled with <code>k + oversampling</code> random vectors,
+ * the sample is refined with a number of power iterations and a full SVD is then computed for the
+ * (small) projection of the input matrix onto the sampled range. The input matrix is only used in
+ * matrix multiplications, so sparse input matrices are never converted to dense storage.
+ */
+public class RandomizedSingularValueDecomposition extends MatrixFactorizationBase
+    implements MatrixFactorization {
+  /** The desired number of base vectors */
+  protected int k;
+
+  /** The number of additional random vectors used to sample the range of the input matrix */
+  protected int oversampling;
+
+  /** The number of power iterations */
+  protected int powerIterations;
+
+  /** Random seed for the sampling vectors */
+  protected long seed;
+
+  /** Singular values */
+  private double[] S;
+
+  /**
+   * Computes a randomized SVD of a matrix. Before accessing results, perform computations by
+   * calling the {@link #compute()} method.
+   *
+   * @param A matrix to be factorized
+   * @param k the desired number of base vectors, if not positive, all base vectors are computed
+   */
+  public RandomizedSingularValueDecomposition(
+      DoubleMatrix2D A, int k, int oversampling, int powerIterations, long seed) {
+    super(A);
+
+    this.k = k;
+    this.oversampling = oversampling;
+    this.powerIterations = powerIterations;
+    this.seed = seed;
+  }
+
+  public void compute() {
+    final int rank = Math.min(A.rows(), A.columns());
+    final int k = (this.k > 0 ? Math.min(this.k, rank) : rank);
+    final int samples = Math.min(k + oversampling, rank);
+
+    // Sample the range of A: Q = orth(A * Omega)
+    final Random random = new Random(seed);
+    final DoubleMatrix2D omega = precision.newDenseMatrix(A.columns(), samples);
+    for (int r = 0; r < omega.rows(); r++) {
+      for (int c = 0; c < samples; c++) {
+        omega.setQuick(r, c, random.nextGaussian());
+      }
+    }
+
+    final DoubleMatrix2D Q = precision.newDenseMatrix(A.rows(), samples);
+    final DoubleMatrix2D Z = precision.newDenseMatrix(A.columns(), samples);
+    A.zMult(omega, Q, 1, 0, false, false);
+    orthonormalizeColumns(Q);
+
+    // Power iterations: Q = orth(A * orth(A' * Q))
+    for (int i = 0; i < powerIterations; i++) {
+      A.zMult(Q, Z, 1, 0, true, false);
+      orthonormalizeColumns(Z);
+      A.zMult(Z, Q, 1, 0, false, false);
+      orthonormalizeColumns(Q);
+    }
+
+    // B' = A' * Q, B' = Ub * S * Vb', so A ~ Q * B = (Q * Vb) * S * Ub'
+    A.zMult(Q, Z, 1, 0, true, false);
+    final SingularValueDecomposition svd =
+        new SingularValueDecomposition(new DenseMatrix(Z.toArray()));
+
+    final DoubleMatrix2D Vb = toColtMatrix(svd.getV());
+    U = Q.zMult(Vb, null, 1, 0, false, false);
+    V = toColtMatrix(svd.getU());
+    S = svd.getSingularValues();
+
+    if (k < S.length) {
+      U = U.viewPart(0, 0, U.rows(), k);
+      V = V.viewPart(0, 0, V.rows(), k);
+      S = Arrays.copyOf(S, k);
+    }
+  }
+
+  /**
+   * Orthonormalizes columns of a matrix using the modified Gram-Schmidt process, with one
+   * re-orthogonalization pass for numerical stability. Columns which are (numerically) linearly
+   * dependent on the preceding columns are set to zero.
+   */
+  static void orthonormalizeColumns(DoubleMatrix2D M) {
+    final int rows = M.rows();
+    final int columns = M.columns();
+    for (int c = 0; c < columns; c++) {
+      final double originalNorm = norm(M, c);
+      for (int pass = 0; pass < 2; pass++) {
+        for (int p = 0; p < c; p++) {
+          double dot = 0;
+          for (int r = 0; r < rows; r++) {
+            dot += M.getQuick(r, p) * M.getQuick(r, c);
+          }
+          for (int r = 0; r < rows; r++) {
+            M.setQuick(r, c, M.getQuick(r, c) - dot * M.getQuick(r, p));
+          }
+        }
+      }
+
+      final double norm = norm(M, c);
+      final double scale = norm > originalNorm * 1e-10 ? 1 / norm : 0;
+      for (int r = 0; r < rows; r++) {
+        M.setQuick(r, c, M.getQuick(r, c) * scale);
+      }
+    }
+  }
+
+  private static double norm(DoubleMatrix2D M, int column) {
+    double sum = 0;
+    for (int r = 0; r < M.rows(); r++) {
+      sum += M.getQuick(r, column) * M.getQuick(r, column);
+    }
+    return Math.sqrt(sum);
+  }
+
+  private static DenseDoubleMatrix2D toColtMatrix(Matrix m) {
+    DenseDoubleMatrix2D result = new DenseDoubleMatrix2D(m.rowSize(), m.columnSize());
+    for (int r = 0; r < result.rows(); r++) {
+      for (int c = 0; c < result.columns(); c++) {
+        result.setQuick(r, c, m.getQuick(r, c));
+      }
+    }
+    return result;
+  }
+
+  public String toString() {
+    return "RSVD";
+  }
+
+  /** Returns the (approximate) singular values of the matrix. */
+  public double[] getSingularValues() {
+    return S;
+  }
+}
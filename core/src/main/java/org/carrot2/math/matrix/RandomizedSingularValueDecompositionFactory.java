@@ -0,0 +1,89 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import org.carrot2.attrs.AttrComposite;
+import org.carrot2.attrs.AttrInteger;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+
+/**
+ * Performs matrix factorization using the randomized truncated Singular Value Decomposition
+ * algorithm. The cost of the factorization depends on the desired number of base vectors rather
+ * than on the size of the smaller dimension of the input matrix.
+ *
+ * @see RandomizedSingularValueDecomposition
+ */
+public class RandomizedSingularValueDecompositionFactory extends AttrComposite
+    implements MatrixFactorizationFactory {
+  /**
+   * Oversampling. The number of random vectors, in addition to the desired number of base vectors,
+   * used to sample the range of the input matrix. Larger values improve accuracy at the cost of
+   * time.
+   */
+  public final AttrInteger oversampling =
+      attributes.register(
+          "oversampling",
+          AttrInteger.builder().label("Oversampling").min(0).max(100).defaultValue(10));
+
+  /**
+   * Power iterations. The number of power iterations used to refine the sampled range of the input
+   * matrix. More iterations improve accuracy for matrices with slowly decaying singular values.
+   */
+  public final AttrInteger powerIterations =
+      attributes.register(
+          "powerIterations",
+          AttrInteger.builder().label("Power iterations").min(0).max(10).defaultValue(2));
+
+  /**
+   * Random seed. The seed for generating random sampling vectors. Factorizations of the same matrix
+   * with the same seed yield identical results.
+   */
+  public final AttrInteger seed =
+      attributes.register("seed", AttrInteger.builder().label("Random seed").defaultValue(0));
+
+  /** The desired number of base vectors */
+  protected int k;
+
+  /** The default desired number of base vectors */
+  protected static final int DEFAULT_K = -1;
+
+  /**
+   * Creates the factory that creates factorizations that compute the maximum number of base
+   * vectors.
+   */
+  public RandomizedSingularValueDecompositionFactory() {
+    this.k = DEFAULT_K;
+  }
+
+  public MatrixFactorization factorize(DoubleMatrix2D A) {
+    RandomizedSingularValueDecomposition randomizedSingularValueDecomposition =
+        new RandomizedSingularValueDecomposition(
+            A, k, oversampling.get(), powerIterations.get(), seed.get());
+
+    randomizedSingularValueDecomposition.compute();
+
+    return randomizedSingularValueDecomposition;
+  }
+
+  /**
+   * Sets the number of base vectors <i>k </i>.
+   *
+   * @param k the number of base vectors
+   */
+  public void setK(int k) {
+    this.k = k;
+  }
+
+  /** Returns the number of base vectors <i>k </i>. */
+  public int getK() {
+    return k;
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+
+/**
+ * Seeds U and V with the results of a previous factorization of a similar matrix, for example the
+ * same query clustered with more documents. Rows of the previous U and V are copied to the same
+ * rows of the seeded matrices, so the rows (terms) and columns (documents) common to both matrices
+ * must come first and in the same order. Rows and base vectors not present in the previous
+ * factorization are seeded with a fallback strategy.
+ */
+public class WarmStartSeedingStrategy implements SeedingStrategy {
+  private final MatrixFactorization previous;
+  private final SeedingStrategy fallback;
+
+  public WarmStartSeedingStrategy(MatrixFactorization previous, SeedingStrategy fallback) {
+    this.previous = previous;
+    this.fallback = fallback;
+  }
+
+  public void seed(DoubleMatrix2D A, DoubleMatrix2D U, DoubleMatrix2D V) {
+    fallback.seed(A, U, V);
+    copyOverlap(previous.getU(), U);
+    copyOverlap(previous.getV(), V);
+  }
+
+  private static void copyOverlap(DoubleMatrix2D from, DoubleMatrix2D to) {
+    final int rows = Math.min(from.rows(), to.rows());
+    final int columns = Math.min(from.columns(), to.columns());
+    to.viewPart(0, 0, rows, columns).assign(from.viewPart(0, 0, rows, columns));
+  }
+
+  public String toString() {
+    return "W-" + fallback.toString();
+  }
+}
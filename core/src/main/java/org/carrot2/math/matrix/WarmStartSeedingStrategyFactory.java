@@ -0,0 +1,41 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+/**
+ * Creates {@link WarmStartSeedingStrategy} instances seeding factorizations with the results of a
+ * previous factorization.
+ */
+public class WarmStartSeedingStrategyFactory implements SeedingStrategyFactory {
+  /** The factorization whose results will be used as seeds */
+  private final MatrixFactorization previous;
+
+  /** Seeds the elements not present in the previous factorization */
+  private final SeedingStrategyFactory fallback;
+
+  /**
+   * Creates the factory with random seeding of the elements not present in the previous
+   * factorization.
+   */
+  public WarmStartSeedingStrategyFactory(MatrixFactorization previous) {
+    this(previous, new RandomSeedingStrategyFactory(0));
+  }
+
+  public WarmStartSeedingStrategyFactory(
+      MatrixFactorization previous, SeedingStrategyFactory fallback) {
+    this.previous = previous;
+    this.fallback = fallback;
+  }
+
+  public SeedingStrategy createSeedingStrategy() {
+    return new WarmStartSeedingStrategy(previous, fallback.createSeedingStrategy());
+  }
+}
@@ -14,6 +14,7 @@ import java.util.stream.Stream;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.attrs.AttrInteger;
 import org.carrot2.clustering.Document;
+import org.carrot2.clustering.StageTracker;
 import org.carrot2.language.LanguageComponents;
 
 /**
@@ -59,11 +60,23 @@ public class BasicPreprocessingPipeline extends AttrComposite implements Context
    */
   public PreprocessingContext preprocess(
       Stream<? extends Document> documents, String query, LanguageComponents langModel) {
+    final StageTracker tracker = StageTracker.of(langModel);
     try (PreprocessingContext context = new PreprocessingContext(langModel)) {
+      tracker.begin();
       tokenizer.tokenize(context, documents);
+      tracker.end("tokenizer", context, PreprocessingContext::collectSizes);
+
+      tracker.begin();
       caseNormalizer.normalize(context, wordDfThreshold.get());
+      tracker.end("caseNormalizer", context, PreprocessingContext::collectSizes);
+
+      tracker.begin();
       stemming.stem(context, query);
+      tracker.end("stemming", context, PreprocessingContext::collectSizes);
+
+      tracker.begin();
       stopListMarker.mark(context);
+      tracker.end("stopListMarker", context, PreprocessingContext::collectSizes);
       return context;
     }
   }
@@ -49,12 +49,7 @@ final class CaseNormalizer {
     final int tokenCount = tokenImages.length;
 
     // Sort token images
-    final int[] tokenImagesOrder =
-        IndirectSort.mergesort(
-            tokenImages,
-            0,
-            tokenImages.length,
-            CharArrayComparators.NORMALIZING_CHAR_ARRAY_COMPARATOR);
+    final int[] tokenImagesOrder = sortTokenImages(tokenImages);
 
     // Create holders for new arrays
     final List<char[]> normalizedWordImages = new ArrayList<>();
@@ -187,6 +182,75 @@ final class CaseNormalizer {
     context.allWords.type = types.toArray();
   }
 
+  /**
+   * Returns the indexes of tokens ordered by their images, using {@link
+   * CharArrayComparators#NORMALIZING_CHAR_ARRAY_COMPARATOR}, with ties in the order of token
+   * indexes. The result is the same as that of a stable sort of all tokens, but only distinct
+   * images are sorted: token images are interned by {@link PreprocessingContext}, so token indexes
+   * are first grouped by their (identical) image arrays and then laid out group after group.
+   */
+  static int[] sortTokenImages(char[][] tokenImages) {
+    final int tokenCount = tokenImages.length;
+
+    // Assign an identifier to each distinct image array, null images get -1.
+    final ObjectIntIdentityHashMap<char[]> imageIds = new ObjectIntIdentityHashMap<>();
+    final ArrayList<char[]> distinctImages = new ArrayList<>();
+    final int[] tokenImageIds = new int[tokenCount];
+    for (int i = 0; i < tokenCount; i++) {
+      final char[] image = tokenImages[i];
+      if (image == null) {
+        tokenImageIds[i] = -1;
+        continue;
+      }
+
+      final int slot = imageIds.indexOf(image);
+      if (imageIds.indexExists(slot)) {
+        tokenImageIds[i] = imageIds.indexGet(slot);
+      } else {
+        tokenImageIds[i] = distinctImages.size();
+        imageIds.indexInsert(slot, image, distinctImages.size());
+        distinctImages.add(image);
+      }
+    }
+
+    // Sort distinct images. Equal, but not interned, image arrays end up in one group.
+    final char[][] images = distinctImages.toArray(new char[distinctImages.size()][]);
+    final int[] imagesOrder =
+        IndirectSort.mergesort(
+            images, 0, images.length, CharArrayComparators.NORMALIZING_CHAR_ARRAY_COMPARATOR);
+    final int[] groups = new int[images.length];
+    int groupCount = 0;
+    for (int i = 0; i < imagesOrder.length; i++) {
+      if (i > 0
+          && CharArrayComparators.NORMALIZING_CHAR_ARRAY_COMPARATOR.compare(
+                  images[imagesOrder[i - 1]], images[imagesOrder[i]])
+              != 0) {
+        groupCount++;
+      }
+      groups[imagesOrder[i]] = groupCount;
+    }
+    if (images.length > 0) {
+      groupCount++;
+    }
+
+    // Count tokens in each group (null images last) and lay out token indexes.
+    final int[] groupStarts = new int[groupCount + 3];
+    for (int i = 0; i < tokenCount; i++) {
+      final int id = tokenImageIds[i];
+      groupStarts[(id < 0 ? groupCount : groups[id]) + 2]++;
+    }
+    for (int i = 2; i < groupStarts.length; i++) {
+      groupStarts[i] += groupStarts[i - 1];
+    }
+
+    final int[] order = new int[tokenCount];
+    for (int i = 0; i < tokenCount; i++) {
+      final int id = tokenImageIds[i];
+      order[groupStarts[(id < 0 ? groupCount : groups[id]) + 1]++] = i;
+    }
+    return order;
+  }
+
   /** Initializes the counters for the a token image. */
   private void resetForNewTokenImage(
       final int[] documentIndexesArray,
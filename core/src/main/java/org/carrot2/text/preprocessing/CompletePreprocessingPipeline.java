@@ -12,9 +12,11 @@ package org.carrot2.text.preprocessing;
 
 import java.util.stream.Stream;
 import org.carrot2.attrs.AttrComposite;
+import org.carrot2.attrs.AttrEnum;
 import org.carrot2.attrs.AttrInteger;
 import org.carrot2.attrs.AttrObject;
 import org.carrot2.clustering.Document;
+import org.carrot2.clustering.StageTracker;
 import org.carrot2.language.LanguageComponents;
 
 /**
@@ -58,6 +60,18 @@ public class CompletePreprocessingPipeline extends AttrComposite implements Cont
               .label("Phrase document frequency threshold")
               .defaultValue(1));
 
+  /**
+   * Suffix sorting algorithm used for frequent phrase extraction. Both algorithms produce identical
+   * results; induced sorting (<code>SAIS</code>) runs in linear time and is considerably faster on
+   * large or repetitive inputs.
+   */
+  public final AttrEnum<SuffixSortingAlgorithm> suffixSorting =
+      attributes.register(
+          "suffixSorting",
+          AttrEnum.builder(SuffixSortingAlgorithm.class)
+              .label("Suffix sorting algorithm")
+              .defaultValue(SuffixSortingAlgorithm.MERGESORT));
+
   /** Label filtering is a composite of individual filters. */
   public LabelFilterProcessor labelFilters = new LabelFilterProcessor();
 
@@ -96,14 +110,35 @@ public class CompletePreprocessingPipeline extends AttrComposite implements Cont
 
   public PreprocessingContext preprocess(
       Stream<? extends Document> documents, String query, LanguageComponents langModel) {
+    final StageTracker tracker = StageTracker.of(langModel);
     try (PreprocessingContext context = new PreprocessingContext(langModel)) {
+      tracker.begin();
       tokenizer.tokenize(context, documents);
+      tracker.end("tokenizer", context, PreprocessingContext::collectSizes);
+
+      tracker.begin();
       caseNormalizer.normalize(context, wordDfThreshold.get());
+      tracker.end("caseNormalizer", context, PreprocessingContext::collectSizes);
+
+      tracker.begin();
       stemming.stem(context, query);
+      tracker.end("stemming", context, PreprocessingContext::collectSizes);
+
+      tracker.begin();
       stopListMarker.mark(context);
-      new PhraseExtractor(phraseDfThreshold.get()).extractPhrases(context);
+      tracker.end("stopListMarker", context, PreprocessingContext::collectSizes);
+
+      tracker.begin();
+      new PhraseExtractor(phraseDfThreshold.get(), suffixSorting.get()).extractPhrases(context);
+      tracker.end("phraseExtractor", context, PreprocessingContext::collectSizes);
+
+      tracker.begin();
       labelFilters.process(context);
+      tracker.end("labelFilters", context, PreprocessingContext::collectSizes);
+
+      tracker.begin();
       documentAssigner.assign(context);
+      tracker.end("documentAssigner", context, PreprocessingContext::collectSizes);
       return context;
     }
   }
@@ -12,14 +12,19 @@ package org.carrot2.text.preprocessing;
 
 import com.carrotsearch.hppc.ByteArrayList;
 import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.ObjectIntHashMap;
 import com.carrotsearch.hppc.ShortArrayList;
-import com.carrotsearch.hppc.cursors.IntCursor;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.carrot2.clustering.Document;
+import org.carrot2.language.LanguageComponents;
 import org.carrot2.language.Tokenizer;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllFields;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllTokens;
@@ -38,24 +43,11 @@ import org.carrot2.util.StringUtils;
  *   <li>{@link AllTokens#fieldIndex}
  *   <li>{@link AllTokens#type}
  * </ul>
+ *
+ * <p>If a {@link TokenizationExecutor} is available from the context's language components, larger
+ * inputs are tokenized in parallel (see {@link TokenizationExecutor} for details).
  */
 final class InputTokenizer {
-  /** Token images. */
-  private ArrayList<char[]> images;
-
-  /** An array of token types. */
-  private ShortArrayList tokenTypes;
-
-  /** An array of document indexes. */
-  private IntArrayList documentIndices;
-
-  /**
-   * An array of field indexes.
-   *
-   * @see AllFields
-   */
-  private ByteArrayList fieldIndices;
-
   private static class FieldValue {
     String field;
     String value;
@@ -68,104 +60,304 @@ final class InputTokenizer {
 
   /** Performs tokenization and saves the results to the <code>context</code>. */
   public void tokenize(PreprocessingContext context, Stream<? extends Document> docStream) {
-    images = new ArrayList<>();
-    tokenTypes = new ShortArrayList();
-    documentIndices = new IntArrayList();
-    fieldIndices = new ByteArrayList();
+    final LanguageComponents languageComponents = context.languageComponents;
 
-    final Tokenizer ts = context.languageComponents.get(Tokenizer.class);
-    final MutableCharArray wrapper = new MutableCharArray(CharArrayUtils.EMPTY_ARRAY);
+    final ContextTokens tokens = new ContextTokens(context);
+    if (languageComponents.components().contains(TokenizationExecutor.class)) {
+      final TokenizationExecutor executor = languageComponents.get(TokenizationExecutor.class);
+      final List<? extends Document> documents = docStream.collect(Collectors.toList());
+      if (documents.size() > executor.chunkSize()) {
+        tokenizeParallel(tokens, documents, executor);
+      } else {
+        tokenizeSequential(tokens, documents.stream());
+      }
+    } else {
+      tokenizeSequential(tokens, docStream);
+    }
 
-    HashMap<String, Integer> fieldIndexes = new HashMap<>();
-    ArrayList<FieldValue> fields = new ArrayList<>();
+    tokens.addTerminator();
 
-    IntCursor docCount = new IntCursor();
-    docStream.forEachOrdered(
-        (doc) -> {
-          int documentIndex = docCount.value;
-          if (documentIndex > 0) {
-            addDocumentSeparator();
-          }
+    String[] fieldNames = new String[tokens.fieldIndexes.size()];
+    tokens.fieldIndexes.forEach((field, index) -> fieldNames[index] = field);
+
+    // Save results in the PreprocessingContext
+    context.documentCount = tokens.documentCount;
+    context.allTokens.documentIndex = tokens.documentIndices.toArray();
+    context.allTokens.fieldIndex = tokens.fieldIndices.toArray();
+    context.allTokens.image = tokens.images.toArray(new char[tokens.images.size()][]);
+    context.allTokens.type = tokens.tokenTypes.toArray();
+    context.allFields.name = fieldNames;
+  }
+
+  private static void tokenizeSequential(
+      ContextTokens tokens, Stream<? extends Document> docStream) {
+    final Tokenizer ts = tokens.context.languageComponents.get(Tokenizer.class);
+    docStream.forEachOrdered((doc) -> tokens.addDocument(ts, doc));
+  }
+
+  /**
+   * Tokenizes consecutive chunks of documents in parallel, each with its own {@link Tokenizer},
+   * then appends the chunks to <code>tokens</code> in document order. Token images and field
+   * indexes are re-interned and re-mapped while appending, so the result is identical to that of
+   * {@link #tokenizeSequential}.
+   */
+  private static void tokenizeParallel(
+      ContextTokens tokens, List<? extends Document> documents, TokenizationExecutor executor) {
+    final LanguageComponents languageComponents = tokens.context.languageComponents;
+    final int chunkSize = executor.chunkSize();
 
-          fields.clear();
-          doc.visitFields(
-              (fieldName, fieldValue) -> {
-                if (!StringUtils.isNullOrEmpty(fieldValue)) {
-                  fields.add(new FieldValue(fieldName, fieldValue));
+    final List<CompletableFuture<ChunkTokens>> futures = new ArrayList<>();
+    for (int from = 0; from < documents.size(); from += chunkSize) {
+      final List<? extends Document> chunk =
+          documents.subList(from, Math.min(documents.size(), from + chunkSize));
+      final int firstDocument = from;
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                final ChunkTokens chunkTokens = new ChunkTokens(firstDocument);
+                final Tokenizer ts = languageComponents.get(Tokenizer.class);
+                for (Document doc : chunk) {
+                  chunkTokens.addDocument(ts, doc);
                 }
-              });
-
-          boolean hadTokens = false;
-          for (FieldValue fv : fields) {
-            final int fieldIndex =
-                fieldIndexes.computeIfAbsent(fv.field, (k) -> fieldIndexes.size());
-            if (fieldIndex > Byte.MAX_VALUE) {
-              throw new RuntimeException("Too many fields (>" + fieldIndex + ")");
-            }
-            final String fieldValue = fv.value;
+                return chunkTokens;
+              },
+              executor.executor()));
+    }
+
+    final List<ChunkTokens> chunks = new ArrayList<>(futures.size());
+    int tokenCount = 1;
+    for (CompletableFuture<ChunkTokens> future : futures) {
+      final ChunkTokens chunk;
+      try {
+        chunk = future.join();
+      } catch (CompletionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw e;
+      }
+      chunks.add(chunk);
+      tokenCount += chunk.size();
+    }
+
+    tokens.ensureCapacity(tokenCount);
+    for (ChunkTokens chunk : chunks) {
+      tokens.append(chunk);
+    }
+  }
+
+  /** Token arrays (and field names) of all or a consecutive subset of input documents. */
+  private abstract static class TokenSequence {
+    /** An array of token types. */
+    final ShortArrayList tokenTypes = new ShortArrayList();
+
+    /** An array of document indexes. */
+    final IntArrayList documentIndices = new IntArrayList();
+
+    /**
+     * An array of field indexes.
+     *
+     * @see AllFields
+     */
+    final ByteArrayList fieldIndices = new ByteArrayList();
 
+    /** Field indexes, in the order of first appearance. */
+    final HashMap<String, Integer> fieldIndexes = new HashMap<>();
+
+    /** Index of the first document of this sequence. */
+    final int firstDocument;
+
+    final MutableCharArray wrapper = new MutableCharArray(CharArrayUtils.EMPTY_ARRAY);
+    private final ArrayList<FieldValue> fields = new ArrayList<>();
+
+    /** The number of documents in this sequence so far. */
+    int documentCount;
+
+    TokenSequence(int firstDocument) {
+      this.firstDocument = firstDocument;
+    }
+
+    void addDocument(Tokenizer ts, Document doc) {
+      int documentIndex = firstDocument + documentCount;
+      if (documentIndex > 0) {
+        addDocumentSeparator();
+      }
+
+      fields.clear();
+      doc.visitFields(
+          (fieldName, fieldValue) -> {
             if (!StringUtils.isNullOrEmpty(fieldValue)) {
-              try {
-                short tokenType;
-
-                ts.reset(new StringReader(fieldValue));
-                if ((tokenType = ts.nextToken()) != Tokenizer.TT_EOF) {
-                  if (hadTokens) addFieldSeparator(documentIndex);
-                  do {
-                    ts.setTermBuffer(wrapper);
-                    add(documentIndex, (byte) fieldIndex, context.intern(wrapper), tokenType);
-                  } while ((tokenType = ts.nextToken()) != Tokenizer.TT_EOF);
-                  hadTokens = true;
-                }
-              } catch (IOException e) {
-                throw new RuntimeException(e);
-              }
+              fields.add(new FieldValue(fieldName, fieldValue));
             }
+          });
+
+      boolean hadTokens = false;
+      for (FieldValue fv : fields) {
+        final int fieldIndex = fieldIndex(fv.field);
+        final String fieldValue = fv.value;
+
+        if (!StringUtils.isNullOrEmpty(fieldValue)) {
+          try {
+            short tokenType;
+
+            ts.reset(new StringReader(fieldValue));
+            if ((tokenType = ts.nextToken()) != Tokenizer.TT_EOF) {
+              if (hadTokens) addFieldSeparator(documentIndex);
+              do {
+                ts.setTermBuffer(wrapper);
+                add(documentIndex, (byte) fieldIndex, wrapper, tokenType);
+              } while ((tokenType = ts.nextToken()) != Tokenizer.TT_EOF);
+              hadTokens = true;
+            }
+          } catch (IOException e) {
+            throw new RuntimeException(e);
           }
+        }
+      }
 
-          docCount.value++;
-        });
+      documentCount++;
+    }
 
-    addTerminator();
+    int fieldIndex(String field) {
+      final int fieldIndex = fieldIndexes.computeIfAbsent(field, (k) -> fieldIndexes.size());
+      if (fieldIndex > Byte.MAX_VALUE) {
+        throw new RuntimeException("Too many fields (>" + fieldIndex + ")");
+      }
+      return fieldIndex;
+    }
 
-    String[] fieldNames = new String[fieldIndexes.size()];
-    fieldIndexes.forEach((field, index) -> fieldNames[index] = field);
+    /** Adds a special terminating token required at the very end of all documents. */
+    void addTerminator() {
+      add(-1, (byte) -1, null, Tokenizer.TF_TERMINATOR);
+    }
 
-    // Save results in the PreprocessingContext
-    context.documentCount = docCount.value;
-    context.allTokens.documentIndex = documentIndices.toArray();
-    context.allTokens.fieldIndex = fieldIndices.toArray();
-    context.allTokens.image = images.toArray(new char[images.size()][]);
-    context.allTokens.type = tokenTypes.toArray();
-    context.allFields.name = fieldNames;
+    /** Adds a document separator to the lists. */
+    void addDocumentSeparator() {
+      add(-1, (byte) -1, null, Tokenizer.TF_SEPARATOR_DOCUMENT);
+    }
 
-    // Clean up
-    images = null;
-    fieldIndices = null;
-    tokenTypes = null;
-    documentIndices = null;
-  }
+    /** Adds a field separator to the lists. */
+    void addFieldSeparator(int documentIndex) {
+      add(documentIndex, (byte) -1, null, Tokenizer.TF_SEPARATOR_FIELD);
+    }
 
-  /** Adds a special terminating token required at the very end of all documents. */
-  void addTerminator() {
-    add(-1, (byte) -1, null, Tokenizer.TF_TERMINATOR);
-  }
+    /** Adds custom token code to the sequence. May be used to add separator constants. */
+    void add(int documentIndex, byte fieldIndex, MutableCharArray image, short tokenTypeCode) {
+      documentIndices.add(documentIndex);
+      fieldIndices.add(fieldIndex);
+      addImage(image);
+      tokenTypes.add(tokenTypeCode);
+    }
+
+    /** Adds the image of a token, <code>null</code> for separators. */
+    abstract void addImage(MutableCharArray image);
 
-  /** Adds a document separator to the lists. */
-  void addDocumentSeparator() {
-    add(-1, (byte) -1, null, Tokenizer.TF_SEPARATOR_DOCUMENT);
+    int size() {
+      return tokenTypes.size();
+    }
   }
 
-  /** Adds a field separator to the lists. */
-  void addFieldSeparator(int documentIndex) {
-    add(documentIndex, (byte) -1, null, Tokenizer.TF_SEPARATOR_FIELD);
+  /** Tokens of all input documents, with images interned by the preprocessing context. */
+  private static final class ContextTokens extends TokenSequence {
+    final PreprocessingContext context;
+
+    /** Token images. */
+    final ArrayList<char[]> images = new ArrayList<>();
+
+    ContextTokens(PreprocessingContext context) {
+      super(0);
+      this.context = context;
+    }
+
+    @Override
+    void addImage(MutableCharArray image) {
+      images.add(image == null ? null : context.intern(image));
+    }
+
+    /**
+     * Appends tokens of the following consecutive documents, re-interning token images and
+     * re-mapping field indexes.
+     */
+    void append(ChunkTokens chunk) {
+      assert chunk.firstDocument == firstDocument + documentCount;
+
+      final String[] chunkFields = new String[chunk.fieldIndexes.size()];
+      chunk.fieldIndexes.forEach((field, index) -> chunkFields[index] = field);
+      final byte[] fieldMapping = new byte[chunkFields.length];
+      for (int i = 0; i < chunkFields.length; i++) {
+        fieldMapping[i] = (byte) fieldIndex(chunkFields[i]);
+      }
+
+      // Distinct images of the chunk are interned in the order of their first appearance,
+      // the same as they would be by sequential tokenization.
+      final char[][] imageMapping = new char[chunk.images.size()][];
+      for (int i = 0; i < imageMapping.length; i++) {
+        wrapper.reset(chunk.images.get(i));
+        imageMapping[i] = context.intern(wrapper);
+      }
+
+      final int[] chunkImageIds = chunk.imageIds.buffer;
+      final byte[] chunkFieldIndices = chunk.fieldIndices.buffer;
+      for (int i = 0, max = chunk.size(); i < max; i++) {
+        final int imageId = chunkImageIds[i];
+        final byte fieldIndex = chunkFieldIndices[i];
+        images.add(imageId < 0 ? null : imageMapping[imageId]);
+        fieldIndices.add(fieldIndex < 0 ? fieldIndex : fieldMapping[fieldIndex]);
+      }
+      documentIndices.addAll(chunk.documentIndices);
+      tokenTypes.addAll(chunk.tokenTypes);
+
+      documentCount += chunk.documentCount;
+    }
+
+    void ensureCapacity(int tokens) {
+      images.ensureCapacity(tokens);
+      tokenTypes.ensureCapacity(tokens);
+      documentIndices.ensureCapacity(tokens);
+      fieldIndices.ensureCapacity(tokens);
+    }
   }
 
-  /** Adds custom token code to the sequence. May be used to add separator constants. */
-  void add(int documentIndex, byte fieldIndex, char[] image, short tokenTypeCode) {
-    documentIndices.add(documentIndex);
-    fieldIndices.add(fieldIndex);
-    images.add(image);
-    tokenTypes.add(tokenTypeCode);
+  /**
+   * Tokens of a chunk of consecutive documents. Token images are stored as indexes of distinct
+   * images in the chunk.
+   */
+  private static final class ChunkTokens extends TokenSequence {
+    /** Distinct token images, in the order of first appearance. */
+    final ArrayList<char[]> images = new ArrayList<>();
+
+    /** Indexes of distinct images, <code>-1</code> for separators. */
+    final ObjectIntHashMap<MutableCharArray> imageIndexes = new ObjectIntHashMap<>();
+
+    /** Indexes of token images in {@link #images}. */
+    final IntArrayList imageIds = new IntArrayList();
+
+    ChunkTokens(int firstDocument) {
+      super(firstDocument);
+    }
+
+    @Override
+    void addImage(MutableCharArray image) {
+      if (image == null) {
+        imageIds.add(-1);
+        return;
+      }
+
+      final int index = imageIndexes.indexOf(image);
+      if (imageIndexes.indexExists(index)) {
+        imageIds.add(imageIndexes.indexGet(index));
+      } else {
+        final char[] tokenImage = new char[image.length()];
+        System.arraycopy(image.getBuffer(), image.getStart(), tokenImage, 0, image.length());
+        final int imageId = images.size();
+        images.add(tokenImage);
+        imageIndexes.indexInsert(index, new MutableCharArray(tokenImage), imageId);
+        imageIds.add(imageId);
+      }
+    }
   }
 }
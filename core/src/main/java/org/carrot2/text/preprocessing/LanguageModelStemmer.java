@@ -39,12 +39,19 @@ import org.carrot2.util.MutableCharArray;
  *   <li>{@link AllWords#type} is populated with {@link Tokenizer#TF_QUERY_WORD}
  * </ul>
  *
+ * <p>If a {@link StemCache} is available from the context's language components, stems of words are
+ * looked up in the cache first.
+ *
  * <p>This class requires that {@link InputTokenizer} and {@link CaseNormalizer} be invoked first.
  */
 final class LanguageModelStemmer {
   /** Performs stemming and saves the results to the <code>context</code>. */
   public void stem(PreprocessingContext context, String queryHint) {
     final Stemmer stemmer = context.languageComponents.get(Stemmer.class);
+    final StemCache stemCache =
+        context.languageComponents.components().contains(StemCache.class)
+            ? context.languageComponents.get(StemCache.class)
+            : null;
 
     final char[][] wordImages = context.allWords.image;
     final char[][] stemImages = new char[wordImages.length][];
@@ -59,9 +66,18 @@ final class LanguageModelStemmer {
       final boolean different = CharArrayUtils.toLowerCase(word, buffer);
 
       mutableCharArray.reset(buffer, 0, word.length);
-      final CharSequence stemmed = stemmer.stem(mutableCharArray);
-      if (stemmed != null) {
-        mutableCharArray.reset(stemmed);
+      final boolean stemmed;
+      if (stemCache != null) {
+        final char[] stem = stemCache.stem(mutableCharArray, stemmer);
+        stemmed = (stem != null);
+        if (stemmed) mutableCharArray.reset(stem);
+      } else {
+        final CharSequence stem = stemmer.stem(mutableCharArray);
+        stemmed = (stem != null);
+        if (stemmed) mutableCharArray.reset(stem);
+      }
+
+      if (stemmed) {
         stemImages[i] = context.intern(mutableCharArray);
       } else {
         // We need to put the original word here, otherwise, we wouldn't be able
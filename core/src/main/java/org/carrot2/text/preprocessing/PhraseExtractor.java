@@ -11,14 +11,15 @@
 package org.carrot2.text.preprocessing;
 
 import com.carrotsearch.hppc.IntArrayList;
-import com.carrotsearch.hppc.IntIntHashMap;
-import com.carrotsearch.hppc.cursors.IntIntCursor;
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.sorting.IndirectSort;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import org.carrot2.clustering.StageTracker;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllPhrases;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllTokens;
-import org.carrot2.util.IntMapUtils;
 
 /**
  * Extracts frequent phrases from the provided document. A frequent phrase is a sequence of words
@@ -47,22 +48,27 @@ public class PhraseExtractor {
   /** Internal maximum phrase length, we may want to make it an attribute at some point */
   static final int MAX_PHRASE_LENGTH = 8;
 
-  /**
-   * Suffix sorter to be used by this phrase extractor. When the suffix sorter gets some attributes,
-   * we'll need to make this field public.
-   */
-  private SuffixSorter suffixSorter = new SuffixSorter();
+  /** Suffix sorter to be used by this phrase extractor. */
+  private final SuffixSorter suffixSorter;
 
   private final int dfThreshold;
 
   PhraseExtractor(int dfThreshold) {
+    this(dfThreshold, SuffixSortingAlgorithm.MERGESORT);
+  }
+
+  PhraseExtractor(int dfThreshold, SuffixSortingAlgorithm suffixSortingAlgorithm) {
     this.dfThreshold = dfThreshold;
+    this.suffixSorter = new SuffixSorter(suffixSortingAlgorithm);
   }
 
   /** Performs phrase extraction and saves the results to the provided <code>context</code>. */
   public void extractPhrases(PreprocessingContext context) {
     // Perform suffix sorting first
+    final StageTracker tracker = StageTracker.of(context.languageComponents);
+    tracker.begin();
     suffixSorter.suffixSort(context);
+    tracker.end("suffixSorter", context.allTokens.suffixOrder, PhraseExtractor::suffixArraySizes);
 
     final int[] suffixArray = context.allTokens.suffixOrder;
     final int[] lcpArray = context.allTokens.lcp;
@@ -71,7 +77,7 @@ public class PhraseExtractor {
     final int[] stemIndexes = context.allWords.stemIndex;
 
     // Find all subphrases
-    List<Substring> rcs = discoverRcs(suffixArray, lcpArray, documentIndexArray);
+    final Substrings rcs = discoverRcs(suffixArray, lcpArray, documentIndexArray);
 
     List<int[]> phraseWordIndexes = new ArrayList<>();
     IntArrayList phraseTf = new IntArrayList();
@@ -79,52 +85,48 @@ public class PhraseExtractor {
 
     if (rcs.size() > 0) {
       // Determine most frequent originals and create the final phrase
-      // array. Also merge the phrase tf by document maps into flat
-      // arrays.
-      Collections.sort(rcs, new SubstringComparator(wordIndexesArray, stemIndexes));
-
-      int totalPhraseTf = rcs.get(0).frequency;
-      Substring mostFrequentOriginal = rcs.get(0);
-      IntIntHashMap phraseTfByDocument = new IntIntHashMap();
-      phraseTfByDocument.putAll(mostFrequentOriginal.tfByDocument);
-
-      // Don't change the rcs list type from ArrayList or we'll
-      // run into O(n^2) iteration cost :)
-      for (int i = 0; i < rcs.size() - 1; i++) {
-        final Substring substring = rcs.get(i);
-        final Substring nextSubstring = rcs.get(i + 1);
-
-        if (substring.isEquivalentTo(nextSubstring, wordIndexesArray, stemIndexes)) {
-          totalPhraseTf += nextSubstring.frequency;
-          addAllWithOffset(phraseTfByDocument, nextSubstring.tfByDocument, -1);
-          if (mostFrequentOriginal.frequency < nextSubstring.frequency) {
-            mostFrequentOriginal = nextSubstring;
+      // array. Also merge the phrase tf by document pairs into flat
+      // arrays. The sort is stable, so equivalent substrings remain
+      // in the order of discovery.
+      final SubstringComparator comparator = new SubstringComparator(wordIndexesArray, stemIndexes);
+      final int[] order =
+          IndirectSort.mergesort(
+              0,
+              rcs.size(),
+              (a, b) ->
+                  comparator.compare(
+                      rcs.from.get(a), rcs.to.get(a), rcs.from.get(b), rcs.to.get(b)));
+
+      final LongArrayList phraseTfByDocument = new LongArrayList();
+      for (int i = 0; i < order.length; ) {
+        int mostFrequentOriginal = order[i];
+        int totalPhraseTf = 0;
+        phraseTfByDocument.clear();
+
+        final int from = rcs.from.get(order[i]);
+        final int to = rcs.to.get(order[i]);
+        do {
+          final int substring = order[i];
+          totalPhraseTf += rcs.frequency.get(substring);
+          phraseTfByDocument.add(
+              rcs.tfByDocument.buffer,
+              rcs.tfByDocumentStart.get(substring),
+              rcs.tfByDocumentEnd(substring) - rcs.tfByDocumentStart.get(substring));
+          if (rcs.frequency.get(mostFrequentOriginal) < rcs.frequency.get(substring)) {
+            mostFrequentOriginal = substring;
           }
-        } else {
-          int[] wordIndexes = new int[(mostFrequentOriginal.to - mostFrequentOriginal.from)];
-          for (int j = 0; j < wordIndexes.length; j++) {
-            wordIndexes[j] = wordIndexesArray[mostFrequentOriginal.from + j];
-          }
-          phraseWordIndexes.add(wordIndexes);
-          phraseTf.add(totalPhraseTf);
-          phraseTfByDocumentList.add(IntMapUtils.flatten(phraseTfByDocument));
-
-          totalPhraseTf = nextSubstring.frequency;
-          mostFrequentOriginal = nextSubstring;
-          phraseTfByDocument.clear();
-          phraseTfByDocument.putAll(nextSubstring.tfByDocument);
-        }
-      }
-
-      // Add the last substring
-      final Substring substring = rcs.get(rcs.size() - 1);
-      int[] wordIndexes = new int[(substring.to - substring.from)];
-      for (int j = 0; j < wordIndexes.length; j++) {
-        wordIndexes[j] = wordIndexesArray[mostFrequentOriginal.from + j];
+          i++;
+        } while (i < order.length
+            && comparator.compare(from, to, rcs.from.get(order[i]), rcs.to.get(order[i])) == 0);
+
+        phraseWordIndexes.add(
+            Arrays.copyOfRange(
+                wordIndexesArray,
+                rcs.from.get(mostFrequentOriginal),
+                rcs.to.get(mostFrequentOriginal)));
+        phraseTf.add(totalPhraseTf);
+        phraseTfByDocumentList.add(flatten(phraseTfByDocument));
       }
-      phraseWordIndexes.add(wordIndexes);
-      phraseTf.add(totalPhraseTf);
-      phraseTfByDocumentList.add(IntMapUtils.flatten(phraseTfByDocument));
     }
 
     // Store the results to allPhrases
@@ -135,132 +137,219 @@ public class PhraseExtractor {
   }
 
   /** Discovers Right Complete Substrings in the given LCP Suffix Array. */
-  private List<Substring> discoverRcs(int[] suffixArray, int[] lcpArray, int[] documentIndexArray) {
-    Substring[] rcsStack;
-    int sp;
-
-    int i;
-    rcsStack = new Substring[lcpArray.length];
-    sp = -1;
+  private Substrings discoverRcs(int[] suffixArray, int[] lcpArray, int[] documentIndexArray) {
+    final SubstringStack stack = new SubstringStack();
+    final Substrings result = new Substrings();
 
-    i = 1;
-
-    final List<Substring> result = new ArrayList<>();
+    int i = 1;
     while (i < lcpArray.length - 1) {
       final int currentSuffixIndex = suffixArray[i];
       final int currentDocumentIndex = documentIndexArray[currentSuffixIndex];
+      final int previousDocumentIndex = documentIndexArray[suffixArray[i - 1]];
       final int currentLcp = Math.min(MAX_PHRASE_LENGTH, lcpArray[i]);
 
-      if (sp < 0) {
+      if (stack.isEmpty()) {
         if (currentLcp >= MIN_PHRASE_LENGTH) {
           // Push to the stack phrases of length 2..currentLcp. Only the
           // topmost phrase will get its frequencies incremented, the other
           // ones will "inherit" the counts when the topmost phrase is
           // popped off the stack.
-          final int length = currentLcp;
-          for (int j = length - 2; j >= 0; j--) {
-            sp++;
-
-            // Set initial tf = 2 for the topmost phrase. For the other phrases,
-            // set tf = 1. During popping of the topmost phrase, the phrase lying
-            // "below" on the stack, will get its tf increased by the tf of
-            // the phrase being popped, minus 1.
-            rcsStack[sp] =
-                new Substring(
-                    i, currentSuffixIndex, currentSuffixIndex + currentLcp - j, (j == 0 ? 2 : 1));
-
-            // By document tf. Again, topmost phrase gets tf = 2, the other
-            // ones get tf = 1. This time, we need to track from which document's
-            // tf we need to set off the "minus 1", hence the documentIndexToOffset field.
-            rcsStack[sp].tfByDocument = new IntIntHashMap();
-            rcsStack[sp].tfByDocument.put(documentIndexArray[suffixArray[i - 1]], 1);
-            if (j == 0) {
-              rcsStack[sp].tfByDocument.putOrAdd(currentDocumentIndex, 1, 1);
-            } else {
-              rcsStack[sp].documentIndexToOffset = documentIndexArray[suffixArray[i - 1]];
-            }
+          for (int j = currentLcp - 2; j >= 0; j--) {
+            stack.push(
+                currentSuffixIndex,
+                currentSuffixIndex + currentLcp - j,
+                previousDocumentIndex,
+                j == 0 ? currentDocumentIndex : -1);
           }
         }
 
         i++;
-      } else {
-        Substring r = rcsStack[sp];
-        if ((r.to - r.from) < currentLcp) {
-          Substring r1 = rcsStack[sp];
-
-          // The phrase we're about to add is an extension of the topmost
-          // phrase on the stack. The new phrase will contribute to the
-          // topmost phrase's tf, so we need to track the document index
-          // from which we'd set off the "minus 1".
-          r1.documentIndexToOffset = documentIndexArray[suffixArray[i - 1]];
-
-          // Add the intermediate phrases too (which makes
-          // the algorithm no longer linear btw)
-          int length = currentLcp - (r1.to - r1.from);
-          for (int j = length - 1; j >= 0; j--) {
-            if (currentLcp - j >= MIN_PHRASE_LENGTH) {
-              sp++;
-              rcsStack[sp] =
-                  new Substring(
-                      i, currentSuffixIndex, currentSuffixIndex + currentLcp - j, (j == 0 ? 2 : 1));
-
-              rcsStack[sp].tfByDocument = new IntIntHashMap();
-              rcsStack[sp].tfByDocument.put(documentIndexArray[suffixArray[i - 1]], 1);
-              if (j == 0) {
-                rcsStack[sp].tfByDocument.putOrAdd(currentDocumentIndex, 1, 1);
-              } else {
-                rcsStack[sp].documentIndexToOffset = documentIndexArray[suffixArray[i - 1]];
-              }
-            }
-          }
-
-          i++;
-        } else {
-          Substring r1 = rcsStack[sp];
-          if ((r1.to - r1.from) == currentLcp) {
-            // Increase the frequency of the generalized phrase
-            rcsStack[sp].frequency += 1;
-            rcsStack[sp].tfByDocument.putOrAdd(currentDocumentIndex, 1, 1);
-
-            i++;
-          } else {
-            Substring s;
-
-            // Pop generalized phrases off the stack
-            do {
-              if (rcsStack[sp].tfByDocument.size() >= dfThreshold) {
-                // Add the generalized phrase to the result
-                result.add(rcsStack[sp]);
-              }
-
-              s = rcsStack[sp];
-              sp--;
-
-              // As we update only the frequency of the stack's
-              // topmost substring we need to propagate the
-              // accumulated frequencies to the shorter
-              // substrings
-              if (sp >= 0) {
-                // The "minus 1" mentioned above.
-                rcsStack[sp].frequency += s.frequency - 1;
-                addAllWithOffset(
-                    rcsStack[sp].tfByDocument, s.tfByDocument, rcsStack[sp].documentIndexToOffset);
-              }
-            } while (sp >= 0 && (rcsStack[sp].to - rcsStack[sp].from) > currentLcp);
+      } else if (stack.topLength() < currentLcp) {
+        // The phrase we're about to add is an extension of the topmost
+        // phrase on the stack. Add the intermediate phrases too (which makes
+        // the algorithm no longer linear btw)
+        final int length = currentLcp - stack.topLength();
+        for (int j = length - 1; j >= 0; j--) {
+          if (currentLcp - j >= MIN_PHRASE_LENGTH) {
+            stack.push(
+                currentSuffixIndex,
+                currentSuffixIndex + currentLcp - j,
+                previousDocumentIndex,
+                j == 0 ? currentDocumentIndex : -1);
           }
         }
+
+        i++;
+      } else if (stack.topLength() == currentLcp) {
+        // Increase the frequency of the generalized phrase
+        stack.increment(currentDocumentIndex);
+
+        i++;
+      } else {
+        // Pop generalized phrases off the stack
+        do {
+          stack.pop(result, dfThreshold);
+        } while (!stack.isEmpty() && stack.topLength() > currentLcp);
       }
     }
 
     return result;
   }
 
-  private static void addAllWithOffset(
-      IntIntHashMap dest, IntIntHashMap src, int documentIndexToOffset) {
-    for (IntIntCursor c : src) {
-      final int key = c.key;
-      final int value = c.value + (key != documentIndexToOffset ? 0 : -1);
-      dest.putOrAdd(key, value, value);
+  /** Encodes a (document index, tf) pair, so that pairs sort by document index. */
+  private static long pair(int documentIndex, int tf) {
+    return ((long) documentIndex << 32) | tf;
+  }
+
+  /**
+   * Sorts (document index, tf) pairs in the provided range, sums the tf of pairs with the same
+   * document index and removes pairs with zero tf.
+   *
+   * @return Returns the end of the aggregated pairs.
+   */
+  private static int aggregate(long[] pairs, int from, int to) {
+    Arrays.sort(pairs, from, to);
+
+    int k = from;
+    for (int i = from; i < to; ) {
+      final int documentIndex = (int) (pairs[i] >>> 32);
+      int tf = 0;
+      do {
+        tf += (int) pairs[i++];
+      } while (i < to && (int) (pairs[i] >>> 32) == documentIndex);
+
+      if (tf > 0) {
+        pairs[k++] = pair(documentIndex, tf);
+      }
+    }
+    return k;
+  }
+
+  /** Aggregates (document index, tf) pairs into a flat array, sorted by document index. */
+  private static int[] flatten(LongArrayList pairs) {
+    final int size = aggregate(pairs.buffer, 0, pairs.size());
+    final int[] result = new int[size * 2];
+    for (int i = 0; i < size; i++) {
+      result[i * 2] = (int) (pairs.buffer[i] >>> 32);
+      result[i * 2 + 1] = (int) pairs.buffer[i];
     }
+    return result;
+  }
+
+  /**
+   * Right complete substrings, in parallel arrays. The (document index, tf) pairs of each substring
+   * are stored in a single buffer, starting at {@link #tfByDocumentStart}.
+   */
+  private static final class Substrings {
+    final IntArrayList from = new IntArrayList();
+    final IntArrayList to = new IntArrayList();
+    final IntArrayList frequency = new IntArrayList();
+    final IntArrayList tfByDocumentStart = new IntArrayList();
+    final LongArrayList tfByDocument = new LongArrayList();
+
+    int size() {
+      return from.size();
+    }
+
+    int tfByDocumentEnd(int substring) {
+      return substring + 1 < size() ? tfByDocumentStart.get(substring + 1) : tfByDocument.size();
+    }
+  }
+
+  /**
+   * The stack of substrings, in parallel arrays. Phrase lengths increase from the bottom to the top
+   * of the stack, so it holds at most {@link #MAX_PHRASE_LENGTH} substrings.
+   *
+   * <p>The (document index, tf) pairs of all substrings are stored in a single buffer, in the
+   * order of the stack. Pairs are added to the topmost substring only (at the end of the buffer)
+   * and may repeat document indexes until the substring is popped. A popped substring's pairs
+   * become part of the pairs of the substring below.
+   */
+  private static final class SubstringStack {
+    private final int[] from = new int[MAX_PHRASE_LENGTH];
+    private final int[] to = new int[MAX_PHRASE_LENGTH];
+    private final int[] frequency = new int[MAX_PHRASE_LENGTH];
+
+    /** The document of the suffix preceding the substring's first occurrence. */
+    private final int[] firstDocumentIndex = new int[MAX_PHRASE_LENGTH];
+
+    /** The start of each substring's pairs in {@link #tfByDocument}. */
+    private final int[] tfByDocumentStart = new int[MAX_PHRASE_LENGTH];
+
+    private final LongArrayList tfByDocument = new LongArrayList();
+    private int sp = -1;
+
+    boolean isEmpty() {
+      return sp < 0;
+    }
+
+    int topLength() {
+      return to[sp] - from[sp];
+    }
+
+    /**
+     * Pushes a substring occurring at the previous and the current suffix. Only the topmost phrase
+     * gets tf = 2 (<code>currentDocumentIndex</code> is non-negative), the other phrases get tf =
+     * 1. During popping of the topmost phrase, the phrase lying "below" on the stack will get its
+     * tf increased by the tf of the phrase being popped, minus 1.
+     */
+    void push(int from, int to, int previousDocumentIndex, int currentDocumentIndex) {
+      sp++;
+      this.from[sp] = from;
+      this.to[sp] = to;
+      this.frequency[sp] = currentDocumentIndex >= 0 ? 2 : 1;
+      this.firstDocumentIndex[sp] = previousDocumentIndex;
+      this.tfByDocumentStart[sp] = tfByDocument.size();
+
+      tfByDocument.add(pair(previousDocumentIndex, 1));
+      if (currentDocumentIndex >= 0) {
+        tfByDocument.add(pair(currentDocumentIndex, 1));
+      }
+    }
+
+    void increment(int currentDocumentIndex) {
+      frequency[sp]++;
+      tfByDocument.add(pair(currentDocumentIndex, 1));
+    }
+
+    /**
+     * Pops the topmost substring, adds it to the result if it occurs in enough documents and
+     * propagates its frequencies to the substring below.
+     */
+    void pop(Substrings result, int dfThreshold) {
+      final long[] pairs = tfByDocument.buffer;
+      final int start = tfByDocumentStart[sp];
+      final int end = aggregate(pairs, start, tfByDocument.size());
+      tfByDocument.elementsCount = end;
+
+      if (end - start >= dfThreshold) {
+        // Add the generalized phrase to the result
+        result.from.add(from[sp]);
+        result.to.add(to[sp]);
+        result.frequency.add(frequency[sp]);
+        result.tfByDocumentStart.add(result.tfByDocument.size());
+        result.tfByDocument.add(pairs, start, end - start);
+      }
+
+      sp--;
+
+      // As we update only the frequency of the stack's
+      // topmost substring we need to propagate the
+      // accumulated frequencies to the shorter
+      // substrings
+      if (sp >= 0) {
+        frequency[sp] += frequency[sp + 1] - 1;
+
+        // The "minus 1" mentioned above: the document of the suffix preceding the popped
+        // substring's first occurrence has already been counted in the substring below.
+        final int offset =
+            Arrays.binarySearch(pairs, start, end, pair(firstDocumentIndex[sp + 1], 0));
+        pairs[-offset - 1]--;
+      }
+    }
+  }
+
+  private static void suffixArraySizes(int[] suffixOrder, Map<String, Long> sizes) {
+    sizes.put("suffixes", (long) suffixOrder.length);
   }
 }
@@ -14,10 +14,12 @@ import com.carrotsearch.hppc.*;
 import java.io.Closeable;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.Map;
 import org.carrot2.language.LanguageComponents;
 import org.carrot2.language.Stemmer;
 import org.carrot2.language.TokenTypeUtils;
 import org.carrot2.language.Tokenizer;
+import org.carrot2.util.CompressedBitSet;
 import org.carrot2.util.MutableCharArray;
 import org.carrot2.util.TabularOutput;
 
@@ -562,7 +564,7 @@ public final class PreprocessingContext implements Closeable {
      *
      * <p>This array is produced by {@link DocumentAssigner}.
      */
-    public BitSet[] documentIndices;
+    public CompressedBitSet[] documentIndices;
 
     /**
      * The first index in {@link #featureIndex} which points to {@link AllPhrases}, or -1 if there
@@ -627,6 +629,29 @@ public final class PreprocessingContext implements Closeable {
     return allLabels.featureIndex != null && allLabels.featureIndex.length > 0;
   }
 
+  /**
+   * Adds the sizes of data structures available in this context (the number of documents, tokens,
+   * words, stems, phrases and labels) to <code>sizes</code>.
+   */
+  public void collectSizes(Map<String, Long> sizes) {
+    sizes.put("documents", (long) documentCount);
+    if (allTokens.image != null) {
+      sizes.put("tokens", (long) allTokens.image.length);
+    }
+    if (allWords.image != null) {
+      sizes.put("words", (long) allWords.image.length);
+    }
+    if (allStems.image != null) {
+      sizes.put("stems", (long) allStems.image.length);
+    }
+    if (allPhrases.wordIndices != null) {
+      sizes.put("phrases", (long) allPhrases.wordIndices.length);
+    }
+    if (allLabels.featureIndex != null) {
+      sizes.put("labels", (long) allLabels.featureIndex.length);
+    }
+  }
+
   /**
    * Applies label formatter to a given word or phrase (depending on the feature index provided).
    */
@@ -0,0 +1,246 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+import com.carrotsearch.hppc.BitMixer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import org.carrot2.language.LanguageComponents;
+import org.carrot2.language.Stemmer;
+import org.carrot2.util.MutableCharArray;
+
+/**
+ * A bounded cache of stems, shared by all requests for a single language. If an instance of this
+ * class is available from {@link LanguageComponents}, for example:
+ *
+ * <pre>{@code
+ * languageComponents.override(StemCache.class, () -> stemCache);
+ * }</pre>
+ *
+ * then the {@link Stemmer} is only invoked for (lower-case) words not found in the cache. An
+ * instance should be used with components of one language only and assumes the language's stemmer
+ * returns the same stem for the same word, regardless of the stemmer instance.
+ *
+ * <p>The cache is thread-safe. Entries are distributed among a number of independently locked
+ * segments, each of which evicts entries using the CLOCK (second chance) algorithm once it is full.
+ * Lookups of cached words do not allocate.
+ */
+public final class StemCache {
+  /** The default number of independently locked segments. */
+  public static final int DEFAULT_SEGMENTS = 16;
+
+  /** Marks words for which the stemmer returned <code>null</code>. */
+  private static final char[] NO_STEM = new char[0];
+
+  private final Segment[] segments;
+  private final int maxSize;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public StemCache(int maxSize) {
+    this(maxSize, DEFAULT_SEGMENTS);
+  }
+
+  public StemCache(int maxSize, int segments) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Stem cache size must be >= 1: " + maxSize);
+    }
+    if (segments < 1) {
+      throw new IllegalArgumentException("Number of segments must be >= 1: " + segments);
+    }
+
+    int segmentCount = Integer.highestOneBit(Math.min(segments, maxSize));
+    int segmentSize = (maxSize + segmentCount - 1) / segmentCount;
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      this.segments[i] = new Segment(segmentSize);
+    }
+    this.maxSize = segmentCount * segmentSize;
+  }
+
+  /**
+   * Returns the stem of a lower-case word, from the cache or computed by the provided stemmer.
+   *
+   * @return Returns the stem or <code>null</code> if the stemmer could not determine the base form
+   *     of the word. The returned array must not be modified.
+   */
+  public char[] stem(MutableCharArray word, Stemmer stemmer) {
+    final int hash = BitMixer.mix32(word.hashCode());
+    final Segment segment = segments[BitMixer.mix32(hash) & (segments.length - 1)];
+
+    char[] stem = segment.get(word.getBuffer(), word.getStart(), word.length(), hash);
+    if (stem != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+
+      // Stem outside of the segment's lock.
+      final CharSequence stemmed = stemmer.stem(word);
+      stem = (stemmed == null ? NO_STEM : toCharArray(stemmed));
+      final char[] key =
+          Arrays.copyOfRange(word.getBuffer(), word.getStart(), word.getStart() + word.length());
+      stem = segment.putIfAbsent(key, hash, stem, evictions);
+    }
+
+    return stem == NO_STEM ? null : stem;
+  }
+
+  /** @return Returns the number of cached words. */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /** @return Returns the maximum number of cached words. */
+  public int maxSize() {
+    return maxSize;
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  private static char[] toCharArray(CharSequence seq) {
+    final char[] chars = new char[seq.length()];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = seq.charAt(i);
+    }
+    return chars;
+  }
+
+  /**
+   * A fixed-capacity array of entries with an open-addressing (linear probing) index of entry slots
+   * by hash.
+   */
+  private static final class Segment {
+    private final char[][] keys;
+    private final char[][] values;
+    private final int[] hashes;
+    private final boolean[] referenced;
+
+    /** Entry slot + 1 or 0 for an empty position. */
+    private final int[] index;
+
+    private final int mask;
+    private int size;
+    private int clockHand;
+
+    Segment(int capacity) {
+      this.keys = new char[capacity][];
+      this.values = new char[capacity][];
+      this.hashes = new int[capacity];
+      this.referenced = new boolean[capacity];
+      this.index = new int[Integer.highestOneBit(capacity) << 2];
+      this.mask = index.length - 1;
+    }
+
+    synchronized char[] get(char[] buffer, int start, int length, int hash) {
+      final int slot = find(buffer, start, length, hash);
+      if (slot < 0) {
+        return null;
+      }
+      referenced[slot] = true;
+      return values[slot];
+    }
+
+    synchronized char[] putIfAbsent(char[] key, int hash, char[] value, LongAdder evictions) {
+      final int existing = find(key, 0, key.length, hash);
+      if (existing >= 0) {
+        return values[existing];
+      }
+
+      final int slot;
+      if (size < keys.length) {
+        slot = size++;
+      } else {
+        // Give referenced entries a second chance, evict the first one not referenced.
+        while (referenced[clockHand]) {
+          referenced[clockHand] = false;
+          clockHand = (clockHand + 1) % keys.length;
+        }
+        slot = clockHand;
+        clockHand = (clockHand + 1) % keys.length;
+        removeFromIndex(slot);
+        evictions.increment();
+      }
+
+      keys[slot] = key;
+      values[slot] = value;
+      hashes[slot] = hash;
+      referenced[slot] = false;
+
+      int i = hash & mask;
+      while (index[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      index[i] = slot + 1;
+      return value;
+    }
+
+    synchronized int size() {
+      return size;
+    }
+
+    private int find(char[] buffer, int start, int length, int hash) {
+      for (int i = hash & mask; ; i = (i + 1) & mask) {
+        final int slot = index[i] - 1;
+        if (slot < 0) {
+          return -1;
+        }
+        if (hashes[slot] == hash && equals(keys[slot], buffer, start, length)) {
+          return slot;
+        }
+      }
+    }
+
+    /** Removes a slot from the index, shifting back entries of the same probe sequence. */
+    private void removeFromIndex(int slot) {
+      int gap = hashes[slot] & mask;
+      while (index[gap] != slot + 1) {
+        gap = (gap + 1) & mask;
+      }
+
+      for (int i = (gap + 1) & mask; index[i] != 0; i = (i + 1) & mask) {
+        final int ideal = hashes[index[i] - 1] & mask;
+        if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+          index[gap] = index[i];
+          gap = i;
+        }
+      }
+      index[gap] = 0;
+    }
+
+    private static boolean equals(char[] key, char[] buffer, int start, int length) {
+      if (key.length != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (key[i] != buffer[start + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -10,17 +10,12 @@
  */
 package org.carrot2.text.preprocessing;
 
-import java.io.Serializable;
-import java.util.Comparator;
-
 /**
- * Compares {@link Substring}s in such a way as to put them into different buckets in an
- * inflection-insensitive way. The order of different variants of substrings within buckets is
- * arbitrary.
+ * Compares substrings (ranges of token positions) in such a way as to put them into different
+ * buckets in an inflection-insensitive way. The order of different variants of substrings within
+ * buckets is arbitrary.
  */
-class SubstringComparator implements Comparator<Substring>, Serializable {
-  private static final long serialVersionUID = 1L;
-
+class SubstringComparator {
   private final int[] tokensWordIndex;
   private final int[] wordsStemIndex;
 
@@ -30,12 +25,8 @@ class SubstringComparator implements Comparator<Substring>, Serializable {
     this.wordsStemIndex = wordsStemIndex;
   }
 
-  public int compare(Substring s1, Substring s2) {
-    final int s1From = s1.from;
-    final int s1To = s1.to;
-    final int s2From = s2.from;
-    final int s2To = s2.to;
-
+  /** Compares substrings given their start and end positions. */
+  public int compare(int s1From, int s1To, int s2From, int s2To) {
     final int s2Length = s2To - s2From;
     final int s1Length = s1To - s1From;
     if (s1Length != s2Length) {
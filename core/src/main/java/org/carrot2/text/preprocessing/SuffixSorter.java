@@ -12,11 +12,29 @@ package org.carrot2.text.preprocessing;
 
 import com.carrotsearch.hppc.sorting.IndirectComparator;
 import com.carrotsearch.hppc.sorting.IndirectSort;
+import java.util.Arrays;
 
 /**
- * A simple suffix sorting utility based on the generic sorting routines from {@link IndirectSort}.
+ * A suffix sorting utility. Suffixes are sorted either with the generic sorting routines from
+ * {@link IndirectSort} or with the linear-time SA-IS algorithm (see G. Nong, S. Zhang, W. H. Chan:
+ * Two Efficient Algorithms for Linear Time Suffix Array Construction. IEEE Transactions on
+ * Computers, 2011, vol. 60, pp. 1471—1484).
+ *
+ * <p>The static methods sort suffixes of arbitrary sequences of word codes in which negative
+ * values are unique separators, for example to build suffix arrays of phrases outside of the
+ * preprocessing pipeline.
  */
-final class SuffixSorter {
+public final class SuffixSorter {
+  private final SuffixSortingAlgorithm algorithm;
+
+  SuffixSorter() {
+    this(SuffixSortingAlgorithm.MERGESORT);
+  }
+
+  SuffixSorter(SuffixSortingAlgorithm algorithm) {
+    this.algorithm = algorithm;
+  }
+
   /** An int comparator that enables suffix sorting. */
   private static class SuffixComparator implements IndirectComparator {
     private int[] suffixData;
@@ -50,7 +68,7 @@ final class SuffixSorter {
      * Create a temporary array based on word indices with -1 values replaced with
      * unique negative values. This will ensure that the phrases discovered based on
      * the sorted/lcp array will not cross sentence/field boundaries. At some point we
-     * may want to make it an option. In this case, we'll need to review Substring and
+     * may want to make it an option. In this case, we'll need to review
      * SubstringComparator for possible array index out of bounds.
      */
     final int[] intCodes = new int[context.allTokens.wordIndex.length];
@@ -62,28 +80,244 @@ final class SuffixSorter {
       }
     }
 
-    // Create suffix order
-    int[] suffixOrder = IndirectSort.mergesort(0, intCodes.length, new SuffixComparator(intCodes));
+    final int[] suffixOrder = suffixOrder(intCodes, algorithm);
     context.allTokens.suffixOrder = suffixOrder;
 
     // Add LCPs
     context.allTokens.lcp = calculateLcp(intCodes, suffixOrder);
   }
 
-  /** Calculates the Longest Common Prefix values for each token. */
-  private int[] calculateLcp(int[] intCodes, int[] suffixOrder) {
+  /**
+   * Sorts suffixes of a sequence of codes. Non-negative codes are words, negative codes are
+   * separators which must be unique and the last code must be a separator. Suffixes are ordered by
+   * descending codes, so word suffixes come before separators.
+   *
+   * @return Returns the starting positions of suffixes, in the sorted order.
+   */
+  public static int[] suffixOrder(int[] intCodes, SuffixSortingAlgorithm algorithm) {
+    switch (algorithm) {
+      case SAIS:
+        return inducedSuffixOrder(intCodes);
+      case MERGESORT:
+        return IndirectSort.mergesort(0, intCodes.length, new SuffixComparator(intCodes));
+      default:
+        throw new RuntimeException("Unknown suffix sorting algorithm: " + algorithm);
+    }
+  }
+
+  /**
+   * Calculates the Longest Common Prefix values for each token in linear time (see T. Kasai, G.
+   * Lee, H. Arimura, S. Arikawa, K. Park: Linear-Time Longest-Common-Prefix Computation in Suffix
+   * Arrays and Its Applications. CPM 2001, pp. 181—192). The value at index <code>i</code> is the
+   * length of the common prefix of suffixes <code>i - 1</code> and <code>i</code> in the suffix
+   * order (0 for the first suffix).
+   */
+  public static int[] calculateLcp(int[] intCodes, int[] suffixOrder) {
+    final int n = intCodes.length;
+
     // LCP array
-    int[] lcpArray = new int[intCodes.length];
+    final int[] lcpArray = new int[n];
+
+    final int[] rank = new int[n];
+    for (int i = 0; i < n; i++) {
+      rank[suffixOrder[i]] = i;
+    }
+
+    /*
+     * Each suffix is shorter by one element than the previous one in text order, so its LCP with
+     * the preceding suffix in the suffix order is at least one less than the previous LCP.
+     * Separators are unique, so the comparison always stops before the end of the input.
+     */
+    int lcp = 0;
+    for (int i = 0; i < n; i++) {
+      final int r = rank[i];
+      if (r == 0) {
+        lcp = 0;
+        continue;
+      }
 
-    lcpArray[0] = 0;
-    for (int i = 1; i < lcpArray.length - 1; i++) {
-      int lcp = 0;
-      while (intCodes[suffixOrder[i - 1] + lcp] == intCodes[suffixOrder[i] + lcp]) {
+      final int j = suffixOrder[r - 1];
+      while (intCodes[i + lcp] == intCodes[j + lcp]) {
         lcp++;
       }
-      lcpArray[i] = lcp;
+      lcpArray[r] = lcp;
+
+      if (lcp > 0) {
+        lcp--;
+      }
     }
 
     return lcpArray;
   }
+
+  /**
+   * Computes the suffix order identical to that of {@link SuffixComparator} using SA-IS. The input
+   * is remapped to a dense alphabet in which smaller symbols correspond to suffixes ordered first:
+   * word codes in descending order, followed by the (unique) separator codes in descending order,
+   * followed by a virtual sentinel.
+   */
+  private static int[] inducedSuffixOrder(int[] intCodes) {
+    final int n = intCodes.length;
+
+    int maxCode = -1;
+    int minCode = 0;
+    for (int code : intCodes) {
+      maxCode = Math.max(maxCode, code);
+      minCode = Math.min(minCode, code);
+    }
+    final int words = maxCode + 1;
+
+    // Symbol 0 is reserved for the sentinel. Word code c maps to (words - c) and separator
+    // code -j maps to (words + j), both strictly positive.
+    final int[] text = new int[n + 1];
+    for (int i = 0; i < n; i++) {
+      text[i] = words - intCodes[i];
+    }
+    text[n] = 0;
+
+    final int alphabetSize = 1 + words - minCode;
+    final int[] sa = new int[n + 1];
+    sais(text, sa, n + 1, alphabetSize);
+
+    // Skip the sentinel, which is always the first suffix.
+    return Arrays.copyOfRange(sa, 1, n + 1);
+  }
+
+  /**
+   * Induced sorting suffix array construction. The last symbol of <code>s</code> must be a unique 0
+   * (the sentinel) and all symbols must be smaller than <code>k</code>.
+   */
+  private static void sais(int[] s, int[] sa, int n, int k) {
+    // Classify suffixes: true for S-type, false for L-type.
+    final boolean[] t = new boolean[n];
+    t[n - 1] = true;
+    for (int i = n - 2; i >= 0; i--) {
+      t[i] = s[i] < s[i + 1] || (s[i] == s[i + 1] && t[i + 1]);
+    }
+
+    // Sort LMS substrings: place LMS suffixes at their bucket ends and induce.
+    final int[] buckets = new int[k];
+    bucketEnds(s, buckets, n);
+    Arrays.fill(sa, 0, n, -1);
+    for (int i = 1; i < n; i++) {
+      if (isLms(t, i)) {
+        sa[--buckets[s[i]]] = i;
+      }
+    }
+    induceL(s, sa, t, buckets, n);
+    induceS(s, sa, t, buckets, n);
+
+    // Compact sorted LMS substrings into the first n1 slots.
+    int n1 = 0;
+    for (int i = 0; i < n; i++) {
+      if (isLms(t, sa[i])) {
+        sa[n1++] = sa[i];
+      }
+    }
+
+    // Name LMS substrings; equal substrings get equal names.
+    Arrays.fill(sa, n1, n, -1);
+    int name = 0;
+    int prev = -1;
+    for (int i = 0; i < n1; i++) {
+      final int pos = sa[i];
+      boolean diff = false;
+      for (int d = 0; d < n; d++) {
+        if (prev == -1 || s[pos + d] != s[prev + d] || t[pos + d] != t[prev + d]) {
+          diff = true;
+          break;
+        } else if (d > 0 && (isLms(t, pos + d) || isLms(t, prev + d))) {
+          break;
+        }
+      }
+      if (diff) {
+        name++;
+        prev = pos;
+      }
+      // LMS positions are at least two symbols apart.
+      sa[n1 + pos / 2] = name - 1;
+    }
+    for (int i = n - 1, j = n - 1; i >= n1; i--) {
+      if (sa[i] >= 0) {
+        sa[j--] = sa[i];
+      }
+    }
+
+    // Sort the reduced problem, recursively if names are not unique.
+    final int[] s1 = Arrays.copyOfRange(sa, n - n1, n);
+    final int[] sa1 = new int[n1];
+    if (name < n1) {
+      sais(s1, sa1, n1, name);
+    } else {
+      for (int i = 0; i < n1; i++) {
+        sa1[s1[i]] = i;
+      }
+    }
+
+    // Induce the final order from sorted LMS suffixes.
+    for (int i = 1, j = 0; i < n; i++) {
+      if (isLms(t, i)) {
+        s1[j++] = i;
+      }
+    }
+    for (int i = 0; i < n1; i++) {
+      sa1[i] = s1[sa1[i]];
+    }
+    bucketEnds(s, buckets, n);
+    Arrays.fill(sa, 0, n, -1);
+    for (int i = n1 - 1; i >= 0; i--) {
+      final int j = sa1[i];
+      sa[--buckets[s[j]]] = j;
+    }
+    induceL(s, sa, t, buckets, n);
+    induceS(s, sa, t, buckets, n);
+  }
+
+  private static boolean isLms(boolean[] t, int i) {
+    return i > 0 && t[i] && !t[i - 1];
+  }
+
+  private static void induceL(int[] s, int[] sa, boolean[] t, int[] buckets, int n) {
+    bucketStarts(s, buckets, n);
+    for (int i = 0; i < n; i++) {
+      final int j = sa[i] - 1;
+      if (j >= 0 && !t[j]) {
+        sa[buckets[s[j]]++] = j;
+      }
+    }
+  }
+
+  private static void induceS(int[] s, int[] sa, boolean[] t, int[] buckets, int n) {
+    bucketEnds(s, buckets, n);
+    for (int i = n - 1; i >= 0; i--) {
+      final int j = sa[i] - 1;
+      if (j >= 0 && t[j]) {
+        sa[--buckets[s[j]]] = j;
+      }
+    }
+  }
+
+  private static void bucketStarts(int[] s, int[] buckets, int n) {
+    countSymbols(s, buckets, n);
+    for (int i = 0, sum = 0; i < buckets.length; i++) {
+      final int count = buckets[i];
+      buckets[i] = sum;
+      sum += count;
+    }
+  }
+
+  private static void bucketEnds(int[] s, int[] buckets, int n) {
+    countSymbols(s, buckets, n);
+    for (int i = 0, sum = 0; i < buckets.length; i++) {
+      sum += buckets[i];
+      buckets[i] = sum;
+    }
+  }
+
+  private static void countSymbols(int[] s, int[] buckets, int n) {
+    Arrays.fill(buckets, 0);
+    for (int i = 0; i < n; i++) {
+      buckets[s[i]]++;
+    }
+  }
 }
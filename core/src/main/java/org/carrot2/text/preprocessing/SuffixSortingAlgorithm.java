@@ -0,0 +1,20 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+/** Suffix array construction algorithm used by the {@link PhraseExtractor}. */
+public enum SuffixSortingAlgorithm {
+  /** Comparison-based merge sort of suffixes, slow for highly repetitive input. */
+  MERGESORT,
+
+  /** Linear-time suffix array construction by induced sorting (SA-IS). */
+  SAIS;
+}
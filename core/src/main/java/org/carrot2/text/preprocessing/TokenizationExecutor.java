@@ -0,0 +1,62 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import org.carrot2.language.LanguageComponents;
+
+/**
+ * Enables parallel tokenization of input documents. If an instance of this class is available from
+ * {@link LanguageComponents}, for example:
+ *
+ * <pre>{@code
+ * languageComponents.override(TokenizationExecutor.class, () -> tokenizationExecutor);
+ * }</pre>
+ *
+ * then documents are split into chunks of {@link #chunkSize()} documents and each chunk is
+ * tokenized by a separate task submitted to {@link #executor()}, with its own {@link
+ * org.carrot2.language.Tokenizer} instance. The results are merged in document order, so they are
+ * identical to those of sequential tokenization. Inputs with no more than one chunk of documents
+ * are tokenized sequentially, on the calling thread.
+ */
+public final class TokenizationExecutor {
+  /**
+   * The default number of documents in a single chunk. Each chunk has its own dictionary of token
+   * images, so small chunks increase the cost of merging.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 2000;
+
+  private final Executor executor;
+  private final int chunkSize;
+
+  public TokenizationExecutor(Executor executor) {
+    this(executor, DEFAULT_CHUNK_SIZE);
+  }
+
+  public TokenizationExecutor(Executor executor, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be >= 1: " + chunkSize);
+    }
+    this.executor = Objects.requireNonNull(executor);
+    this.chunkSize = chunkSize;
+  }
+
+  /** @return Returns the executor running tokenization tasks. */
+  public Executor executor() {
+    return executor;
+  }
+
+  /** @return Returns the number of documents tokenized by a single task. */
+  public int chunkSize() {
+    return chunkSize;
+  }
+}
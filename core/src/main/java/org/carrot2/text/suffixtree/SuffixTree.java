@@ -11,18 +11,42 @@
 package org.carrot2.text.suffixtree;
 
 import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntScatterMap;
 import com.carrotsearch.hppc.LongIntScatterMap;
 import com.carrotsearch.hppc.cursors.LongIntCursor;
+import java.util.Arrays;
 
 /**
  * Builds a suffix tree (or generalized suffix tree) on a sequence of any integers (or objects that
  * can be represented as unique integers). A direct implementation of Esko Ukkonen's algorithm, but
  * optimized for Java to use primitive data types instead of objects (or boxed types).
  *
+ * <p>Transitions are looked up either in a hash map or in lists of sibling edges, see {@link
+ * TransitionStorage}.
+ *
  * @see "E. Ukkonen, On-line construction of suffix trees, Algorithmica, 1995, volume 14, number 3,
  *     pages 249-260."
  */
 public final class SuffixTree {
+  /** Storage of transitions used for finding edges by their first symbol. */
+  public enum TransitionStorage {
+    /** A hash map keyed by state and symbol, edges are linked into lists after construction. */
+    HASH_MAP,
+
+    /**
+     * Lists of sibling edges maintained during construction, scanned linearly, and a table of the
+     * root's edges indexed by symbol. No hash map is allocated, which takes considerably less
+     * memory, and most states have few edges.
+     */
+    SIBLING_LISTS;
+  }
+
+  /**
+   * The maximum range of symbols (relative to the input size) for which the root's edges are
+   * indexed in an array in {@link TransitionStorage#SIBLING_LISTS} mode.
+   */
+  private static final int MAX_ROOT_TABLE_RANGE = 2;
+
   /** A constant to represent invalid suffix link from a state. */
   private static final int NO_SUFFIX_LINK = Integer.MIN_VALUE;
 
@@ -56,7 +80,24 @@ public final class SuffixTree {
    * combination of state (upper 32 bits) and symbol (lower 32 bits). The value is an index in the
    * transitions array.
    */
-  private final LongIntScatterMap transitions_map = new LongIntScatterMap();
+  private final LongIntScatterMap transitions_map;
+
+  /**
+   * First edges of states, linked with the next edge pointers in {@link #transitions}, if
+   * transitions are stored in sibling lists. Becomes {@link #states} after the tree is built.
+   */
+  private final IntArrayList firstEdges;
+
+  /**
+   * The root's edges indexed by symbol (minus {@link #rootTableOffset}), if transitions are stored
+   * in sibling lists and the range of symbols is small enough. Otherwise the root's edges are kept
+   * in {@link #rootEdgesMap}.
+   */
+  private final int[] rootEdgesTable;
+
+  private final int rootTableOffset;
+
+  private final IntIntScatterMap rootEdgesMap;
 
   /**
    * An array of all transitions.
@@ -144,9 +185,47 @@ public final class SuffixTree {
       Sequence sequence,
       IStateCallback newStateCallback,
       final IProgressCallback progressCallback) {
+    this(sequence, newStateCallback, progressCallback, TransitionStorage.HASH_MAP);
+  }
+
+  /** Build a suffix tree for a given input sequence of symbols. */
+  public SuffixTree(
+      Sequence sequence,
+      IStateCallback newStateCallback,
+      final IProgressCallback progressCallback,
+      TransitionStorage transitionStorage) {
     this.sequence = sequence;
     this.newStateCallback = newStateCallback;
 
+    if (transitionStorage == TransitionStorage.HASH_MAP) {
+      this.transitions_map = new LongIntScatterMap();
+      this.firstEdges = null;
+      this.rootEdgesTable = null;
+      this.rootTableOffset = 0;
+      this.rootEdgesMap = null;
+    } else {
+      this.transitions_map = null;
+      this.firstEdges = new IntArrayList();
+
+      int min = Integer.MAX_VALUE;
+      int max = Integer.MIN_VALUE;
+      for (int i = 0; i < sequence.size(); i++) {
+        min = Math.min(min, sequence.objectAt(i));
+        max = Math.max(max, sequence.objectAt(i));
+      }
+      final long range = (long) max - min + 1;
+      if (range <= Math.max(1024L, (long) MAX_ROOT_TABLE_RANGE * sequence.size())) {
+        this.rootEdgesTable = new int[(int) Math.max(0, range)];
+        Arrays.fill(rootEdgesTable, NO_EDGE);
+        this.rootTableOffset = min;
+        this.rootEdgesMap = null;
+      } else {
+        this.rootEdgesTable = null;
+        this.rootTableOffset = 0;
+        this.rootEdgesMap = new IntIntScatterMap();
+      }
+    }
+
     // Prepare initial conditions.
     head = createState();
     root = createState();
@@ -166,6 +245,12 @@ public final class SuffixTree {
       canonize(s, k, i);
     }
 
+    if (firstEdges != null) {
+      // Edges are already linked, suffix links are no longer needed.
+      states = firstEdges;
+      return;
+    }
+
     // Connect edges from a single state to speed up iterators.
     for (int i = states.size() - 1; i >= 0; i--) states.set(i, LEAF_STATE);
 
@@ -268,6 +353,9 @@ public final class SuffixTree {
   private final int createState() {
     final int state = states.size();
     states.add(NO_SUFFIX_LINK);
+    if (firstEdges != null) {
+      firstEdges.add(NO_EDGE);
+    }
     return state;
   }
 
@@ -279,7 +367,20 @@ public final class SuffixTree {
     assert k > 0 && p > 0;
 
     final int transition = addTransition(ts, k, p);
-    transitions_map.put(asLong(s, sequence.objectAt(k - 1)), transition);
+    final int symbol = sequence.objectAt(k - 1);
+    if (transitions_map != null) {
+      transitions_map.put(asLong(s, symbol), transition);
+    } else {
+      transitions.set(transition + 3, firstEdges.get(s));
+      firstEdges.set(s, transition);
+      if (s == root) {
+        if (rootEdgesTable != null) {
+          rootEdgesTable[symbol - rootTableOffset] = transition;
+        } else {
+          rootEdgesMap.put(symbol, transition);
+        }
+      }
+    }
   }
 
   /**
@@ -293,7 +394,10 @@ public final class SuffixTree {
     transitions.set(transition, ts);
     transitions.set(transition + 1, k);
     transitions.set(transition + 2, p);
-    transitions_map.put(asLong(s, sequence.objectAt(k - 1)), transition);
+    if (transitions_map != null) {
+      transitions_map.put(asLong(s, sequence.objectAt(k - 1)), transition);
+    }
+    // Sibling lists: the transition keeps its first symbol and its place in the list.
   }
 
   /**
@@ -323,7 +427,12 @@ public final class SuffixTree {
    */
   private int removeTransition(int s, int k) {
     assert s != head;
-    return transitions_map.remove(asLong(s, sequence.objectAt(k - 1)));
+    if (transitions_map != null) {
+      return transitions_map.remove(asLong(s, sequence.objectAt(k - 1)));
+    } else {
+      // The slot is reused for a transition with the same first symbol, keep it linked.
+      return findEdge(s, sequence.objectAt(k - 1));
+    }
   }
 
   /** Make a <code>long</code> from two integers. */
@@ -428,7 +537,27 @@ public final class SuffixTree {
    * is returned if there is no such edge.
    */
   public final int findEdge(int state, int symbol) {
-    return transitions_map.getOrDefault(asLong(state, symbol), NO_EDGE);
+    if (transitions_map != null) {
+      return transitions_map.getOrDefault(asLong(state, symbol), NO_EDGE);
+    }
+
+    if (state == root) {
+      if (rootEdgesTable != null) {
+        final long index = (long) symbol - rootTableOffset;
+        return index >= 0 && index < rootEdgesTable.length
+            ? rootEdgesTable[(int) index]
+            : NO_EDGE;
+      } else {
+        return rootEdgesMap.getOrDefault(symbol, NO_EDGE);
+      }
+    }
+
+    for (int edge = firstEdges.get(state); edge != NO_EDGE; edge = transitions.get(edge + 3)) {
+      if (sequence.objectAt(transitions.get(edge + 1) - 1) == symbol) {
+        return edge;
+      }
+    }
+    return NO_EDGE;
   }
 
   /** Returns the target state for a given edge. */
@@ -27,6 +27,9 @@ public final class SuffixTreeBuilder {
   /* */
   private SuffixTree.IProgressCallback progressCallback;
 
+  /* */
+  private SuffixTree.TransitionStorage transitionStorage = SuffixTree.TransitionStorage.HASH_MAP;
+
   /** @see #from(Sequence) */
   private SuffixTreeBuilder(Sequence sequence) {
     this.sequence = sequence;
@@ -42,7 +45,7 @@ public final class SuffixTreeBuilder {
    *     long time, depending on the length of the input sequence.
    */
   public SuffixTree build() {
-    return new SuffixTree(sequence, newStateCallback, progressCallback);
+    return new SuffixTree(sequence, newStateCallback, progressCallback, transitionStorage);
   }
 
   public SuffixTreeBuilder withProgressCallback(SuffixTree.IProgressCallback callback) {
@@ -54,4 +57,12 @@ public final class SuffixTreeBuilder {
     this.newStateCallback = callback;
     return this;
   }
+
+  /**
+   * Selects the storage of transitions, {@link SuffixTree.TransitionStorage#HASH_MAP} by default.
+   */
+  public SuffixTreeBuilder withTransitionStorage(SuffixTree.TransitionStorage transitionStorage) {
+    this.transitionStorage = transitionStorage;
+    return this;
+  }
 }
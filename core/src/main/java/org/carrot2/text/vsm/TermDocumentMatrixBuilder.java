@@ -11,20 +11,25 @@
 package org.carrot2.text.vsm;
 
 import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntIntHashMap;
 import com.carrotsearch.hppc.sorting.IndirectComparator;
 import com.carrotsearch.hppc.sorting.IndirectSort;
 import java.util.Arrays;
 import java.util.function.IntToDoubleFunction;
+import org.carrot2.attrs.AttrBoolean;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.attrs.AttrDouble;
+import org.carrot2.attrs.AttrEnum;
 import org.carrot2.attrs.AttrInteger;
 import org.carrot2.attrs.AttrObject;
 import org.carrot2.attrs.AttrStringArray;
 import org.carrot2.language.TokenTypeUtils;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedSparseDoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
-import org.carrot2.math.mahout.matrix.impl.SparseDoubleMatrix2D;
+import org.carrot2.math.matrix.MatrixPrecision;
 import org.carrot2.math.matrix.MatrixUtils;
 import org.carrot2.text.preprocessing.PreprocessingContext;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllFields;
@@ -54,7 +59,8 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
 
   /**
    * Maximum term-document matrix size. Determines the maximum number of the term-document matrix
-   * elements. The larger the size, the more accurate, time- and memory-consuming clustering.
+   * elements. The larger the size, the more accurate, time- and memory-consuming clustering. If
+   * {@link #sparseMatrix} is enabled, this is the maximum number of non-zero elements.
    */
   public final AttrInteger maximumMatrixSize =
       attributes.register(
@@ -64,6 +70,32 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
               .min(50 * 100)
               .defaultValue(250 * 150));
 
+  /**
+   * Use sparse term-document matrix storage. If enabled, the term-document matrix stores non-zero
+   * elements only and {@link #maximumMatrixSize} limits the number of non-zero elements rather than
+   * the number of all elements of the matrix. This allows many more terms to be included for large
+   * document collections. Note that some matrix factorizations (such as singular value
+   * decomposition) still need a dense copy of the matrix.
+   */
+  public final AttrBoolean sparseMatrix =
+      attributes.register(
+          "sparseMatrix",
+          AttrBoolean.builder().label("Sparse term-document matrix").defaultValue(false));
+
+  /**
+   * Precision of the elements of the dense term-document matrix. Single precision (<code>FLOAT
+   * </code>) halves the memory taken by the matrix and by the matrices derived from it, such as the
+   * factors computed by {@link TermDocumentMatrixReducer}. Clustering time stays about the same.
+   * The quality of clusters is not affected in a noticeable way. Sparse term-document matrices (see
+   * {@link #sparseMatrix}) always use double precision.
+   */
+  public final AttrEnum<MatrixPrecision> matrixPrecision =
+      attributes.register(
+          "matrixPrecision",
+          AttrEnum.builder(MatrixPrecision.class)
+              .label("Term-document matrix precision")
+              .defaultValue(MatrixPrecision.DOUBLE));
+
   /**
    * Maximum word document frequency. The maximum document frequency allowed for words as a fraction
    * of all documents. Words with document frequency larger than {@link #maxWordDf} will be ignored.
@@ -113,7 +145,7 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
     final byte[] stemsFieldIndices = preprocessingContext.allStems.fieldIndices;
 
     if (documentCount == 0) {
-      vsmContext.termDocumentMatrix = new DenseDoubleMatrix2D(0, 0);
+      vsmContext.termDocumentMatrix = matrixPrecision.get().newDenseMatrix(0, 0);
       vsmContext.stemToRowIndex = new IntIntHashMap();
       return;
     }
@@ -159,24 +191,33 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
         IndirectSort.mergesort(
             0, stemsWeight.length, new IndirectComparator.DescendingDoubleComparator(stemsWeight));
 
-    // Calculate the number of terms we can include to fulfill the max matrix size
-    final int maxRows = maximumMatrixSize.get() / documentCount;
-    final DoubleMatrix2D tdMatrix =
-        new DenseDoubleMatrix2D(Math.min(maxRows, stemsToInclude.length), documentCount);
-
-    for (int i = 0; i < stemWeightOrder.length && i < maxRows; i++) {
-      final int stemIndex = stemsToInclude[stemWeightOrder[i]];
-      final int[] tfByDocument = stemsTfByDocument[stemIndex];
-      final int df = tfByDocument.length / 2;
-      final byte fieldIndices = stemsFieldIndices[stemIndex];
-
-      double fieldWeight = fieldIndexToBoost.applyAsDouble(fieldIndices);
-      for (int j = 0; j < df; j++) {
-        double weight =
-            termWeighting.calculateTermWeight(tfByDocument[j * 2 + 1], df, documentCount);
+    final DoubleMatrix2D tdMatrix;
+    if (sparseMatrix.get()) {
+      tdMatrix =
+          buildSparseMatrix(
+              preprocessingContext, stemsToInclude, stemWeightOrder, fieldIndexToBoost);
+    } else {
+      // Calculate the number of terms we can include to fulfill the max matrix size
+      final int maxRows = maximumMatrixSize.get() / documentCount;
+      tdMatrix =
+          matrixPrecision
+              .get()
+              .newDenseMatrix(Math.min(maxRows, stemsToInclude.length), documentCount);
+
+      for (int i = 0; i < stemWeightOrder.length && i < maxRows; i++) {
+        final int stemIndex = stemsToInclude[stemWeightOrder[i]];
+        final int[] tfByDocument = stemsTfByDocument[stemIndex];
+        final int df = tfByDocument.length / 2;
+        final byte fieldIndices = stemsFieldIndices[stemIndex];
+
+        double fieldWeight = fieldIndexToBoost.applyAsDouble(fieldIndices);
+        for (int j = 0; j < df; j++) {
+          double weight =
+              termWeighting.calculateTermWeight(tfByDocument[j * 2 + 1], df, documentCount);
 
-        weight *= fieldWeight;
-        tdMatrix.set(i, tfByDocument[j * 2], weight);
+          weight *= fieldWeight;
+          tdMatrix.set(i, tfByDocument[j * 2], weight);
+        }
       }
     }
 
@@ -191,6 +232,67 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
     vsmContext.stemToRowIndex = stemToRowIndex;
   }
 
+  /**
+   * Builds a term-document matrix in the compressed sparse row format. Stems are included in the
+   * order of their weights for as long as the total number of non-zero elements does not exceed
+   * {@link #maximumMatrixSize}.
+   */
+  private DoubleMatrix2D buildSparseMatrix(
+      PreprocessingContext preprocessingContext,
+      int[] stemsToInclude,
+      int[] stemWeightOrder,
+      IntToDoubleFunction fieldIndexToBoost) {
+    final int documentCount = preprocessingContext.documentCount;
+    final int[][] stemsTfByDocument = preprocessingContext.allStems.tfByDocument;
+    final byte[] stemsFieldIndices = preprocessingContext.allStems.fieldIndices;
+    final int maxNonZero = maximumMatrixSize.get();
+
+    int rows = 0;
+    int nonZero = 0;
+    while (rows < stemWeightOrder.length) {
+      final int df = stemsTfByDocument[stemsToInclude[stemWeightOrder[rows]]].length / 2;
+      if (nonZero + df > maxNonZero) {
+        break;
+      }
+      nonZero += df;
+      rows++;
+    }
+
+    final int[] rowPointers = new int[rows + 1];
+    final int[] columnIndexes = new int[nonZero];
+    final double[] values = new double[nonZero];
+    final long[] entries = new long[documentCount];
+
+    int offset = 0;
+    for (int i = 0; i < rows; i++) {
+      final int stemIndex = stemsToInclude[stemWeightOrder[i]];
+      final int[] tfByDocument = stemsTfByDocument[stemIndex];
+      final int df = tfByDocument.length / 2;
+      final double fieldWeight = fieldIndexToBoost.applyAsDouble(stemsFieldIndices[stemIndex]);
+
+      // Documents of each stem must be stored in order, pack them with their tf and sort.
+      for (int j = 0; j < df; j++) {
+        entries[j] = ((long) tfByDocument[j * 2] << 32) | tfByDocument[j * 2 + 1];
+      }
+      Arrays.sort(entries, 0, df);
+
+      for (int j = 0; j < df; j++) {
+        final int tf = (int) entries[j];
+        double weight = termWeighting.calculateTermWeight(tf, df, documentCount);
+        weight *= fieldWeight;
+        if (weight != 0) {
+          columnIndexes[offset] = (int) (entries[j] >>> 32);
+          values[offset] = weight;
+          offset++;
+        }
+      }
+      rowPointers[i + 1] = offset;
+    }
+
+    return CompressedSparseDoubleMatrix2D.ofRows(
+        rows, documentCount, rowPointers, columnIndexes, values);
+  }
+
   /**
    * Builds a term-phrase matrix in the same space as the main term-document matrix. If the
    * processing context contains no phrases, {@link VectorSpaceModelContext#termPhraseMatrix} will
@@ -280,7 +382,8 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
 
   /**
    * Builds a sparse term-document-like matrix for the provided matrixWordIndices in the same term
-   * space as the original term-document matrix.
+   * space as the original term-document matrix. The matrix is stored by columns, so its transpose
+   * can be efficiently multiplied by other matrices.
    */
   static DoubleMatrix2D buildAlignedMatrix(
       VectorSpaceModelContext vsmContext, int[] featureIndex, TermWeighting termWeighting) {
@@ -289,9 +392,6 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
       return new DenseDoubleMatrix2D(stemToRowIndex.size(), 0);
     }
 
-    final DoubleMatrix2D phraseMatrix =
-        new SparseDoubleMatrix2D(stemToRowIndex.size(), featureIndex.length);
-
     final PreprocessingContext preprocessingContext = vsmContext.preprocessingContext;
     final int[] wordsStemIndex = preprocessingContext.allWords.stemIndex;
     final int[] stemsTf = preprocessingContext.allStems.tf;
@@ -300,6 +400,9 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
     final int documentCount = preprocessingContext.documentCount;
     final int wordCount = wordsStemIndex.length;
 
+    final int[] columnPointers = new int[featureIndex.length + 1];
+    final IntArrayList rowIndexes = new IntArrayList();
+    final DoubleArrayList values = new DoubleArrayList();
     for (int i = 0; i < featureIndex.length; i++) {
       final int feature = featureIndex[i];
       final int[] wordIndices;
@@ -319,11 +422,27 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
               termWeighting.calculateTermWeight(
                   stemsTf[stemIndex], stemsTfByDocument[stemIndex].length / 2, documentCount);
 
-          phraseMatrix.setQuick(rowIndex, i, weight);
+          if (weight != 0) {
+            // Keep row indexes sorted, a repeated stem has the same weight.
+            int position = columnPointers[i];
+            while (position < rowIndexes.size() && rowIndexes.get(position) < rowIndex) {
+              position++;
+            }
+            if (position == rowIndexes.size() || rowIndexes.get(position) != rowIndex) {
+              rowIndexes.insert(position, rowIndex);
+              values.insert(position, weight);
+            }
+          }
         }
       }
+      columnPointers[i + 1] = rowIndexes.size();
     }
 
-    return phraseMatrix;
+    return CompressedSparseDoubleMatrix2D.ofColumns(
+        stemToRowIndex.size(),
+        featureIndex.length,
+        columnPointers,
+        rowIndexes.toArray(),
+        values.toArray());
   }
 }
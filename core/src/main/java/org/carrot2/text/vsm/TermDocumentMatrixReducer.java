@@ -13,14 +13,19 @@ package org.carrot2.text.vsm;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.attrs.AttrObject;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
-import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 import org.carrot2.math.matrix.IterativeMatrixFactorizationFactory;
 import org.carrot2.math.matrix.MatrixFactorization;
 import org.carrot2.math.matrix.MatrixFactorizationFactory;
+import org.carrot2.math.matrix.MatrixPrecision;
 import org.carrot2.math.matrix.MatrixUtils;
 import org.carrot2.math.matrix.NonnegativeMatrixFactorizationEDFactory;
+import org.carrot2.math.matrix.RandomizedSingularValueDecompositionFactory;
 
-/** Reduces the dimensionality of a term-document matrix using a matrix factorization algorithm. */
+/**
+ * Reduces the dimensionality of a term-document matrix using a matrix factorization algorithm. The
+ * factors have the same precision as the term-document matrix (see {@link
+ * TermDocumentMatrixBuilder#matrixPrecision}).
+ */
 public class TermDocumentMatrixReducer extends AttrComposite {
   /**
    * Factorization method. The method to be used to factorize the term-document matrix and create
@@ -42,8 +47,9 @@ public class TermDocumentMatrixReducer extends AttrComposite {
     final VectorSpaceModelContext vsmContext = context.vsmContext;
     if (vsmContext.termDocumentMatrix.columns() == 0 || vsmContext.termDocumentMatrix.rows() == 0) {
       context.baseMatrix =
-          new DenseDoubleMatrix2D(
-              vsmContext.termDocumentMatrix.rows(), vsmContext.termDocumentMatrix.columns());
+          MatrixPrecision.of(vsmContext.termDocumentMatrix)
+              .newDenseMatrix(
+                  vsmContext.termDocumentMatrix.rows(), vsmContext.termDocumentMatrix.columns());
       return;
     }
 
@@ -51,6 +57,9 @@ public class TermDocumentMatrixReducer extends AttrComposite {
       ((IterativeMatrixFactorizationFactory) factorizationFactory)
           .estimateIterationsNumber(dimensions, vsmContext.termDocumentMatrix);
     }
+    if (factorizationFactory instanceof RandomizedSingularValueDecompositionFactory) {
+      ((RandomizedSingularValueDecompositionFactory) factorizationFactory).setK(dimensions);
+    }
 
     MatrixUtils.normalizeColumnL2(vsmContext.termDocumentMatrix, null);
     final MatrixFactorization factorization =
@@ -0,0 +1,562 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.util;
+
+import com.carrotsearch.hppc.BitSet;
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative integers (typically document indexes), an alternative to {@link
+ * BitSet} for sets that are small compared to their range.
+ *
+ * <p>Elements are partitioned into chunks of 2<sup>16</sup> integers sharing the high 16 bits.
+ * Each non-empty chunk is stored in a container (like in Roaring bitmaps): a sorted array of the
+ * low 16 bits for up to {@link #ARRAY_MAX_SIZE} elements or a bitmap of 2<sup>16</sup> bits for
+ * larger chunks. {@link #intersectionCount(CompressedBitSet, CompressedBitSet)} does not allocate
+ * any memory.
+ */
+public final class CompressedBitSet {
+  /** The maximum number of elements in an array container. Larger containers are bitmaps. */
+  private static final int ARRAY_MAX_SIZE = 4096;
+
+  /** The number of words of a bitmap container. */
+  private static final int BITMAP_WORDS = (1 << 16) / Long.SIZE;
+
+  private static final char[] EMPTY_KEYS = new char[0];
+  private static final Object[] EMPTY_CONTAINERS = new Object[0];
+  private static final int[] EMPTY_CARDINALITIES = new int[0];
+
+  /** The high 16 bits of elements of each container, in increasing order. */
+  private char[] keys = EMPTY_KEYS;
+
+  /**
+   * Containers with the low 16 bits of elements: sorted <code>char[]</code> arrays (possibly
+   * longer than the number of elements) or <code>long[]</code> bitmaps.
+   */
+  private Object[] containers = EMPTY_CONTAINERS;
+
+  /** [i] - the number of elements in containers[i]. */
+  private int[] cardinalities = EMPTY_CARDINALITIES;
+
+  /** The number of containers in use. */
+  private int size;
+
+  /** @return Returns a compressed copy of the provided bit set. */
+  public static CompressedBitSet copyOf(BitSet bset) {
+    final CompressedBitSet copy = new CompressedBitSet();
+    for (int i = bset.nextSetBit(0); i >= 0; i = bset.nextSetBit(i + 1)) {
+      copy.set(i);
+    }
+    return copy;
+  }
+
+  /** Adds an element to this set. */
+  public void set(int index) {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException("Negative index: " + index);
+    }
+
+    final char key = (char) (index >>> 16);
+    int i = indexOf(key);
+    if (i < 0) {
+      i = -i - 1;
+      insertContainer(i, key, new char[4], 0);
+    }
+
+    final char low = (char) index;
+    final Object container = containers[i];
+    final int cardinality = cardinalities[i];
+    if (container instanceof long[]) {
+      if (setBit((long[]) container, low)) {
+        cardinalities[i] = cardinality + 1;
+      }
+      return;
+    }
+
+    char[] array = (char[]) container;
+    int position =
+        (cardinality == 0 || array[cardinality - 1] < low)
+            ? -cardinality - 1
+            : Arrays.binarySearch(array, 0, cardinality, low);
+    if (position >= 0) {
+      return;
+    }
+    position = -position - 1;
+
+    if (cardinality == ARRAY_MAX_SIZE) {
+      final long[] bitmap = toBitmap(array, cardinality);
+      setBit(bitmap, low);
+      containers[i] = bitmap;
+    } else {
+      if (cardinality == array.length) {
+        array = Arrays.copyOf(array, Math.min(ARRAY_MAX_SIZE, cardinality * 2));
+        containers[i] = array;
+      }
+      System.arraycopy(array, position, array, position + 1, cardinality - position);
+      array[position] = low;
+    }
+    cardinalities[i] = cardinality + 1;
+  }
+
+  /** @return Returns <code>true</code> if this set contains the provided element. */
+  public boolean get(int index) {
+    if (index < 0) {
+      return false;
+    }
+
+    final int i = indexOf((char) (index >>> 16));
+    if (i < 0) {
+      return false;
+    }
+
+    final char low = (char) index;
+    final Object container = containers[i];
+    if (container instanceof long[]) {
+      return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+    } else {
+      return Arrays.binarySearch((char[]) container, 0, cardinalities[i], low) >= 0;
+    }
+  }
+
+  /**
+   * @return Returns the first element of this set larger than or equal to <code>index</code> or
+   *     -1 if there are no such elements.
+   */
+  public int nextSetBit(int index) {
+    if (index < 0) {
+      index = 0;
+    }
+
+    int i = indexOf((char) (index >>> 16));
+    int low = index & 0xffff;
+    if (i < 0) {
+      i = -i - 1;
+      low = 0;
+    }
+
+    for (; i < size; i++, low = 0) {
+      final int high = keys[i] << 16;
+      final Object container = containers[i];
+      if (container instanceof long[]) {
+        final long[] bitmap = (long[]) container;
+        int word = low >>> 6;
+        long bits = bitmap[word] & (-1L << low);
+        while (true) {
+          if (bits != 0) {
+            return high | (word << 6) | Long.numberOfTrailingZeros(bits);
+          }
+          if (++word == BITMAP_WORDS) {
+            break;
+          }
+          bits = bitmap[word];
+        }
+      } else {
+        final char[] array = (char[]) container;
+        final int cardinality = cardinalities[i];
+        int position = Arrays.binarySearch(array, 0, cardinality, (char) low);
+        if (position < 0) {
+          position = -position - 1;
+        }
+        if (position < cardinality) {
+          return high | array[position];
+        }
+      }
+    }
+    return -1;
+  }
+
+  /** @return Returns the number of elements in this set. */
+  public int cardinality() {
+    int cardinality = 0;
+    for (int i = 0; i < size; i++) {
+      cardinality += cardinalities[i];
+    }
+    return cardinality;
+  }
+
+  /** Removes all elements from this set. */
+  public void clear() {
+    Arrays.fill(containers, 0, size, null);
+    size = 0;
+  }
+
+  /** @return Returns <code>true</code> if this set has no elements. */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** @return Returns the largest element of this set plus one or 0 if the set is empty. */
+  public int length() {
+    if (size == 0) {
+      return 0;
+    }
+
+    final int high = keys[size - 1] << 16;
+    final Object container = containers[size - 1];
+    if (container instanceof long[]) {
+      final long[] bitmap = (long[]) container;
+      for (int word = BITMAP_WORDS; --word >= 0; ) {
+        if (bitmap[word] != 0) {
+          return (high | (word << 6) | (63 - Long.numberOfLeadingZeros(bitmap[word]))) + 1;
+        }
+      }
+      throw new RuntimeException("Unreachable: empty bitmap container.");
+    } else {
+      return (high | ((char[]) container)[cardinalities[size - 1] - 1]) + 1;
+    }
+  }
+
+  /** Adds all elements of the provided set to this set. */
+  public void or(CompressedBitSet other) {
+    if (other == this || other.size == 0) {
+      return;
+    }
+
+    final int capacity = size + other.size;
+    final char[] newKeys = new char[capacity];
+    final Object[] newContainers = new Object[capacity];
+    final int[] newCardinalities = new int[capacity];
+
+    int i = 0, j = 0, k = 0;
+    while (i < size || j < other.size) {
+      if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+        newKeys[k] = keys[i];
+        newContainers[k] = containers[i];
+        newCardinalities[k] = cardinalities[i];
+        i++;
+      } else if (i == size || other.keys[j] < keys[i]) {
+        newKeys[k] = other.keys[j];
+        newContainers[k] = copyContainer(other.containers[j], other.cardinalities[j]);
+        newCardinalities[k] = other.cardinalities[j];
+        j++;
+      } else {
+        newKeys[k] = keys[i];
+        newContainers[k] = containers[i];
+        newCardinalities[k] = cardinalities[i];
+        orContainer(
+            newContainers, newCardinalities, k, other.containers[j], other.cardinalities[j]);
+        i++;
+        j++;
+      }
+      k++;
+    }
+
+    keys = newKeys;
+    containers = newContainers;
+    cardinalities = newCardinalities;
+    size = k;
+  }
+
+  /** Removes all elements not present in the provided set from this set. */
+  public void and(CompressedBitSet other) {
+    if (other == this) {
+      return;
+    }
+
+    int k = 0;
+    for (int i = 0, j = 0; i < size && j < other.size; ) {
+      if (keys[i] < other.keys[j]) {
+        i++;
+      } else if (other.keys[j] < keys[i]) {
+        j++;
+      } else {
+        keys[k] = keys[i];
+        containers[k] = containers[i];
+        cardinalities[k] = cardinalities[i];
+        andContainer(containers, cardinalities, k, other.containers[j], other.cardinalities[j]);
+        if (cardinalities[k] > 0) {
+          k++;
+        }
+        i++;
+        j++;
+      }
+    }
+
+    Arrays.fill(containers, k, size, null);
+    size = k;
+  }
+
+  /** @return Returns the number of elements present in both sets. */
+  public static int intersectionCount(CompressedBitSet a, CompressedBitSet b) {
+    int count = 0;
+    for (int i = 0, j = 0; i < a.size && j < b.size; ) {
+      if (a.keys[i] < b.keys[j]) {
+        i++;
+      } else if (b.keys[j] < a.keys[i]) {
+        j++;
+      } else {
+        count +=
+            intersectionCount(
+                a.containers[i], a.cardinalities[i], b.containers[j], b.cardinalities[j]);
+        i++;
+        j++;
+      }
+    }
+    return count;
+  }
+
+  /** @return Returns all elements of this set, in increasing order. */
+  public int[] toArray() {
+    final int[] elements = new int[cardinality()];
+    int k = 0;
+    for (int i = 0; i < size; i++) {
+      final int high = keys[i] << 16;
+      final Object container = containers[i];
+      if (container instanceof long[]) {
+        final long[] bitmap = (long[]) container;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+          for (long bits = bitmap[word]; bits != 0; bits &= bits - 1) {
+            elements[k++] = high | (word << 6) | Long.numberOfTrailingZeros(bits);
+          }
+        }
+      } else {
+        final char[] array = (char[]) container;
+        for (int e = 0; e < cardinalities[i]; e++) {
+          elements[k++] = high | array[e];
+        }
+      }
+    }
+    return elements;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  private int indexOf(char key) {
+    if (size > 0 && keys[size - 1] == key) {
+      return size - 1;
+    }
+    return Arrays.binarySearch(keys, 0, size, key);
+  }
+
+  private void insertContainer(int i, char key, Object container, int cardinality) {
+    if (size == keys.length) {
+      final int capacity = Math.max(4, size * 2);
+      keys = Arrays.copyOf(keys, capacity);
+      containers = Arrays.copyOf(containers, capacity);
+      cardinalities = Arrays.copyOf(cardinalities, capacity);
+    }
+
+    System.arraycopy(keys, i, keys, i + 1, size - i);
+    System.arraycopy(containers, i, containers, i + 1, size - i);
+    System.arraycopy(cardinalities, i, cardinalities, i + 1, size - i);
+    keys[i] = key;
+    containers[i] = container;
+    cardinalities[i] = cardinality;
+    size++;
+  }
+
+  /** @return Returns <code>true</code> if the bit was not set before. */
+  private static boolean setBit(long[] bitmap, int low) {
+    final long word = bitmap[low >>> 6];
+    final long mask = 1L << low;
+    bitmap[low >>> 6] = word | mask;
+    return (word & mask) == 0;
+  }
+
+  private static long[] toBitmap(char[] array, int cardinality) {
+    final long[] bitmap = new long[BITMAP_WORDS];
+    for (int e = 0; e < cardinality; e++) {
+      setBit(bitmap, array[e]);
+    }
+    return bitmap;
+  }
+
+  private static char[] toArray(long[] bitmap, int cardinality) {
+    final char[] array = new char[cardinality];
+    int k = 0;
+    for (int word = 0; word < BITMAP_WORDS; word++) {
+      for (long bits = bitmap[word]; bits != 0; bits &= bits - 1) {
+        array[k++] = (char) ((word << 6) | Long.numberOfTrailingZeros(bits));
+      }
+    }
+    return array;
+  }
+
+  private static Object copyContainer(Object container, int cardinality) {
+    if (container instanceof long[]) {
+      return ((long[]) container).clone();
+    } else {
+      return Arrays.copyOf((char[]) container, cardinality);
+    }
+  }
+
+  private static int bitCount(long[] bitmap) {
+    int count = 0;
+    for (long word : bitmap) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /** Replaces containers[k] with its union with <code>b</code>. */
+  private static void orContainer(
+      Object[] containers, int[] cardinalities, int k, Object b, int bCardinality) {
+    final Object a = containers[k];
+    final int aCardinality = cardinalities[k];
+
+    if (a instanceof long[]) {
+      final long[] bitmap = (long[]) a;
+      if (b instanceof long[]) {
+        final long[] other = (long[]) b;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+          bitmap[word] |= other[word];
+        }
+        cardinalities[k] = bitCount(bitmap);
+      } else {
+        final char[] other = (char[]) b;
+        int cardinality = aCardinality;
+        for (int e = 0; e < bCardinality; e++) {
+          if (setBit(bitmap, other[e])) {
+            cardinality++;
+          }
+        }
+        cardinalities[k] = cardinality;
+      }
+    } else if (b instanceof long[]) {
+      final long[] bitmap = ((long[]) b).clone();
+      final char[] array = (char[]) a;
+      int cardinality = bCardinality;
+      for (int e = 0; e < aCardinality; e++) {
+        if (setBit(bitmap, array[e])) {
+          cardinality++;
+        }
+      }
+      containers[k] = bitmap;
+      cardinalities[k] = cardinality;
+    } else {
+      final char[] x = (char[]) a;
+      final char[] y = (char[]) b;
+      final char[] union = new char[aCardinality + bCardinality];
+      int i = 0, j = 0, u = 0;
+      while (i < aCardinality && j < bCardinality) {
+        if (x[i] < y[j]) {
+          union[u++] = x[i++];
+        } else if (y[j] < x[i]) {
+          union[u++] = y[j++];
+        } else {
+          union[u++] = x[i++];
+          j++;
+        }
+      }
+      while (i < aCardinality) {
+        union[u++] = x[i++];
+      }
+      while (j < bCardinality) {
+        union[u++] = y[j++];
+      }
+
+      containers[k] = u > ARRAY_MAX_SIZE ? toBitmap(union, u) : union;
+      cardinalities[k] = u;
+    }
+  }
+
+  /** Replaces containers[k] with its intersection with <code>b</code>, possibly empty. */
+  private static void andContainer(
+      Object[] containers, int[] cardinalities, int k, Object b, int bCardinality) {
+    final Object a = containers[k];
+    final int aCardinality = cardinalities[k];
+
+    if (a instanceof long[]) {
+      final long[] bitmap = (long[]) a;
+      if (b instanceof long[]) {
+        final long[] other = (long[]) b;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+          bitmap[word] &= other[word];
+        }
+        final int cardinality = bitCount(bitmap);
+        if (cardinality <= ARRAY_MAX_SIZE) {
+          containers[k] = toArray(bitmap, cardinality);
+        }
+        cardinalities[k] = cardinality;
+      } else {
+        final char[] other = (char[]) b;
+        final char[] intersection = new char[bCardinality];
+        int u = 0;
+        for (int e = 0; e < bCardinality; e++) {
+          if ((bitmap[other[e] >>> 6] & (1L << other[e])) != 0) {
+            intersection[u++] = other[e];
+          }
+        }
+        containers[k] = intersection;
+        cardinalities[k] = u;
+      }
+    } else {
+      // Array containers are filtered in place.
+      final char[] array = (char[]) a;
+      int u = 0;
+      if (b instanceof long[]) {
+        final long[] bitmap = (long[]) b;
+        for (int e = 0; e < aCardinality; e++) {
+          if ((bitmap[array[e] >>> 6] & (1L << array[e])) != 0) {
+            array[u++] = array[e];
+          }
+        }
+      } else {
+        final char[] other = (char[]) b;
+        for (int i = 0, j = 0; i < aCardinality && j < bCardinality; ) {
+          if (array[i] < other[j]) {
+            i++;
+          } else if (other[j] < array[i]) {
+            j++;
+          } else {
+            array[u++] = array[i++];
+            j++;
+          }
+        }
+      }
+      cardinalities[k] = u;
+    }
+  }
+
+  private static int intersectionCount(Object a, int aCardinality, Object b, int bCardinality) {
+    if (a instanceof long[] && b instanceof long[]) {
+      final long[] x = (long[]) a;
+      final long[] y = (long[]) b;
+      int count = 0;
+      for (int word = 0; word < BITMAP_WORDS; word++) {
+        count += Long.bitCount(x[word] & y[word]);
+      }
+      return count;
+    }
+
+    if (a instanceof long[] || b instanceof long[]) {
+      final long[] bitmap = (long[]) (a instanceof long[] ? a : b);
+      final char[] array = (char[]) (a instanceof long[] ? b : a);
+      final int cardinality = a instanceof long[] ? bCardinality : aCardinality;
+      int count = 0;
+      for (int e = 0; e < cardinality; e++) {
+        if ((bitmap[array[e] >>> 6] & (1L << array[e])) != 0) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    final char[] x = (char[]) a;
+    final char[] y = (char[]) b;
+    int count = 0;
+    for (int i = 0, j = 0; i < aCardinality && j < bCardinality; ) {
+      if (x[i] < y[j]) {
+        i++;
+      } else if (y[j] < x[i]) {
+        j++;
+      } else {
+        count++;
+        i++;
+        j++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+/**
+ * Selects the {@link ArrayKernels} implementation: the Vector API one if the <code>
+ * jdk.incubator.vector</code> module is available, the scalar one otherwise.
+ */
+final class ArrayKernelsLoader {
+  static final ArrayKernels INSTANCE = load();
+
+  private ArrayKernelsLoader() {}
+
+  private static ArrayKernels load() {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+      try {
+        // Loaded reflectively so that nothing links against the module if it is absent.
+        return Class.forName(ArrayKernelsLoader.class.getPackageName() + ".VectorArrayKernels")
+            .asSubclass(ArrayKernels.class)
+            .getDeclaredConstructor()
+            .newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+        // Fall back to scalar kernels.
+      }
+    }
+    return ArrayKernels.scalar();
+  }
+}
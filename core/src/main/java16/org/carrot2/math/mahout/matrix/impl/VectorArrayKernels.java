@@ -0,0 +1,251 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ArrayKernels} implemented with the Vector API. Lanes of each vector perform exactly the
+ * same operations (no fused multiply-adds, no reordering of sums) as the scalar implementation does
+ * for the corresponding elements, so the results are identical.
+ */
+final class VectorArrayKernels extends ArrayKernels {
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  // Term-document matrices are narrow, so wider float vectors would leave most columns to the
+  // scalar tail.
+  private static final VectorSpecies<Float> FLOAT_SPECIES =
+      FloatVector.SPECIES_PREFERRED.vectorBitSize() > 256
+          ? FloatVector.SPECIES_256
+          : FloatVector.SPECIES_PREFERRED;
+
+  @Override
+  public String name() {
+    return "vector (" + SPECIES.vectorBitSize() + " bits)";
+  }
+
+  @Override
+  public void add(double[] x, int offset, int length, double value) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      DoubleVector.fromArray(SPECIES, x, offset + i).add(value).intoArray(x, offset + i);
+    }
+    super.add(x, offset + i, length - i, value);
+  }
+
+  @Override
+  public void scale(double[] x, int offset, int length, double value) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      DoubleVector.fromArray(SPECIES, x, offset + i).mul(value).intoArray(x, offset + i);
+    }
+    super.scale(x, offset + i, length - i, value);
+  }
+
+  @Override
+  public void multiply(double[] x, int xOffset, double[] y, int yOffset, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      DoubleVector.fromArray(SPECIES, x, xOffset + i)
+          .mul(DoubleVector.fromArray(SPECIES, y, yOffset + i))
+          .intoArray(x, xOffset + i);
+    }
+    super.multiply(x, xOffset + i, y, yOffset + i, length - i);
+  }
+
+  @Override
+  public void divide(double[] x, int xOffset, double[] y, int yOffset, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      DoubleVector.fromArray(SPECIES, x, xOffset + i)
+          .div(DoubleVector.fromArray(SPECIES, y, yOffset + i))
+          .intoArray(x, xOffset + i);
+    }
+    super.divide(x, xOffset + i, y, yOffset + i, length - i);
+  }
+
+  @Override
+  public void axpy(double a, double[] x, int xOffset, double[] y, int yOffset, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      DoubleVector.fromArray(SPECIES, y, yOffset + i)
+          .add(DoubleVector.fromArray(SPECIES, x, xOffset + i).mul(a))
+          .intoArray(y, yOffset + i);
+    }
+    super.axpy(a, x, xOffset + i, y, yOffset + i, length - i);
+  }
+
+  @Override
+  public void addSquares(double[] x, int offset, double[] sums, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      final DoubleVector v = DoubleVector.fromArray(SPECIES, x, offset + i);
+      DoubleVector.fromArray(SPECIES, sums, i).add(v.mul(v)).intoArray(sums, i);
+    }
+    for (; i < length; i++) {
+      final double v = x[offset + i];
+      sums[i] += v * v;
+    }
+  }
+
+  @Override
+  public void divideNonZero(double[] x, int offset, double[] divisors, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      final DoubleVector d = DoubleVector.fromArray(SPECIES, divisors, i);
+      final VectorMask<Double> nonZero = d.compare(VectorOperators.NE, 0);
+      DoubleVector.fromArray(SPECIES, x, offset + i).div(d, nonZero).intoArray(x, offset + i);
+    }
+    for (; i < length; i++) {
+      if (divisors[i] != 0) {
+        x[offset + i] /= divisors[i];
+      }
+    }
+  }
+
+  @Override
+  public void multiplyRow(
+      double[] a,
+      int aOffset,
+      int aStride,
+      int n,
+      double[] b,
+      int bOffset,
+      int bRowStride,
+      double[] sums,
+      int width) {
+    final int head = n % 4;
+
+    // Each vector of sums is accumulated in a register over all k.
+    int j = 0;
+    for (int bound = SPECIES.loopBound(width); j < bound; j += SPECIES.length()) {
+      DoubleVector s = DoubleVector.zero(SPECIES);
+      int k = 0;
+      int ai = aOffset;
+      int bi = bOffset + j;
+      for (; k < head; k++, ai += aStride, bi += bRowStride) {
+        s = s.add(DoubleVector.fromArray(SPECIES, b, bi).mul(a[ai]));
+      }
+      for (; k < n; k += 4, ai += 4 * aStride, bi += 4 * bRowStride) {
+        final DoubleVector t =
+            DoubleVector.fromArray(SPECIES, b, bi)
+                .mul(a[ai])
+                .add(DoubleVector.fromArray(SPECIES, b, bi + bRowStride).mul(a[ai + aStride]))
+                .add(
+                    DoubleVector.fromArray(SPECIES, b, bi + 2 * bRowStride)
+                        .mul(a[ai + 2 * aStride]))
+                .add(
+                    DoubleVector.fromArray(SPECIES, b, bi + 3 * bRowStride)
+                        .mul(a[ai + 3 * aStride]));
+        s = s.add(t);
+      }
+      s.intoArray(sums, j);
+    }
+
+    for (; j < width; j++) {
+      sums[j] = multiplyColumn(a, aOffset, aStride, n, b, bOffset + j, bRowStride);
+    }
+  }
+
+  @Override
+  public void multiplyRow(
+      float[] a,
+      int aOffset,
+      int aStride,
+      int n,
+      float[] b,
+      int bOffset,
+      int bRowStride,
+      float[] sums,
+      int width) {
+    final int head = n % 4;
+
+    // Each vector of sums is accumulated in a register over all k.
+    int j = 0;
+    for (int bound = FLOAT_SPECIES.loopBound(width); j < bound; j += FLOAT_SPECIES.length()) {
+      FloatVector s = FloatVector.zero(FLOAT_SPECIES);
+      int k = 0;
+      int ai = aOffset;
+      int bi = bOffset + j;
+      for (; k < head; k++, ai += aStride, bi += bRowStride) {
+        s = s.add(FloatVector.fromArray(FLOAT_SPECIES, b, bi).mul(a[ai]));
+      }
+      for (; k < n; k += 4, ai += 4 * aStride, bi += 4 * bRowStride) {
+        final FloatVector t =
+            FloatVector.fromArray(FLOAT_SPECIES, b, bi)
+                .mul(a[ai])
+                .add(FloatVector.fromArray(FLOAT_SPECIES, b, bi + bRowStride).mul(a[ai + aStride]))
+                .add(
+                    FloatVector.fromArray(FLOAT_SPECIES, b, bi + 2 * bRowStride)
+                        .mul(a[ai + 2 * aStride]))
+                .add(
+                    FloatVector.fromArray(FLOAT_SPECIES, b, bi + 3 * bRowStride)
+                        .mul(a[ai + 3 * aStride]));
+        s = s.add(t);
+      }
+      s.intoArray(sums, j);
+    }
+
+    for (; j < width; j++) {
+      sums[j] = multiplyColumn(a, aOffset, aStride, n, b, bOffset + j, bRowStride);
+    }
+  }
+
+  /**
+   * Computes a single element of {@link #multiplyRow(double[], int, int, int, double[], int, int,
+   * double[], int)}'s sums, with the same sequence of operations.
+   */
+  private static double multiplyColumn(
+      double[] a, int aOffset, int aStride, int n, double[] b, int bOffset, int bRowStride) {
+    double s = 0;
+    int k = 0;
+    int ai = aOffset;
+    int bi = bOffset;
+    for (; k < n % 4; k++, ai += aStride, bi += bRowStride) {
+      s += a[ai] * b[bi];
+    }
+    for (; k < n; k += 4, ai += 4 * aStride, bi += 4 * bRowStride) {
+      s +=
+          a[ai] * b[bi]
+              + a[ai + aStride] * b[bi + bRowStride]
+              + a[ai + 2 * aStride] * b[bi + 2 * bRowStride]
+              + a[ai + 3 * aStride] * b[bi + 3 * bRowStride];
+    }
+    return s;
+  }
+
+  /**
+   * A single precision variant of {@link #multiplyColumn(double[], int, int, int, double[], int,
+   * int)}.
+   */
+  private static float multiplyColumn(
+      float[] a, int aOffset, int aStride, int n, float[] b, int bOffset, int bRowStride) {
+    float s = 0;
+    int k = 0;
+    int ai = aOffset;
+    int bi = bOffset;
+    for (; k < n % 4; k++, ai += aStride, bi += bRowStride) {
+      s += a[ai] * b[bi];
+    }
+    for (; k < n; k += 4, ai += 4 * aStride, bi += 4 * bRowStride) {
+      s +=
+          a[ai] * b[bi]
+              + a[ai + aStride] * b[bi + bRowStride]
+              + a[ai + 2 * aStride] * b[bi + 2 * bRowStride]
+              + a[ai + 3 * aStride] * b[bi + 3 * bRowStride];
+    }
+    return s;
+  }
+}
@@ -15,6 +15,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import com.carrotsearch.randomizedtesting.RandomizedTest;
 import com.carrotsearch.randomizedtesting.annotations.Nightly;
 import com.carrotsearch.randomizedtesting.annotations.ThreadLeakLingering;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -27,7 +28,9 @@ import org.assertj.core.api.Assertions;
 import org.carrot2.TestBase;
 import org.carrot2.attrs.*;
 import org.carrot2.language.LanguageComponents;
+import org.carrot2.language.LanguageComponentsLoader;
 import org.carrot2.language.TestsLanguageComponentsFactoryVariant1;
+import org.carrot2.text.preprocessing.StemCache;
 import org.junit.Test;
 
 public abstract class ClusteringAlgorithmTestBase<E extends ClusteringAlgorithm & AcceptingVisitor>
@@ -171,6 +174,84 @@ public abstract class ClusteringAlgorithmTestBase<E extends ClusteringAlgorithm
     }
   }
 
+  @Test
+  public void testStageListener() {
+    List<StageStatistics> stages = new ArrayList<>();
+    LanguageComponents english = CachedLangComponents.loadCached("English");
+    LanguageComponents withListener = english.override(StageListener.class, () -> stages::add);
+
+    List<Cluster<Document>> expected =
+        algorithm().cluster(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), english);
+    List<Cluster<Document>> clusters =
+        algorithm().cluster(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), withListener);
+
+    assertThat(clusters.toString()).isEqualTo(expected.toString());
+
+    List<String> stageNames =
+        stages.stream().map(StageStatistics::getStage).collect(Collectors.toList());
+    assertThat(stageNames).contains("tokenizer", "stemming", "preprocessing");
+    assertThat(stageNames.indexOf("tokenizer")).isLessThan(stageNames.indexOf("preprocessing"));
+
+    for (StageStatistics stage : stages) {
+      assertThat(stage.getWallTimeNanos()).isGreaterThanOrEqualTo(0);
+      assertThat(stage.getCpuTimeNanos()).isGreaterThanOrEqualTo(-1);
+      assertThat(stage.getAllocatedBytes()).isGreaterThanOrEqualTo(-1);
+    }
+
+    StageStatistics preprocessing = stages.get(stageNames.indexOf("preprocessing"));
+    assertThat(preprocessing.getSizes())
+        .containsEntry("documents", (long) SampleDocumentData.DOCUMENTS_DATA_MINING.size())
+        .containsKeys("tokens", "words", "stems");
+  }
+
+  @Test
+  public void testComponentCaching() throws IOException {
+    LanguageComponents cached =
+        LanguageComponents.loader()
+            .limitToLanguages("English")
+            .withComponentCaching()
+            .load()
+            .language("English");
+
+    List<Cluster<Document>> expected =
+        algorithm()
+            .cluster(
+                SampleDocumentData.DOCUMENTS_DATA_MINING.stream(),
+                CachedLangComponents.loadCached("English"));
+
+    for (int i = 0; i < 2; i++) {
+      List<Cluster<Document>> clusters =
+          algorithm().cluster(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), cached);
+      assertThat(clusters.toString()).isEqualTo(expected.toString());
+    }
+
+    cached
+        .instanceCounts()
+        .forEach(
+            (clazz, count) -> {
+              if (LanguageComponentsLoader.DEFAULT_COMPONENT_SCOPES.containsKey(clazz)) {
+                assertThat(count).as(clazz.getName()).isLessThanOrEqualTo(1);
+              }
+            });
+  }
+
+  @Test
+  public void testStemCache() {
+    LanguageComponents english = CachedLangComponents.loadCached("English");
+    StemCache stemCache = new StemCache(randomIntBetween(1, 5000));
+    LanguageComponents cached = english.override(StemCache.class, () -> stemCache);
+
+    List<Cluster<Document>> expected =
+        algorithm().cluster(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), english);
+
+    for (int i = 0; i < 2; i++) {
+      List<Cluster<Document>> clusters =
+          algorithm().cluster(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), cached);
+      assertThat(clusters.toString()).isEqualTo(expected.toString());
+    }
+    assertThat(stemCache.size()).isLessThanOrEqualTo(stemCache.maxSize());
+  }
+
   @Test
   public void testAttrGetAndSet() {
     AcceptingVisitor algorithm = algorithm();
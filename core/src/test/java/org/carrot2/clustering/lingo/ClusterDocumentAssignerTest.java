@@ -91,7 +91,7 @@ public class ClusterDocumentAssignerTest extends LingoProcessingComponentTestBas
     clusterBuilder.assignDocuments(lingoContext);
 
     for (int i = 0; i < expectedDocumentIndices.length; i++) {
-      Assertions.assertThat(lingoContext.clusterDocuments[i].asIntLookupContainer().toArray())
+      Assertions.assertThat(lingoContext.clusterDocuments[i].toArray())
           .as("clusterDocuments[" + i + "]")
           .containsOnly(expectedDocumentIndices[i]);
     }
@@ -18,6 +18,8 @@ import org.carrot2.AwaitsFix;
 import org.carrot2.clustering.*;
 import org.carrot2.clustering.Cluster;
 import org.carrot2.clustering.Document;
+import org.carrot2.language.LanguageComponents;
+import org.carrot2.math.matrix.MatrixPrecision;
 import org.junit.Test;
 
 public class LingoClusteringAlgorithmTest
@@ -76,6 +78,42 @@ public class LingoClusteringAlgorithmTest
         .containsOnly("program");
   }
 
+  @Test
+  public void testSparseTermDocumentMatrix() {
+    LingoClusteringAlgorithm dense = algorithm();
+    dense.matrixBuilder.maximumMatrixSize.set(1_000_000);
+
+    LingoClusteringAlgorithm sparse = algorithm();
+    sparse.matrixBuilder.maximumMatrixSize.set(1_000_000);
+    sparse.matrixBuilder.sparseMatrix.set(true);
+
+    LanguageComponents english = CachedLangComponents.loadCached("English");
+    List<Cluster<Document>> expected =
+        dense.cluster(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), english);
+    List<Cluster<Document>> actual =
+        sparse.cluster(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), english);
+
+    Assertions.assertThat(actual).isNotEmpty();
+    Assertions.assertThat(actual.toString()).isEqualTo(expected.toString());
+  }
+
+  @Test
+  public void testFloatMatrixPrecision() {
+    LingoClusteringAlgorithm doublePrecision = algorithm();
+
+    LingoClusteringAlgorithm floatPrecision = algorithm();
+    floatPrecision.matrixBuilder.matrixPrecision.set(MatrixPrecision.FLOAT);
+
+    LanguageComponents english = CachedLangComponents.loadCached("English");
+    List<Cluster<Document>> expected =
+        doublePrecision.cluster(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), english);
+    List<Cluster<Document>> actual =
+        floatPrecision.cluster(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), english);
+
+    Assertions.assertThat(actual).isNotEmpty();
+    Assertions.assertThat(actual.toString()).isEqualTo(expected.toString());
+  }
+
   // TODO: CARROT-1195 (clustering not deterministic)
   @AwaitsFix("https://issues.carrot2.org/browse/CARROT-1195")
   @Override
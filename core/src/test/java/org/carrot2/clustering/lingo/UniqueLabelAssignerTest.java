@@ -0,0 +1,141 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.clustering.lingo;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntHashMap;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.clustering.CachedLangComponents;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.carrot2.text.preprocessing.PreprocessingContext;
+import org.carrot2.text.vsm.ReducedVectorSpaceModelContext;
+import org.carrot2.text.vsm.VectorSpaceModelContext;
+import org.junit.Test;
+
+public class UniqueLabelAssignerTest extends TestBase {
+  @Test
+  public void testSameAsFullScan() {
+    for (int round = 0; round < 50; round++) {
+      final int columns = randomIntBetween(1, 20);
+      final DoubleMatrix2D stemCos = randomCos(randomIntBetween(0, 30), columns);
+      final DoubleMatrix2D phraseCos =
+          randomBoolean() ? randomCos(randomIntBetween(0, 30), columns) : null;
+      final int stems = stemCos.rows();
+      final int labels = stems + (phraseCos != null ? phraseCos.rows() : 0);
+
+      // Stems and labels map to themselves, so that feature indexes reveal the selected rows.
+      final PreprocessingContext preprocessingContext =
+          new PreprocessingContext(CachedLangComponents.loadCached("English"));
+      preprocessingContext.allLabels.featureIndex = identity(labels);
+      preprocessingContext.allLabels.firstPhraseIndex = stems;
+      preprocessingContext.allStems.mostFrequentOriginalWordIndex = identity(stems);
+      final IntIntHashMap filteredRowToStemIndex = new IntIntHashMap();
+      for (int i = 0; i < stems; i++) {
+        filteredRowToStemIndex.put(i, i);
+      }
+
+      final LingoProcessingContext context =
+          new LingoProcessingContext(
+              new ReducedVectorSpaceModelContext(
+                  new VectorSpaceModelContext(preprocessingContext)));
+      new UniqueLabelAssigner()
+          .assignLabels(context, stemCos.copy(), filteredRowToStemIndex, copy(phraseCos));
+      final int[] featureIndex = context.clusterLabelFeatureIndex;
+      final double[] score = context.clusterLabelScore;
+
+      fullScan(context, stemCos, phraseCos);
+      Assertions.assertThat(featureIndex).isEqualTo(context.clusterLabelFeatureIndex);
+      Assertions.assertThat(score).isEqualTo(context.clusterLabelScore);
+    }
+  }
+
+  /** Coarse values, so that there are ties, some of them negative or zero. */
+  private DoubleMatrix2D randomCos(int rows, int columns) {
+    final DoubleMatrix2D matrix = new DenseDoubleMatrix2D(rows, columns);
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < columns; c++) {
+        matrix.setQuick(r, c, randomIntBetween(-2, 8) / 8d);
+      }
+    }
+    return matrix;
+  }
+
+  private static DoubleMatrix2D copy(DoubleMatrix2D matrix) {
+    return matrix != null ? matrix.copy() : null;
+  }
+
+  private static int[] identity(int size) {
+    final int[] array = new int[size];
+    for (int i = 0; i < size; i++) {
+      array[i] = i;
+    }
+    return array;
+  }
+
+  /** Selects labels by scanning both matrices in full for each label. */
+  private static void fullScan(
+      LingoProcessingContext context, DoubleMatrix2D stemCos, DoubleMatrix2D phraseCos) {
+    final int firstPhraseIndex = context.preprocessingContext.allLabels.firstPhraseIndex;
+    final IntArrayList clusterLabelFeatureIndex = new IntArrayList();
+    final DoubleArrayList clusterLabelScore = new DoubleArrayList();
+    for (int label = 0; label < stemCos.columns(); label++) {
+      final int[] stemMax = max(stemCos);
+      final int[] phraseMax = max(phraseCos);
+
+      if (stemMax == null && phraseMax == null) {
+        break;
+      }
+
+      double stemScore = stemMax != null ? stemCos.getQuick(stemMax[0], stemMax[1]) : -1;
+      double phraseScore = phraseMax != null ? phraseCos.getQuick(phraseMax[0], phraseMax[1]) : -1;
+
+      if (phraseScore > stemScore) {
+        phraseCos.viewRow(phraseMax[0]).assign(0);
+        phraseCos.viewColumn(phraseMax[1]).assign(0);
+        stemCos.viewColumn(phraseMax[1]).assign(0);
+        clusterLabelFeatureIndex.add(phraseMax[0] + firstPhraseIndex);
+        clusterLabelScore.add(phraseScore);
+      } else {
+        stemCos.viewRow(stemMax[0]).assign(0);
+        stemCos.viewColumn(stemMax[1]).assign(0);
+        if (phraseCos != null) {
+          phraseCos.viewColumn(stemMax[1]).assign(0);
+        }
+        clusterLabelFeatureIndex.add(stemMax[0]);
+        clusterLabelScore.add(stemScore);
+      }
+    }
+
+    context.clusterLabelFeatureIndex = clusterLabelFeatureIndex.toArray();
+    context.clusterLabelScore = clusterLabelScore.toArray();
+  }
+
+  private static int[] max(DoubleMatrix2D matrix) {
+    if (matrix == null) {
+      return null;
+    }
+
+    int[] max = null;
+    double value = 0;
+    for (int r = 0; r < matrix.rows(); r++) {
+      for (int c = 0; c < matrix.columns(); c++) {
+        if (matrix.getQuick(r, c) > value) {
+          value = matrix.getQuick(r, c);
+          max = new int[] {r, c};
+        }
+      }
+    }
+    return max;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.clustering.stc;
+
+import com.carrotsearch.hppc.IntArrayList;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.util.CompressedBitSet;
+import org.junit.Test;
+
+public class BaseClusterOverlapTest extends TestBase {
+  @Test
+  public void testSameAsAllPairs() {
+    for (int round = 0; round < 20; round++) {
+      final int documents = randomIntBetween(2, 200);
+      final List<ClusterCandidate> baseClusters = new ArrayList<>();
+      for (int i = randomIntBetween(0, 300); --i >= 0; ) {
+        final CompressedBitSet bset = new CompressedBitSet();
+        for (int d = randomIntBetween(2, 10); --d >= 0; ) {
+          bset.set(randomIntBetween(0, documents - 1));
+        }
+        baseClusters.add(
+            new ClusterCandidate(new int[] {0, 0}, bset, bset.cardinality(), 1));
+      }
+      final float m = randomFrom(new Float[] {0f, 0.3f, 0.6f, 1f});
+
+      final int[][] expected = allPairs(baseClusters, m);
+      Assertions.assertThat(BaseClusterOverlap.neighbors(baseClusters, m, Integer.MAX_VALUE))
+          .isEqualTo(expected);
+      Assertions.assertThat(BaseClusterOverlap.neighbors(baseClusters, m, 0)).isEqualTo(expected);
+    }
+  }
+
+  private static int[][] allPairs(List<ClusterCandidate> baseClusters, float m) {
+    final IntArrayList[] neighbors = new IntArrayList[baseClusters.size()];
+    for (int i = 0; i < neighbors.length; i++) {
+      neighbors[i] = new IntArrayList();
+    }
+
+    for (int i = 0; i < baseClusters.size(); i++) {
+      for (int j = i + 1; j < baseClusters.size(); j++) {
+        final ClusterCandidate c1 = baseClusters.get(i);
+        final ClusterCandidate c2 = baseClusters.get(j);
+
+        final float a = c1.cardinality;
+        final float b = c2.cardinality;
+        final float c = CompressedBitSet.intersectionCount(c1.documents, c2.documents);
+
+        if (c / a > m && c / b > m) {
+          neighbors[i].add(j);
+          neighbors[j].add(i);
+        }
+      }
+    }
+
+    final int[][] result = new int[neighbors.length][];
+    for (int i = 0; i < neighbors.length; i++) {
+      result[i] = neighbors[i].toArray();
+    }
+    return result;
+  }
+}
@@ -42,6 +42,17 @@ public class GeneralizedSuffixTreeTest extends TestBase {
     }
   }
 
+  /** Describes a node with its path split into edges and its documents. */
+  private static String describe(SequenceBuilder sb, int card, BitSet bset, IntStack edges) {
+    final StringBuilder b = new StringBuilder();
+    for (int i = 0; i < edges.size(); i += 2) {
+      for (int j = edges.get(i); j <= edges.get(i + 1); j++) b.append(sb.input.get(j) + " ");
+      b.append("| ");
+    }
+    for (int d = bset.nextSetBit(0); d >= 0; d = bset.nextSetBit(d + 1)) b.append(d + " ");
+    return b.toString() + "[" + card + "]";
+  }
+
   @Test
   public void testMultiphraseGST() {
     final SequenceBuilder sb = new SequenceBuilder();
@@ -92,6 +103,60 @@ public class GeneralizedSuffixTreeTest extends TestBase {
         gst.nodes.toArray());
   }
 
+  @Test
+  public void testSuffixArrayVisitsSameNodes() {
+    for (int round = 0; round < 50; round++) {
+      final SequenceBuilder sb = new SequenceBuilder();
+      for (int doc = randomIntBetween(0, 20); --doc >= 0; ) {
+        for (int phrase = randomIntBetween(0, 3); --phrase >= 0; ) {
+          final int[] terms = new int[randomIntBetween(1, 8)];
+          for (int i = 0; i < terms.length; i++) {
+            terms[i] = randomIntBetween(0, 4);
+          }
+          sb.addPhrase(terms);
+        }
+        sb.endDocument();
+      }
+      assertSuffixArrayVisitsSameNodes(sb);
+    }
+  }
+
+  /** Intervals closed before their ancestor intervals are opened must be split at the ancestors. */
+  @Test
+  public void testSuffixArrayPathsSplitAtAncestors() {
+    final SequenceBuilder sb = new SequenceBuilder();
+    final int[][] phrases = {
+      {1, 2, 3, 4}, {1, 2, 3, 5}, {1, 2, 6}, {1, 7, 6}, {1, 7, 8, 4}, {1, 7, 8, 5},
+    };
+    for (int[] phrase : phrases) {
+      sb.addPhrase(phrase);
+      sb.endDocument();
+    }
+    assertSuffixArrayVisitsSameNodes(sb);
+  }
+
+  private static void assertSuffixArrayVisitsSameNodes(SequenceBuilder sb) {
+    sb.buildSuffixTree();
+    final ArrayList<String> expected = new ArrayList<>();
+    new GeneralizedSuffixTree.Visitor(sb, 2) {
+      protected void visit(int state, int card, BitSet bset, IntStack edges) {
+        expected.add(describe(sb, card, bset, edges));
+      }
+    }.visit();
+
+    sb.buildSuffixArray();
+    final ArrayList<String> actual = new ArrayList<>();
+    new GeneralizedSuffixTree.SuffixArrayVisitor(sb, 2) {
+      protected void visit(int state, int card, BitSet bset, IntStack edges) {
+        actual.add(describe(sb, card, bset, edges));
+      }
+    }.visit();
+
+    Collections.sort(expected);
+    Collections.sort(actual);
+    assertEquals(expected, actual);
+  }
+
   /** */
   @Test
   public void testEmptyGST() {
@@ -103,4 +168,18 @@ public class GeneralizedSuffixTreeTest extends TestBase {
     TestGST gst = new TestGST(sb);
     gst.visit();
   }
+
+  @Test
+  public void testEmptySuffixArray() {
+    final SequenceBuilder sb = new SequenceBuilder();
+    sb.endDocument();
+
+    sb.buildSuffixArray();
+
+    new GeneralizedSuffixTree.SuffixArrayVisitor(sb, 2) {
+      protected void visit(int state, int card, BitSet bset, IntStack edges) {
+        fail();
+      }
+    }.visit();
+  }
 }
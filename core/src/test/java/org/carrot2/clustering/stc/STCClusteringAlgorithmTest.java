@@ -11,6 +11,7 @@
 package org.carrot2.clustering.stc;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -104,6 +105,41 @@ public class STCClusteringAlgorithmTest
         .doesNotContain("Good Programming");
   }
 
+  /** All base cluster discovery methods must produce the same clusters, ties in scores included. */
+  @Test
+  public void testBaseClusterDiscoveryMethodsEquivalent() {
+    final String[] words = {"data", "mining", "cluster", "text", "search", "engine", "web", "page"};
+    final List<Document> randomDocuments = new ArrayList<>();
+    for (int i = randomIntBetween(10, 50); i > 0; i--) {
+      StringBuilder sb = new StringBuilder();
+      for (int w = randomIntBetween(1, 15); w > 0; w--) {
+        sb.append(randomFrom(words)).append(' ');
+      }
+      randomDocuments.add(new TestDocument(sb.toString()));
+    }
+
+    for (List<Document> documents :
+        Arrays.asList(SampleDocumentData.DOCUMENTS_DATA_MINING, randomDocuments)) {
+      for (int maxBaseClusters : new int[] {5, 20, 300}) {
+        List<Cluster<Document>> expected =
+            cluster(documents, BaseClusterDiscovery.SUFFIX_TREE, maxBaseClusters);
+        for (BaseClusterDiscovery discovery : BaseClusterDiscovery.values()) {
+          List<Cluster<Document>> actual = cluster(documents, discovery, maxBaseClusters);
+          Assertions.assertThat(actual).as(discovery.name()).isEqualTo(expected);
+        }
+      }
+    }
+  }
+
+  private List<Cluster<Document>> cluster(
+      List<Document> documents, BaseClusterDiscovery baseClusterDiscovery, int maxBaseClusters) {
+    STCClusteringAlgorithm algorithm = algorithm();
+    algorithm.baseClusterDiscovery.set(baseClusterDiscovery);
+    algorithm.maxBaseClusters.set(maxBaseClusters);
+    algorithm.minBaseClusterScore.set(0d);
+    return algorithm.cluster(documents.stream(), CachedLangComponents.loadCached("English"));
+  }
+
   /** CARROT-1008: STC is not using term stems. */
   @Test
   public void testCarrot1008() throws Exception {
@@ -0,0 +1,172 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.language;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.util.ClassRelativeResourceLookup;
+import org.carrot2.util.MutableCharArray;
+import org.carrot2.util.ResourceLookup;
+import org.junit.Test;
+
+public class CompiledLexicalDataTest extends TestBase {
+  private static final String[] PATTERNS = {
+    "foo",
+    "(?i)foo|bar",
+    "(?i)(new|list|days?|archive(s|d)?|fun(ny)?|corp(oration)?s?)",
+    "(?i)information (about|on).*",
+    "(?i).*(page|part|copyright) \\d+.*",
+    "(?i)(années?|général(ement)?|accueil)",
+    "a(?i:b)c",
+    "(?i)a(?-i)b(?:c|D)",
+    "[a-c]+[^x-z\\d]?\\.",
+    "[\\w-]{2,3}\\s\\S*",
+    "x{2}y{1,}z*?",
+    "\\W\\D[\\x41-\\u0044]\\t",
+    "(?i)[^b-d]\\w?",
+    ".a.",
+    "[-a]|[a-]|\\[\\]|\\{",
+    "(?i)[\\d\\s]é",
+    "(?i)FOO[X-Z]"
+  };
+
+  private static final String[] UNSUPPORTED_PATTERNS = {
+    "\\bfoo\\b", "(a)\\1", "(?<=a)b.*", "a++", "[a-z&&[^c]]x", "(?x) a b", "^ab$"
+  };
+
+  @Test
+  public void testPatternsMatchLikeRegularExpressions() {
+    List<String> patterns = new ArrayList<>();
+    Collections.addAll(patterns, PATTERNS);
+    Collections.addAll(patterns, UNSUPPORTED_PATTERNS);
+
+    CompiledLexicalData lexicalData = new CompiledLexicalData(Collections.emptySet(), patterns);
+    Pattern expected = Pattern.compile("(" + String.join(")|(", patterns) + ")");
+
+    for (int i = 0; i < 20000; i++) {
+      String label = randomLabel();
+      Assertions.assertThat(lexicalData.ignoreLabel(label))
+          .as(label)
+          .isEqualTo(expected.matcher(label).matches());
+    }
+  }
+
+  @Test
+  public void testSupportedPatternsAreCompiled() {
+    for (String pattern : PATTERNS) {
+      List<String> unsupported = new ArrayList<>();
+      StoplabelAutomaton automaton =
+          StoplabelAutomaton.compile(Collections.singletonList(pattern), unsupported);
+      Assertions.assertThat(automaton).as(pattern).isNotNull();
+      Assertions.assertThat(unsupported).as(pattern).isEmpty();
+
+      Pattern expected = Pattern.compile(pattern);
+      for (int i = 0; i < 2000; i++) {
+        String label = randomLabel();
+        Assertions.assertThat(automaton.match(label) == StoplabelAutomaton.MATCH)
+            .as(pattern + " on " + label)
+            .isEqualTo(expected.matcher(label).matches());
+      }
+    }
+
+    for (String pattern : UNSUPPORTED_PATTERNS) {
+      List<String> unsupported = new ArrayList<>();
+      Assertions.assertThat(
+              StoplabelAutomaton.compile(Collections.singletonList(pattern), unsupported))
+          .as(pattern)
+          .isNull();
+      Assertions.assertThat(unsupported).containsExactly(pattern);
+    }
+  }
+
+  @Test
+  public void testSurrogates() {
+    CompiledLexicalData lexicalData =
+        new CompiledLexicalData(Collections.emptySet(), List.of("a.b", "x[^y]"));
+    Assertions.assertThat(lexicalData.ignoreLabel("a😀b")).isTrue();
+    Assertions.assertThat(lexicalData.ignoreLabel("x😀")).isTrue();
+    Assertions.assertThat(lexicalData.ignoreLabel("a😀😀b")).isFalse();
+    Assertions.assertThat(lexicalData.ignoreLabel("axb")).isTrue();
+  }
+
+  @Test
+  public void testDefaultLexicalData() throws IOException {
+    ResourceLookup lookup = new ClassRelativeResourceLookup(DefaultLexicalDataProvider.class);
+    for (String language : DefaultStemmersProvider.STEMMER_SUPPLIERS.keySet()) {
+      String prefix = language.toLowerCase(Locale.ROOT);
+      String stopwordsResource = prefix + ".stopwords.utf8";
+      String stoplabelsResource = prefix + ".stoplabels.utf8";
+      LexicalDataImpl expected = new LexicalDataImpl(lookup, stopwordsResource, stoplabelsResource);
+      CompiledLexicalData actual =
+          new CompiledLexicalData(lookup, stopwordsResource, stoplabelsResource);
+      Assertions.assertThat(actual.isFullyCompiled()).as(language).isTrue();
+
+      List<String> words =
+          new ArrayList<>(LexicalDataImpl.loadStopwords(lookup, stopwordsResource));
+      HashSet<String> stoplabelWords = new HashSet<>();
+      for (String pattern : LexicalDataImpl.readLines(lookup, stoplabelsResource)) {
+        Collections.addAll(stoplabelWords, pattern.split("[^\\p{L}]+"));
+      }
+      words.addAll(stoplabelWords);
+      for (int i = 0; i < 100; i++) {
+        words.add(randomAsciiLettersOfLengthBetween(1, 10));
+      }
+
+      MutableCharArray buffer = new MutableCharArray("");
+      for (String word : words) {
+        buffer.reset(word);
+        Assertions.assertThat(actual.ignoreWord(buffer))
+            .as(word)
+            .isEqualTo(expected.ignoreWord(word));
+      }
+
+      for (int i = 0; i < 2000; i++) {
+        String label =
+            randomIntBetween(1, 3) == 1
+                ? randomLabel()
+                : getRandom()
+                    .ints(randomIntBetween(1, 4), 0, words.size())
+                    .mapToObj(
+                        w ->
+                            randomBoolean()
+                                ? words.get(w)
+                                : words.get(w).toUpperCase(Locale.ROOT) + randomIntBetween(0, 10))
+                    .collect(Collectors.joining(" "));
+        Assertions.assertThat(actual.ignoreLabel(label))
+            .as(language + ": " + label)
+            .isEqualTo(expected.ignoreLabel(label));
+      }
+    }
+  }
+
+  private String randomLabel() {
+    StringBuilder label = new StringBuilder();
+    String alphabet = "abcdxyzABCDXYZfoFOéÉ019 ._-{}[]\t\n\u0085";
+    for (int i = randomIntBetween(0, 8); i > 0; i--) {
+      if (randomIntBetween(0, 10) == 0) {
+        label.append(
+            randomFrom(
+                new String[] {"foo", "bar", "information on", "page 12", "archived", "fun"}));
+      } else {
+        label.append(alphabet.charAt(randomIntBetween(0, alphabet.length() - 1)));
+      }
+    }
+    return label.toString();
+  }
+}
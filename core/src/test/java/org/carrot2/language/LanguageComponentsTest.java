@@ -11,6 +11,10 @@
 package org.carrot2.language;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.assertj.core.api.Assertions;
 import org.carrot2.TestBase;
 import org.carrot2.clustering.CachedLangComponents;
@@ -55,4 +59,56 @@ public class LanguageComponentsTest extends TestBase {
     Assertions.assertThat(english.components()).contains(Runnable.class);
     english.get(Runnable.class).run();
   }
+
+  @Test
+  public void testComponentCaching() throws Exception {
+    LanguageComponents english =
+        LanguageComponents.loader()
+            .limitToLanguages("English")
+            .withComponentCaching(
+                Map.of(
+                    LexicalData.class, ComponentScope.SHARED,
+                    Tokenizer.class, ComponentScope.PER_THREAD))
+            .load()
+            .language("English");
+
+    Assertions.assertThat(english.get(LexicalData.class)).isSameAs(english.get(LexicalData.class));
+
+    Tokenizer tokenizer = english.get(Tokenizer.class);
+    Assertions.assertThat(english.get(Tokenizer.class)).isSameAs(tokenizer);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Tokenizer other = executor.submit(() -> english.get(Tokenizer.class)).get();
+      Assertions.assertThat(other).isNotSameAs(tokenizer);
+      Assertions.assertThat(executor.submit(() -> english.get(Tokenizer.class)).get())
+          .isSameAs(other);
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    // Components without an explicit scope are created on each call.
+    Assertions.assertThat(english.get(Stemmer.class)).isNotSameAs(english.get(Stemmer.class));
+
+    Assertions.assertThat(english.instanceCounts())
+        .containsEntry(LexicalData.class, 1L)
+        .containsEntry(Tokenizer.class, 2L)
+        .containsEntry(Stemmer.class, 2L);
+
+    // Overrides keep the caching suppliers (and their counts) of other components.
+    LanguageComponents overridden = english.override(Runnable.class, () -> () -> {});
+    Assertions.assertThat(overridden.get(LexicalData.class))
+        .isSameAs(english.get(LexicalData.class));
+    Assertions.assertThat(overridden.instanceCounts())
+        .containsEntry(LexicalData.class, 1L)
+        .doesNotContainKey(Runnable.class);
+  }
+
+  @Test
+  public void testNoInstanceCountsWithoutCaching() throws IOException {
+    LanguageComponents english =
+        LanguageComponents.loader().limitToLanguages("English").load().language("English");
+    Assertions.assertThat(english.get(Stemmer.class)).isNotSameAs(english.get(Stemmer.class));
+    Assertions.assertThat(english.instanceCounts()).isEmpty();
+  }
 }
@@ -0,0 +1,243 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.carrot2.TestBase;
+import org.carrot2.math.mahout.function.DoubleDoubleFunction;
+import org.carrot2.math.mahout.function.DoubleFunction;
+import org.carrot2.math.mahout.function.Functions;
+import org.carrot2.math.mahout.function.Mult;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.ArrayKernels;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseFloatMatrix2D;
+import org.junit.Test;
+
+/**
+ * Test cases for {@link ArrayKernels}. The kernels selected for this JVM must give exactly the same
+ * results as the scalar ones.
+ */
+public class ArrayKernelsTest extends TestBase {
+  private final ArrayKernels kernels = ArrayKernels.get();
+  private final ArrayKernels scalar = ArrayKernels.scalar();
+
+  @Test
+  public void testElementWiseSameAsScalar() {
+    for (int round = 0; round < 200; round++) {
+      int length = randomIntBetween(0, 100);
+      int xOffset = randomIntBetween(0, 5);
+      int yOffset = randomIntBetween(0, 5);
+      double[] x = randomArray(xOffset + length);
+      double[] y = randomArray(yOffset + length);
+      double value = getRandom().nextDouble() * 4 - 2;
+
+      double[] expected = x.clone();
+      double[] actual = x.clone();
+      switch (randomIntBetween(0, 6)) {
+        case 0:
+          scalar.add(expected, xOffset, length, value);
+          kernels.add(actual, xOffset, length, value);
+          break;
+        case 1:
+          scalar.scale(expected, xOffset, length, value);
+          kernels.scale(actual, xOffset, length, value);
+          break;
+        case 2:
+          scalar.multiply(expected, xOffset, y, yOffset, length);
+          kernels.multiply(actual, xOffset, y, yOffset, length);
+          break;
+        case 3:
+          scalar.divide(expected, xOffset, y, yOffset, length);
+          kernels.divide(actual, xOffset, y, yOffset, length);
+          break;
+        case 4:
+          scalar.axpy(value, y, yOffset, expected, xOffset, length);
+          kernels.axpy(value, y, yOffset, actual, xOffset, length);
+          break;
+        case 5:
+          {
+            double[] expectedSums = randomArray(length);
+            double[] actualSums = expectedSums.clone();
+            scalar.addSquares(x, xOffset, expectedSums, length);
+            kernels.addSquares(x, xOffset, actualSums, length);
+            assertThat(actualSums).isEqualTo(expectedSums);
+          }
+          break;
+        case 6:
+          {
+            double[] divisors = randomArray(length);
+            for (int i = 0; i < length; i++) {
+              if (randomBoolean()) {
+                divisors[i] = 0;
+              }
+            }
+            scalar.divideNonZero(expected, xOffset, divisors, length);
+            kernels.divideNonZero(actual, xOffset, divisors, length);
+          }
+          break;
+        default:
+          throw new RuntimeException();
+      }
+      assertThat(actual).as(kernels.name()).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testMultiplyRowSameAsScalar() {
+    for (int round = 0; round < 200; round++) {
+      int n = randomIntBetween(0, 30);
+      int width = randomIntBetween(0, 40);
+      int aStride = randomIntBetween(1, 3);
+      int bRowStride = width + randomIntBetween(0, 3);
+      double[] a = randomArray(1 + n * aStride);
+      double[] b = randomArray(1 + n * bRowStride + width);
+
+      double[] expected = new double[width + 2];
+      double[] actual = new double[width + 2];
+      scalar.multiplyRow(a, 1, aStride, n, b, 1, bRowStride, expected, width);
+      kernels.multiplyRow(a, 1, aStride, n, b, 1, bRowStride, actual, width);
+      assertThat(actual).as(kernels.name()).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testFloatMultiplyRowSameAsScalar() {
+    for (int round = 0; round < 200; round++) {
+      int n = randomIntBetween(0, 30);
+      int width = randomIntBetween(0, 40);
+      int aStride = randomIntBetween(1, 3);
+      int bRowStride = width + randomIntBetween(0, 3);
+      float[] a = randomFloatArray(1 + n * aStride);
+      float[] b = randomFloatArray(1 + n * bRowStride + width);
+
+      float[] expected = new float[width + 2];
+      float[] actual = new float[width + 2];
+      scalar.multiplyRow(a, 1, aStride, n, b, 1, bRowStride, expected, width);
+      kernels.multiplyRow(a, 1, aStride, n, b, 1, bRowStride, actual, width);
+      assertThat(actual).as(kernels.name()).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testFloatMatrixSameAsDouble() {
+    for (int round = 0; round < 50; round++) {
+      DoubleMatrix2D x = toFloat(randomMatrix(randomIntBetween(1, 20), randomIntBetween(1, 20)));
+      DoubleMatrix2D y = toFloat(randomMatrix(x.columns(), randomIntBetween(1, 20)));
+      DoubleMatrix2D xd = new DenseDoubleMatrix2D(x.toArray());
+      DoubleMatrix2D yd = new DenseDoubleMatrix2D(y.toArray());
+
+      MatrixAssertions.assertThat(x.zMult(y, null, 1, 0, false, false))
+          .isEquivalentTo(xd.zMult(yd, null, 1, 0, false, false), 1e-4);
+      MatrixAssertions.assertThat(y.zMult(x, null, 1, 0, true, true))
+          .isEquivalentTo(yd.zMult(xd, null, 1, 0, true, true), 1e-4);
+      MatrixAssertions.assertThat(x.zMult(yd, null, 1, 0, false, false))
+          .isEquivalentTo(xd.zMult(y, null, 1, 0, false, false), 1e-4);
+
+      // Views and selections share the same elements.
+      int[] rows = {x.rows() - 1, 0};
+      DoubleMatrix2D selection = x.viewDice().viewSelection(null, rows).copy();
+      assertThat(selection).isInstanceOf(DenseFloatMatrix2D.class);
+      assertThat(selection.toArray()).isEqualTo(xd.viewDice().viewSelection(null, rows).toArray());
+
+      x.viewColumn(0).assign(1);
+      xd.viewColumn(0).assign(1);
+      x.viewRow(0).assign(2);
+      xd.viewRow(0).assign(2);
+      assertThat(x.toArray()).isEqualTo(xd.toArray());
+    }
+  }
+
+  @Test
+  public void testDenseAssignSameAsGeneric() {
+    DoubleFunction[] functions = {Mult.mult(getRandom().nextDouble()), Functions.plus(0.5)};
+    DoubleDoubleFunction[] doubleFunctions = {
+      Functions.MULT, Functions.DIV, Functions.PLUS, Functions.MINUS, Functions.plusMult(0.3)
+    };
+
+    for (int round = 0; round < 50; round++) {
+      DoubleMatrix2D x = randomMatrix(randomIntBetween(1, 20), randomIntBetween(1, 20));
+      DoubleMatrix2D y = randomMatrix(x.rows(), x.columns());
+
+      for (DoubleFunction f : functions) {
+        double[][] expected = x.toArray();
+        for (double[] row : expected) {
+          for (int column = 0; column < row.length; column++) {
+            row[column] = f.apply(row[column]);
+          }
+        }
+        DoubleMatrix2D actual = x.copy();
+        actual.assign(f);
+        assertThat(actual.toArray()).isEqualTo(expected);
+      }
+
+      for (DoubleDoubleFunction f : doubleFunctions) {
+        double[][] expected = x.toArray();
+        for (int row = 0; row < x.rows(); row++) {
+          for (int column = 0; column < x.columns(); column++) {
+            expected[row][column] = f.apply(expected[row][column], y.getQuick(row, column));
+          }
+        }
+        DoubleMatrix2D actual = x.copy();
+        actual.assign(y, f);
+        assertThat(actual.toArray()).isEqualTo(expected);
+      }
+
+      // Generic normalization of a transposed view.
+      DoubleMatrix2D expected = x.viewDice().copy().viewDice();
+      DoubleMatrix2D actual = x.copy();
+      MatrixUtils.normalizeColumnL2(expected, null);
+      MatrixUtils.normalizeColumnL2(actual, null);
+      assertThat(actual.toArray()).isEqualTo(expected.toArray());
+
+      expected = x.viewDice().copy().viewDice();
+      actual = x.copy();
+      MatrixUtils.normalizeColumnL1(expected, null);
+      MatrixUtils.normalizeColumnL1(actual, null);
+      assertThat(actual.toArray()).isEqualTo(expected.toArray());
+    }
+  }
+
+  private double[] randomArray(int length) {
+    double[] array = new double[length];
+    for (int i = 0; i < length; i++) {
+      array[i] = getRandom().nextDouble() * 4 - 2;
+    }
+    return array;
+  }
+
+  private float[] randomFloatArray(int length) {
+    float[] array = new float[length];
+    for (int i = 0; i < length; i++) {
+      array[i] = getRandom().nextFloat() * 4 - 2;
+    }
+    return array;
+  }
+
+  private DoubleMatrix2D toFloat(DoubleMatrix2D matrix) {
+    DoubleMatrix2D floatMatrix = new DenseFloatMatrix2D(matrix.rows(), matrix.columns());
+    floatMatrix.assign(matrix);
+    return floatMatrix;
+  }
+
+  private DoubleMatrix2D randomMatrix(int rows, int columns) {
+    DoubleMatrix2D matrix = new DenseDoubleMatrix2D(rows, columns);
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        if (randomIntBetween(0, 5) > 0) {
+          matrix.setQuick(row, column, getRandom().nextDouble() * 2 - 1);
+        }
+      }
+    }
+    return matrix;
+  }
+}
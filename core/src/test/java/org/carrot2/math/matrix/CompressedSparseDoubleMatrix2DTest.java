@@ -0,0 +1,211 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import org.carrot2.TestBase;
+import org.carrot2.math.mahout.function.Functions;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedSparseDoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.junit.Test;
+
+/** Test cases for {@link CompressedSparseDoubleMatrix2D}. */
+public class CompressedSparseDoubleMatrix2DTest extends TestBase {
+  @Test
+  public void testElementsAndViews() {
+    for (int round = 0; round < 50; round++) {
+      DoubleMatrix2D dense = randomDense();
+      CompressedSparseDoubleMatrix2D sparse = compress(dense, randomBoolean());
+
+      assertEqual(sparse, dense);
+      assertEqual(sparse.viewDice(), dense.viewDice());
+      assertEqual(sparse.copy(), dense);
+      assertThat(sparse.cardinality()).isEqualTo(dense.cardinality());
+      if (dense.rows() > 1 && dense.columns() > 1) {
+        assertEqual(
+            sparse.viewPart(1, 1, dense.rows() - 1, 1), dense.viewPart(1, 1, dense.rows() - 1, 1));
+        assertThat(sparse.viewColumn(1).toArray()).isEqualTo(dense.viewColumn(1).toArray());
+        assertThat(sparse.viewRow(1).toArray()).isEqualTo(dense.viewRow(1).toArray());
+      }
+
+      sparse.assign(Functions.mult(2));
+      dense.assign(Functions.mult(2));
+      assertEqual(sparse, dense);
+
+      sparse.forEachNonZero((row, column, value) -> value + 1);
+      dense.forEachNonZero((row, column, value) -> value + 1);
+      assertEqual(sparse, dense);
+    }
+  }
+
+  @Test
+  public void testSetQuick() {
+    CompressedSparseDoubleMatrix2D sparse =
+        CompressedSparseDoubleMatrix2D.ofRows(
+            2, 3, new int[] {0, 1, 2}, new int[] {2, 0}, new double[] {1, 2});
+
+    sparse.setQuick(0, 2, 5);
+    sparse.setQuick(0, 0, 0);
+    assertThat(sparse.toArray()).isEqualTo(new double[][] {{0, 0, 5}, {2, 0, 0}});
+    assertThatThrownBy(() -> sparse.setQuick(1, 1, 1))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  public void testMultiplicationSameAsDense() {
+    for (int round = 0; round < 50; round++) {
+      DoubleMatrix2D dense = randomDense();
+      CompressedSparseDoubleMatrix2D sparse = compress(dense, randomBoolean());
+      DoubleMatrix2D B = randomDense(dense.columns(), randomIntBetween(1, 5));
+      DoubleMatrix2D BT = randomDense(dense.rows(), randomIntBetween(1, 5));
+
+      // Products are summed in the same order as in the generic implementation,
+      // so the results must be identical.
+      assertThat(sparse.zMult(B, null, 1, 0, false, false).toArray())
+          .isEqualTo(multiply(dense, B, 1, null, 0));
+      assertThat(sparse.zMult(BT, null, 1, 0, true, false).toArray())
+          .isEqualTo(multiply(dense.viewDice(), BT, 1, null, 0));
+      assertThat(sparse.zMult(B.viewDice(), null, 1, 0, false, true).toArray())
+          .isEqualTo(multiply(dense, B, 1, null, 0));
+
+      DoubleMatrix2D C = randomDense(dense.rows(), B.columns());
+      double[][] expected = multiply(dense, B, 0.5, C, 2);
+      sparse.zMult(B, C, 0.5, 2, false, false);
+      assertThat(C.toArray()).isEqualTo(expected);
+
+      // Dense by sparse multiplication.
+      DoubleMatrix2D U = randomDense(dense.rows(), randomIntBetween(1, 5));
+      assertThat(U.zMult(sparse, null, 1, 0, true, false).toArray())
+          .isEqualTo(multiply(U.viewDice(), dense, 1, null, 0));
+
+      // Matrix by vector multiplication.
+      DoubleMatrix2D y = B.viewPart(0, 0, B.rows(), 1);
+      assertThat(sparse.zMult(y.viewColumn(0), null, 1, 0, false).toArray())
+          .isEqualTo(
+              new DenseDoubleMatrix2D(multiply(dense, y, 1, null, 0)).viewColumn(0).toArray());
+
+      DoubleMatrix2D yT = BT.viewPart(0, 0, BT.rows(), 1);
+      DoubleMatrix2D z = new DenseDoubleMatrix2D(dense.columns(), 1).assign(1);
+      expected = multiply(dense.viewDice(), yT, 0.5, z, 1);
+      sparse.zMult(yT.viewColumn(0), z.viewColumn(0), 0.5, 1, true);
+      assertThat(z.toArray()).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testNormalizeColumnL2SameAsDense() {
+    for (int round = 0; round < 50; round++) {
+      DoubleMatrix2D dense = randomDense();
+      CompressedSparseDoubleMatrix2D sparse = compress(dense, randomBoolean());
+
+      double[] expectedNorms = new double[dense.columns()];
+      double[] norms = new double[dense.columns()];
+      MatrixUtils.normalizeColumnL2(dense, expectedNorms);
+      MatrixUtils.normalizeColumnL2(sparse, norms);
+
+      assertThat(norms).isEqualTo(expectedNorms);
+      assertEqual(sparse, dense);
+    }
+  }
+
+  @Test
+  public void testSampledQuotient() {
+    for (int round = 0; round < 50; round++) {
+      DoubleMatrix2D dense = randomDense();
+      CompressedSparseDoubleMatrix2D sparse = compress(dense, randomBoolean());
+      DoubleMatrix2D U = randomDense(dense.rows(), randomIntBetween(1, 5));
+      DoubleMatrix2D V = randomDense(dense.columns(), U.columns());
+      DoubleMatrix2D UV = U.zMult(V, null, 1, 0, false, true);
+
+      CompressedSparseDoubleMatrix2D quotient = sparse.likeStructure();
+      quotient.assignSampledQuotient(sparse, U, V, 1e-9);
+      for (int row = 0; row < dense.rows(); row++) {
+        for (int column = 0; column < dense.columns(); column++) {
+          double expected =
+              dense.getQuick(row, column) == 0
+                  ? 0
+                  : dense.getQuick(row, column) / (UV.getQuick(row, column) + 1e-9);
+          assertThat(quotient.getQuick(row, column))
+              .isCloseTo(expected, within(Math.abs(expected) * 1e-9));
+        }
+      }
+    }
+  }
+
+  private DoubleMatrix2D randomDense() {
+    return randomDense(randomIntBetween(1, 20), randomIntBetween(1, 20));
+  }
+
+  private DoubleMatrix2D randomDense(int rows, int columns) {
+    DoubleMatrix2D matrix = new DenseDoubleMatrix2D(rows, columns);
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        if (randomIntBetween(0, 3) == 0) {
+          matrix.setQuick(row, column, getRandom().nextDouble() * 2 - 0.5);
+        }
+      }
+    }
+    return matrix;
+  }
+
+  private static CompressedSparseDoubleMatrix2D compress(DoubleMatrix2D matrix, boolean byRows) {
+    DoubleMatrix2D source = byRows ? matrix : matrix.viewDice();
+    int[] pointers = new int[source.rows() + 1];
+    IntArrayList indexes = new IntArrayList();
+    DoubleArrayList values = new DoubleArrayList();
+    for (int major = 0; major < source.rows(); major++) {
+      for (int minor = 0; minor < source.columns(); minor++) {
+        if (source.getQuick(major, minor) != 0) {
+          indexes.add(minor);
+          values.add(source.getQuick(major, minor));
+        }
+      }
+      pointers[major + 1] = indexes.size();
+    }
+
+    if (byRows) {
+      return CompressedSparseDoubleMatrix2D.ofRows(
+          matrix.rows(), matrix.columns(), pointers, indexes.toArray(), values.toArray());
+    } else {
+      return CompressedSparseDoubleMatrix2D.ofColumns(
+          matrix.rows(), matrix.columns(), pointers, indexes.toArray(), values.toArray());
+    }
+  }
+
+  /**
+   * Computes <code>alpha * A * B + beta * C</code>, summing products in the same order as {@link
+   * DoubleMatrix2D#zMult(DoubleMatrix2D, DoubleMatrix2D, double, double, boolean, boolean)}.
+   */
+  private static double[][] multiply(
+      DoubleMatrix2D A, DoubleMatrix2D B, double alpha, DoubleMatrix2D C, double beta) {
+    double[][] result = new double[A.rows()][B.columns()];
+    for (int i = 0; i < A.rows(); i++) {
+      for (int j = 0; j < B.columns(); j++) {
+        double s = 0;
+        for (int k = A.columns(); --k >= 0; ) {
+          s += A.getQuick(i, k) * B.getQuick(k, j);
+        }
+        result[i][j] = alpha * s + (C == null ? 0 : beta * C.getQuick(i, j));
+      }
+    }
+    return result;
+  }
+
+  private static void assertEqual(DoubleMatrix2D actual, DoubleMatrix2D expected) {
+    assertThat(actual.rows()).isEqualTo(expected.rows());
+    assertThat(actual.columns()).isEqualTo(expected.columns());
+    assertThat(actual.toArray()).isEqualTo(expected.toArray());
+  }
+}
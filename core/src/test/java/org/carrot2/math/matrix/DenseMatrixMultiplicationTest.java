@@ -0,0 +1,119 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.carrot2.TestBase;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.junit.After;
+import org.junit.Test;
+
+/** Test cases for multiplication of {@link DenseDoubleMatrix2D} matrices. */
+public class DenseMatrixMultiplicationTest extends TestBase {
+  @After
+  public void restoreThreshold() {
+    DenseDoubleMatrix2D.setParallelMultiplicationThreshold(
+        DenseDoubleMatrix2D.DEFAULT_PARALLEL_MULTIPLICATION_THRESHOLD);
+  }
+
+  @Test
+  public void testSequentialAndParallelSameAsReference() {
+    for (int round = 0; round < 100; round++) {
+      int m = randomIntBetween(1, 150);
+      int n = randomIntBetween(0, 40);
+      int p = randomIntBetween(1, 60);
+      boolean transposeA = randomBoolean();
+      boolean transposeB = randomBoolean();
+      double alpha = randomBoolean() ? 1 : getRandom().nextDouble();
+      double beta = randomBoolean() ? 0 : getRandom().nextDouble();
+
+      DoubleMatrix2D A = randomMatrix(m, n, transposeA);
+      DoubleMatrix2D B = randomMatrix(n, p, transposeB);
+      DoubleMatrix2D C = randomMatrix(m, p, false);
+      double[][] expected = multiply(A, B, alpha, C, beta);
+
+      // Operands passed as transposed views.
+      DoubleMatrix2D AA = transposeA ? A.viewDice() : A;
+      DoubleMatrix2D BB = transposeB ? B.viewDice() : B;
+
+      for (long threshold : new long[] {Long.MAX_VALUE, 1, randomIntBetween(1, 10000)}) {
+        DenseDoubleMatrix2D.setParallelMultiplicationThreshold(threshold);
+        DoubleMatrix2D result = C.copy();
+        AA.zMult(BB, result, alpha, beta, transposeA, transposeB);
+        assertThat(result.toArray()).as("threshold: " + threshold).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  public void testViews() {
+    DenseDoubleMatrix2D.setParallelMultiplicationThreshold(1);
+    for (int round = 0; round < 50; round++) {
+      DoubleMatrix2D A = randomMatrix(randomIntBetween(3, 60), randomIntBetween(3, 30), false);
+      DoubleMatrix2D B = randomMatrix(A.columns(), randomIntBetween(3, 30), randomBoolean());
+
+      DoubleMatrix2D APart = A.viewPart(1, 1, A.rows() - 2, A.columns() - 2);
+      DoubleMatrix2D BPart = B.viewPart(1, 1, B.rows() - 2, B.columns() - 2);
+      assertThat(APart.zMult(BPart, null, 1, 0, false, false).toArray())
+          .isEqualTo(multiply(APart, BPart, 1, null, 0));
+    }
+  }
+
+  @Test
+  public void testInvalidThreshold() {
+    assertThatThrownBy(() -> DenseDoubleMatrix2D.setParallelMultiplicationThreshold(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /** Returns a random matrix, optionally stored as a transposed view of another matrix. */
+  private DoubleMatrix2D randomMatrix(int rows, int columns, boolean transposed) {
+    DoubleMatrix2D matrix =
+        transposed
+            ? new DenseDoubleMatrix2D(columns, rows).viewDice()
+            : new DenseDoubleMatrix2D(rows, columns);
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        matrix.setQuick(row, column, getRandom().nextDouble() * 2 - 1);
+      }
+    }
+    return matrix;
+  }
+
+  /**
+   * Computes <code>alpha * A * B + beta * C</code>, summing products in the same order as the
+   * unrolled loops of {@link DenseDoubleMatrix2D}.
+   */
+  private static double[][] multiply(
+      DoubleMatrix2D A, DoubleMatrix2D B, double alpha, DoubleMatrix2D C, double beta) {
+    int n = A.columns();
+    double[][] result = new double[A.rows()][B.columns()];
+    for (int i = 0; i < A.rows(); i++) {
+      for (int j = 0; j < B.columns(); j++) {
+        double s = 0;
+        int k = 0;
+        for (; k < n % 4; k++) {
+          s += A.getQuick(i, k) * B.getQuick(k, j);
+        }
+        for (; k < n; k += 4) {
+          s +=
+              A.getQuick(i, k) * B.getQuick(k, j)
+                  + A.getQuick(i, k + 1) * B.getQuick(k + 1, j)
+                  + A.getQuick(i, k + 2) * B.getQuick(k + 2, j)
+                  + A.getQuick(i, k + 3) * B.getQuick(k + 3, j);
+        }
+        result[i][j] = alpha * s + (C == null ? 0 : beta * C.getQuick(i, j));
+      }
+    }
+    return result;
+  }
+}
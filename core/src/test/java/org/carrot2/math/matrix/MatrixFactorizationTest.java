@@ -10,9 +10,14 @@
  */
 package org.carrot2.math.matrix;
 
+import java.util.Arrays;
+import java.util.Random;
 import org.carrot2.TestBase;
+import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedSparseDoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseFloatMatrix2D;
 import org.junit.Test;
 
 /** Test cases for matrix factorizations. */
@@ -74,6 +79,58 @@ public class MatrixFactorizationTest extends TestBase {
     org.junit.Assert.assertArrayEquals(expectedS, factorization.getSingularValues(), DELTA);
   }
 
+  @Test
+  public void testRandomizedSVD() {
+    RandomizedSingularValueDecompositionFactory factory =
+        new RandomizedSingularValueDecompositionFactory();
+    factory.setK(2);
+
+    RandomizedSingularValueDecomposition factorization =
+        (RandomizedSingularValueDecomposition) factory.factorize(A);
+    PartialSingularValueDecomposition expected =
+        (PartialSingularValueDecomposition)
+            new PartialSingularValueDecompositionFactory().factorize(A);
+
+    org.junit.Assert.assertArrayEquals(
+        Arrays.copyOf(expected.getSingularValues(), 2), factorization.getSingularValues(), DELTA);
+    checkUpToSign(expected.getU().viewPart(0, 0, A.rows(), 2), factorization.getU());
+    checkUpToSign(expected.getV().viewPart(0, 0, A.columns(), 2), factorization.getV());
+  }
+
+  @Test
+  public void testRandomizedSVDLowRank() {
+    // A 120x80 matrix of rank 6 with some noise
+    Random random = new Random(randomLong());
+    DoubleMatrix2D lowRank = new DenseDoubleMatrix2D(120, 80);
+    for (int i = 0; i < 6; i++) {
+      DoubleMatrix2D u = new DenseDoubleMatrix2D(120, 1);
+      DoubleMatrix2D v = new DenseDoubleMatrix2D(80, 1);
+      u.assign(x -> random.nextGaussian());
+      v.assign(x -> random.nextGaussian());
+      u.zMult(v, lowRank, 10.0 / (i + 1), 1, false, true);
+    }
+    lowRank.assign(x -> x + random.nextGaussian() * 1e-3);
+
+    RandomizedSingularValueDecompositionFactory factory =
+        new RandomizedSingularValueDecompositionFactory();
+    factory.setK(4);
+    factory.seed.set(random.nextInt());
+
+    RandomizedSingularValueDecomposition factorization =
+        (RandomizedSingularValueDecomposition) factory.factorize(lowRank);
+    PartialSingularValueDecomposition expected =
+        (PartialSingularValueDecomposition)
+            new PartialSingularValueDecompositionFactory().factorize(lowRank);
+
+    double[] expectedS = Arrays.copyOf(expected.getSingularValues(), 4);
+    org.junit.Assert.assertArrayEquals(expectedS, factorization.getSingularValues(), 1e-6);
+    checkUpToSign(expected.getU().viewPart(0, 0, lowRank.rows(), 4), factorization.getU());
+
+    // Same seed, same results.
+    org.junit.Assert.assertArrayEquals(
+        factorization.getU().toArray(), factory.factorize(lowRank).getU().toArray());
+  }
+
   @Test
   public void testUnorderedNMFED() {
     DoubleMatrix2D expectedU =
@@ -214,6 +271,146 @@ public class MatrixFactorizationTest extends TestBase {
     checkIterative(expectedU, expectedV, new LocalNonnegativeMatrixFactorizationFactory());
   }
 
+  @Test
+  public void testSinglePrecision() {
+    DoubleMatrix2D floatA = new DenseFloatMatrix2D(A.rows(), A.columns());
+    floatA.assign(A);
+
+    NonnegativeMatrixFactorizationEDFactory ordered = new NonnegativeMatrixFactorizationEDFactory();
+    ordered.setOrdered(true);
+    IterativeMatrixFactorizationFactory[] factories = {
+      ordered,
+      new NonnegativeMatrixFactorizationKLFactory(),
+      new LocalNonnegativeMatrixFactorizationFactory(),
+      new KMeansMatrixFactorizationFactory()
+    };
+
+    for (IterativeMatrixFactorizationFactory factory : factories) {
+      factory.setK(K);
+      factory.setMaxIterations(MAX_ITERATIONS);
+      factory.setStopThreshold(STOP_THRESHOLD);
+      factory.setSeedingFactory(ConstantSeedingStrategyFactory.INSTANCE);
+
+      MatrixFactorization expected = factory.factorize(A);
+      MatrixFactorization actual = factory.factorize(floatA);
+
+      String name = factory.getClass().getSimpleName();
+      org.junit.Assert.assertEquals(MatrixPrecision.FLOAT, MatrixPrecision.of(actual.getU()));
+      MatrixAssertions.assertThat(actual.getU())
+          .as(name + " U")
+          .isEquivalentTo(expected.getU(), 1e-3);
+      MatrixAssertions.assertThat(actual.getV())
+          .as(name + " V")
+          .isEquivalentTo(expected.getV(), 1e-3);
+    }
+  }
+
+  @Test
+  public void testSparseKullbackLeibler() {
+    int[] rowPointers = new int[A.rows() + 1];
+    int[] columnIndexes = new int[A.cardinality()];
+    double[] values = new double[A.cardinality()];
+    for (int row = 0, i = 0; row < A.rows(); row++) {
+      for (int column = 0; column < A.columns(); column++) {
+        if (A.getQuick(row, column) != 0) {
+          columnIndexes[i] = column;
+          values[i++] = A.getQuick(row, column);
+        }
+      }
+      rowPointers[row + 1] = i;
+    }
+    DoubleMatrix2D sparseA =
+        CompressedSparseDoubleMatrix2D.ofRows(
+            A.rows(), A.columns(), rowPointers, columnIndexes, values);
+
+    IterativeMatrixFactorizationFactory[] factories = {
+      new NonnegativeMatrixFactorizationKLFactory(),
+      new LocalNonnegativeMatrixFactorizationFactory()
+    };
+
+    for (IterativeMatrixFactorizationFactory factory : factories) {
+      factory.setK(K);
+      factory.setMaxIterations(MAX_ITERATIONS);
+      factory.setStopThreshold(STOP_THRESHOLD);
+      factory.setSeedingFactory(ConstantSeedingStrategyFactory.INSTANCE);
+
+      MatrixFactorization expected = factory.factorize(A);
+      MatrixFactorization actual = factory.factorize(sparseA);
+
+      String name = factory.getClass().getSimpleName();
+      MatrixAssertions.assertThat(actual.getU())
+          .as(name + " U")
+          .isEquivalentTo(expected.getU(), 1e-3);
+      MatrixAssertions.assertThat(actual.getV())
+          .as(name + " V")
+          .isEquivalentTo(expected.getV(), 1e-3);
+    }
+  }
+
+  @Test
+  public void testApproximationError() {
+    NonnegativeMatrixFactorizationEDFactory factory = new NonnegativeMatrixFactorizationEDFactory();
+    factory.setK(K);
+    factory.setMaxIterations(MAX_ITERATIONS);
+    factory.setStopThreshold(STOP_THRESHOLD);
+
+    IterativeMatrixFactorizationBase factorization =
+        (IterativeMatrixFactorizationBase) factory.factorize(A);
+    double expected =
+        MatrixUtils.frobeniusNorm(
+            factorization
+                .getU()
+                .zMult(factorization.getV(), null, 1, 0, false, true)
+                .assign(A, Functions.MINUS));
+    org.junit.Assert.assertEquals(expected, factorization.getApproximationError(), 1e-9);
+  }
+
+  @Test
+  public void testConvergenceThreshold() {
+    IterativeMatrixFactorizationFactory[] factories = {
+      new NonnegativeMatrixFactorizationEDFactory(),
+      new NonnegativeMatrixFactorizationKLFactory(),
+      new LocalNonnegativeMatrixFactorizationFactory(),
+      new KMeansMatrixFactorizationFactory()
+    };
+
+    for (IterativeMatrixFactorizationFactory factory : factories) {
+      factory.setK(K);
+      factory.setMaxIterations(1000);
+      factory.setConvergenceThreshold(1e-4);
+
+      IterativeMatrixFactorizationBase factorization =
+          (IterativeMatrixFactorizationBase) factory.factorize(A);
+      String name = factory.getClass().getSimpleName();
+      org.assertj.core.api.Assertions.assertThat(factorization.getIterationsCompleted())
+          .as(name)
+          .isLessThan(1000);
+      org.assertj.core.api.Assertions.assertThat(factorization.getRelativeChange())
+          .as(name)
+          .isLessThan(1e-4);
+    }
+  }
+
+  @Test
+  public void testWarmStart() {
+    NonnegativeMatrixFactorizationEDFactory factory = new NonnegativeMatrixFactorizationEDFactory();
+    factory.setK(K);
+    factory.setMaxIterations(1000);
+    factory.setConvergenceThreshold(1e-4);
+    factory.setOrdered(false);
+
+    MatrixFactorization previous = factory.factorize(A.viewPart(0, 0, A.rows(), A.columns() - 1));
+
+    IterativeMatrixFactorizationBase cold = (IterativeMatrixFactorizationBase) factory.factorize(A);
+    factory.setSeedingFactory(new WarmStartSeedingStrategyFactory(previous));
+    IterativeMatrixFactorizationBase warm = (IterativeMatrixFactorizationBase) factory.factorize(A);
+
+    org.assertj.core.api.Assertions.assertThat(warm.getIterationsCompleted())
+        .isLessThan(cold.getIterationsCompleted());
+    MatrixAssertions.assertThat(warm.getU()).isEquivalentTo(cold.getU(), 1e-2);
+    MatrixAssertions.assertThat(warm.getV()).isEquivalentTo(cold.getV(), 1e-2);
+  }
+
   private MatrixFactorization checkIterative(
       DoubleMatrix2D expectedU,
       DoubleMatrix2D expectedV,
@@ -236,6 +433,17 @@ public class MatrixFactorizationTest extends TestBase {
     MatrixAssertions.assertThat(factorization.getV()).as("V").isEquivalentTo(expectedV, DELTA);
   }
 
+  private void checkUpToSign(DoubleMatrix2D expected, DoubleMatrix2D actual) {
+    DoubleMatrix2D signed = actual.copy();
+    for (int c = 0; c < signed.columns(); c++) {
+      double dot = expected.viewColumn(c).zDotProduct(actual.viewColumn(c));
+      if (dot < 0) {
+        signed.viewColumn(c).assign(v -> -v);
+      }
+    }
+    MatrixAssertions.assertThat(signed).isEquivalentTo(expected, DELTA);
+  }
+
   /** Returns constant matrices of fixed size */
   static class ConstantSeedingStrategyFactory implements SeedingStrategyFactory {
     static ConstantSeedingStrategyFactory INSTANCE = new ConstantSeedingStrategyFactory();
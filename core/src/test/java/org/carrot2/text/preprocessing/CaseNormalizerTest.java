@@ -12,10 +12,12 @@ package org.carrot2.text.preprocessing;
 
 import static org.carrot2.text.preprocessing.PreprocessingContextAssert.*;
 
+import com.carrotsearch.hppc.sorting.IndirectSort;
 import org.assertj.core.api.Assertions;
 import org.carrot2.TestBase;
 import org.carrot2.clustering.CachedLangComponents;
 import org.carrot2.language.Tokenizer;
+import org.carrot2.util.CharArrayComparators;
 import org.junit.Test;
 
 /** Test cases for {@link CaseNormalizer}. */
@@ -245,4 +247,32 @@ public class CaseNormalizerTest extends TestBase {
         .withExactDocumentTfs(new int[][] {{1, 1}, {2, 2}});
     Assertions.assertThat(ctx.allWords.image.length).isEqualTo(3);
   }
+
+  @Test
+  public void testTokenImagesOrderSameAsStableSort() {
+    String[] vocabulary = {"a", "A", "ab", "Ab", "aB", "ba", "é", "É", "xyz", "XYZ", "b"};
+    for (int round = 0; round < 100; round++) {
+      char[][] interned = new char[vocabulary.length][];
+      char[][] images = new char[randomIntBetween(0, 200)][];
+      for (int i = 0; i < images.length; i++) {
+        if (randomIntBetween(0, 5) == 0) {
+          continue;
+        }
+        int word = randomIntBetween(0, vocabulary.length - 1);
+        if (interned[word] == null || randomIntBetween(0, 10) == 0) {
+          // Some equal images are different arrays.
+          interned[word] = vocabulary[word].toCharArray();
+        }
+        images[i] = interned[word];
+      }
+
+      Assertions.assertThat(CaseNormalizer.sortTokenImages(images))
+          .isEqualTo(
+              IndirectSort.mergesort(
+                  images,
+                  0,
+                  images.length,
+                  CharArrayComparators.NORMALIZING_CHAR_ARRAY_COMPARATOR));
+    }
+  }
 }
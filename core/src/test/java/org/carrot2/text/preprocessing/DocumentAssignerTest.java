@@ -168,7 +168,7 @@ public class DocumentAssignerTest extends LabelFilterTestBase {
         .as("allLabels.documentIndices")
         .hasSize(expectedDocumentIndices.length);
     for (int i = 0; i < expectedDocumentIndices.length; i++) {
-      assertThat(context.allLabels.documentIndices[i].asIntLookupContainer().toArray())
+      assertThat(context.allLabels.documentIndices[i].toArray())
           .as("allLabels.documentIndices[" + i + "]")
           .isEqualTo(expectedDocumentIndices[i]);
     }
@@ -89,6 +89,20 @@ public class PhraseExtractorTest extends TestBase {
     assertThat(a.phraseImages().size()).isEqualTo(6);
   }
 
+  @Test
+  public void testTfByDocumentSortedByDocument() {
+    PreprocessingContextAssert a =
+        contextBuilder
+            .newDoc("a b", "x")
+            .newDoc("a b", "a b")
+            .newDoc("y", "a b")
+            .buildContextAssert(new CompletePreprocessingPipeline());
+
+    a.containsPhrase("a", "b").withTf(4);
+    assertThat(a.phraseImages().size()).isEqualTo(1);
+    assertThat(a.context.allPhrases.tfByDocument[0]).containsExactly(0, 1, 1, 2, 2, 1);
+  }
+
   @Test
   public void testNestedPhrases() {
     PreprocessingContextAssert a =
@@ -0,0 +1,123 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.carrot2.TestBase;
+import org.carrot2.clustering.CachedLangComponents;
+import org.carrot2.language.LanguageComponents;
+import org.carrot2.language.Stemmer;
+import org.carrot2.util.MutableCharArray;
+import org.junit.Test;
+
+public class StemCacheTest extends TestBase {
+  @Test
+  public void testConcurrentStemmingSameAsStemmer() throws Exception {
+    LanguageComponents english = CachedLangComponents.loadCached("English");
+    List<String> words = new ArrayList<>();
+    for (int i = randomIntBetween(50, 200); i > 0; i--) {
+      String word = randomAsciiLettersOfLengthBetween(1, 8).toLowerCase(Locale.ROOT);
+      words.add(word + randomFrom(new String[] {"", "s", "ing", "ed", "ation"}));
+    }
+
+    StemCache stemCache = new StemCache(randomIntBetween(5, 40), randomIntBetween(1, 8));
+    int threads = randomIntBetween(2, 6);
+    int callsPerThread = 5000;
+    long seed = randomLong();
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        final long threadSeed = seed + t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  Stemmer stemmer = english.get(Stemmer.class);
+                  Random rnd = new Random(threadSeed);
+                  MutableCharArray buffer = new MutableCharArray("");
+                  for (int i = 0; i < callsPerThread; i++) {
+                    String word = words.get(rnd.nextInt(words.size()));
+                    buffer.reset(word);
+                    CharSequence stemmed = stemmer.stem(buffer);
+                    String expected = stemmed == null ? null : stemmed.toString();
+                    char[] stem = stemCache.stem(buffer, stemmer);
+                    if (expected == null) {
+                      assertThat(stem).as(word).isNull();
+                    } else {
+                      assertThat(new String(stem)).as(word).isEqualTo(expected);
+                    }
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+    }
+
+    assertThat(stemCache.hits() + stemCache.misses()).isEqualTo((long) threads * callsPerThread);
+    assertThat(stemCache.size()).isLessThanOrEqualTo(stemCache.maxSize());
+    assertThat(stemCache.hits()).isGreaterThan(0);
+  }
+
+  @Test
+  public void testReferencedEntriesGetSecondChance() {
+    AtomicInteger stemmerCalls = new AtomicInteger();
+    Stemmer stemmer =
+        word -> {
+          stemmerCalls.incrementAndGet();
+          return word.length() > 1 ? word.subSequence(0, word.length() - 1) : null;
+        };
+
+    StemCache stemCache = new StemCache(2, 1);
+
+    assertThat(new String(stemCache.stem(chars("abc"), stemmer))).isEqualTo("ab");
+    assertThat(stemCache.stem(chars("x"), stemmer)).isNull();
+    // Reference "abc", then insert a third word: "x" should be evicted.
+    assertThat(new String(stemCache.stem(chars("abc"), stemmer))).isEqualTo("ab");
+    assertThat(new String(stemCache.stem(chars("def"), stemmer))).isEqualTo("de");
+    assertThat(stemCache.evictions()).isEqualTo(1);
+    assertThat(stemCache.size()).isEqualTo(2);
+    assertThat(stemmerCalls.get()).isEqualTo(3);
+
+    assertThat(new String(stemCache.stem(chars("abc"), stemmer))).isEqualTo("ab");
+    assertThat(stemmerCalls.get()).isEqualTo(3);
+    assertThat(stemCache.stem(chars("x"), stemmer)).isNull();
+    assertThat(stemmerCalls.get()).isEqualTo(4);
+
+    assertThat(stemCache.hits()).isEqualTo(2);
+    assertThat(stemCache.misses()).isEqualTo(4);
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThatThrownBy(() -> new StemCache(0)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new StemCache(10, 0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static MutableCharArray chars(String word) {
+    return new MutableCharArray(word);
+  }
+}
@@ -32,19 +32,20 @@ public class SubstringComparatorTest extends TestBase {
 
     final int substrLength = 3;
     final int maxFrom = tokensWordIndex.length - substrLength;
-    List<Substring> substrings = new ArrayList<>();
+    List<int[]> substrings = new ArrayList<>();
     for (int i = 0; i < iterations(500, 2000); i++)
-      substrings.add(new Substring(i, i % maxFrom, (i + substrLength) % maxFrom, 1));
+      substrings.add(new int[] {i % maxFrom, (i + substrLength) % maxFrom});
 
-    Collections.sort(substrings, new SubstringComparator(tokensWordIndex, wordsStemIndex));
+    final SubstringComparator comparator = new SubstringComparator(tokensWordIndex, wordsStemIndex);
+    Collections.sort(substrings, (a, b) -> comparator.compare(a[0], a[1], b[0], b[1]));
   }
 
   @Test
   public void testComparatorContract() {
     int[] tokensWordIndex = new int[2];
     int[] wordsStemIndex = new int[1];
-    Substring a = new Substring(0, 0, 1, 0);
 
-    Assert.assertEquals(0, new SubstringComparator(tokensWordIndex, wordsStemIndex).compare(a, a));
+    Assert.assertEquals(
+        0, new SubstringComparator(tokensWordIndex, wordsStemIndex).compare(0, 1, 0, 1));
   }
 }
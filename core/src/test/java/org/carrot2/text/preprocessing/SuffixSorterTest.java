@@ -10,6 +10,8 @@
  */
 package org.carrot2.text.preprocessing;
 
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.assertj.core.api.Assertions;
 import org.carrot2.TestBase;
@@ -22,10 +24,7 @@ import org.junit.Test;
 
 /** Test cases for {@link SuffixSorter}. */
 public class SuffixSorterTest extends TestBase {
-  /** Suffix sorter under tests */
-  private SuffixSorter suffixSorter;
-
-  /** Other preprocessing components required for the test */
+  /** Preprocessing components required for the test */
   private InputTokenizer tokenizer;
 
   private CaseNormalizer caseNormalizer;
@@ -34,7 +33,6 @@ public class SuffixSorterTest extends TestBase {
   public void setUpPreprocessingComponents() {
     tokenizer = new InputTokenizer();
     caseNormalizer = new CaseNormalizer();
-    suffixSorter = new SuffixSorter();
   }
 
   @Test
@@ -105,21 +103,67 @@ public class SuffixSorterTest extends TestBase {
         expectedLcpArray);
   }
 
-  private void checkAsserts(
-      Stream<? extends Document> documents, int[] expectedSuffixOrder, int[] expectedLcpArray) {
+  @Test
+  public void testSuffixSortingAlgorithmsEquivalent() {
+    for (int round = 0; round < 100; round++) {
+      // Highly repetitive input, with runs of words, repeated blocks and unique separators.
+      final int length = randomIntBetween(1, 2000);
+      final int words = randomIntBetween(1, 20);
+      final int[] wordIndex = new int[length];
+      int i = 0;
+      while (i < length) {
+        if (i > 10 && randomBoolean()) {
+          int from = randomIntBetween(0, i - 10);
+          int copies = randomIntBetween(1, 10);
+          while (i < length && copies-- > 0) {
+            wordIndex[i++] = wordIndex[from++];
+          }
+        } else {
+          wordIndex[i++] = randomIntBetween(0, 10) == 0 ? -1 : randomIntBetween(0, words - 1);
+        }
+      }
+      wordIndex[length - 1] = -1;
+
+      PreprocessingContext expected = contextWithWordIndex(wordIndex);
+      new SuffixSorter(SuffixSortingAlgorithm.MERGESORT).suffixSort(expected);
+      PreprocessingContext actual = contextWithWordIndex(wordIndex);
+      new SuffixSorter(SuffixSortingAlgorithm.SAIS).suffixSort(actual);
+
+      Assertions.assertThat(actual.allTokens.suffixOrder)
+          .as("allTokens.suffixOrder")
+          .containsExactly(expected.allTokens.suffixOrder);
+      Assertions.assertThat(actual.allTokens.lcp)
+          .as("allTokens.lcp")
+          .containsExactly(expected.allTokens.lcp);
+    }
+  }
+
+  private PreprocessingContext contextWithWordIndex(int[] wordIndex) {
     PreprocessingContext context =
         new PreprocessingContext(
             CachedLangComponents.loadCached(TestsLanguageComponentsFactoryVariant2.NAME));
+    context.allTokens.wordIndex = wordIndex.clone();
+    return context;
+  }
 
-    tokenizer.tokenize(context, documents);
-    caseNormalizer.normalize(context, 1);
-    suffixSorter.suffixSort(context);
-
-    Assertions.assertThat(context.allTokens.suffixOrder)
-        .as("allTokens.suffixOrder")
-        .containsExactly(expectedSuffixOrder);
-    Assertions.assertThat(context.allTokens.lcp)
-        .as("allTokens.lcp")
-        .containsExactly(expectedLcpArray);
+  private void checkAsserts(
+      Stream<? extends Document> documents, int[] expectedSuffixOrder, int[] expectedLcpArray) {
+    List<? extends Document> documentList = documents.collect(Collectors.toList());
+    for (SuffixSortingAlgorithm algorithm : SuffixSortingAlgorithm.values()) {
+      PreprocessingContext context =
+          new PreprocessingContext(
+              CachedLangComponents.loadCached(TestsLanguageComponentsFactoryVariant2.NAME));
+
+      tokenizer.tokenize(context, documentList.stream());
+      caseNormalizer.normalize(context, 1);
+      new SuffixSorter(algorithm).suffixSort(context);
+
+      Assertions.assertThat(context.allTokens.suffixOrder)
+          .as("allTokens.suffixOrder (" + algorithm + ")")
+          .containsExactly(expectedSuffixOrder);
+      Assertions.assertThat(context.allTokens.lcp)
+          .as("allTokens.lcp (" + algorithm + ")")
+          .containsExactly(expectedLcpArray);
+    }
   }
 }
@@ -15,7 +15,18 @@ import static org.carrot2.text.preprocessing.PreprocessingContextAssert.assertTh
 import static org.carrot2.text.preprocessing.PreprocessingContextAssert.tokens;
 import static org.carrot2.text.preprocessing.PreprocessingContextBuilder.FieldValue.fv;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.carrot2.TestBase;
+import org.carrot2.clustering.CachedLangComponents;
+import org.carrot2.clustering.Document;
+import org.carrot2.clustering.FieldMapDocument;
+import org.carrot2.language.LanguageComponents;
 import org.carrot2.language.Tokenizer;
 import org.junit.Test;
 
@@ -263,4 +274,60 @@ public class TokenizerTest extends TestBase {
         .containsExactly(
             new short[] {Tokenizer.TT_TERM, Tokenizer.TT_TERM, Tokenizer.TF_TERMINATOR});
   }
+
+  @Test
+  public void testParallelTokenizationEquivalent() {
+    final String[] words = {"data", "Data", "mining", "web", "site", "ai", ".", "x-ray", "!"};
+    final String[] fieldNames = {"title", "snippet", "body", "url"};
+
+    final List<Document> documents = new ArrayList<>();
+    for (int i = randomIntBetween(0, 200); i > 0; i--) {
+      FieldMapDocument doc = new FieldMapDocument();
+      final List<String> fields = new ArrayList<>(Arrays.asList(fieldNames));
+      Collections.shuffle(fields, getRandom());
+      for (String field : fields.subList(0, randomIntBetween(0, fields.size()))) {
+        StringBuilder sb = new StringBuilder();
+        for (int w = randomIntBetween(0, 10); w > 0; w--) {
+          sb.append(randomFrom(words)).append(' ');
+        }
+        doc.addField(field, sb.toString());
+      }
+      documents.add(doc);
+    }
+
+    final LanguageComponents languageComponents = CachedLangComponents.loadCached("English");
+    final PreprocessingContext expected = new PreprocessingContext(languageComponents);
+    new InputTokenizer().tokenize(expected, documents.stream());
+
+    final ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+    try {
+      final TokenizationExecutor tokenizationExecutor =
+          new TokenizationExecutor(executor, randomIntBetween(1, 20));
+      final PreprocessingContext actual =
+          new PreprocessingContext(
+              languageComponents.override(TokenizationExecutor.class, () -> tokenizationExecutor));
+      new InputTokenizer().tokenize(actual, documents.stream());
+
+      assertThat(actual.documentCount).isEqualTo(expected.documentCount);
+      assertThat(actual.allFields.name).containsExactly(expected.allFields.name);
+      assertThat(actual.allTokens.documentIndex).containsExactly(expected.allTokens.documentIndex);
+      assertThat(actual.allTokens.fieldIndex).containsExactly(expected.allTokens.fieldIndex);
+      assertThat(actual.allTokens.type).containsExactly(expected.allTokens.type);
+      assertThat(actual.allTokens.image).isEqualTo(expected.allTokens.image);
+      assertThat(internedImageIds(actual.allTokens.image))
+          .containsExactly(internedImageIds(expected.allTokens.image));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /** Replaces each image by the ordinal of its first occurrence (by reference). */
+  private static int[] internedImageIds(char[][] images) {
+    final IdentityHashMap<char[], Integer> ids = new IdentityHashMap<>();
+    final int[] result = new int[images.length];
+    for (int i = 0; i < images.length; i++) {
+      result[i] = images[i] == null ? -1 : ids.computeIfAbsent(images[i], (k) -> ids.size());
+    }
+    return result;
+  }
 }
@@ -164,6 +164,65 @@ public class SuffixTreeTest extends TestBase {
         nodes.toArray());
   }
 
+  @Test
+  public void testTransitionStoragesEquivalent() {
+    for (int round = 0; round < 20; round++) {
+      final int[] input = new int[randomIntBetween(1, 2000)];
+      final int maxSymbol = randomFrom(new Integer[] {3, 100, Integer.MAX_VALUE - 1});
+      for (int i = 0; i < input.length; i++) {
+        input[i] = randomIntBetween(0, maxSymbol);
+      }
+      input[input.length - 1] = -1;
+      final IntegerSequence seq = new IntegerSequence(input, 0, input.length);
+
+      final SuffixTree expected = SuffixTreeBuilder.from(seq).build();
+      final SuffixTree actual =
+          SuffixTreeBuilder.from(seq)
+              .withTransitionStorage(SuffixTree.TransitionStorage.SIBLING_LISTS)
+              .build();
+
+      assertEquals(expected.getStatesCount(), actual.getStatesCount());
+      assertEquals(expected.getTransitionsCount(), actual.getTransitionsCount());
+      assertEquals(nodes(expected, seq), nodes(actual, seq));
+      for (int i = 0; i < input.length; i++) {
+        assertTrue(actual.containsSuffix(new IntegerSequence(input, i, input.length - i)));
+      }
+      assertFalse(actual.containsSuffix(new IntegerSequence(new int[] {-2}, 0, 1)));
+    }
+  }
+
+  /** Returns paths of all states of the tree, sorted. */
+  private static ArrayList<String> nodes(SuffixTree stree, Sequence seq) {
+    final ArrayList<String> nodes = new ArrayList<String>();
+    stree.visit(
+        new VisitorAdapter() {
+          final IntArrayList states = new IntArrayList();
+
+          public void post(int state) {
+            if (stree.getRootState() != state) {
+              final StringBuilder buffer = new StringBuilder();
+              for (int i = 0; i < states.size(); i += 2)
+                for (int j = states.get(i); j <= states.get(i + 1); j++)
+                  buffer.append(seq.objectAt(j)).append(' ');
+
+              if (stree.isLeaf(state)) buffer.append("[leaf]");
+              nodes.add(buffer.toString());
+
+              states.remove(states.size() - 1);
+              states.remove(states.size() - 1);
+            }
+          }
+
+          public boolean edge(int fromState, int toState, int startIndex, int endIndex) {
+            states.add(startIndex);
+            states.add(endIndex);
+            return true;
+          }
+        });
+    Collections.sort(nodes);
+    return nodes;
+  }
+
   /**
    * Build a suffix tree for a given sequence and check if it contains all suffixes of the input
    * sequence (ending in leaves).
@@ -0,0 +1,93 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.carrotsearch.hppc.BitSet;
+import org.carrot2.TestBase;
+import org.junit.Test;
+
+/** Test cases for {@link CompressedBitSet}. */
+public class CompressedBitSetTest extends TestBase {
+  @Test
+  public void testSameAsBitSet() {
+    for (int round = 0; round < 50; round++) {
+      final BitSet expected = randomBitSet();
+      final CompressedBitSet bset = CompressedBitSet.copyOf(expected);
+
+      assertEqual(bset, expected);
+      for (int i = 0; i < 100; i++) {
+        final int index = randomIntBetween(0, (int) expected.length() + 10);
+        assertThat(bset.get(index)).isEqualTo(expected.get(index));
+        assertThat(bset.nextSetBit(index)).isEqualTo(expected.nextSetBit(index));
+      }
+    }
+  }
+
+  @Test
+  public void testSetAndOperations() {
+    for (int round = 0; round < 50; round++) {
+      final BitSet expectedA = randomBitSet();
+      final BitSet expectedB = randomBitSet();
+
+      // Elements set in random order.
+      final CompressedBitSet a = new CompressedBitSet();
+      final int[] elements = expectedA.asIntLookupContainer().toArray();
+      for (int i = elements.length; i > 0; i--) {
+        final int j = randomIntBetween(0, i - 1);
+        a.set(elements[j]);
+        elements[j] = elements[i - 1];
+      }
+      final CompressedBitSet b = CompressedBitSet.copyOf(expectedB);
+      assertEqual(a, expectedA);
+
+      assertThat(CompressedBitSet.intersectionCount(a, b))
+          .isEqualTo((int) BitSet.intersectionCount(expectedA, expectedB));
+
+      final CompressedBitSet union = CompressedBitSet.copyOf(expectedA);
+      union.or(b);
+      final BitSet expectedUnion = (BitSet) expectedA.clone();
+      expectedUnion.union(expectedB);
+      assertEqual(union, expectedUnion);
+      assertEqual(b, expectedB);
+
+      a.and(b);
+      expectedA.intersect(expectedB);
+      assertEqual(a, expectedA);
+
+      a.clear();
+      assertEqual(a, new BitSet());
+    }
+  }
+
+  /** Sparse and dense chunks over a range of a few chunks. */
+  private BitSet randomBitSet() {
+    final BitSet bset = new BitSet();
+    final int range = randomIntBetween(0, 3 << 16);
+    final int density = randomFrom(new Integer[] {1, 10, 100, 1000, 10000});
+    for (int i = randomIntBetween(0, range / 1000 * density / 100 + 10); --i >= 0; ) {
+      bset.set(randomIntBetween(0, range));
+    }
+    if (randomBoolean()) {
+      final int from = randomIntBetween(0, range);
+      bset.set(from, from + randomIntBetween(0, 10000));
+    }
+    return bset;
+  }
+
+  private static void assertEqual(CompressedBitSet actual, BitSet expected) {
+    assertThat(actual.toArray()).isEqualTo(expected.asIntLookupContainer().toArray());
+    assertThat(actual.cardinality()).isEqualTo((int) expected.cardinality());
+    assertThat(actual.length()).isEqualTo((int) expected.length());
+    assertThat(actual.isEmpty()).isEqualTo(expected.isEmpty());
+  }
+}
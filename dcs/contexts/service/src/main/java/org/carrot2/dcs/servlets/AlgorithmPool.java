@@ -0,0 +1,166 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import org.carrot2.clustering.ClusteringAlgorithm;
+
+/**
+ * A bounded pool of idle, fully configured clustering algorithm instances.
+ *
+ * <p>Instances are pooled under a {@link Key} consisting of the algorithm name, the request
+ * template name and a fingerprint of request parameters. An instance is only ever configured once,
+ * from the template and request parameters of its key, and is returned to the pool unchanged, so a
+ * pooled instance is always in the same state as a newly created and configured one. Each instance
+ * is used by one request at a time.
+ *
+ * <p>If there are more than <code>maxSize</code> idle instances, instances of the least recently
+ * used keys are evicted.
+ */
+final class AlgorithmPool {
+  static final class Key {
+    final String algorithm;
+    final String template;
+    final String parameters;
+
+    Key(String algorithm, String template, String parameters) {
+      this.algorithm = Objects.requireNonNull(algorithm);
+      this.template = template;
+      this.parameters = parameters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key other = (Key) o;
+      return algorithm.equals(other.algorithm)
+          && Objects.equals(template, other.template)
+          && Objects.equals(parameters, other.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(algorithm, template, parameters);
+    }
+
+    @Override
+    public String toString() {
+      return algorithm + " [template: " + template + ", parameters: " + parameters + "]";
+    }
+  }
+
+  private final int maxSize;
+
+  /** Idle instances, by key, in access order. */
+  private final LinkedHashMap<Key, ArrayDeque<ClusteringAlgorithm>> idle =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private int size;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  AlgorithmPool(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Pool size must be >= 0: " + maxSize);
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Takes an idle instance for the given key out of the pool.
+   *
+   * @return Returns a configured instance or <code>null</code> if there are no idle instances for
+   *     the key. The caller should then create and configure a new instance.
+   */
+  synchronized ClusteringAlgorithm borrow(Key key) {
+    ArrayDeque<ClusteringAlgorithm> instances = idle.get(key);
+    if (instances == null || instances.isEmpty()) {
+      misses.increment();
+      return null;
+    }
+
+    ClusteringAlgorithm algorithm = instances.pop();
+    if (instances.isEmpty()) {
+      idle.remove(key);
+    }
+    size--;
+    hits.increment();
+    return algorithm;
+  }
+
+  /**
+   * Returns an instance, configured according to the key, to the pool. The instance should not be
+   * used by the caller anymore.
+   */
+  synchronized void release(Key key, ClusteringAlgorithm algorithm) {
+    if (maxSize == 0) {
+      return;
+    }
+
+    idle.computeIfAbsent(key, (k) -> new ArrayDeque<>()).push(algorithm);
+    size++;
+
+    while (size > maxSize) {
+      Iterator<Map.Entry<Key, ArrayDeque<ClusteringAlgorithm>>> i = idle.entrySet().iterator();
+      ArrayDeque<ClusteringAlgorithm> eldest = i.next().getValue();
+      eldest.pollLast();
+      if (eldest.isEmpty()) {
+        i.remove();
+      }
+      size--;
+      evictions.increment();
+    }
+  }
+
+  /** @return Returns the number of idle instances in the pool. */
+  synchronized int size() {
+    return size;
+  }
+
+  int maxSize() {
+    return maxSize;
+  }
+
+  long hits() {
+    return hits.sum();
+  }
+
+  long misses() {
+    return misses.sum();
+  }
+
+  long evictions() {
+    return evictions.sum();
+  }
+
+  /** @return Returns the pool's counters, for diagnostic purposes. */
+  Map<String, Object> statistics() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("size", size());
+    stats.put("maxSize", maxSize());
+    stats.put("hits", hits());
+    stats.put("misses", misses());
+    stats.put("evictions", evictions());
+    return stats;
+  }
+}
@@ -10,15 +10,15 @@
  */
 package org.carrot2.dcs.servlets;
 
-import com.carrotsearch.hppc.cursors.IntCursor;
-import java.io.BufferedInputStream;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
-import java.util.function.BiConsumer;
+import java.util.Locale;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -28,73 +28,153 @@ import org.carrot2.attrs.Attrs;
 import org.carrot2.clustering.Cluster;
 import org.carrot2.clustering.ClusteringAlgorithm;
 import org.carrot2.clustering.ClusteringAlgorithmProvider;
-import org.carrot2.clustering.Document;
 import org.carrot2.dcs.model.ClusterRequest;
 import org.carrot2.dcs.model.ClusterResponse;
 import org.carrot2.dcs.model.ClusterServletParameters;
 import org.carrot2.dcs.model.ErrorResponseType;
+import org.carrot2.dcs.servlets.StreamingClusterRequest.DocumentRef;
 import org.carrot2.language.LanguageComponents;
 
 @SuppressWarnings("serial")
 public class ClusterServlet extends RestEndpoint {
-  private DcsContext dcsContext;
-  private ClusterRequest templateDefault = new ClusterRequest();
+  /** The number of documents per unit of a request's admission cost. */
+  static final int COST_UNIT_DOCUMENTS = 100;
 
-  private static class DocumentRef implements Document {
-    int ord;
-    ClusterRequest.Document source;
+  /** The number of characters of document fields per unit of a request's admission cost. */
+  static final int COST_UNIT_CHARACTERS = 100_000;
 
-    public DocumentRef(ClusterRequest.Document doc, int ord) {
-      this.source = doc;
-      this.ord = ord;
-    }
+  private static final Set<String> NO = Set.of("no", "false");
 
-    @Override
-    public void visitFields(BiConsumer<String, String> fieldConsumer) {
-      Map<String, String> fields = this.source.getFields();
-      fields.forEach(fieldConsumer);
-      fields.clear();
-    }
-  }
+  private DcsContext dcsContext;
+  private ClusterRequest templateDefault = new ClusterRequest();
+  private ObjectWriter parametersWriter;
 
   @Override
   public void init(ServletConfig config) throws ServletException {
     super.init(config);
 
     dcsContext = DcsContext.load(config.getServletContext());
+    parametersWriter = dcsContext.om.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+  }
+
+  @Override
+  public void destroy() {
+    if (dcsContext != null) {
+      dcsContext.clusteringExecutor.shutdown();
+    }
+    super.destroy();
   }
 
   @Override
   protected void doPost(HttpServletRequest request, HttpServletResponse response)
       throws IOException {
-    // TODO: support streaming mode in which the request is not fully deserialized but parsed and
-    // processed on the fly?
-
     try {
-      ClusterRequest template = parseTemplate(request);
-      ClusterRequest clusteringRequest = parseRequest(request);
-
-      ClusteringAlgorithm algorithm = parseAlgorithm(template, clusteringRequest);
+      String templateName = request.getParameter(ClusterServletParameters.PARAM_TEMPLATE);
+      ClusterRequest template = parseTemplate(templateName);
+      StreamingClusterRequest streamingRequest = parseRequest(request);
+      ClusterRequest clusteringRequest = streamingRequest.request;
 
-      // Get language components for the designated language.
+      // Get language components for the designated language. Validate the request before an
+      // algorithm instance is borrowed, so that it is always released.
       LanguageComponents language = getLanguage(template, clusteringRequest);
 
-      // Run the clustering.
-      List<Cluster<DocumentRef>> clusters = runClustering(clusteringRequest, algorithm, language);
+      AlgorithmPool.Key algorithmKey = algorithmKey(templateName, template, clusteringRequest);
+
+      // Return the cached result, if there is one.
+      ResultCache.Key cacheKey = null;
+      if (dcsContext.resultCache.isEnabled() && !bypassCache(request)) {
+        cacheKey = ResultCache.Key.of(algorithmKey, language.language(), streamingRequest);
+        List<Cluster<Integer>> cached = dcsContext.resultCache.get(cacheKey);
+        if (cached != null) {
+          writeJsonResponse(response, shouldIndent(request), new ClusterResponse(cached));
+          return;
+        }
+      }
+
+      ClusteringAlgorithm algorithm = dcsContext.algorithmPool.borrow(algorithmKey);
+      if (algorithm == null) {
+        algorithm = parseAlgorithm(algorithmKey.algorithm, template, clusteringRequest);
+      }
+
+      // Run the clustering on the clustering executor, if the request is admitted.
+      ClusteringAlgorithm admittedAlgorithm = algorithm;
+      List<Cluster<DocumentRef>> clusters;
+      try {
+        clusters =
+            dcsContext.clusteringExecutor.execute(
+                admissionCost(streamingRequest),
+                () -> runClustering(streamingRequest, admittedAlgorithm, language));
+      } catch (TerminateRequestException e) {
+        // Rejected before the algorithm was used, it can be reused.
+        dcsContext.algorithmPool.release(algorithmKey, algorithm);
+        throw e;
+      }
+      dcsContext.algorithmPool.release(algorithmKey, algorithm);
+
+      List<Cluster<Integer>> result = adapt(clusters);
+      if (cacheKey != null) {
+        dcsContext.resultCache.put(cacheKey, result);
+      }
 
-      writeJsonResponse(response, shouldIndent(request), new ClusterResponse(adapt(clusters)));
+      writeJsonResponse(response, shouldIndent(request), new ClusterResponse(result));
     } catch (Exception e) {
+      if (e instanceof TerminateRequestException
+          && ((TerminateRequestException) e).type == ErrorResponseType.SERVICE_UNAVAILABLE) {
+        response.setHeader(
+            "Retry-After", Integer.toString(dcsContext.clusteringExecutor.retryAfterSeconds()));
+      }
       handleException(request, response, e);
     }
   }
 
-  private ClusteringAlgorithm parseAlgorithm(
-      ClusterRequest template, ClusterRequest clusteringRequest) throws TerminateRequestException {
+  private static boolean bypassCache(HttpServletRequest request) {
+    String value = request.getParameter(ClusterServletParameters.PARAM_CACHE);
+    return value != null && NO.contains(value.trim().toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Returns the cost of clustering the request, used by the admission control of {@link
+   * ClusteringExecutor}: one unit, plus one for each {@link #COST_UNIT_DOCUMENTS} documents and
+   * each {@link #COST_UNIT_CHARACTERS} characters of document fields.
+   */
+  static int admissionCost(int documents, long textLength) {
+    long cost = 1L + documents / COST_UNIT_DOCUMENTS + textLength / COST_UNIT_CHARACTERS;
+    return (int) Math.min(Integer.MAX_VALUE, cost);
+  }
+
+  private static int admissionCost(StreamingClusterRequest streamingRequest) {
+    return admissionCost(streamingRequest.documentCount(), streamingRequest.textLength());
+  }
+
+  /**
+   * Returns the key of pooled algorithm instances for the request: the algorithm name, the template
+   * name and request parameters (serialized with sorted keys).
+   */
+  private AlgorithmPool.Key algorithmKey(
+      String templateName, ClusterRequest template, ClusterRequest clusteringRequest)
+      throws TerminateRequestException {
     String algorithmName = firstNotNull(clusteringRequest.algorithm, template.algorithm);
     if (algorithmName == null) {
       throw new TerminateRequestException(
           ErrorResponseType.BAD_REQUEST, "Algorithm must not be empty.");
     }
+
+    String parameters = null;
+    if (clusteringRequest.parameters != null) {
+      try {
+        parameters = parametersWriter.writeValueAsString(clusteringRequest.parameters);
+      } catch (JsonProcessingException e) {
+        throw new TerminateRequestException(
+            ErrorResponseType.BAD_REQUEST, "Could not process request parameters.", e);
+      }
+    }
+
+    return new AlgorithmPool.Key(algorithmName, templateName, parameters);
+  }
+
+  private ClusteringAlgorithm parseAlgorithm(
+      String algorithmName, ClusterRequest template, ClusterRequest clusteringRequest)
+      throws TerminateRequestException {
     ClusteringAlgorithmProvider supplier = dcsContext.algorithmSuppliers.get(algorithmName);
     if (supplier == null) {
       throw new TerminateRequestException(
@@ -128,9 +208,7 @@ public class ClusterServlet extends RestEndpoint {
     return null;
   }
 
-  private ClusterRequest parseTemplate(HttpServletRequest request)
-      throws TerminateRequestException {
-    String templateName = request.getParameter(ClusterServletParameters.PARAM_TEMPLATE);
+  private ClusterRequest parseTemplate(String templateName) throws TerminateRequestException {
     if (templateName == null) {
       return templateDefault;
     }
@@ -178,24 +256,16 @@ public class ClusterServlet extends RestEndpoint {
   }
 
   private List<Cluster<DocumentRef>> runClustering(
-      ClusterRequest clusteringRequest,
+      StreamingClusterRequest streamingRequest,
       ClusteringAlgorithm algorithm,
       LanguageComponents language) {
-    IntCursor c = new IntCursor();
-    Stream<DocumentRef> stream =
-        clusteringRequest.documents.stream()
-            .sequential()
-            .map(doc -> new DocumentRef(doc, c.value++));
-
-    return algorithm.cluster(stream, language);
+    return algorithm.cluster(streamingRequest.documents(), language);
   }
 
-  private ClusterRequest parseRequest(HttpServletRequest request) throws TerminateRequestException {
+  private StreamingClusterRequest parseRequest(HttpServletRequest request)
+      throws TerminateRequestException {
     try {
-      return dcsContext
-          .om
-          .readerFor(ClusterRequest.class)
-          .readValue(new BufferedInputStream(request.getInputStream()));
+      return StreamingClusterRequest.parse(dcsContext.om, request.getInputStream());
     } catch (IOException e) {
       throw new TerminateRequestException(
           ErrorResponseType.BAD_REQUEST, "Could not parse request body.", e);
@@ -0,0 +1,236 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.carrot2.dcs.model.ErrorResponseType;
+
+/**
+ * Runs clustering tasks on a dedicated, bounded pool of threads, with admission control.
+ *
+ * <p>At most <code>maxConcurrency</code> tasks run at the same time. Other tasks wait for a thread
+ * in the order of arrival, each for at most <code>maxQueueTime</code> milliseconds. Every task has
+ * a cost (a measure of the work it requires) and the total cost of waiting tasks is bounded by
+ * <code>maxQueueCost</code>. A task that does not fit in the queue is rejected immediately, a task
+ * that could not start within its queue time limit is rejected when the limit passes. Rejected
+ * tasks end with a {@link TerminateRequestException} of type {@link
+ * ErrorResponseType#SERVICE_UNAVAILABLE}.
+ */
+final class ClusteringExecutor {
+  private final int maxConcurrency;
+  private final int maxQueueCost;
+  private final long maxQueueTime;
+
+  /** Permits to run a task, one per thread. Fair, so that waiting tasks start in order. */
+  private final Semaphore permits;
+
+  private final ThreadPoolExecutor executor;
+
+  /** The total cost of tasks waiting for a permit. */
+  private final AtomicInteger queuedCost = new AtomicInteger();
+
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder rejectedQueueFull = new LongAdder();
+  private final LongAdder rejectedQueueTime = new LongAdder();
+
+  ClusteringExecutor(int maxConcurrency, int maxQueueCost, long maxQueueTime) {
+    if (maxConcurrency <= 0) {
+      throw new IllegalArgumentException("Maximum concurrency must be > 0: " + maxConcurrency);
+    }
+    if (maxQueueCost < 0) {
+      throw new IllegalArgumentException("Maximum queue cost must be >= 0: " + maxQueueCost);
+    }
+    if (maxQueueTime < 0) {
+      throw new IllegalArgumentException("Maximum queue time must be >= 0: " + maxQueueTime);
+    }
+
+    this.maxConcurrency = maxConcurrency;
+    this.maxQueueCost = maxQueueCost;
+    this.maxQueueTime = maxQueueTime;
+    this.permits = new Semaphore(maxConcurrency, true);
+
+    // Idle threads time out, so that no threads linger if the executor is not shut down.
+    AtomicInteger threadId = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            maxConcurrency,
+            maxConcurrency,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            (runnable) -> {
+              Thread t = new Thread(runnable, "clustering-" + threadId.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Runs the task on one of the executor's threads and waits for its result.
+   *
+   * @param cost The cost of the task, in the same units as <code>maxQueueCost</code>. Costs
+   *     larger than <code>maxQueueCost</code> are truncated to it, so that any task can be queued
+   *     if the queue is empty.
+   * @throws TerminateRequestException If the task was rejected by admission control.
+   */
+  <T> T execute(int cost, Callable<T> task) throws Exception {
+    acquire(Math.max(1, Math.min(cost, maxQueueCost)));
+
+    // The permit is released by whoever flips this flag: the task (when it finishes) or the caller
+    // (if the task is cancelled before it starts). A cancelled task may keep running, so it holds
+    // on to its permit until it actually ends.
+    AtomicBoolean started = new AtomicBoolean();
+    Future<T> future;
+    try {
+      future =
+          executor.submit(
+              () -> {
+                if (!started.compareAndSet(false, true)) {
+                  return null;
+                }
+                try {
+                  return task.call();
+                } finally {
+                  completed.increment();
+                  permits.release();
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      throw new TerminateRequestException(
+          ErrorResponseType.SERVICE_UNAVAILABLE, "Clustering service is shutting down.");
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      if (started.compareAndSet(false, true)) {
+        permits.release();
+      }
+      future.cancel(true);
+      throw e;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw (Exception) cause;
+    }
+  }
+
+  /** Stops the executor's threads. Running tasks are interrupted, new tasks are rejected. */
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void acquire(int cost) throws TerminateRequestException, InterruptedException {
+    // Start right away if there is a free thread and nobody is waiting.
+    if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+      return;
+    }
+
+    int current;
+    do {
+      current = queuedCost.get();
+      if (current + cost > maxQueueCost) {
+        rejectedQueueFull.increment();
+        throw new TerminateRequestException(
+            ErrorResponseType.SERVICE_UNAVAILABLE,
+            "Clustering service saturated (too many queued requests), retry later.");
+      }
+    } while (!queuedCost.compareAndSet(current, current + cost));
+
+    try {
+      if (!permits.tryAcquire(maxQueueTime, TimeUnit.MILLISECONDS)) {
+        rejectedQueueTime.increment();
+        throw new TerminateRequestException(
+            ErrorResponseType.SERVICE_UNAVAILABLE,
+            "Clustering service saturated (queue time limit exceeded), retry later.");
+      }
+    } finally {
+      queuedCost.addAndGet(-cost);
+    }
+  }
+
+  /**
+   * @return Returns the number of seconds after which a rejected request could be retried: the
+   *     maximum queue time, rounded up to full seconds.
+   */
+  int retryAfterSeconds() {
+    return (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxQueueTime + 999));
+  }
+
+  int maxConcurrency() {
+    return maxConcurrency;
+  }
+
+  int maxQueueCost() {
+    return maxQueueCost;
+  }
+
+  long maxQueueTime() {
+    return maxQueueTime;
+  }
+
+  /** @return Returns the number of tasks currently running. */
+  int running() {
+    return maxConcurrency - permits.availablePermits();
+  }
+
+  /** @return Returns the (approximate) number of tasks waiting to run. */
+  int queued() {
+    return permits.getQueueLength();
+  }
+
+  int queuedCost() {
+    return queuedCost.get();
+  }
+
+  long completed() {
+    return completed.sum();
+  }
+
+  long rejectedQueueFull() {
+    return rejectedQueueFull.sum();
+  }
+
+  long rejectedQueueTime() {
+    return rejectedQueueTime.sum();
+  }
+
+  /** @return Returns the executor's limits and counters, for diagnostic purposes. */
+  Map<String, Object> statistics() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("maxConcurrency", maxConcurrency());
+    stats.put("maxQueueCost", maxQueueCost());
+    stats.put("maxQueueTime", maxQueueTime());
+    stats.put("running", running());
+    stats.put("queued", queued());
+    stats.put("queuedCost", queuedCost());
+    stats.put("completed", completed());
+    stats.put("rejectedQueueFull", rejectedQueueFull());
+    stats.put("rejectedQueueTime", rejectedQueueTime());
+    return stats;
+  }
+}
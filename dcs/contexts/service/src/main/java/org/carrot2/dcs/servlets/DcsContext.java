@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
@@ -37,6 +38,7 @@ import org.carrot2.dcs.model.ClusterRequest;
 import org.carrot2.language.LanguageComponents;
 import org.carrot2.language.LanguageComponentsLoader;
 import org.carrot2.language.LoadedLanguages;
+import org.carrot2.text.preprocessing.StemCache;
 import org.carrot2.util.ResourceLookup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,17 +47,56 @@ class DcsContext {
   public static final String PARAM_RESOURCES = "resources";
   public static final String PARAM_TEMPLATES = "templates";
   public static final String PARAM_ALGORITHMS = "algorithms";
+  public static final String PARAM_ALGORITHM_POOL_SIZE = "algorithmPoolSize";
+  public static final String PARAM_STEM_CACHE_SIZE = "stemCacheSize";
+  public static final String PARAM_MAX_CONCURRENT_CLUSTERINGS = "maxConcurrentClusterings";
+  public static final String PARAM_MAX_QUEUE_COST = "maxQueueCost";
+  public static final String PARAM_MAX_QUEUE_TIME = "maxQueueTime";
+  public static final String PARAM_RESULT_CACHE_SIZE = "resultCacheSize";
+  public static final String PARAM_RESULT_CACHE_MEMORY = "resultCacheMemory";
+  public static final String PARAM_RESULT_CACHE_TTL = "resultCacheTtl";
+
+  /** The default maximum number of idle algorithm instances in {@link #algorithmPool}. */
+  public static final int DEFAULT_ALGORITHM_POOL_SIZE = 32;
+
+  /** The default maximum number of words in each language's {@link StemCache}. */
+  public static final int DEFAULT_STEM_CACHE_SIZE = 200_000;
+
+  /**
+   * The default maximum number of concurrently running clusterings in {@link #clusteringExecutor}
+   * (0 stands for the number of available processors).
+   */
+  public static final int DEFAULT_MAX_CONCURRENT_CLUSTERINGS = 0;
+
+  /** The default maximum total cost of requests waiting in {@link #clusteringExecutor}. */
+  public static final int DEFAULT_MAX_QUEUE_COST = 100;
+
+  /** The default maximum time a request waits in {@link #clusteringExecutor}, in milliseconds. */
+  public static final int DEFAULT_MAX_QUEUE_TIME = 10_000;
+
+  /** The default maximum number of cached results in {@link #resultCache}. */
+  public static final int DEFAULT_RESULT_CACHE_SIZE = 1000;
+
+  /** The default maximum estimated size of cached results in {@link #resultCache}, in megabytes. */
+  public static final int DEFAULT_RESULT_CACHE_MEMORY = 64;
+
+  /** The default time to live of cached results in {@link #resultCache}, in seconds. */
+  public static final int DEFAULT_RESULT_CACHE_TTL = 600;
 
   private static String KEY = "_dcs_";
   private static Logger console = LoggerFactory.getLogger("console");
 
   private final LinkedHashMap<String, LanguageComponents> languages;
+  private final LinkedHashMap<String, StemCache> stemCaches = new LinkedHashMap<>();
 
   final ObjectMapper om;
   final Map<String, ClusterRequest> templates;
   final LinkedHashMap<String, ClusteringAlgorithmProvider> algorithmSuppliers;
   final LinkedHashMap<String, List<String>> algorithmLanguages;
   final ClassLoader cl = this.getClass().getClassLoader();
+  final AlgorithmPool algorithmPool;
+  final ClusteringExecutor clusteringExecutor;
+  final ResultCache resultCache;
 
   private DcsContext(ServletContext servletContext) throws ServletException {
     this.om = new ObjectMapper();
@@ -94,18 +135,71 @@ class DcsContext {
     this.templates = processTemplates(om, algorithmSuppliers, servletContext);
     this.languages = computeLanguageComponents(algorithmSuppliers, servletContext);
 
+    int stemCacheSize =
+        intParameter(servletContext, PARAM_STEM_CACHE_SIZE, DEFAULT_STEM_CACHE_SIZE);
+    if (stemCacheSize > 0) {
+      languages.replaceAll(
+          (lang, components) -> {
+            StemCache stemCache = new StemCache(stemCacheSize);
+            stemCaches.put(lang, stemCache);
+            return components.override(StemCache.class, () -> stemCache);
+          });
+    }
+
     this.algorithmSuppliers
         .entrySet()
         .removeIf(e -> !isAlgorithmAvailable(e.getValue(), languages.values()));
 
     this.algorithmLanguages = computeAlgorithmLanguagePairs(algorithmSuppliers, languages.values());
 
+    this.algorithmPool =
+        new AlgorithmPool(
+            intParameter(servletContext, PARAM_ALGORITHM_POOL_SIZE, DEFAULT_ALGORITHM_POOL_SIZE));
+
+    int maxConcurrentClusterings =
+        intParameter(
+            servletContext, PARAM_MAX_CONCURRENT_CLUSTERINGS, DEFAULT_MAX_CONCURRENT_CLUSTERINGS);
+    if (maxConcurrentClusterings == 0) {
+      maxConcurrentClusterings = Runtime.getRuntime().availableProcessors();
+    }
+    this.clusteringExecutor =
+        new ClusteringExecutor(
+            maxConcurrentClusterings,
+            intParameter(servletContext, PARAM_MAX_QUEUE_COST, DEFAULT_MAX_QUEUE_COST),
+            intParameter(servletContext, PARAM_MAX_QUEUE_TIME, DEFAULT_MAX_QUEUE_TIME));
+
+    this.resultCache =
+        new ResultCache(
+            intParameter(servletContext, PARAM_RESULT_CACHE_SIZE, DEFAULT_RESULT_CACHE_SIZE),
+            intParameter(servletContext, PARAM_RESULT_CACHE_MEMORY, DEFAULT_RESULT_CACHE_MEMORY)
+                * 1024L
+                * 1024L,
+            TimeUnit.SECONDS.toMillis(
+                intParameter(servletContext, PARAM_RESULT_CACHE_TTL, DEFAULT_RESULT_CACHE_TTL)));
+
     console.info(
         "DCS context initialized [algorithms: {}, templates: {}]",
         algorithmSuppliers.keySet(),
         templates.keySet());
   }
 
+  private static int intParameter(ServletContext servletContext, String name, int defaultValue)
+      throws ServletException {
+    String value = servletContext.getInitParameter(name);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      int intValue = Integer.parseInt(value.trim());
+      if (intValue < 0) {
+        throw new ServletException("Context parameter must be >= 0: " + name + "=" + value);
+      }
+      return intValue;
+    } catch (NumberFormatException e) {
+      throw new ServletException("Context parameter must be an integer: " + name + "=" + value);
+    }
+  }
+
   private static boolean isAlgorithmAvailable(
       ClusteringAlgorithmProvider provider, Collection<LanguageComponents> languages) {
     ClusteringAlgorithm algorithm = provider.get();
@@ -123,7 +217,9 @@ class DcsContext {
       LinkedHashMap<String, ClusteringAlgorithmProvider> algorithmSuppliers,
       ServletContext servletContext)
       throws ServletException {
-    LanguageComponentsLoader loader = LanguageComponents.loader();
+    // Language components are shared by all requests: reuse thread-safe resources and cache
+    // tokenizers and stemmers per request thread.
+    LanguageComponentsLoader loader = LanguageComponents.loader().withComponentCaching();
 
     String resourcePath = servletContext.getInitParameter(PARAM_RESOURCES);
     if (resourcePath != null && !resourcePath.trim().isEmpty()) {
@@ -242,6 +338,39 @@ class DcsContext {
     return languages.get(requestedLanguage);
   }
 
+  /** @return Returns the counters of the context's services, for diagnostic purposes. */
+  public Map<String, Object> statistics() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("algorithmPool", algorithmPool.statistics());
+    stats.put("clusteringExecutor", clusteringExecutor.statistics());
+    stats.put("resultCache", resultCache.statistics());
+
+    Map<String, Object> componentInstances = new LinkedHashMap<>();
+    languages.forEach(
+        (lang, components) -> {
+          Map<String, Long> counts = new LinkedHashMap<>();
+          components
+              .instanceCounts()
+              .forEach((clazz, count) -> counts.put(clazz.getSimpleName(), count));
+          componentInstances.put(lang, counts);
+        });
+    stats.put("languageComponentInstances", componentInstances);
+
+    Map<String, Object> stemCacheStats = new LinkedHashMap<>();
+    stemCaches.forEach(
+        (lang, stemCache) -> {
+          Map<String, Number> counts = new LinkedHashMap<>();
+          counts.put("size", stemCache.size());
+          counts.put("maxSize", stemCache.maxSize());
+          counts.put("hits", stemCache.hits());
+          counts.put("misses", stemCache.misses());
+          counts.put("evictions", stemCache.evictions());
+          stemCacheStats.put(lang, counts);
+        });
+    stats.put("stemCaches", stemCacheStats);
+    return stats;
+  }
+
   private static class TemplateInfo {
     private static Pattern NAME_PATTERN =
         Pattern.compile("(/)?(?<name>[^/]+)(.json)$", Pattern.CASE_INSENSITIVE);
@@ -0,0 +1,388 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.carrot2.clustering.Cluster;
+
+/**
+ * A bounded, in-memory cache of clustering results.
+ *
+ * <p>Results are cached under a {@link Key}: a SHA-256 digest of the algorithm, template name,
+ * request parameters, language and the contents of all documents. Cached results are shared, so
+ * they must not be modified.
+ *
+ * <p>The cache is bounded by the number of entries and by the estimated number of bytes of cached
+ * results. Entries expire after a fixed time to live (if it's not zero). The eviction policy
+ * follows W-TinyLFU: new entries are first put in a small LRU window (one percent of the cache's
+ * capacity). Entries evicted from the window are admitted to the main LRU area only if there is
+ * room or if they were requested more often than the main area's eviction victims. Request
+ * frequencies are approximated with a periodically aged count-min sketch, so that one-off
+ * requests don't push out results that are requested repeatedly.
+ */
+final class ResultCache {
+  /** A digest of everything that determines a clustering result. */
+  static final class Key {
+    private final byte[] digest;
+    private final long hash;
+
+    private Key(byte[] digest) {
+      this.digest = digest;
+      long hash = 0;
+      for (int i = 0; i < Long.BYTES; i++) {
+        hash = (hash << 8) | (digest[i] & 0xff);
+      }
+      this.hash = hash;
+    }
+
+    static Key of(
+        AlgorithmPool.Key algorithmKey, String language, StreamingClusterRequest request) {
+      MessageDigest md;
+      try {
+        md = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new RuntimeException("SHA-256 digest not available?", e);
+      }
+
+      update(md, algorithmKey.algorithm);
+      update(md, algorithmKey.template);
+      update(md, algorithmKey.parameters);
+      update(md, language);
+      request.digestDocuments(md);
+      return new Key(md.digest());
+    }
+
+    /** Updates the digest with a string's length (-1 for null) and its UTF-8 bytes. */
+    private static void update(MessageDigest md, String value) {
+      if (value == null) {
+        StreamingClusterRequest.updateInt(md, -1);
+      } else {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StreamingClusterRequest.updateInt(md, bytes.length);
+        md.update(bytes);
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o != null && getClass() == o.getClass() && Arrays.equals(digest, ((Key) o).digest);
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) hash;
+    }
+  }
+
+  private static final class Entry {
+    final Key key;
+    final List<Cluster<Integer>> clusters;
+    final long bytes;
+    final long expiresAt;
+
+    Entry(Key key, List<Cluster<Integer>> clusters, long bytes, long expiresAt) {
+      this.key = key;
+      this.clusters = clusters;
+      this.bytes = bytes;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /** The estimated size of a cache entry, without the clusters. */
+  private static final long ENTRY_BYTES = 160;
+
+  private final int maxEntries;
+  private final long maxBytes;
+  private final long timeToLive;
+
+  private final int windowMaxEntries;
+  private final long windowMaxBytes;
+  private final int mainMaxEntries;
+  private final long mainMaxBytes;
+
+  /** Recently added entries, in access order. */
+  private final LinkedHashMap<Key, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** Entries admitted from the window, in access order. */
+  private final LinkedHashMap<Key, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long windowBytes;
+  private long mainBytes;
+
+  private final FrequencySketch sketch;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+  private final LongAdder rejections = new LongAdder();
+
+  /**
+   * @param maxEntries The maximum number of cached results, 0 disables caching.
+   * @param maxBytes The maximum estimated size of cached results, in bytes.
+   * @param timeToLive The time after which cached results expire, in milliseconds. 0 means cached
+   *     results never expire.
+   */
+  ResultCache(int maxEntries, long maxBytes, long timeToLive) {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("Maximum number of entries must be >= 0: " + maxEntries);
+    }
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Maximum size must be >= 0: " + maxBytes);
+    }
+    if (timeToLive < 0) {
+      throw new IllegalArgumentException("Time to live must be >= 0: " + timeToLive);
+    }
+
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+
+    this.windowMaxEntries = maxEntries / 100;
+    this.windowMaxBytes = maxBytes / 100;
+    this.mainMaxEntries = maxEntries - windowMaxEntries;
+    this.mainMaxBytes = maxBytes - windowMaxBytes;
+    this.sketch = new FrequencySketch(maxEntries);
+  }
+
+  boolean isEnabled() {
+    return maxEntries > 0 && maxBytes > 0;
+  }
+
+  /**
+   * @return Returns the cached result for the key or <code>null</code> if there is no cached result
+   *     (or it has expired).
+   */
+  synchronized List<Cluster<Integer>> get(Key key) {
+    sketch.increment(key.hash);
+
+    Entry entry = window.get(key);
+    if (entry == null) {
+      entry = main.get(key);
+    }
+
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+
+    if (isExpired(entry, System.nanoTime())) {
+      remove(key);
+      expirations.increment();
+      misses.increment();
+      return null;
+    }
+
+    hits.increment();
+    return entry.clusters;
+  }
+
+  /** Caches the result for the key (if it fits in the cache). */
+  synchronized void put(Key key, List<Cluster<Integer>> clusters) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    long bytes = ENTRY_BYTES + estimateBytes(clusters);
+    if (bytes > mainMaxBytes) {
+      rejections.increment();
+      return;
+    }
+
+    remove(key);
+    window.put(key, new Entry(key, clusters, bytes, System.nanoTime() + timeToLive));
+    windowBytes += bytes;
+
+    while (window.size() > windowMaxEntries || windowBytes > windowMaxBytes) {
+      Iterator<Entry> i = window.values().iterator();
+      Entry candidate = i.next();
+      i.remove();
+      windowBytes -= candidate.bytes;
+      admit(candidate);
+    }
+  }
+
+  /**
+   * Moves an entry evicted from the window to the main area, if there is room or if the entry is
+   * more frequently requested than the main area's eviction victims.
+   */
+  private void admit(Entry candidate) {
+    long now = System.nanoTime();
+    if (isExpired(candidate, now)) {
+      expirations.increment();
+      return;
+    }
+
+    int candidateFrequency = sketch.frequency(candidate.key.hash);
+    while (main.size() + 1 > mainMaxEntries || mainBytes + candidate.bytes > mainMaxBytes) {
+      Iterator<Entry> i = main.values().iterator();
+      Entry victim = i.next();
+      if (isExpired(victim, now)) {
+        expirations.increment();
+      } else if (candidateFrequency > sketch.frequency(victim.key.hash)) {
+        evictions.increment();
+      } else {
+        rejections.increment();
+        return;
+      }
+      i.remove();
+      mainBytes -= victim.bytes;
+    }
+
+    main.put(candidate.key, candidate);
+    mainBytes += candidate.bytes;
+  }
+
+  private void remove(Key key) {
+    Entry entry = window.remove(key);
+    if (entry != null) {
+      windowBytes -= entry.bytes;
+    }
+    entry = main.remove(key);
+    if (entry != null) {
+      mainBytes -= entry.bytes;
+    }
+  }
+
+  private boolean isExpired(Entry entry, long now) {
+    return timeToLive > 0 && entry.expiresAt - now <= 0;
+  }
+
+  /** @return Returns the estimated number of bytes taken by the clusters. */
+  static long estimateBytes(List<Cluster<Integer>> clusters) {
+    long bytes = 16 + 4L * clusters.size();
+    for (Cluster<Integer> cluster : clusters) {
+      // The cluster, its score and lists.
+      bytes += 96;
+      for (String label : cluster.getLabels()) {
+        bytes += 44 + 2L * label.length();
+      }
+      // Boxed document ordinals and references to them.
+      bytes += 20L * cluster.getDocuments().size();
+      bytes += estimateBytes(cluster.getClusters());
+    }
+    return bytes;
+  }
+
+  /** @return Returns the number of cached results. */
+  synchronized int size() {
+    return window.size() + main.size();
+  }
+
+  /** @return Returns the estimated size of cached results, in bytes. */
+  synchronized long bytes() {
+    return windowBytes + mainBytes;
+  }
+
+  int maxEntries() {
+    return maxEntries;
+  }
+
+  long maxBytes() {
+    return maxBytes;
+  }
+
+  long hits() {
+    return hits.sum();
+  }
+
+  long misses() {
+    return misses.sum();
+  }
+
+  long evictions() {
+    return evictions.sum();
+  }
+
+  long expirations() {
+    return expirations.sum();
+  }
+
+  long rejections() {
+    return rejections.sum();
+  }
+
+  /** @return Returns the cache's counters, for diagnostic purposes. */
+  Map<String, Object> statistics() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("size", size());
+    stats.put("maxSize", maxEntries());
+    stats.put("bytes", bytes());
+    stats.put("maxBytes", maxBytes());
+    stats.put("hits", hits());
+    stats.put("misses", misses());
+    stats.put("evictions", evictions());
+    stats.put("expirations", expirations());
+    stats.put("rejections", rejections());
+    return stats;
+  }
+
+  /**
+   * A count-min sketch of 4-bit (saturating) counters, four counters per key. All counters are
+   * halved after a number of increments proportional to the cache size, so that the frequencies
+   * reflect recent requests.
+   */
+  private static final class FrequencySketch {
+    private static final int MAX_COUNT = 15;
+
+    private final byte[] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int increments;
+
+    FrequencySketch(int maxEntries) {
+      int size = 1024;
+      while (size < 8L * maxEntries && size < (1 << 26)) {
+        size <<= 1;
+      }
+      this.counters = new byte[size];
+      this.mask = size - 1;
+      this.sampleSize = 10 * Math.max(16, maxEntries);
+    }
+
+    void increment(long hash) {
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32) | 1;
+      for (int i = 0; i < 4; i++) {
+        int index = (h1 + i * h2) & mask;
+        if (counters[index] < MAX_COUNT) {
+          counters[index]++;
+        }
+      }
+
+      if (++increments >= sampleSize) {
+        for (int i = 0; i < counters.length; i++) {
+          counters[i] >>>= 1;
+        }
+        increments /= 2;
+      }
+    }
+
+    int frequency(long hash) {
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32) | 1;
+      int frequency = MAX_COUNT;
+      for (int i = 0; i < 4; i++) {
+        frequency = Math.min(frequency, counters[(h1 + i * h2) & mask]);
+      }
+      return frequency;
+    }
+  }
+}
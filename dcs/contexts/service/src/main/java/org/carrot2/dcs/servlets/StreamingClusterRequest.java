@@ -0,0 +1,277 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.carrot2.clustering.Document;
+import org.carrot2.dcs.model.ClusterRequest;
+
+/**
+ * A {@link ClusterRequest} parsed with Jackson's streaming {@link JsonParser}. Request properties
+ * other than documents are parsed into a {@link ClusterRequest} (with an empty document list).
+ * Document field values are copied straight from the parser's buffer into large, shared character
+ * pages, without creating intermediate strings or per-document maps.
+ *
+ * <p>The request format is the same as that of {@link ClusterRequest}: properties can come in any
+ * order, so the documents are fully parsed before clustering starts.
+ */
+final class StreamingClusterRequest {
+  private static final TypeReference<Map<String, Object>> PARAMETERS_TYPE =
+      new TypeReference<Map<String, Object>>() {};
+
+  /** The size of a single page of field values, in characters. */
+  private static final int PAGE_SIZE = 1 << 16;
+
+  /** Request properties other than documents. */
+  final ClusterRequest request = new ClusterRequest();
+
+  /** Distinct field names, in the order of first appearance. */
+  private final ArrayList<String> fieldNames = new ArrayList<>();
+
+  private final HashMap<String, Integer> fieldIndexes = new HashMap<>();
+
+  /** Pages of characters of field values. */
+  private final ArrayList<char[]> pages = new ArrayList<>();
+
+  private char[] page;
+  private int pageOffset;
+
+  /** The total number of characters of field values. */
+  private long textLength;
+
+  /**
+   * Fields of all documents, as quadruples: field name index, page index, offset, length. The
+   * length is <code>-1</code> for <code>null</code> field values.
+   */
+  private final IntArrayList fields = new IntArrayList();
+
+  /** Index of the first field of each document in {@link #fields} (plus a terminating entry). */
+  private final IntArrayList documentStarts = new IntArrayList();
+
+  private StreamingClusterRequest() {
+    documentStarts.add(0);
+  }
+
+  /** @return Returns the number of documents in the request. */
+  int documentCount() {
+    return documentStarts.size() - 1;
+  }
+
+  /** @return Returns the total length of all document field values, in characters. */
+  long textLength() {
+    return textLength;
+  }
+
+  /**
+   * @return Returns a sequential stream of documents in the request, in the order they appeared in
+   *     the input.
+   */
+  Stream<DocumentRef> documents() {
+    return IntStream.range(0, documentCount()).mapToObj(DocumentRef::new);
+  }
+
+  /** A document in the request, identified by its ordinal. */
+  final class DocumentRef implements Document {
+    final int ord;
+
+    DocumentRef(int ord) {
+      this.ord = ord;
+    }
+
+    @Override
+    public void visitFields(BiConsumer<String, String> fieldConsumer) {
+      final int[] buffer = fields.buffer;
+      for (int i = documentStarts.get(ord), max = documentStarts.get(ord + 1); i < max; i += 4) {
+        final int length = buffer[i + 3];
+        fieldConsumer.accept(
+            fieldNames.get(buffer[i]),
+            length < 0 ? null : new String(pages.get(buffer[i + 1]), buffer[i + 2], length));
+      }
+    }
+  }
+
+  /**
+   * Updates the digest with the contents of all documents: field names, then the number of
+   * documents and, for each document, the name index, length and characters of each field.
+   */
+  void digestDocuments(MessageDigest digest) {
+    final byte[] bytes = new byte[4096];
+    updateInt(digest, fieldNames.size());
+    for (String fieldName : fieldNames) {
+      final char[] chars = fieldName.toCharArray();
+      updateChars(digest, chars, 0, chars.length, bytes);
+    }
+
+    updateInt(digest, documentCount());
+    final int[] buffer = fields.buffer;
+    for (int ord = 0; ord < documentCount(); ord++) {
+      final int start = documentStarts.get(ord);
+      final int end = documentStarts.get(ord + 1);
+      updateInt(digest, (end - start) / 4);
+      for (int i = start; i < end; i += 4) {
+        updateInt(digest, buffer[i]);
+        final int length = buffer[i + 3];
+        if (length < 0) {
+          updateInt(digest, -1);
+        } else {
+          updateChars(digest, pages.get(buffer[i + 1]), buffer[i + 2], length, bytes);
+        }
+      }
+    }
+  }
+
+  /** Updates the digest with the length and UTF-16 bytes of the characters. */
+  private static void updateChars(
+      MessageDigest digest, char[] chars, int offset, int length, byte[] bytes) {
+    updateInt(digest, length);
+    for (int end = offset + length; offset < end; ) {
+      int n = Math.min(end - offset, bytes.length / 2);
+      for (int i = 0; i < n; i++) {
+        final char chr = chars[offset + i];
+        bytes[2 * i] = (byte) (chr >>> 8);
+        bytes[2 * i + 1] = (byte) chr;
+      }
+      digest.update(bytes, 0, 2 * n);
+      offset += n;
+    }
+  }
+
+  static void updateInt(MessageDigest digest, int value) {
+    digest.update((byte) (value >>> 24));
+    digest.update((byte) (value >>> 16));
+    digest.update((byte) (value >>> 8));
+    digest.update((byte) value);
+  }
+
+  static StreamingClusterRequest parse(ObjectMapper om, InputStream is) throws IOException {
+    try (JsonParser p = om.getFactory().createParser(is)) {
+      final StreamingClusterRequest parsed = new StreamingClusterRequest();
+      parsed.parseRequest(om, p);
+      return parsed;
+    }
+  }
+
+  private void parseRequest(ObjectMapper om, JsonParser p) throws IOException {
+    if (p.nextToken() != JsonToken.START_OBJECT) {
+      throw MismatchedInputException.from(
+          p, ClusterRequest.class, "Expected a JSON object with the request.");
+    }
+
+    while (p.nextToken() == JsonToken.FIELD_NAME) {
+      final String property = p.getCurrentName();
+      p.nextToken();
+      switch (property) {
+        case "language":
+          request.language = om.readValue(p, String.class);
+          break;
+        case "algorithm":
+          request.algorithm = om.readValue(p, String.class);
+          break;
+        case "parameters":
+          request.parameters = om.readValue(p, PARAMETERS_TYPE);
+          break;
+        case "documents":
+          parseDocuments(p);
+          break;
+        default:
+          throw UnrecognizedPropertyException.from(p, ClusterRequest.class, property, null);
+      }
+    }
+  }
+
+  private void parseDocuments(JsonParser p) throws IOException {
+    if (p.currentToken() == JsonToken.VALUE_NULL) {
+      return;
+    }
+    if (p.currentToken() != JsonToken.START_ARRAY) {
+      throw MismatchedInputException.from(
+          p, ClusterRequest.class, "Expected an array of documents.");
+    }
+
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+      if (p.currentToken() != JsonToken.START_OBJECT) {
+        throw MismatchedInputException.from(
+            p, ClusterRequest.Document.class, "Expected a JSON object with document fields.");
+      }
+
+      final int documentStart = fields.size();
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+        final int fieldIndex = fieldIndex(p.getCurrentName());
+        final JsonToken token = p.nextToken();
+
+        // Repeated fields replace the previous value (like in ClusterRequest.Document).
+        int at = fields.size();
+        for (int i = documentStart; i < fields.size(); i += 4) {
+          if (fields.get(i) == fieldIndex) {
+            at = i;
+            break;
+          }
+        }
+        if (at == fields.size()) {
+          fields.add(fieldIndex, 0, 0, 0);
+        }
+
+        if (token == JsonToken.VALUE_NULL) {
+          fields.set(at + 3, -1);
+        } else if (token == JsonToken.VALUE_STRING) {
+          append(at, p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        } else if (token.isScalarValue()) {
+          final char[] text = p.getText().toCharArray();
+          append(at, text, 0, text.length);
+        } else {
+          throw MismatchedInputException.from(
+              p, String.class, "Document field values must be strings: " + p.getCurrentName());
+        }
+      }
+      documentStarts.add(fields.size());
+    }
+  }
+
+  private int fieldIndex(String fieldName) {
+    return fieldIndexes.computeIfAbsent(
+        fieldName,
+        (k) -> {
+          fieldNames.add(k);
+          return fieldNames.size() - 1;
+        });
+  }
+
+  /** Copies the value of the field at <code>at</code> to the current page. */
+  private void append(int at, char[] chars, int offset, int length) {
+    if (pages.isEmpty() || page.length - pageOffset < length) {
+      page = new char[Math.max(PAGE_SIZE, length)];
+      pageOffset = 0;
+      pages.add(page);
+    }
+
+    System.arraycopy(chars, offset, page, pageOffset, length);
+    fields.set(at + 1, pages.size() - 1);
+    fields.set(at + 2, pageOffset);
+    fields.set(at + 3, length);
+    pageOffset += length;
+    textLength += length;
+  }
+}
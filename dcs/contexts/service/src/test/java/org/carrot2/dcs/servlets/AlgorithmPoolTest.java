@@ -0,0 +1,67 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.clustering.ClusteringAlgorithm;
+import org.junit.Test;
+
+public class AlgorithmPoolTest extends TestBase {
+  @Test
+  public void testBorrowAndRelease() {
+    AlgorithmPool pool = new AlgorithmPool(10);
+    AlgorithmPool.Key key1 = new AlgorithmPool.Key("Dummy", null, null);
+    AlgorithmPool.Key key2 = new AlgorithmPool.Key("Dummy", null, "{\"groupSize\":2}");
+
+    Assertions.assertThat(pool.borrow(key1)).isNull();
+    ClusteringAlgorithm a1 = new DummyAlgorithmProvider().get();
+    ClusteringAlgorithm a2 = new DummyAlgorithmProvider().get();
+    pool.release(key1, a1);
+    pool.release(key1, a2);
+
+    Assertions.assertThat(pool.borrow(key2)).isNull();
+    Assertions.assertThat(pool.borrow(new AlgorithmPool.Key("Dummy", null, null))).isSameAs(a2);
+    Assertions.assertThat(pool.borrow(key1)).isSameAs(a1);
+    Assertions.assertThat(pool.borrow(key1)).isNull();
+
+    Assertions.assertThat(pool.hits()).isEqualTo(2);
+    Assertions.assertThat(pool.misses()).isEqualTo(3);
+    Assertions.assertThat(pool.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testLeastRecentlyUsedKeysEvicted() {
+    AlgorithmPool pool = new AlgorithmPool(2);
+    AlgorithmPool.Key key1 = new AlgorithmPool.Key("Dummy", "t1", null);
+    AlgorithmPool.Key key2 = new AlgorithmPool.Key("Dummy", "t2", null);
+    AlgorithmPool.Key key3 = new AlgorithmPool.Key("Dummy", "t3", null);
+
+    pool.release(key1, new DummyAlgorithmProvider().get());
+    pool.release(key2, new DummyAlgorithmProvider().get());
+    pool.release(key3, new DummyAlgorithmProvider().get());
+
+    Assertions.assertThat(pool.size()).isEqualTo(2);
+    Assertions.assertThat(pool.evictions()).isEqualTo(1);
+    Assertions.assertThat(pool.borrow(key1)).isNull();
+    Assertions.assertThat(pool.borrow(key2)).isNotNull();
+    Assertions.assertThat(pool.borrow(key3)).isNotNull();
+  }
+
+  @Test
+  public void testPoolingDisabled() {
+    AlgorithmPool pool = new AlgorithmPool(0);
+    AlgorithmPool.Key key = new AlgorithmPool.Key("Dummy", null, null);
+    pool.release(key, new DummyAlgorithmProvider().get());
+    Assertions.assertThat(pool.size()).isEqualTo(0);
+    Assertions.assertThat(pool.borrow(key)).isNull();
+  }
+}
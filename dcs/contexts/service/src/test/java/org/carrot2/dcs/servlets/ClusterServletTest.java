@@ -10,16 +10,20 @@
  */
 package org.carrot2.dcs.servlets;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.servlet.http.HttpServletResponse;
 import org.assertj.core.api.Assertions;
 import org.carrot2.dcs.model.ClusterResponse;
@@ -70,6 +74,81 @@ public class ClusterServletTest extends AbstractServletTest {
         "extraUnusedAttr.response.json");
   }
 
+  @Test
+  public void testAlgorithmInstancesReused() throws Exception {
+    shareDcsContext();
+
+    // Bypass the result cache so that pooled instances are actually used.
+    when(request.getParameter(ClusterServletParameters.PARAM_CACHE)).thenReturn("false");
+    verifyRequest("attrInRequest.request.json", "attrInRequest.response.json");
+    verifyRequest("simple.request.json", "simple.response.json");
+    verifyRequest("attrInRequest.request.json", "attrInRequest.response.json");
+    verifyRequest("simple.request.json", "simple.response.json");
+
+    JsonNode pool = statistics().get("algorithmPool");
+    Assertions.assertThat(pool.get("misses").asLong()).isEqualTo(2);
+    Assertions.assertThat(pool.get("hits").asLong()).isEqualTo(2);
+    Assertions.assertThat(pool.get("size").asLong()).isEqualTo(2);
+  }
+
+  @Test
+  public void testResultsCached() throws Exception {
+    shareDcsContext();
+
+    verifyRequest("simple.request.json", "simple.response.json");
+    verifyRequest("simple.request.json", "simple.response.json");
+    verifyRequest("attrInRequest.request.json", "attrInRequest.response.json");
+
+    // Requests can bypass the cache.
+    when(request.getParameter(ClusterServletParameters.PARAM_CACHE)).thenReturn("false");
+    verifyRequest("simple.request.json", "simple.response.json");
+
+    JsonNode statistics = statistics();
+    JsonNode cache = statistics.get("resultCache");
+    Assertions.assertThat(cache.get("hits").asLong()).isEqualTo(1);
+    Assertions.assertThat(cache.get("misses").asLong()).isEqualTo(2);
+    Assertions.assertThat(cache.get("size").asLong()).isEqualTo(2);
+
+    // Cache hits don't borrow algorithm instances.
+    JsonNode pool = statistics.get("algorithmPool");
+    Assertions.assertThat(pool.get("misses").asLong()).isEqualTo(2);
+    Assertions.assertThat(pool.get("hits").asLong()).isEqualTo(1);
+  }
+
+  @Test
+  public void testAdmissionCost() {
+    Assertions.assertThat(ClusterServlet.admissionCost(0, 0)).isEqualTo(1);
+    Assertions.assertThat(ClusterServlet.admissionCost(99, 99_999)).isEqualTo(1);
+    Assertions.assertThat(ClusterServlet.admissionCost(250, 1000)).isEqualTo(3);
+    Assertions.assertThat(ClusterServlet.admissionCost(10, 250_000)).isEqualTo(3);
+    Assertions.assertThat(ClusterServlet.admissionCost(100, Long.MAX_VALUE))
+        .isEqualTo(Integer.MAX_VALUE);
+  }
+
+  /** Shares the DCS context between servlets. */
+  private void shareDcsContext() {
+    AtomicReference<Object> dcsContext = new AtomicReference<>();
+    doAnswer(
+            (a) -> {
+              dcsContext.set(a.getArgument(1));
+              return null;
+            })
+        .when(context)
+        .setAttribute(anyString(), any());
+    when(context.getAttribute(anyString())).thenAnswer((a) -> dcsContext.get());
+  }
+
+  private JsonNode statistics() throws Exception {
+    StringWriter sw = new StringWriter();
+    PrintWriter pw = new PrintWriter(sw);
+    when(response.getWriter()).thenReturn(pw);
+    StatsServlet stats = new StatsServlet();
+    stats.init(config);
+    stats.doGet(request, response);
+    pw.flush();
+    return new ObjectMapper().readTree(sw.toString());
+  }
+
   private void verifyInvalidRequest(
       int expectedStatus, String requestResource, String responseResource) throws Exception {
     String requestData = resourceString(requestResource);
@@ -0,0 +1,187 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.dcs.model.ErrorResponseType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClusteringExecutorTest extends TestBase {
+  private ExecutorService callers;
+  private CountDownLatch release;
+
+  @Before
+  public void setUpCallers() {
+    callers = Executors.newCachedThreadPool();
+    release = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDownCallers() throws Exception {
+    release.countDown();
+    callers.shutdown();
+    callers.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testRejectedWhenSaturated() throws Exception {
+    ClusteringExecutor executor = new ClusteringExecutor(2, 0, 1000);
+    Future<?> f1 = submitBlocking(executor, 1);
+    Future<?> f2 = submitBlocking(executor, 1);
+    awaitRunning(executor, 2);
+
+    assertRejected(executor, 1);
+    Assertions.assertThat(executor.rejectedQueueFull()).isEqualTo(1);
+
+    release.countDown();
+    f1.get();
+    f2.get();
+    Assertions.assertThat(executor.execute(1, () -> "done")).isEqualTo("done");
+    Assertions.assertThat(executor.completed()).isEqualTo(3);
+  }
+
+  @Test
+  public void testRejectedAfterQueueTime() throws Exception {
+    ClusteringExecutor executor = new ClusteringExecutor(1, 10, 50);
+    submitBlocking(executor, 1);
+    awaitRunning(executor, 1);
+
+    assertRejected(executor, 1);
+    Assertions.assertThat(executor.rejectedQueueTime()).isEqualTo(1);
+    Assertions.assertThat(executor.queuedCost()).isEqualTo(0);
+  }
+
+  @Test
+  public void testQueueBoundedByCost() throws Exception {
+    ClusteringExecutor executor = new ClusteringExecutor(1, 5, 10_000);
+    Future<?> running = submitBlocking(executor, 1);
+    awaitRunning(executor, 1);
+
+    Future<?> queued = submitBlocking(executor, 3);
+    while (executor.queuedCost() != 3) {
+      Thread.sleep(5);
+    }
+
+    assertRejected(executor, 3);
+    Assertions.assertThat(executor.rejectedQueueFull()).isEqualTo(1);
+
+    release.countDown();
+    running.get();
+    queued.get();
+    Assertions.assertThat(executor.queuedCost()).isEqualTo(0);
+  }
+
+  @Test
+  public void testLargeCostTruncated() throws Exception {
+    ClusteringExecutor executor = new ClusteringExecutor(1, 5, 10_000);
+    Future<?> running = submitBlocking(executor, 1);
+    awaitRunning(executor, 1);
+
+    // Costs larger than the queue's capacity are truncated to it, so the task can wait.
+    Future<?> queued = submitBlocking(executor, 100);
+    while (executor.queuedCost() != 5) {
+      Thread.sleep(5);
+    }
+    assertRejected(executor, 1);
+
+    release.countDown();
+    running.get();
+    queued.get();
+    Assertions.assertThat(executor.rejectedQueueFull()).isEqualTo(1);
+  }
+
+  @Test
+  public void testTaskExceptionRethrown() {
+    ClusteringExecutor executor = new ClusteringExecutor(1, 1, 1000);
+    Assertions.assertThatThrownBy(
+            () ->
+                executor.execute(
+                    1,
+                    () -> {
+                      throw new IOException("task failed");
+                    }))
+        .isInstanceOf(IOException.class)
+        .hasMessage("task failed");
+    Assertions.assertThat(executor.running()).isEqualTo(0);
+  }
+
+  @Test
+  public void testPermitHeldUntilCancelledTaskEnds() throws Exception {
+    ClusteringExecutor executor = new ClusteringExecutor(1, 0, 1000);
+    CountDownLatch taskStarted = new CountDownLatch(1);
+    CountDownLatch taskEnded = new CountDownLatch(1);
+    Future<?> caller =
+        callers.submit(
+            () ->
+                executor.execute(
+                    1,
+                    () -> {
+                      taskStarted.countDown();
+                      // Ignore interrupts, like a running clustering algorithm.
+                      while (true) {
+                        try {
+                          release.await();
+                          break;
+                        } catch (InterruptedException e) {
+                          // Keep waiting.
+                        }
+                      }
+                      taskEnded.countDown();
+                      return null;
+                    }));
+    taskStarted.await();
+
+    caller.cancel(true);
+    Thread.sleep(50);
+    Assertions.assertThat(executor.running()).isEqualTo(1);
+    assertRejected(executor, 1);
+
+    release.countDown();
+    taskEnded.await();
+    awaitRunning(executor, 0);
+    Assertions.assertThat(executor.completed()).isEqualTo(1);
+  }
+
+  @Test
+  public void testRejectedAfterShutdown() {
+    ClusteringExecutor executor = new ClusteringExecutor(1, 1, 1000);
+    executor.shutdown();
+    assertRejected(executor, 1);
+    Assertions.assertThat(executor.running()).isEqualTo(0);
+  }
+
+  private Future<?> submitBlocking(ClusteringExecutor executor, int cost) {
+    return callers.submit(() -> executor.execute(cost, () -> release.await(10, TimeUnit.SECONDS)));
+  }
+
+  private static void awaitRunning(ClusteringExecutor executor, int running)
+      throws InterruptedException {
+    while (executor.running() != running) {
+      Thread.sleep(5);
+    }
+  }
+
+  private static void assertRejected(ClusteringExecutor executor, int cost) {
+    Assertions.assertThatThrownBy(() -> executor.execute(cost, () -> "done"))
+        .isInstanceOfSatisfying(
+            TerminateRequestException.class,
+            (e) -> Assertions.assertThat(e.type).isEqualTo(ErrorResponseType.SERVICE_UNAVAILABLE));
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.clustering.Cluster;
+import org.junit.Test;
+
+public class ResultCacheTest extends TestBase {
+  private static final AlgorithmPool.Key ALGORITHM = new AlgorithmPool.Key("Dummy", null, null);
+
+  @Test
+  public void testKeyDependsOnAllInputs() throws IOException {
+    String documents = "{\"documents\": [{\"title\": \"foo\", \"snippet\": \"bar\"}]}";
+    ResultCache.Key key = key(ALGORITHM, "English", documents);
+
+    Assertions.assertThat(key).isEqualTo(key(ALGORITHM, "English", documents));
+    Assertions.assertThat(key(ALGORITHM, "English", documents).hashCode())
+        .isEqualTo(key.hashCode());
+
+    Assertions.assertThat(key)
+        .isNotEqualTo(key(new AlgorithmPool.Key("Other", null, null), "English", documents))
+        .isNotEqualTo(key(new AlgorithmPool.Key("Dummy", "t1", null), "English", documents))
+        .isNotEqualTo(key(new AlgorithmPool.Key("Dummy", null, "{}"), "English", documents))
+        .isNotEqualTo(key(ALGORITHM, "Polish", documents))
+        .isNotEqualTo(key(ALGORITHM, "English", "{\"documents\": [{\"title\": \"foo\"}]}"))
+        .isNotEqualTo(
+            key(
+                ALGORITHM,
+                "English",
+                "{\"documents\": [{\"title\": \"foo\", \"snippet\": \"baz\"}]}"))
+        .isNotEqualTo(
+            key(
+                ALGORITHM,
+                "English",
+                "{\"documents\": [{\"title\": \"foo\"}, {\"snippet\": \"bar\"}]}"));
+
+    Assertions.assertThat(key(ALGORITHM, "English", "{\"documents\": [{\"a\": \"bc\"}]}"))
+        .isNotEqualTo(key(ALGORITHM, "English", "{\"documents\": [{\"ab\": \"c\"}]}"));
+    Assertions.assertThat(key(ALGORITHM, "English", "{\"documents\": [{\"a\": null}]}"))
+        .isNotEqualTo(key(ALGORITHM, "English", "{\"documents\": [{\"a\": \"\"}]}"));
+  }
+
+  @Test
+  public void testGetAndPut() throws IOException {
+    ResultCache cache = new ResultCache(10, 1 << 20, 0);
+    ResultCache.Key key1 = key(1);
+    List<Cluster<Integer>> clusters = clusters("foo");
+
+    Assertions.assertThat(cache.get(key1)).isNull();
+    cache.put(key1, clusters);
+    Assertions.assertThat(cache.get(key1)).isSameAs(clusters);
+    Assertions.assertThat(cache.get(key(2))).isNull();
+
+    Assertions.assertThat(cache.hits()).isEqualTo(1);
+    Assertions.assertThat(cache.misses()).isEqualTo(2);
+    Assertions.assertThat(cache.size()).isEqualTo(1);
+    Assertions.assertThat(cache.bytes()).isGreaterThan(0);
+  }
+
+  @Test
+  public void testEntriesExpire() throws Exception {
+    ResultCache cache = new ResultCache(10, 1 << 20, 1);
+    ResultCache.Key key1 = key(1);
+    cache.put(key1, clusters("foo"));
+    Thread.sleep(10);
+
+    Assertions.assertThat(cache.get(key1)).isNull();
+    Assertions.assertThat(cache.expirations()).isEqualTo(1);
+    Assertions.assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testFrequentlyRequestedEntriesRetained() throws IOException {
+    ResultCache cache = new ResultCache(10, 1 << 20, 0);
+    for (int i = 0; i < 10; i++) {
+      ResultCache.Key key = key(i);
+      cache.get(key);
+      cache.put(key, clusters("c" + i));
+    }
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 5; j++) {
+        Assertions.assertThat(cache.get(key(i))).isNotNull();
+      }
+    }
+
+    // One-off requests don't replace frequently requested entries.
+    for (int i = 10; i < 50; i++) {
+      ResultCache.Key key = key(i);
+      cache.get(key);
+      cache.put(key, clusters("c" + i));
+    }
+    Assertions.assertThat(cache.size()).isEqualTo(10);
+    for (int i = 0; i < 5; i++) {
+      Assertions.assertThat(cache.get(key(i))).isNotNull();
+    }
+
+    // A repeatedly requested result is admitted eventually.
+    ResultCache.Key key = key(100);
+    for (int i = 0; i < 3; i++) {
+      if (cache.get(key) == null) {
+        cache.put(key, clusters("c100"));
+      }
+    }
+    Assertions.assertThat(cache.get(key)).isNotNull();
+    Assertions.assertThat(cache.size()).isEqualTo(10);
+    Assertions.assertThat(cache.rejections()).isGreaterThan(0);
+    Assertions.assertThat(cache.evictions()).isGreaterThan(0);
+  }
+
+  @Test
+  public void testBoundedByEstimatedSize() throws IOException {
+    long maxBytes = 100_000;
+    ResultCache cache = new ResultCache(1000, maxBytes, 0);
+    for (int i = 0; i < 200; i++) {
+      ResultCache.Key key = key(i);
+      cache.get(key);
+      String label = String.join("", Collections.nCopies(randomIntBetween(1, 1000), "x"));
+      cache.put(key, clusters(label));
+      Assertions.assertThat(cache.bytes()).isLessThanOrEqualTo(maxBytes);
+    }
+
+    // Results larger than the cache are not cached.
+    ResultCache.Key key = key(1000);
+    cache.put(key, clusters(String.join("", Collections.nCopies(100_000, "x"))));
+    Assertions.assertThat(cache.get(key)).isNull();
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    ResultCache cache = new ResultCache(0, 1 << 20, 0);
+    Assertions.assertThat(cache.isEnabled()).isFalse();
+    cache.put(key(1), clusters("foo"));
+    Assertions.assertThat(cache.get(key(1))).isNull();
+    Assertions.assertThat(cache.size()).isEqualTo(0);
+  }
+
+  private static List<Cluster<Integer>> clusters(String label) {
+    return Collections.singletonList(new Cluster<Integer>().addLabel(label).addDocument(0));
+  }
+
+  private static ResultCache.Key key(int document) throws IOException {
+    return key(ALGORITHM, "English", "{\"documents\": [{\"title\": \"" + document + "\"}]}");
+  }
+
+  private static ResultCache.Key key(AlgorithmPool.Key algorithm, String language, String json)
+      throws IOException {
+    StreamingClusterRequest request =
+        StreamingClusterRequest.parse(
+            new ObjectMapper(), new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    return ResultCache.Key.of(algorithm, language, request);
+  }
+}
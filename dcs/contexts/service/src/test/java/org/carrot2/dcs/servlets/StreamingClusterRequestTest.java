@@ -0,0 +1,127 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.dcs.model.ClusterRequest;
+import org.junit.Test;
+
+public class StreamingClusterRequestTest extends TestBase {
+  private final ObjectMapper om =
+      new ObjectMapper().configure(JsonParser.Feature.ALLOW_COMMENTS, true);
+
+  @Test
+  public void testSameAsDataBinding() throws IOException {
+    assertSameAsDataBinding(
+        "{\"language\": \"English\", \"algorithm\": \"Lingo\", \"parameters\":"
+            + " {\"desiredClusterCount\": 5, \"preprocessing\": {\"x\": null}}, \"documents\":"
+            + " [{\"title\": \"foo bar\", \"snippet\": \"\\u0105 \\\"baz\\\"\"}, {}, {\"snippet\":"
+            + " null, \"number\": 42, \"flag\": true, \"title\": \"t1\", \"title\": \"t2\"}]}");
+  }
+
+  @Test
+  public void testDocumentsFirst() throws IOException {
+    assertSameAsDataBinding(
+        "/* comment */ {\"documents\": [{\"title\": \"foo\"}], \"algorithm\": \"STC\", "
+            + "\"language\": null}");
+  }
+
+  @Test
+  public void testNullAndEmptyDocuments() throws IOException {
+    Assertions.assertThat(parse("{\"documents\": null}").documentCount()).isEqualTo(0);
+    Assertions.assertThat(parse("{\"documents\": []}").documentCount()).isEqualTo(0);
+    Assertions.assertThat(parse("{}").documentCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testLargeFieldValues() throws IOException {
+    StringBuilder json = new StringBuilder("{\"documents\": [");
+    List<String> values = new ArrayList<>();
+    for (int i = randomIntBetween(1, 50); i > 0; i--) {
+      String value = randomAsciiLettersOfLengthBetween(0, 100_000);
+      values.add(value);
+      json.append(values.size() > 1 ? "," : "").append("{\"f\": \"").append(value).append("\"}");
+    }
+    json.append("]}");
+
+    Assertions.assertThat(fields(parse(json.toString())).stream().map(m -> m.get("f")))
+        .containsExactlyElementsOf(values);
+  }
+
+  @Test
+  public void testInvalidRequests() {
+    for (String json :
+        new String[] {
+          "[]",
+          "{\"unknown\": 1}",
+          "{\"documents\": {}}",
+          "{\"documents\": [\"foo\"]}",
+          "{\"documents\": [{\"title\": [\"foo\"]}]}",
+          "{\"documents\": [{\"title\": {}}]}",
+          "{\"language\": {}}",
+          "{\"documents\": [{\"title\": \"foo\"}"
+        }) {
+      Assertions.assertThatThrownBy(() -> parse(json)).as(json).isInstanceOf(IOException.class);
+    }
+  }
+
+  private void assertSameAsDataBinding(String json) throws IOException {
+    ClusterRequest expected = om.readValue(json, ClusterRequest.class);
+    StreamingClusterRequest actual = parse(json);
+
+    Assertions.assertThat(actual.request.language).isEqualTo(expected.language);
+    Assertions.assertThat(actual.request.algorithm).isEqualTo(expected.algorithm);
+    Assertions.assertThat(actual.request.parameters).isEqualTo(expected.parameters);
+    Assertions.assertThat(actual.documents().map(d -> d.ord))
+        .containsExactlyElementsOf(
+            IntStream.range(0, expected.documents.size()).boxed().collect(Collectors.toList()));
+
+    List<Map<String, String>> actualFields = fields(actual);
+    List<Map<String, String>> expectedFields =
+        expected.documents.stream()
+            .map(ClusterRequest.Document::getFields)
+            .collect(Collectors.toList());
+    Assertions.assertThat(actualFields).isEqualTo(expectedFields);
+    for (int i = 0; i < expectedFields.size(); i++) {
+      Assertions.assertThat(actualFields.get(i).keySet())
+          .containsExactlyElementsOf(expectedFields.get(i).keySet());
+    }
+  }
+
+  private static List<Map<String, String>> fields(StreamingClusterRequest request) {
+    return request
+        .documents()
+        .map(
+            doc -> {
+              Map<String, String> fields = new LinkedHashMap<>();
+              doc.visitFields(fields::put);
+              return fields;
+            })
+        .collect(Collectors.toList());
+  }
+
+  private StreamingClusterRequest parse(String json) throws IOException {
+    return StreamingClusterRequest.parse(
+        om, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -44,6 +44,9 @@ public class DcsLauncher extends Command<ExitCode> {
   public static final String OPT_PORT = "--port";
   public static final String OPT_HOME = "--home";
   public static final String OPT_MAX_THREADS = "--threads";
+  public static final String OPT_MAX_CONCURRENT_CLUSTERINGS = "--max-concurrent-clusterings";
+  public static final String OPT_MAX_QUEUE_COST = "--max-queue-cost";
+  public static final String OPT_MAX_QUEUE_TIME = "--max-queue-time";
 
   @Parameter(
       names = {"-p", OPT_PORT},
@@ -61,6 +64,25 @@ public class DcsLauncher extends Command<ExitCode> {
       hidden = true)
   public Integer maxThreads;
 
+  @Parameter(
+      names = {OPT_MAX_CONCURRENT_CLUSTERINGS},
+      description =
+          "Maximum number of concurrently running clustering requests "
+              + "(0: the number of available processors).")
+  public Integer maxConcurrentClusterings;
+
+  @Parameter(
+      names = {OPT_MAX_QUEUE_COST},
+      description =
+          "Maximum total cost of clustering requests waiting for execution "
+              + "(a request's cost depends on the number of documents and their text size).")
+  public Integer maxQueueCost;
+
+  @Parameter(
+      names = {OPT_MAX_QUEUE_TIME},
+      description = "Maximum time a clustering request waits for execution, in milliseconds.")
+  public Integer maxQueueTime;
+
   @Parameter(
       names = {OPT_SHUTDOWN_TOKEN},
       description = "Shutdown service's validation token.")
@@ -75,7 +97,9 @@ public class DcsLauncher extends Command<ExitCode> {
   @Override
   public ExitCode run() {
     try {
-      JettyContainer c = new JettyContainer(port, home.resolve("web"), shutdownToken, maxThreads);
+      JettyContainer c =
+          new JettyContainer(
+              port, home.resolve("web"), shutdownToken, maxThreads, contextParameters());
       c.start();
       c.join();
       return ExitCodes.SUCCESS;
@@ -85,6 +109,21 @@ public class DcsLauncher extends Command<ExitCode> {
     }
   }
 
+  /** Options passed to the web application contexts as context parameters (if set). */
+  private Map<String, String> contextParameters() {
+    Map<String, String> parameters = new HashMap<>();
+    if (maxConcurrentClusterings != null) {
+      parameters.put("maxConcurrentClusterings", maxConcurrentClusterings.toString());
+    }
+    if (maxQueueCost != null) {
+      parameters.put("maxQueueCost", maxQueueCost.toString());
+    }
+    if (maxQueueTime != null) {
+      parameters.put("maxQueueTime", maxQueueTime.toString());
+    }
+    return parameters;
+  }
+
   private void autodetectHome() {
     if (home == null) {
       home =
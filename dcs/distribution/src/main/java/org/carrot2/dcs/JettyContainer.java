@@ -17,9 +17,11 @@ import java.net.BindException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -42,16 +44,31 @@ public class JettyContainer {
   private final int port;
   private final Path webappContexts;
   private final String shutdownToken;
+  private final Map<String, String> contextParameters;
 
   private Server server;
   private ServerConnector connector;
   private Integer maxThreads;
 
   public JettyContainer(int port, Path contexts, String shutdownToken, Integer maxThreads) {
+    this(port, contexts, shutdownToken, maxThreads, Collections.emptyMap());
+  }
+
+  /**
+   * @param contextParameters Initialization parameters set on each web application context. Note
+   *     that context parameters declared in a context's <code>web.xml</code> take precedence.
+   */
+  public JettyContainer(
+      int port,
+      Path contexts,
+      String shutdownToken,
+      Integer maxThreads,
+      Map<String, String> contextParameters) {
     this.port = port;
     this.webappContexts = contexts;
     this.shutdownToken = shutdownToken;
     this.maxThreads = maxThreads;
+    this.contextParameters = contextParameters;
   }
 
   public void start() throws Exception {
@@ -104,6 +121,7 @@ public class JettyContainer {
       // Don't allow directory listings and don't use mmap buffers for serving static content.
       ctx.setInitParameter(DefaultServlet.CONTEXT_INIT + "dirAllowed", "false");
       ctx.setInitParameter(DefaultServlet.CONTEXT_INIT + "useFileMappedBuffer", "false");
+      contextParameters.forEach(ctx::setInitParameter);
 
       CONSOLE.debug("Deploying context '{}' at: {}.", ctxName, ctxPath);
       ctxHandlers.add(ctx);
@@ -13,4 +13,7 @@ package org.carrot2.dcs.model;
 public final class ClusterServletParameters {
 
   public static final String PARAM_TEMPLATE = "template";
+
+  /** Set to <code>false</code> to bypass the service's result cache (if it is enabled). */
+  public static final String PARAM_CACHE = "cache";
 }
@@ -15,6 +15,7 @@ import java.net.HttpURLConnection;
 public enum ErrorResponseType {
   BAD_REQUEST(HttpURLConnection.HTTP_BAD_REQUEST),
   LICENSING(HttpURLConnection.HTTP_INTERNAL_ERROR),
+  SERVICE_UNAVAILABLE(HttpURLConnection.HTTP_UNAVAILABLE),
   UNHANDLED_ERROR(HttpURLConnection.HTTP_INTERNAL_ERROR);
 
   public final int httpStatusCode;